@@ -0,0 +1,207 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Many contents and character searches run together in one pass over the episodes, e.g. the hundreds of searches a
+ * recommendation job makes against the same series.
+ * Running the searches one at a time scans every summary and upper cases it once per search. A batch upper cases
+ * each summary once and runs it through an Aho-Corasick automaton of every query, so each summary is read once
+ * however many queries there are and the cost of a batch grows far slower than the number of queries in it.
+ * Each query gets the same results as the matching TVSeries.searchEpisodesByContents or searchEpisodesByCharacter
+ * on the same episodes, in the order the episodes are searched. Queries with the same text are only matched once.
+ * A batch can be run any number of times, and by several threads at once as long as no queries are being added.
+ */
+public class BatchSearch {
+
+    //Query that matches every episode with a summary, i.e. empty contents
+    private static final int EVERY_SUMMARY = -1;
+
+    //Query that matches nothing, i.e. null contents or a null or empty character
+    private static final int NOTHING = -2;
+
+    //Upper cased text of each query, or null for queries that match nothing
+    private final ArrayList<String> upperTexts = new ArrayList<>();
+
+    //The automaton for the queries added so far, built by the first run after a query is added
+    private volatile Compiled compiled;
+
+    /**
+     * Adds a search for episodes whose summary contains the given content, like TVSeries.searchEpisodesByContents.
+     * @param contents is the contents you are searching for. Empty contents matches every episode with a summary and
+     *                 null matches nothing.
+     * @return the index of the query's results in what run returns.
+     */
+    public synchronized int addContentsQuery(final String contents) {
+
+        upperTexts.add(contents == null ? null : contents.toUpperCase());
+        compiled = null;
+        return upperTexts.size() - 1;
+
+    }
+
+    /**
+     * Adds a search for episodes whose summary mentions a character, like TVSeries.searchEpisodesByCharacter.
+     * @param character the name of the character you are looking for. Null or empty matches nothing.
+     * @return the index of the query's results in what run returns.
+     */
+    public synchronized int addCharacterQuery(final String character) {
+
+        upperTexts.add(character == null || character.isEmpty() ? null : character.toUpperCase());
+        compiled = null;
+        return upperTexts.size() - 1;
+
+    }
+
+    /**
+     * Getter for the number of queries.
+     * @return how many queries have been added.
+     */
+    public synchronized int size() {
+        return upperTexts.size();
+    }
+
+    /**
+     * Runs every query over the current episodes of a series.
+     * @param series is the series being searched.
+     * @return the results of each query in the order they were added, episodes in season and episode order.
+     */
+    public TVSeries.TVEpisode[][] run(final TVSeries series) {
+        return run(TVSeries.convert2DEpisodesTo1D(series.getEpisodes()));
+    }
+
+    /**
+     * Runs every query over some episodes, reading each summary once.
+     * @param episodes is the episodes being searched. Null episodes are skipped.
+     * @return the results of each query in the order they were added, episodes in the order they are given in.
+     */
+    public TVSeries.TVEpisode[][] run(final TVSeries.TVEpisode[] episodes) {
+
+        long startTime = SeriesMetrics.start();
+        Compiled current = compile();
+        int patternCount = current.patterns.length;
+
+        //Matches of each distinct text, with the episodes that have a summary at the end for empty contents
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayList<TVSeries.TVEpisode>[] patternMatches = new ArrayList[patternCount + 1];
+        for (int i = 0; i < patternMatches.length; i++) {
+            patternMatches[i] = new ArrayList<>();
+        }
+
+        if (episodes != null && current.queryPatterns.length > 0) {
+            //Last episode each text was found in, so an episode is only added once however often the text appears
+            int[] lastMatchedEpisode = new int[patternCount];
+            Arrays.fill(lastMatchedEpisode, -1);
+            for (int index = 0; index < episodes.length; index++) {
+                TVSeries.TVEpisode episode = episodes[index];
+                String summary = episode == null ? null : episode.getSummary();
+                //Skips the empty slots left by missing episode numbers and episodes without a summary
+                if (summary == null) {
+                    continue;
+                }
+                patternMatches[patternCount].add(episode);
+                if (current.matcher == null) {
+                    continue;
+                }
+
+                String upperSummary = summary.toUpperCase();
+                int state = current.matcher.startState();
+                for (int i = 0; i < upperSummary.length(); i++) {
+                    state = current.matcher.next(state, upperSummary.charAt(i));
+                    int[] found = current.matcher.matchesAt(state);
+                    if (found != null) {
+                        for (int pattern : found) {
+                            if (lastMatchedEpisode[pattern] != index) {
+                                lastMatchedEpisode[pattern] = index;
+                                patternMatches[pattern].add(episode);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        TVSeries.TVEpisode[][] results = new TVSeries.TVEpisode[current.queryPatterns.length][];
+        int resultCount = 0;
+        for (int query = 0; query < results.length; query++) {
+            int pattern = current.queryPatterns[query];
+            if (pattern == NOTHING) {
+                results[query] = new TVSeries.TVEpisode[0];
+            } else {
+                ArrayList<TVSeries.TVEpisode> matches = patternMatches[pattern == EVERY_SUMMARY ? patternCount
+                                                                                              : pattern];
+                results[query] = matches.toArray(new TVSeries.TVEpisode[matches.size()]);
+            }
+            resultCount += results[query].length;
+        }
+        SeriesMetrics.record(SeriesMetrics.Operation.BATCH_SEARCH, startTime, resultCount);
+        return results;
+
+    }
+
+    /**
+     * Gets the automaton for the current queries, building it if a query was added since it was last built.
+     * @return the compiled queries.
+     */
+    private Compiled compile() {
+
+        Compiled current = compiled;
+        if (current == null) {
+            synchronized (this) {
+                current = compiled;
+                if (current == null) {
+                    current = new Compiled(upperTexts);
+                    compiled = current;
+                }
+            }
+        }
+        return current;
+
+    }
+
+    /**
+     * The queries of a batch turned into the distinct texts being searched for and their automaton.
+     */
+    private static final class Compiled {
+
+        //Distinct non-empty texts being searched for
+        final String[] patterns;
+
+        //Index into patterns of each query's text, or EVERY_SUMMARY or NOTHING
+        final int[] queryPatterns;
+
+        //Automaton of the patterns, null if there aren't any
+        final MultiPatternMatcher matcher;
+
+        /**
+         * Constructor for the compiled form of some queries.
+         * @param upperTexts is the upper cased text of each query, null for queries that match nothing.
+         */
+        Compiled(final ArrayList<String> upperTexts) {
+
+            HashMap<String, Integer> patternIndexes = new HashMap<>();
+            queryPatterns = new int[upperTexts.size()];
+            for (int query = 0; query < queryPatterns.length; query++) {
+                String text = upperTexts.get(query);
+                if (text == null) {
+                    queryPatterns[query] = NOTHING;
+                } else if (text.isEmpty()) {
+                    queryPatterns[query] = EVERY_SUMMARY;
+                } else {
+                    Integer pattern = patternIndexes.putIfAbsent(text, patternIndexes.size());
+                    queryPatterns[query] = pattern == null ? patternIndexes.size() - 1 : pattern;
+                }
+            }
+
+            patterns = new String[patternIndexes.size()];
+            for (Map.Entry<String, Integer> entry : patternIndexes.entrySet()) {
+                patterns[entry.getValue()] = entry.getKey();
+            }
+            matcher = patterns.length == 0 ? null : new MultiPatternMatcher(patterns);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,284 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads every TVmaze show file in a directory into a SeriesCatalog using several threads.
+ * The work is a pipeline of three stages joined by bounded queues:
+ * one thread reads the files into memory, a pool of parser threads turns them into TVSeries, and the calling thread
+ * adds the finished series to the catalog. A full queue makes the stage before it wait, so no more than a few files
+ * are in memory at once no matter how many there are. A file that fails to read or parse, e.g. one without an
+ * embedded list of episodes, is recorded in the returned Report and the rest of the files are still loaded.
+ */
+public class CatalogLoader {
+
+    //Number of threads parsing files
+    private final int parserThreads;
+
+    //Most files waiting between two stages
+    private final int queueCapacity;
+
+    /**
+     * Constructor for a CatalogLoader that parses with one thread per core.
+     */
+    public CatalogLoader() {
+        this(Runtime.getRuntime().availableProcessors(), 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for a new CatalogLoader.
+     * @param parserThreads is the number of threads parsing files.
+     * @param queueCapacity is the most files waiting between two stages.
+     * @throws IllegalArgumentException if either number is less than 1.
+     */
+    public CatalogLoader(final int parserThreads, final int queueCapacity) throws IllegalArgumentException {
+
+        if (parserThreads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Parser threads and queue capacity must be at least 1");
+        }
+        this.parserThreads = parserThreads;
+        this.queueCapacity = queueCapacity;
+
+    }
+
+    /**
+     * Loads every regular file in a directory into a catalog.
+     * Series are added in the order they finish parsing, which is not necessarily the order of the files.
+     * @param directory is the directory holding the show files.
+     * @param catalog is the catalog the series are added to. Only the calling thread adds to it.
+     * @return which files were loaded and which failed.
+     * @throws IOException if the directory itself cannot be listed.
+     * @throws InterruptedException if the calling thread is interrupted, in which case the load is abandoned.
+     */
+    public Report load(final Path directory, final SeriesCatalog catalog) throws IOException, InterruptedException {
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            for (Path file : directoryStream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+
+        BlockingQueue<Item> readFiles = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Item> parsedFiles = new ArrayBlockingQueue<>(queueCapacity);
+        ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+        ExecutorService threads = Executors.newFixedThreadPool(parserThreads + 1);
+        try {
+            threads.execute(() -> readStage(files, readFiles, failures));
+            for (int i = 0; i < parserThreads; i++) {
+                threads.execute(() -> parseStage(readFiles, parsedFiles, failures));
+            }
+
+            //Every parser passes on one end marker once it runs out of files
+            int loadedCount = 0;
+            int finishedParsers = 0;
+            while (finishedParsers < parserThreads) {
+                Item item = parsedFiles.take();
+                if (item == Item.END) {
+                    finishedParsers++;
+                } else {
+                    catalog.addSeries(item.series);
+                    loadedCount++;
+                }
+            }
+
+            return new Report(loadedCount, new ArrayList<>(failures));
+        } finally {
+            threads.shutdownNow();
+        }
+
+    }
+
+    /**
+     * First stage: maps each file and touches all of its pages so the parsers don't wait on the disk.
+     * @param files is the files being loaded.
+     * @param readFiles is where read files are passed to the parsers.
+     * @param failures is where files that can't be read are recorded.
+     */
+    private void readStage(final List<Path> files, final BlockingQueue<Item> readFiles,
+                           final ConcurrentLinkedQueue<Failure> failures) {
+
+        try {
+            try {
+                for (Path file : files) {
+                    try {
+                        SeriesEvents.FileReadEvent event = new SeriesEvents.FileReadEvent();
+                        event.begin();
+                        MappedByteBuffer contents = MappedData.mapFile(file);
+                        contents.load();
+                        event.path = file.toString();
+                        event.bytes = contents.capacity();
+                        event.commit();
+                        readFiles.put(new Item(file, contents, null));
+                    } catch (IOException | RuntimeException e) {
+                        failures.add(new Failure(file, e));
+                    }
+                }
+            } finally {
+                //Tells every parser there are no more files, even if this stage failed
+                for (int i = 0; i < parserThreads; i++) {
+                    readFiles.put(Item.END);
+                }
+            }
+        } catch (InterruptedException e) {
+            //The load was abandoned
+            Thread.currentThread().interrupt();
+        }
+
+    }
+
+    /**
+     * Second stage: parses files until the read stage says there are no more.
+     * @param readFiles is where read files come from.
+     * @param parsedFiles is where parsed series are passed to the calling thread.
+     * @param failures is where files that can't be parsed are recorded.
+     */
+    private static void parseStage(final BlockingQueue<Item> readFiles, final BlockingQueue<Item> parsedFiles,
+                                   final ConcurrentLinkedQueue<Failure> failures) {
+
+        try {
+            try {
+                Item item;
+                while ((item = readFiles.take()) != Item.END) {
+                    try (Reader reader = MappedData.newReader(item.contents)) {
+                        parsedFiles.put(new Item(item.file, null, TVSeries.fromReader(reader)));
+                    } catch (IOException | RuntimeException e) {
+                        //e.g. the NullPointerException thrown for a file without embedded episodes
+                        failures.add(new Failure(item.file, e));
+                    }
+                }
+            } finally {
+                parsedFiles.put(Item.END);
+            }
+        } catch (InterruptedException e) {
+            //The load was abandoned
+            Thread.currentThread().interrupt();
+        }
+
+    }
+
+    /**
+     * A file moving through the pipeline.
+     */
+    private static class Item {
+
+        //Marks that no more files are coming
+        static final Item END = new Item(null, null, null);
+
+        //Where the file came from
+        final Path file;
+
+        //Contents of the file, set once it has been read
+        final MappedByteBuffer contents;
+
+        //Series in the file, set once it has been parsed
+        final TVSeries series;
+
+        /**
+         * Constructor for a new Item.
+         * @param file is where the file came from.
+         * @param contents is the contents of the file, or null.
+         * @param series is the parsed series, or null.
+         */
+        Item(final Path file, final MappedByteBuffer contents, final TVSeries series) {
+            this.file = file;
+            this.contents = contents;
+            this.series = series;
+        }
+
+    }
+
+    /**
+     * A file that could not be loaded and the reason why.
+     */
+    public static class Failure {
+
+        //The file that failed
+        private final Path file;
+
+        //What went wrong
+        private final Exception cause;
+
+        /**
+         * Constructor for a new Failure.
+         * @param file is the file that failed.
+         * @param cause is what went wrong.
+         */
+        Failure(final Path file, final Exception cause) {
+            this.file = file;
+            this.cause = cause;
+        }
+
+        /**
+         * Getter for the file.
+         * @return the path of the file that failed.
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Getter for the cause.
+         * @return the exception thrown while reading or parsing the file.
+         */
+        public Exception getCause() {
+            return cause;
+        }
+
+    }
+
+    /**
+     * The outcome of loading a directory.
+     */
+    public static class Report {
+
+        //Number of series added to the catalog
+        private final int loadedCount;
+
+        //Files that could not be loaded
+        private final List<Failure> failures;
+
+        /**
+         * Constructor for a new Report.
+         * @param loadedCount is the number of series added to the catalog.
+         * @param failures is the files that could not be loaded.
+         */
+        Report(final int loadedCount, final List<Failure> failures) {
+            this.loadedCount = loadedCount;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * Getter for the number of series loaded.
+         * @return how many series were added to the catalog.
+         */
+        public int getLoadedCount() {
+            return loadedCount;
+        }
+
+        /**
+         * Getter for the failures.
+         * @return the files that could not be loaded, in no particular order.
+         */
+        public List<Failure> getFailures() {
+            return failures;
+        }
+
+    }
+
+}
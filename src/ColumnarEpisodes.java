@@ -0,0 +1,368 @@
+import java.util.Arrays;
+
+/**
+ * A read-only, column oriented copy of the episodes of a TVSeries.
+ * Season, number, runtime and airdate are kept in int[] columns and the names, airdates and summaries are kept as
+ * UTF-8 in one shared arena, so searches and aggregates scan flat arrays instead of following a reference to
+ * every TVEpisode. Episodes are referred to by ordinal, their position in season and episode order, and TVEpisode
+ * objects are only created when getEpisode or getEpisodes is called.
+ */
+public class ColumnarEpisodes {
+
+    //Series that episodes created by this store belong to
+    private final TVSeries series;
+
+    //Number of episodes in the store
+    private final int size;
+
+    //TVmaze id of each episode, or 0 if it is unknown
+    private final int[] ids;
+
+    //Season of each episode
+    private final int[] seasons;
+
+    //Number within its season of each episode
+    private final int[] numbers;
+
+    //Runtime in minutes of each episode
+    private final int[] runtimes;
+
+    //Airdate of each episode packed as YYYYMMDD, or DateIndex.NO_DATE
+    private final int[] packedAirdates;
+
+    //Arena handles of the name, airdate and summary of each episode
+    private final long[] nameHandles;
+    private final long[] airdateHandles;
+    private final long[] summaryHandles;
+
+    //Shared storage for all the strings of the store
+    private final Utf8Arena strings;
+
+    /**
+     * Constructor for a new ColumnarEpisodes. Use fromSeries to create one.
+     * @param series is the series the episodes belong to.
+     * @param episodes is the episodes in season and episode order, without nulls.
+     * @param directStrings is true to keep the strings outside of the Java heap.
+     */
+    private ColumnarEpisodes(final TVSeries series, final TVSeries.TVEpisode[] episodes,
+                             final boolean directStrings) {
+
+        this.series = series;
+        this.size = episodes.length;
+        ids = new int[size];
+        seasons = new int[size];
+        numbers = new int[size];
+        runtimes = new int[size];
+        packedAirdates = new int[size];
+        nameHandles = new long[size];
+        airdateHandles = new long[size];
+        summaryHandles = new long[size];
+        strings = new Utf8Arena(directStrings, (int) Math.min((long) size * 256, 1 << 24));
+
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            TVSeries.TVEpisode episode = episodes[ordinal];
+            ids[ordinal] = episode.getId();
+            seasons[ordinal] = episode.getSeason();
+            numbers[ordinal] = episode.getNumber();
+            runtimes[ordinal] = episode.getRuntimeInMinutes();
+            packedAirdates[ordinal] = episode.getPackedAirdate();
+            nameHandles[ordinal] = strings.add(episode.getEpisodeName());
+            airdateHandles[ordinal] = strings.add(episode.getAirdate());
+            summaryHandles[ordinal] = strings.add(episode.getSummary());
+        }
+
+    }
+
+    /**
+     * Copies the current episodes of a series into columns.
+     * Later changes to the series or its episodes are not reflected in the copy.
+     * @param series is the series being copied.
+     * @return the columnar copy of the episodes.
+     */
+    public static ColumnarEpisodes fromSeries(final TVSeries series) {
+        return fromSeries(series, false);
+    }
+
+    /**
+     * Copies the current episodes of a series into columns.
+     * @param series is the series being copied.
+     * @param directStrings is true to keep names, airdates and summaries in a direct buffer off of the Java heap.
+     * @return the columnar copy of the episodes.
+     */
+    public static ColumnarEpisodes fromSeries(final TVSeries series, final boolean directStrings) {
+
+        TVSeries.TVEpisode[] allEpisodes = TVSeries.convert2DEpisodesTo1D(series.getEpisodes());
+        if (allEpisodes == null) {
+            allEpisodes = new TVSeries.TVEpisode[0];
+        }
+
+        //Missing episode numbers show up as nulls in the 2D array and are left out
+        TVSeries.TVEpisode[] presentEpisodes = new TVSeries.TVEpisode[allEpisodes.length];
+        int presentCount = 0;
+        for (TVSeries.TVEpisode episode : allEpisodes) {
+            if (episode != null) {
+                presentEpisodes[presentCount++] = episode;
+            }
+        }
+
+        return new ColumnarEpisodes(series, Arrays.copyOf(presentEpisodes, presentCount), directStrings);
+
+    }
+
+    /**
+     * Getter for the number of episodes.
+     * @return the number of episodes in the store.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a TVEpisode for a single ordinal.
+     * The TVEpisode is a new copy each time, changing it does not change the store.
+     * @param ordinal is the position of the episode in season and episode order.
+     * @return the episode at that ordinal.
+     * @throws IllegalArgumentException if there is no episode at that ordinal.
+     */
+    public TVSeries.TVEpisode getEpisode(final int ordinal) throws IllegalArgumentException {
+
+        if (ordinal < 0 || ordinal >= size) {
+            throw new IllegalArgumentException("Episode ordinal does not exist");
+        }
+        TVSeries.TVEpisode episode = series.createEpisode(strings.get(nameHandles[ordinal]), seasons[ordinal],
+                numbers[ordinal], strings.get(airdateHandles[ordinal]), strings.get(summaryHandles[ordinal]),
+                runtimes[ordinal]);
+        episode.setId(ids[ordinal]);
+        return episode;
+
+    }
+
+    /**
+     * Creates a TVEpisode for a season and episode number.
+     * @param seasonNum is the season number for the episode being searched.
+     * @param episodeNum is the episode number for the episode being searched.
+     * @return a TVEpisode that matches the season and episode number provided.
+     * @throws IllegalArgumentException if the season/episode combo does not exist.
+     */
+    public TVSeries.TVEpisode getEpisode(final int seasonNum, final int episodeNum) throws IllegalArgumentException {
+
+        //Ordinals are in season and episode order so the episode can be binary searched
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = seasons[middle] != seasonNum ? Integer.compare(seasons[middle], seasonNum)
+                                                          : Integer.compare(numbers[middle], episodeNum);
+            if (comparison == 0) {
+                return getEpisode(middle);
+            } else if (comparison < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        throw new IllegalArgumentException("Season/Episode number does not exist");
+
+    }
+
+    /**
+     * Creates TVEpisodes for the ordinals returned by one of the search methods.
+     * @param ordinals is the ordinals of the episodes.
+     * @return the episodes in the same order as the ordinals.
+     */
+    public TVSeries.TVEpisode[] getEpisodes(final int[] ordinals) {
+
+        TVSeries.TVEpisode[] episodes = new TVSeries.TVEpisode[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            episodes[i] = getEpisode(ordinals[i]);
+        }
+        return episodes;
+
+    }
+
+    /**
+     * Searches for episodes whose name contains the given text, ignoring case.
+     * @param name is the search name criteria
+     * @return ordinals of all episodes with the name in it, or an empty array if name is null.
+     */
+    public int[] searchEpisodesByName(final String name) {
+        return name == null ? new int[0] : searchStrings(nameHandles, name);
+    }
+
+    /**
+     * Searches for episodes whose summary contains the given text, ignoring case.
+     * @param contents is the contents you are searching for within the episodes
+     * @return ordinals of all episodes that contain the given content
+     */
+    public int[] searchEpisodesByContents(final String contents) {
+        return contents == null ? new int[0] : searchStrings(summaryHandles, contents);
+    }
+
+    /**
+     * Searches for episodes whose summary mentions a character.
+     * @param character the name of the character you are looking for.
+     * @return ordinals of all the episodes that contain the given character.
+     */
+    public int[] searchEpisodesByCharacter(final String character) {
+        return character == null || character.length() == 0 ? new int[0] : searchStrings(summaryHandles, character);
+    }
+
+    /**
+     * Searches for all episodes under or equaling a certain runtime.
+     * @param maxRuntimeMinutes is the max runtime as set by the caller of the function.
+     * @return ordinals of all episodes under or equaling the runtime.
+     */
+    public int[] searchEpisodesByMaxRuntime(final int maxRuntimeMinutes) {
+
+        int[] matches = new int[size];
+        int matchCount = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (runtimes[ordinal] <= maxRuntimeMinutes) {
+                matches[matchCount++] = ordinal;
+            }
+        }
+
+        return Arrays.copyOf(matches, matchCount);
+
+    }
+
+    /**
+     * Searches for all episodes that aired in a given year.
+     * @param year is the year being searched for episodes.
+     * @return ordinals of all the episodes from that year.
+     */
+    public int[] getEpisodesInYear(final int year) {
+        return searchAirdates(year * 10000, year * 10000 + 1231);
+    }
+
+    /**
+     * Searches for the episodes on a given date.
+     * @param date is the date of the episode in the format: YYYY-MM-DD
+     * @return ordinals of the episodes on that date, empty if the date is not well formed.
+     */
+    public int[] getEpisodesOnDate(final String date) {
+
+        int packedDate = DateIndex.packDate(date);
+        return packedDate == DateIndex.NO_DATE ? new int[0] : searchAirdates(packedDate, packedDate);
+
+    }
+
+    /**
+     * Searches for the episodes that aired between two dates.
+     * @param fromDate is the first date included in the format: YYYY-MM-DD
+     * @param toDate is the last date included in the format: YYYY-MM-DD
+     * @return ordinals of the episodes in the range, empty if either date is not well formed.
+     */
+    public int[] getEpisodesBetween(final String fromDate, final String toDate) {
+
+        int packedFromDate = DateIndex.packDate(fromDate);
+        int packedToDate = DateIndex.packDate(toDate);
+        if (packedFromDate == DateIndex.NO_DATE || packedToDate == DateIndex.NO_DATE) {
+            return new int[0];
+        }
+        return searchAirdates(packedFromDate, packedToDate);
+
+    }
+
+    /**
+     * Getter for the number of episodes, the same as size.
+     * @return the total number of episodes.
+     */
+    public int totalNumberOfEpisodes() {
+        return size;
+    }
+
+    /**
+     * Calculates the average runtime from the runtime column.
+     * @return the average runtime of all the episodes, or 0 if there are none.
+     */
+    public int averageRuntimeOfEpisodes() {
+
+        if (size == 0) {
+            return 0;
+        }
+
+        long totalRuntime = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            totalRuntime += runtimes[ordinal];
+        }
+        return (int) (totalRuntime / size);
+
+    }
+
+    /**
+     * Finds the longest runtime in the runtime column.
+     * @return length in minutes of max runtime of episodes, or 0 if there are none.
+     */
+    public int maxRuntimeOfEpisodes() {
+
+        int maxRuntime = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            maxRuntime = Math.max(maxRuntime, runtimes[ordinal]);
+        }
+        return maxRuntime;
+
+    }
+
+    /**
+     * Finds the shortest runtime in the runtime column.
+     * @return length in minutes of min runtime of episodes, or 0 if there are none.
+     */
+    public int minRuntimeOfEpisodes() {
+
+        if (size == 0) {
+            return 0;
+        }
+
+        int minRuntime = Integer.MAX_VALUE;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            minRuntime = Math.min(minRuntime, runtimes[ordinal]);
+        }
+        return minRuntime;
+
+    }
+
+    /**
+     * Scans a string column for values containing some text, ignoring case.
+     * @param handles is the column of arena handles being searched.
+     * @param text is the text being searched for.
+     * @return ordinals of the matching episodes.
+     */
+    private int[] searchStrings(final long[] handles, final String text) {
+
+        Utf8Arena.Query query = Utf8Arena.prepareQuery(text);
+        int[] matches = new int[size];
+        int matchCount = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (strings.containsIgnoreCase(handles[ordinal], query)) {
+                matches[matchCount++] = ordinal;
+            }
+        }
+
+        return Arrays.copyOf(matches, matchCount);
+
+    }
+
+    /**
+     * Scans the airdate column for dates in a range.
+     * @param fromDate is the first packed date included.
+     * @param toDate is the last packed date included.
+     * @return ordinals of the matching episodes.
+     */
+    private int[] searchAirdates(final int fromDate, final int toDate) {
+
+        int[] matches = new int[size];
+        int matchCount = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            int airdate = packedAirdates[ordinal];
+            if (airdate != DateIndex.NO_DATE && airdate >= fromDate && airdate <= toDate) {
+                matches[matchCount++] = ordinal;
+            }
+        }
+
+        return Arrays.copyOf(matches, matchCount);
+
+    }
+
+}
@@ -0,0 +1,129 @@
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A sorted index of episodes by airdate.
+ * Airdates are packed into ints of the form YYYYMMDD so they sort in date order and can be compared without
+ * touching the airdate Strings. Exact date, year and range lookups are binary searches over the packed dates.
+ */
+class DateIndex {
+
+    //Packed airdate used for dates that are missing or not in the form YYYY-MM-DD
+    static final int NO_DATE = 0;
+
+    //Packed airdates in ascending order
+    private final int[] sortedDates;
+
+    //Episodes in the same order as sortedDates
+    private final TVSeries.TVEpisode[] sortedEpisodes;
+
+    /**
+     * Builds an index over the given episodes.
+     * Null episodes and episodes without a valid airdate are left out. Episodes that aired on the same day keep
+     * the order they are given in.
+     * @param episodes is the episodes being indexed.
+     */
+    DateIndex(final TVSeries.TVEpisode[] episodes) {
+
+        TVSeries.TVEpisode[] datedEpisodes = new TVSeries.TVEpisode[episodes.length];
+        int datedCount = 0;
+        for (TVSeries.TVEpisode episode : episodes) {
+            if (episode != null && episode.getPackedAirdate() != NO_DATE) {
+                datedEpisodes[datedCount++] = episode;
+            }
+        }
+
+        //Arrays.sort on objects is stable so ties stay in season/episode order
+        sortedEpisodes = Arrays.copyOf(datedEpisodes, datedCount);
+        Arrays.sort(sortedEpisodes, Comparator.comparingInt(TVSeries.TVEpisode::getPackedAirdate));
+
+        sortedDates = new int[datedCount];
+        for (int i = 0; i < datedCount; i++) {
+            sortedDates[i] = sortedEpisodes[i].getPackedAirdate();
+        }
+
+    }
+
+    /**
+     * Finds all episodes that aired between two packed dates.
+     * @param fromDate is the first packed date included.
+     * @param toDate is the last packed date included.
+     * @return the episodes in airdate order.
+     */
+    TVSeries.TVEpisode[] between(final int fromDate, final int toDate) {
+
+        if (fromDate > toDate) {
+            return new TVSeries.TVEpisode[0];
+        }
+
+        int start = firstIndexAtOrAfter(fromDate);
+        int end = firstIndexAtOrAfter(toDate + 1);
+        return Arrays.copyOfRange(sortedEpisodes, start, end);
+
+    }
+
+    /**
+     * Finds all episodes that aired in a given year.
+     * @param year is the year being searched.
+     * @return the episodes in airdate order.
+     */
+    TVSeries.TVEpisode[] inYear(final int year) {
+        return between(year * 10000, year * 10000 + 1231);
+    }
+
+    /**
+     * Binary search for the first position whose date is not before the given date.
+     * @param packedDate is the date being searched for.
+     * @return the position, or the number of indexed episodes if every date is earlier.
+     */
+    private int firstIndexAtOrAfter(final int packedDate) {
+
+        int low = 0;
+        int high = sortedDates.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedDates[middle] < packedDate) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+
+    }
+
+    /**
+     * Packs a date in the form YYYY-MM-DD into an int of the form YYYYMMDD.
+     * Accepts the same dates as the airdate and premiere date setters.
+     * @param date is the date being packed.
+     * @return the packed date, or NO_DATE if the date is null or not in the expected form.
+     */
+    static int packDate(final String date) {
+
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return NO_DATE;
+        }
+
+        int packed = 0;
+        for (int i = 0; i < date.length(); i++) {
+            if (i == 4 || i == 7) {
+                continue;
+            }
+            char digit = date.charAt(i);
+            if (digit < '0' || digit > '9') {
+                return NO_DATE;
+            }
+            packed = packed * 10 + (digit - '0');
+        }
+
+        //Same limits as the "\\d\\d\\d\\d-[0-1]\\d-[0-3]\\d" pattern used by the setters
+        if (date.charAt(5) > '1' || date.charAt(8) > '3') {
+            return NO_DATE;
+        }
+
+        return packed;
+
+    }
+
+}
@@ -0,0 +1,459 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+/**
+ * Runtime and airdate aggregates of episodes grouped by a key, e.g. the average runtime of each season or the
+ * number of episodes that aired each year.
+ * The whole-series aggregates of TVSeries give one value per call, so a per-year report had to call
+ * getEpisodesInYear for every year and aggregate each result. An aggregation instead looks at every episode once
+ * and adds it to the accumulators of its group, which are plain int and long arrays indexed by group, so nothing is
+ * boxed or allocated per episode.
+ * Episodes without an airdate in the form YYYY-MM-DD are left out of the groups of the date keys, and out of the
+ * first and last airdates of the other keys.
+ */
+public class EpisodeAggregation {
+
+    /**
+     * What episodes are grouped by.
+     */
+    public enum GroupBy {
+        //Key is the season number
+        SEASON,
+        //Key is the year the episode aired, e.g. 2011
+        AIR_YEAR,
+        //Key is the year and month the episode aired in the form YYYYMM, e.g. 201104
+        AIR_MONTH,
+        //Key is the day of the week the episode aired from 1 for Monday to 7 for Sunday
+        WEEKDAY,
+        //Key is a number given to each network while aggregating, use Group.getNetwork for its name
+        NETWORK
+    }
+
+    //Slot that marks an empty entry of the key table
+    private static final int EMPTY = -1;
+
+    //Key of episodes that don't belong to any group
+    private static final int NO_GROUP = Integer.MIN_VALUE;
+
+    private final GroupBy groupBy;
+
+    /**
+     * Constructor for an aggregation.
+     * @param groupBy is what the episodes are grouped by.
+     * @throws NullPointerException if groupBy is null.
+     */
+    public EpisodeAggregation(final GroupBy groupBy) throws NullPointerException {
+
+        if (groupBy == null) {
+            throw new NullPointerException("Group by cannot be null");
+        }
+        this.groupBy = groupBy;
+
+    }
+
+    /**
+     * Aggregates the episodes of a series.
+     * @param series is the series being aggregated.
+     * @return the groups in key order, or in network name order when grouped by network.
+     */
+    public Group[] run(final TVSeries series) {
+
+        long startTime = SeriesMetrics.start();
+        Accumulators accumulators = new Accumulators();
+        ArrayList<String> networks = new ArrayList<>();
+        networks.add(series.getNetworkName());
+        accumulate(series.getEpisodes(), 0, accumulators);
+        SeriesMetrics.record(SeriesMetrics.Operation.GROUP_BY, startTime, accumulators.episodeCount);
+        return accumulators.toGroups(groupBy == GroupBy.NETWORK ? networks : null);
+
+    }
+
+    /**
+     * Aggregates the episodes of every series in a catalog together.
+     * @param catalog is the catalog being aggregated.
+     * @return the groups in key order, or in network name order when grouped by network.
+     */
+    public Group[] run(final SeriesCatalog catalog) {
+
+        long startTime = SeriesMetrics.start();
+        Accumulators accumulators = new Accumulators();
+        //Networks are looked up once per series, so the episodes are grouped by an int like the other keys
+        HashMap<String, Integer> networkIds = new HashMap<>();
+        ArrayList<String> networks = new ArrayList<>();
+        for (TVSeries series : catalog.getSeries()) {
+            Integer networkId = networkIds.get(series.getNetworkName());
+            if (networkId == null) {
+                networkId = networks.size();
+                networkIds.put(series.getNetworkName(), networkId);
+                networks.add(series.getNetworkName());
+            }
+            accumulate(series.getEpisodes(), networkId, accumulators);
+        }
+        SeriesMetrics.record(SeriesMetrics.Operation.GROUP_BY, startTime, accumulators.episodeCount);
+        return accumulators.toGroups(groupBy == GroupBy.NETWORK ? networks : null);
+
+    }
+
+    /**
+     * Adds the episodes of one series to the groups they belong to.
+     * @param episodes is the episodes of the series, which may contain nulls.
+     * @param networkId is the index of the network of the series.
+     * @param accumulators is the groups found so far.
+     */
+    private void accumulate(final TVSeries.TVEpisode[][] episodes, final int networkId,
+                            final Accumulators accumulators) {
+
+        if (episodes == null) {
+            return;
+        }
+        for (TVSeries.TVEpisode[] season : episodes) {
+            for (TVSeries.TVEpisode episode : season) {
+                //Skips the empty slots left by missing episode numbers
+                if (episode == null) {
+                    continue;
+                }
+                int airdate = episode.getPackedAirdate();
+                int key = keyOf(episode, airdate, networkId);
+                if (key != NO_GROUP) {
+                    accumulators.add(key, episode.getRuntimeInMinutes(), airdate);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Works out the group of an episode.
+     * @param episode is the episode.
+     * @param airdate is the packed airdate of the episode.
+     * @param networkId is the index of the network of the episode's series.
+     * @return the key of the episode's group, or NO_GROUP if it doesn't belong to one.
+     */
+    private int keyOf(final TVSeries.TVEpisode episode, final int airdate, final int networkId) {
+
+        switch (groupBy) {
+            case SEASON:
+                return episode.getSeason();
+            case NETWORK:
+                return networkId;
+            case AIR_YEAR:
+                return airdate == DateIndex.NO_DATE ? NO_GROUP : airdate / 10000;
+            case AIR_MONTH:
+                return airdate == DateIndex.NO_DATE ? NO_GROUP : airdate / 100;
+            default:
+                return airdate == DateIndex.NO_DATE ? NO_GROUP : weekdayOf(airdate);
+        }
+
+    }
+
+    /**
+     * Works out the day of the week of a date without creating a LocalDate.
+     * @param packedDate is the date in the form YYYYMMDD.
+     * @return the day of the week from 1 for Monday to 7 for Sunday, or NO_GROUP if the month or day is out of
+     *         range.
+     */
+    static int weekdayOf(final int packedDate) {
+
+        int year = packedDate / 10000;
+        int month = packedDate / 100 % 100;
+        int day = packedDate % 100;
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return NO_GROUP;
+        }
+
+        //Days since 1970-01-01 in the proleptic Gregorian calendar, counting years from March so leap days come last
+        int marchYear = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(marchYear, 400);
+        int yearOfEra = marchYear - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long epochDay = era * 146097L + dayOfEra - 719468;
+
+        //1970-01-01 was a Thursday
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+
+    }
+
+    /**
+     * The aggregates of one group of episodes.
+     */
+    public static class Group {
+
+        private final int key;
+        private final String network;
+        private final int episodeCount;
+        private final long totalRuntime;
+        private final int minRuntime;
+        private final int maxRuntime;
+        private final int firstAirdate;
+        private final int lastAirdate;
+
+        /**
+         * Constructor for a finished group.
+         * @param key is the key of the group.
+         * @param network is the network of the group when grouped by network, otherwise null.
+         * @param episodeCount is the number of episodes in the group.
+         * @param totalRuntime is the sum of the runtimes of the episodes.
+         * @param minRuntime is the shortest runtime.
+         * @param maxRuntime is the longest runtime.
+         * @param firstAirdate is the earliest packed airdate, or DateIndex.NO_DATE.
+         * @param lastAirdate is the latest packed airdate, or DateIndex.NO_DATE.
+         */
+        Group(final int key, final String network, final int episodeCount, final long totalRuntime,
+              final int minRuntime, final int maxRuntime, final int firstAirdate, final int lastAirdate) {
+
+            this.key = key;
+            this.network = network;
+            this.episodeCount = episodeCount;
+            this.totalRuntime = totalRuntime;
+            this.minRuntime = minRuntime;
+            this.maxRuntime = maxRuntime;
+            this.firstAirdate = firstAirdate;
+            this.lastAirdate = lastAirdate;
+
+        }
+
+        /**
+         * Getter for the key of the group, see GroupBy.
+         * @return the key.
+         */
+        public int getKey() {
+            return key;
+        }
+
+        /**
+         * Getter for the network of the group.
+         * @return the network name when grouped by network, which may be null for series without one, otherwise
+         *         null.
+         */
+        public String getNetwork() {
+            return network;
+        }
+
+        /**
+         * Getter for the number of episodes.
+         * @return how many episodes are in the group.
+         */
+        public int getEpisodeCount() {
+            return episodeCount;
+        }
+
+        /**
+         * Getter for the total runtime.
+         * @return the sum of the runtimes of the episodes in the group in minutes.
+         */
+        public long getTotalRuntime() {
+            return totalRuntime;
+        }
+
+        /**
+         * Calculates the average runtime the same way TVSeries.averageRuntimeOfEpisodes does.
+         * @return the average runtime in whole minutes.
+         */
+        public int getAverageRuntime() {
+            return (int) (totalRuntime / episodeCount);
+        }
+
+        /**
+         * Getter for the shortest runtime.
+         * @return the minimum runtime in the group in minutes.
+         */
+        public int getMinRuntime() {
+            return minRuntime;
+        }
+
+        /**
+         * Getter for the longest runtime.
+         * @return the maximum runtime in the group in minutes.
+         */
+        public int getMaxRuntime() {
+            return maxRuntime;
+        }
+
+        /**
+         * Getter for the earliest airdate.
+         * @return the first airdate in the group in the form YYYY-MM-DD, or null if no episode has one.
+         */
+        public String getFirstAirdate() {
+            return unpackDate(firstAirdate);
+        }
+
+        /**
+         * Getter for the latest airdate.
+         * @return the last airdate in the group in the form YYYY-MM-DD, or null if no episode has one.
+         */
+        public String getLastAirdate() {
+            return unpackDate(lastAirdate);
+        }
+
+        /**
+         * Turns a packed date back into the form it was read in.
+         * @param packedDate is the date in the form YYYYMMDD, or DateIndex.NO_DATE.
+         * @return the date in the form YYYY-MM-DD, or null.
+         */
+        private static String unpackDate(final int packedDate) {
+
+            if (packedDate == DateIndex.NO_DATE) {
+                return null;
+            }
+            return String.format("%04d-%02d-%02d", packedDate / 10000, packedDate / 100 % 100, packedDate % 100);
+
+        }
+
+    }
+
+    /**
+     * The running aggregates of every group found so far, one slot per group in parallel arrays.
+     * Keys are found in an open addressing table of slots so grouping an episode doesn't box its key.
+     */
+    private static final class Accumulators {
+
+        int episodeCount;
+        int groupCount;
+        int[] keys = new int[16];
+        int[] counts = new int[16];
+        long[] totalRuntimes = new long[16];
+        int[] minRuntimes = new int[16];
+        int[] maxRuntimes = new int[16];
+        int[] firstAirdates = new int[16];
+        int[] lastAirdates = new int[16];
+
+        //Slot of each key by hash, EMPTY where there is none. Kept at most half full.
+        int[] table = newTable(32);
+
+        /**
+         * Adds an episode to its group, starting the group if it is the first episode in it.
+         * @param key is the key of the episode's group.
+         * @param runtime is the runtime of the episode.
+         * @param airdate is the packed airdate of the episode, or DateIndex.NO_DATE.
+         */
+        void add(final int key, final int runtime, final int airdate) {
+
+            int slot = slotOf(key);
+            episodeCount++;
+            counts[slot]++;
+            totalRuntimes[slot] += runtime;
+            minRuntimes[slot] = Math.min(minRuntimes[slot], runtime);
+            maxRuntimes[slot] = Math.max(maxRuntimes[slot], runtime);
+            if (airdate != DateIndex.NO_DATE) {
+                if (firstAirdates[slot] == DateIndex.NO_DATE || airdate < firstAirdates[slot]) {
+                    firstAirdates[slot] = airdate;
+                }
+                if (lastAirdates[slot] == DateIndex.NO_DATE || airdate > lastAirdates[slot]) {
+                    lastAirdates[slot] = airdate;
+                }
+            }
+
+        }
+
+        /**
+         * Finds the slot of a group, starting a new group if there isn't one for the key.
+         * @param key is the key of the group.
+         * @return the slot of the group.
+         */
+        private int slotOf(final int key) {
+
+            int mask = table.length - 1;
+            int index = hash(key) & mask;
+            while (table[index] != EMPTY) {
+                if (keys[table[index]] == key) {
+                    return table[index];
+                }
+                index = (index + 1) & mask;
+            }
+
+            int slot = groupCount++;
+            if (slot == keys.length) {
+                int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                totalRuntimes = Arrays.copyOf(totalRuntimes, capacity);
+                minRuntimes = Arrays.copyOf(minRuntimes, capacity);
+                maxRuntimes = Arrays.copyOf(maxRuntimes, capacity);
+                firstAirdates = Arrays.copyOf(firstAirdates, capacity);
+                lastAirdates = Arrays.copyOf(lastAirdates, capacity);
+            }
+            keys[slot] = key;
+            minRuntimes[slot] = Integer.MAX_VALUE;
+            maxRuntimes[slot] = Integer.MIN_VALUE;
+            firstAirdates[slot] = DateIndex.NO_DATE;
+            lastAirdates[slot] = DateIndex.NO_DATE;
+            table[index] = slot;
+
+            if (groupCount * 2 > table.length) {
+                rehash();
+            }
+            return slot;
+
+        }
+
+        /**
+         * Doubles the size of the key table.
+         */
+        private void rehash() {
+
+            table = newTable(table.length * 2);
+            int mask = table.length - 1;
+            for (int slot = 0; slot < groupCount; slot++) {
+                int index = hash(keys[slot]) & mask;
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = slot;
+            }
+
+        }
+
+        /**
+         * Turns the accumulators into groups.
+         * @param networks is the network of each network id when grouped by network, otherwise null.
+         * @return the groups in key order, or in network name order when grouped by network.
+         */
+        Group[] toGroups(final ArrayList<String> networks) {
+
+            Group[] groups = new Group[groupCount];
+            for (int slot = 0; slot < groupCount; slot++) {
+                groups[slot] = new Group(keys[slot], networks == null ? null : networks.get(keys[slot]), counts[slot],
+                                         totalRuntimes[slot], minRuntimes[slot], maxRuntimes[slot],
+                                         firstAirdates[slot], lastAirdates[slot]);
+            }
+            if (networks == null) {
+                Arrays.sort(groups, Comparator.comparingInt(Group::getKey));
+            } else {
+                Arrays.sort(groups, Comparator.comparing(Group::getNetwork,
+                                                         Comparator.nullsLast(Comparator.naturalOrder())));
+            }
+            return groups;
+
+        }
+
+        /**
+         * Creates an empty key table.
+         * @param size is the size of the table, a power of two.
+         * @return the table.
+         */
+        private static int[] newTable(final int size) {
+
+            int[] table = new int[size];
+            Arrays.fill(table, EMPTY);
+            return table;
+
+        }
+
+        /**
+         * Spreads the bits of a key, since years and months are close together and differ in the low bits only.
+         * @param key is the key.
+         * @return the hash of the key.
+         */
+        private static int hash(final int key) {
+
+            int hash = key * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+
+        }
+
+    }
+
+}
@@ -0,0 +1,453 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * A search over episodes that combines several filters, e.g. episodes named "Winter" under 60 minutes from 2011.
+ * Chaining the static search methods of TVSeries makes a full pass and a LinkedList per filter. A query instead
+ * checks every filter on an episode before moving to the next one, so the episodes are only looked at once and
+ * matches go straight into an array sized for the most results there can be.
+ * Filters are checked cheapest first: the airdate and runtime ranges are int comparisons, names are short and
+ * summaries are long. When run on a TVSeries, a query with an airdate filter only scans the episodes the airdate
+ * index finds for it, and one with a summary filter uses the summary index if the series has it turned on.
+ * All filters must match. Builder methods return the query itself so calls can be chained.
+ */
+public class EpisodeQuery {
+
+    //Orders results by season, then by episode number
+    public static final Comparator<TVSeries.TVEpisode> BY_SEASON_AND_NUMBER =
+            Comparator.comparingInt(TVSeries.TVEpisode::getSeason).thenComparingInt(TVSeries.TVEpisode::getNumber);
+
+    //Orders results by airdate, episodes without a valid airdate come first
+    public static final Comparator<TVSeries.TVEpisode> BY_AIRDATE =
+            Comparator.comparingInt(TVSeries.TVEpisode::getPackedAirdate);
+
+    //Orders results from shortest to longest runtime
+    public static final Comparator<TVSeries.TVEpisode> BY_RUNTIME =
+            Comparator.comparingInt(TVSeries.TVEpisode::getRuntimeInMinutes);
+
+    //Orders results by name ignoring case, episodes without a name come last
+    public static final Comparator<TVSeries.TVEpisode> BY_NAME = Comparator.comparing(
+            TVSeries.TVEpisode::getEpisodeName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    //Upper cased text the episode names must contain
+    private final ArrayList<String> upperNameTexts = new ArrayList<>();
+
+    //Text the episode summaries must contain
+    private final ArrayList<String> summaryTexts = new ArrayList<>();
+
+    //Runtime range in minutes, both ends included
+    private int minRuntime = Integer.MIN_VALUE;
+    private int maxRuntime = Integer.MAX_VALUE;
+
+    //Packed airdate range, both ends included, only used if hasDateRange is true
+    private boolean hasDateRange;
+    private int fromDate = Integer.MIN_VALUE;
+    private int toDate = Integer.MAX_VALUE;
+
+    //Set when a filter can't match anything, e.g. a date that is not well formed
+    private boolean matchesNothing;
+
+    //Number of matches skipped before the first one returned
+    private int offset;
+
+    //Most matches returned
+    private int limit = Integer.MAX_VALUE;
+
+    //Order of the results, null for the order the episodes are searched in
+    private Comparator<TVSeries.TVEpisode> order;
+
+    /**
+     * Only matches episodes whose name contains the given text, ignoring case.
+     * @param name is the search name criteria, null matches no episodes.
+     * @return this query.
+     */
+    public EpisodeQuery nameContains(final String name) {
+
+        if (name == null) {
+            matchesNothing = true;
+        } else {
+            upperNameTexts.add(name.toUpperCase());
+        }
+        return this;
+
+    }
+
+    /**
+     * Only matches episodes whose summary contains the given text, ignoring case.
+     * @param contents is the contents you are searching for within the episodes, null matches no episodes.
+     * @return this query.
+     */
+    public EpisodeQuery contentsContain(final String contents) {
+
+        if (contents == null) {
+            matchesNothing = true;
+        } else {
+            summaryTexts.add(contents);
+        }
+        return this;
+
+    }
+
+    /**
+     * Only matches episodes whose summary mentions a character, the same way searchEpisodesByCharacter does.
+     * @param character the name of the character you are looking for, null or empty matches no episodes.
+     * @return this query.
+     */
+    public EpisodeQuery mentionsCharacter(final String character) {
+
+        if (character == null || character.length() == 0) {
+            matchesNothing = true;
+        } else {
+            summaryTexts.add(character);
+        }
+        return this;
+
+    }
+
+    /**
+     * Only matches episodes under or equaling a certain runtime.
+     * @param maxRuntimeMinutes is the maximum runtime in minutes.
+     * @return this query.
+     */
+    public EpisodeQuery maxRuntime(final int maxRuntimeMinutes) {
+
+        maxRuntime = Math.min(maxRuntime, maxRuntimeMinutes);
+        return this;
+
+    }
+
+    /**
+     * Only matches episodes over or equaling a certain runtime.
+     * @param minRuntimeMinutes is the minimum runtime in minutes.
+     * @return this query.
+     */
+    public EpisodeQuery minRuntime(final int minRuntimeMinutes) {
+
+        minRuntime = Math.max(minRuntime, minRuntimeMinutes);
+        return this;
+
+    }
+
+    /**
+     * Only matches episodes that aired in a given year.
+     * Like TVSeries.getEpisodesInYear on a series, only airdates in the form YYYY-MM-DD are matched.
+     * @param year is the year the episodes aired.
+     * @return this query.
+     */
+    public EpisodeQuery inYear(final int year) {
+        return restrictDates(year * 10000, year * 10000 + 1231);
+    }
+
+    /**
+     * Only matches episodes that aired on a given date.
+     * @param date is the date of the episode in the format: YYYY-MM-DD, other dates match no episodes.
+     * @return this query.
+     */
+    public EpisodeQuery onDate(final String date) {
+
+        int packedDate = DateIndex.packDate(date);
+        return restrictDates(packedDate, packedDate);
+
+    }
+
+    /**
+     * Only matches episodes that aired between two dates.
+     * @param fromDate is the first date included in the format: YYYY-MM-DD
+     * @param toDate is the last date included in the format: YYYY-MM-DD
+     * @return this query, which matches no episodes if either date is not well formed.
+     */
+    public EpisodeQuery airedBetween(final String fromDate, final String toDate) {
+        return restrictDates(DateIndex.packDate(fromDate), DateIndex.packDate(toDate));
+    }
+
+    /**
+     * Skips over the first matches, e.g. to get the second page of results.
+     * @param offset is how many matches are skipped.
+     * @return this query.
+     * @throws IllegalArgumentException if offset is negative.
+     */
+    public EpisodeQuery offset(final int offset) throws IllegalArgumentException {
+
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative");
+        }
+        this.offset = offset;
+        return this;
+
+    }
+
+    /**
+     * Limits how many matches are returned.
+     * @param limit is the most episodes returned.
+     * @return this query.
+     * @throws IllegalArgumentException if limit is negative.
+     */
+    public EpisodeQuery limit(final int limit) throws IllegalArgumentException {
+
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        this.limit = limit;
+        return this;
+
+    }
+
+    /**
+     * Sorts the matches before offset and limit are applied.
+     * Without a sort order, results are in the order the episodes are searched in and the search stops as soon as
+     * offset plus limit matches are found.
+     * @param order is the order of the results, e.g. BY_AIRDATE.
+     * @return this query.
+     * @throws NullPointerException if order is null.
+     */
+    public EpisodeQuery sortBy(final Comparator<TVSeries.TVEpisode> order) throws NullPointerException {
+
+        if (order == null) {
+            throw new NullPointerException("Sort order cannot be null");
+        }
+        this.order = order;
+        return this;
+
+    }
+
+    /**
+     * Runs the query over the episodes of a series.
+     * Unsorted results are in season and episode order.
+     * @param series is the series being searched.
+     * @return the matching episodes.
+     */
+    public TVSeries.TVEpisode[] run(final TVSeries series) {
+
+        if (matchesNothing) {
+            return new TVSeries.TVEpisode[0];
+        }
+
+        //Starts from whichever index narrows the episodes down, falling back to every episode
+        TVSeries.TVEpisode[][] candidates;
+        String longestSummaryText = longestSummaryText();
+        //Looked up directly rather than with searchEpisodesByContents, so the query isn't cached or counted as a search
+        TVSeries.TVEpisode[] indexedEpisodes = null;
+        if (!hasDateRange && longestSummaryText != null
+                && longestSummaryText.length() >= SummaryIndex.MIN_QUERY_LENGTH) {
+            indexedEpisodes = series.searchSummaryIndex(longestSummaryText);
+        }
+        if (hasDateRange) {
+            TVSeries.TVEpisode[] datedEpisodes = series.getEpisodesBetweenPackedDates(fromDate, toDate);
+            Arrays.sort(datedEpisodes, BY_SEASON_AND_NUMBER);
+            candidates = new TVSeries.TVEpisode[][] { datedEpisodes };
+        } else if (indexedEpisodes != null) {
+            candidates = new TVSeries.TVEpisode[][] { indexedEpisodes };
+        } else {
+            candidates = series.getEpisodes();
+        }
+
+        return select(candidates);
+
+    }
+
+    /**
+     * Runs the query over the episodes in a 2D array, e.g. the result of getEpisodes.
+     * @param episodes is the episodes being searched, which may contain nulls.
+     * @return the matching episodes.
+     */
+    public TVSeries.TVEpisode[] run(final TVSeries.TVEpisode[][] episodes) {
+        return matchesNothing ? new TVSeries.TVEpisode[0] : select(episodes);
+    }
+
+    /**
+     * Runs the query over the episodes in a 1D array, e.g. the result of another search.
+     * @param episodes is the episodes being searched, which may contain nulls.
+     * @return the matching episodes.
+     */
+    public TVSeries.TVEpisode[] run(final TVSeries.TVEpisode[] episodes) {
+
+        if (matchesNothing || episodes == null) {
+            return new TVSeries.TVEpisode[0];
+        }
+        return select(new TVSeries.TVEpisode[][] { episodes });
+
+    }
+
+    /**
+     * Narrows the airdate range of the query.
+     * @param packedFromDate is the first packed date included, or DateIndex.NO_DATE if it is not well formed.
+     * @param packedToDate is the last packed date included, or DateIndex.NO_DATE if it is not well formed.
+     * @return this query.
+     */
+    private EpisodeQuery restrictDates(final int packedFromDate, final int packedToDate) {
+
+        if (packedFromDate == DateIndex.NO_DATE || packedToDate == DateIndex.NO_DATE) {
+            matchesNothing = true;
+        } else {
+            hasDateRange = true;
+            fromDate = Math.max(fromDate, packedFromDate);
+            toDate = Math.min(toDate, packedToDate);
+        }
+        return this;
+
+    }
+
+    /**
+     * Finds the summary text that is least likely to match, which is assumed to be the longest.
+     * @return the longest summary text, or null if there are none.
+     */
+    private String longestSummaryText() {
+
+        String longest = null;
+        for (String text : summaryTexts) {
+            if (longest == null || text.length() > longest.length()) {
+                longest = text;
+            }
+        }
+        return longest;
+
+    }
+
+    /**
+     * Puts the filters in the order they are checked in, cheapest first.
+     * @return the filters of this query.
+     */
+    private ArrayList<Predicate<TVSeries.TVEpisode>> plan() {
+
+        ArrayList<Predicate<TVSeries.TVEpisode>> filters = new ArrayList<>();
+
+        if (hasDateRange) {
+            int from = fromDate;
+            int to = toDate;
+            filters.add(episode -> {
+                int airdate = episode.getPackedAirdate();
+                return airdate != DateIndex.NO_DATE && airdate >= from && airdate <= to;
+            });
+        }
+
+        if (minRuntime != Integer.MIN_VALUE || maxRuntime != Integer.MAX_VALUE) {
+            int min = minRuntime;
+            int max = maxRuntime;
+            filters.add(episode -> episode.getRuntimeInMinutes() >= min && episode.getRuntimeInMinutes() <= max);
+        }
+
+        for (String upperNameText : upperNameTexts) {
+            filters.add(episode -> episode.getEpisodeName() != null
+                                   && episode.getEpisodeName().toUpperCase().contains(upperNameText));
+        }
+
+        //Longer text matches fewer summaries, so it rules episodes out sooner
+        ArrayList<String> orderedSummaryTexts = new ArrayList<>(summaryTexts);
+        orderedSummaryTexts.sort(Comparator.comparingInt(String::length).reversed());
+        for (String summaryText : orderedSummaryTexts) {
+            Utf8Arena.Query query = Utf8Arena.prepareQuery(summaryText);
+            filters.add(episode -> episode.summaryContains(query));
+        }
+
+        return filters;
+
+    }
+
+    /**
+     * Checks the filters against every candidate in one pass and applies the sort order, offset and limit.
+     * @param candidates is the episodes being searched, grouped the same way as TVSeries.getEpisodes.
+     * @return the matching episodes.
+     */
+    private TVSeries.TVEpisode[] select(final TVSeries.TVEpisode[][] candidates) {
+
+        if (candidates == null) {
+            return new TVSeries.TVEpisode[0];
+        }
+
+        long candidateCount = 0;
+        for (TVSeries.TVEpisode[] group : candidates) {
+            candidateCount += group.length;
+        }
+
+        //Unsorted results can stop at the end of the requested page, sorted results need every match
+        int capacity = (int) (order == null ? Math.min(candidateCount, (long) offset + limit) : candidateCount);
+        TVSeries.TVEpisode[] matches = new TVSeries.TVEpisode[capacity];
+        int matchCount = collectMatches(candidates, plan(), matches);
+
+        return page(matches, matchCount);
+
+    }
+
+    /**
+     * Checks the filters against some episodes without applying the sort order, offset or limit.
+     * Used to search parts of a larger set of episodes separately before the results are put together with page.
+     * @param episodes is the episodes being searched, which may contain nulls.
+     * @return the matching episodes in the order they were given.
+     */
+    TVSeries.TVEpisode[] filter(final TVSeries.TVEpisode[] episodes) {
+
+        if (matchesNothing) {
+            return new TVSeries.TVEpisode[0];
+        }
+
+        TVSeries.TVEpisode[] matches = new TVSeries.TVEpisode[episodes.length];
+        int matchCount = collectMatches(new TVSeries.TVEpisode[][] { episodes }, plan(), matches);
+        return Arrays.copyOf(matches, matchCount);
+
+    }
+
+    /**
+     * Applies the sort order, offset and limit to matches found by filter.
+     * @param matches is the matching episodes, the first matchCount of which are used. It may be sorted in place.
+     * @param matchCount is the number of matches.
+     * @return the requested page of matches.
+     */
+    TVSeries.TVEpisode[] page(final TVSeries.TVEpisode[] matches, final int matchCount) {
+
+        if (order != null) {
+            Arrays.sort(matches, 0, matchCount, order);
+        }
+
+        int start = Math.min(offset, matchCount);
+        int end = (int) Math.min(matchCount, (long) start + limit);
+        return Arrays.copyOfRange(matches, start, end);
+
+    }
+
+    /**
+     * Copies the candidates that pass every filter into an array until it is full.
+     * @param candidates is the episodes being searched, which may contain nulls.
+     * @param filters is the filters in the order they are checked.
+     * @param matches is where the matches are written.
+     * @return the number of matches written.
+     */
+    private static int collectMatches(final TVSeries.TVEpisode[][] candidates,
+                                      final ArrayList<Predicate<TVSeries.TVEpisode>> filters,
+                                      final TVSeries.TVEpisode[] matches) {
+
+        int matchCount = 0;
+        for (TVSeries.TVEpisode[] group : candidates) {
+            for (TVSeries.TVEpisode episode : group) {
+                if (matchCount == matches.length) {
+                    return matchCount;
+                }
+                if (episode != null && matchesAll(filters, episode)) {
+                    matches[matchCount++] = episode;
+                }
+            }
+        }
+        return matchCount;
+
+    }
+
+    /**
+     * Checks an episode against every filter, stopping at the first one it fails.
+     * @param filters is the filters in the order they are checked.
+     * @param episode is the episode being checked.
+     * @return true if the episode passes every filter.
+     */
+    private static boolean matchesAll(final ArrayList<Predicate<TVSeries.TVEpisode>> filters,
+                                      final TVSeries.TVEpisode episode) {
+
+        for (Predicate<TVSeries.TVEpisode> filter : filters) {
+            if (!filter.test(episode)) {
+                return false;
+            }
+        }
+        return true;
+
+    }
+
+}
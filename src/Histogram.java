@@ -0,0 +1,165 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread safe histogram of non-negative long values with bounded relative error, like HdrHistogram.
+ * Values below 32 get a bucket each. Above that, every power of two is split into 16 buckets, so a value is never
+ * off by more than 1/16 of itself, e.g. a latency of 1,000,000 nanoseconds is recorded to within 62,500.
+ * Recording is a few bit operations and an atomic increment with no allocation, so it can be done on every call.
+ */
+class Histogram {
+
+    //Values below this get a bucket each
+    private static final int LINEAR_BUCKETS = 32;
+
+    //Number of buckets each power of two above LINEAR_BUCKETS is split into
+    private static final int SUB_BUCKETS = LINEAR_BUCKETS / 2;
+
+    //log2 of SUB_BUCKETS
+    private static final int SUB_BUCKET_BITS = 4;
+
+    //Enough buckets for Long.MAX_VALUE
+    private static final int BUCKET_COUNT = bucketIndex(Long.MAX_VALUE) + 1;
+
+    //Number of values recorded in each bucket
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    //Number of values recorded
+    private final LongAdder count = new LongAdder();
+
+    //Sum of the values recorded
+    private final LongAdder sum = new LongAdder();
+
+    //Largest value recorded
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     * @param value is the value being recorded. Negative values are recorded as 0.
+     */
+    void record(final long value) {
+
+        long recorded = Math.max(0, value);
+        buckets.incrementAndGet(bucketIndex(recorded));
+        count.increment();
+        sum.add(recorded);
+
+        long currentMax = max.get();
+        while (recorded > currentMax && !max.compareAndSet(currentMax, recorded)) {
+            currentMax = max.get();
+        }
+
+    }
+
+    /**
+     * Getter for the number of values recorded.
+     * @return how many values have been recorded since the last reset.
+     */
+    long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Calculates the exact mean of the values recorded.
+     * @return the mean, or 0 if nothing has been recorded.
+     */
+    double getMean() {
+
+        long currentCount = count.sum();
+        return currentCount == 0 ? 0 : (double) sum.sum() / currentCount;
+
+    }
+
+    /**
+     * Getter for the exact largest value recorded.
+     * @return the largest value, or 0 if nothing has been recorded.
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Finds the value that a percentage of the recorded values are less than or equal to.
+     * @param percentile is the percentage, from 0 to 100.
+     * @return the highest value in the bucket holding that percentile, but no more than the largest value recorded.
+     * @throws IllegalArgumentException if percentile is not between 0 and 100.
+     */
+    long getValueAtPercentile(final double percentile) throws IllegalArgumentException {
+
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+
+        //Counts are read without stopping writers, so the total is taken from the buckets being walked
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueInBucket(i), max.get());
+            }
+        }
+        return max.get();
+
+    }
+
+    /**
+     * Forgets every value recorded. Values recorded while resetting may or may not be kept.
+     */
+    void reset() {
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+
+    }
+
+    /**
+     * Finds which bucket a value is counted in.
+     * @param value is a non-negative value.
+     * @return the index of its bucket.
+     */
+    static int bucketIndex(final long value) {
+
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+
+        //Keeps the top five bits of the value, the first of which is always set
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+
+    }
+
+    /**
+     * Finds the highest value counted in a bucket.
+     * @param index is the index of the bucket.
+     * @return the highest value that bucketIndex maps to index.
+     */
+    static long highestValueInBucket(final int index) {
+
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+
+        int shift = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long lowestValue = (long) ((index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowestValue + (1L << shift) - 1;
+
+    }
+
+}
@@ -0,0 +1,308 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Finds the byte positions of values inside of UTF-8 encoded JSON without decoding it.
+ * Only the structure of the document is looked at: strings are skipped over by their quotes and objects and arrays
+ * by their brackets, so locating the members of an object or the elements of an array is a single pass over the
+ * bytes that allocates nothing per value.
+ */
+class JsonSlices {
+
+    /**
+     * Skips over any whitespace.
+     * @param json is the document.
+     * @param position is where to start skipping.
+     * @return the position of the next byte that is not whitespace.
+     */
+    static int skipWhitespace(final ByteBuffer json, final int position) {
+
+        int current = position;
+        while (current < json.limit() && isWhitespace(json.get(current))) {
+            current++;
+        }
+        return current;
+
+    }
+
+    /**
+     * Finds where a value ends.
+     * @param json is the document.
+     * @param start is the position of the first byte of the value.
+     * @return the position just after the last byte of the value.
+     * @throws IOException if the document ends before the value does.
+     */
+    static int valueEnd(final ByteBuffer json, final int start) throws IOException {
+
+        if (start >= json.limit()) {
+            throw malformed(start);
+        }
+
+        byte first = json.get(start);
+        if (first == '"') {
+            return stringEnd(json, start);
+        }
+
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            int position = start;
+            while (position < json.limit()) {
+                byte current = json.get(position);
+                if (current == '"') {
+                    position = stringEnd(json, position);
+                    continue;
+                }
+                if (current == '{' || current == '[') {
+                    depth++;
+                } else if (current == '}' || current == ']') {
+                    depth--;
+                    if (depth == 0) {
+                        return position + 1;
+                    }
+                }
+                position++;
+            }
+            throw malformed(start);
+        }
+
+        //Numbers, true, false and null run until the next delimiter
+        int position = start;
+        while (position < json.limit()) {
+            byte current = json.get(position);
+            if (current == ',' || current == '}' || current == ']' || isWhitespace(current)) {
+                break;
+            }
+            position++;
+        }
+        return position;
+
+    }
+
+    /**
+     * Finds the values of several members of an object in one pass over it.
+     * The pass stops as soon as every member has been found, so members after them are not looked at.
+     * Member names are compared byte for byte, so they must not contain escape sequences.
+     * @param json is the document.
+     * @param objectStart is the position of the object's opening brace.
+     * @param names is the names of the members being looked for.
+     * @return the start of each member's value in the same order as names, or -1 for members that are missing.
+     * @throws IOException if the object is not well formed.
+     */
+    static int[] findMembers(final ByteBuffer json, final int objectStart, final String... names)
+            throws IOException {
+
+        byte[][] encodedNames = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+        int[] valueStarts = new int[names.length];
+        Arrays.fill(valueStarts, -1);
+
+        if (objectStart >= json.limit() || json.get(objectStart) != '{') {
+            throw malformed(objectStart);
+        }
+
+        int foundCount = 0;
+        int position = skipWhitespace(json, objectStart + 1);
+        while (position < json.limit() && json.get(position) != '}') {
+            int nameEnd = stringEnd(json, position);
+            int colon = skipWhitespace(json, nameEnd);
+            if (colon >= json.limit() || json.get(colon) != ':') {
+                throw malformed(colon);
+            }
+            int valueStart = skipWhitespace(json, colon + 1);
+
+            for (int i = 0; i < encodedNames.length; i++) {
+                if (valueStarts[i] == -1 && bytesEqual(json, position + 1, nameEnd - 1, encodedNames[i])) {
+                    valueStarts[i] = valueStart;
+                    foundCount++;
+                }
+            }
+            if (foundCount == names.length) {
+                return valueStarts;
+            }
+
+            position = skipWhitespace(json, valueEnd(json, valueStart));
+            if (position < json.limit() && json.get(position) == ',') {
+                position = skipWhitespace(json, position + 1);
+            }
+        }
+
+        if (position >= json.limit()) {
+            throw malformed(objectStart);
+        }
+        return valueStarts;
+
+    }
+
+    /**
+     * Finds the start and end of every element of an array.
+     * @param json is the document.
+     * @param arrayStart is the position of the array's opening bracket.
+     * @return pairs of positions, the start of element i is at index 2i and its end at index 2i + 1.
+     * @throws IOException if the array is not well formed.
+     */
+    static int[] arrayElements(final ByteBuffer json, final int arrayStart) throws IOException {
+
+        if (arrayStart >= json.limit() || json.get(arrayStart) != '[') {
+            throw malformed(arrayStart);
+        }
+
+        int[] bounds = new int[32];
+        int boundCount = 0;
+        int position = skipWhitespace(json, arrayStart + 1);
+        while (position < json.limit() && json.get(position) != ']') {
+            int elementEnd = valueEnd(json, position);
+            if (boundCount + 2 > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[boundCount++] = position;
+            bounds[boundCount++] = elementEnd;
+
+            position = skipWhitespace(json, elementEnd);
+            if (position < json.limit() && json.get(position) == ',') {
+                position = skipWhitespace(json, position + 1);
+            }
+        }
+
+        if (position >= json.limit()) {
+            throw malformed(arrayStart);
+        }
+        return Arrays.copyOf(bounds, boundCount);
+
+    }
+
+    /**
+     * Reads an integer value without decoding it to a String.
+     * @param json is the document.
+     * @param valueStart is the position of the first byte of the value, or -1 if the value is missing.
+     * @return the integer, or 0 if the value is missing or null the same way Gson treats primitive fields.
+     * @throws IOException if the value is not an integer or null.
+     */
+    static int readInt(final ByteBuffer json, final int valueStart) throws IOException {
+        return (int) readLong(json, valueStart);
+    }
+
+    /**
+     * Reads a long value without decoding it to a String, e.g. a timestamp.
+     * @param json is the document.
+     * @param valueStart is the position of the first byte of the value, or -1 if the value is missing.
+     * @return the long, or 0 if the value is missing or null the same way Gson treats primitive fields.
+     * @throws IOException if the value is not an integer or null.
+     */
+    static long readLong(final ByteBuffer json, final int valueStart) throws IOException {
+
+        if (valueStart < 0 || json.get(valueStart) == 'n') {
+            return 0;
+        }
+
+        int position = valueStart;
+        boolean negative = json.get(position) == '-';
+        if (negative) {
+            position++;
+        }
+
+        long value = 0;
+        int end = valueEnd(json, valueStart);
+        if (position == end) {
+            throw malformed(valueStart);
+        }
+        for (; position < end; position++) {
+            byte digit = json.get(position);
+            if (digit < '0' || digit > '9') {
+                throw malformed(position);
+            }
+            value = value * 10 + (digit - '0');
+        }
+
+        return negative ? -value : value;
+
+    }
+
+    /**
+     * Creates a buffer over part of the document that shares its bytes.
+     * @param json is the document.
+     * @param start is the first position included.
+     * @param end is the position after the last one included.
+     * @return a buffer whose position 0 is start in the document.
+     */
+    static ByteBuffer slice(final ByteBuffer json, final int start, final int end) {
+
+        ByteBuffer slice = json.duplicate();
+        slice.limit(end);
+        slice.position(start);
+        return slice.slice();
+
+    }
+
+    /**
+     * Finds where a string ends, skipping over escaped quotes.
+     * @param json is the document.
+     * @param start is the position of the opening quote.
+     * @return the position just after the closing quote.
+     * @throws IOException if there is no string at start or it is never closed.
+     */
+    private static int stringEnd(final ByteBuffer json, final int start) throws IOException {
+
+        if (start >= json.limit() || json.get(start) != '"') {
+            throw malformed(start);
+        }
+
+        int position = start + 1;
+        while (position < json.limit()) {
+            byte current = json.get(position);
+            if (current == '\\') {
+                position += 2;
+            } else if (current == '"') {
+                return position + 1;
+            } else {
+                position++;
+            }
+        }
+        throw malformed(start);
+
+    }
+
+    /**
+     * Compares part of the document with some bytes.
+     * @param json is the document.
+     * @param start is the first position compared.
+     * @param end is the position after the last one compared.
+     * @param expected is the bytes being compared with.
+     * @return true if they are the same.
+     */
+    private static boolean bytesEqual(final ByteBuffer json, final int start, final int end, final byte[] expected) {
+
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (json.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+
+    }
+
+    /**
+     * Checks for JSON whitespace.
+     * @param value is the byte being checked.
+     * @return true for spaces, tabs and line breaks.
+     */
+    private static boolean isWhitespace(final byte value) {
+        return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+    }
+
+    /**
+     * Creates the exception thrown for documents that are not well formed.
+     * @param position is where the problem was found.
+     * @return the exception.
+     */
+    private static IOException malformed(final int position) {
+        return new IOException("Malformed JSON at byte " + position);
+    }
+
+}
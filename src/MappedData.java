@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads files from the project's 'data' directory by memory-mapping them.
+ * Unlike Data.getFileContentsAsString, the file is never copied into a byte array first and it is always
+ * decoded as UTF-8 instead of the platform charset.
+ */
+public class MappedData {
+
+    //Number of characters decoded from the mapped file at a time when it is read through a Reader
+    private static final int DECODE_CHUNK_SIZE = 8192;
+
+    /**
+     * Memory-maps a file located in the project's 'data' directory.
+     * @param filename contains the name of the file.
+     * @return a read only buffer over the file's bytes.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static MappedByteBuffer mapFile(final String filename) throws IOException {
+        return mapFile(getDataPath(filename));
+    }
+
+    /**
+     * Memory-maps any file.
+     * The mapping stays valid after the channel is closed, so no file handle is held on to. The file must not be
+     * modified or truncated in place while the buffer is in use: the buffer reads the file's current bytes, and
+     * reading past the end of a truncated file crashes the JVM with SIGBUS.
+     * @param path is the location of the file.
+     * @return a read only buffer over the file's bytes.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static MappedByteBuffer mapFile(final Path path) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+    }
+
+    /**
+     * Opens a Reader that decodes a file in the 'data' directory as UTF-8 straight out of its mapping.
+     * @param filename contains the name of the file.
+     * @return a Reader over the file's contents.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public static Reader getFileContentsAsReader(final String filename) throws IOException {
+        return new ByteBufferReader(mapFile(filename));
+    }
+
+    /**
+     * This function reads the contents of a file located in the project's 'data' directory into a String.
+     * The String is decoded directly from the mapped file as UTF-8.
+     * @param filename contains the name of file
+     * @return a String containing the file's contents
+     */
+    public static String getFileContentsAsString(final String filename) {
+
+        try {
+            SeriesEvents.FileReadEvent event = new SeriesEvents.FileReadEvent();
+            event.begin();
+            MappedByteBuffer contents = mapFile(filename);
+            event.path = filename;
+            event.bytes = contents.remaining();
+            String decoded = StandardCharsets.UTF_8.decode(contents).toString();
+            event.commit();
+            return decoded;
+        } catch (IOException e) {
+            // Same behavior as Data.getFileContentsAsString so callers can switch between the two
+            System.out.println("Couldn't find file: " + filename);
+            System.exit(-1);
+            return null;  // note that this return will never execute, but Java wants it there.
+        }
+
+    }
+
+    /**
+     * Loads a TVSeries from a TVmaze show document in the 'data' directory.
+     * The document is streamed into the parser from the mapped file without building a String or a JSON tree.
+     * @param filename contains the name of the file.
+     * @return the deserialized TVSeries.
+     * @throws IOException if the file cannot be read or is not valid JSON.
+     */
+    public static TVSeries getSeries(final String filename) throws IOException {
+
+        try (Reader reader = getFileContentsAsReader(filename)) {
+            return TVSeries.fromReader(reader);
+        }
+
+    }
+
+    /**
+     * Loads a TVSeries from a TVmaze show document in the 'data' directory, decoding each episode on first use.
+     * @param filename contains the name of the file.
+     * @return the TVSeries, see TVSeries.fromPathLazy.
+     * @throws IOException if the file cannot be read or is not valid JSON.
+     */
+    public static TVSeries getSeriesLazy(final String filename) throws IOException {
+        return TVSeries.fromPathLazy(getDataPath(filename));
+    }
+
+    /**
+     * Creates a Reader that decodes UTF-8 bytes out of a buffer, e.g. a mapped file.
+     * @param bytes is the encoded contents, from its position to its limit. Reading advances its position.
+     * @return a Reader over the decoded contents.
+     */
+    static Reader newReader(final ByteBuffer bytes) {
+        return new ByteBufferReader(bytes);
+    }
+
+    /**
+     * Resolves a file name against the 'data' directory the same way Data does.
+     * @param filename contains the name of the file.
+     * @return the path of the file.
+     */
+    private static Path getDataPath(final String filename) {
+        return FileSystems.getDefault().getPath("data", filename);
+    }
+
+    /**
+     * A Reader that decodes UTF-8 bytes out of a ByteBuffer a chunk at a time.
+     */
+    private static class ByteBufferReader extends Reader {
+
+        //Bytes that have not been decoded yet
+        private final ByteBuffer bytes;
+
+        //Decoder replaces malformed input the same way new String(bytes) does
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        //Characters that have been decoded but not read yet
+        private final CharBuffer pending = CharBuffer.allocate(DECODE_CHUNK_SIZE);
+
+        //Whether the decoder has been told that there is no more input
+        private boolean flushed;
+
+        /**
+         * Constructor for a new ByteBufferReader.
+         * @param bytes is the UTF-8 encoded contents being read.
+         */
+        ByteBufferReader(final ByteBuffer bytes) {
+            this.bytes = bytes;
+            this.pending.flip();
+        }
+
+        @Override
+        public int read(final char[] destination, final int offset, final int length) throws IOException {
+
+            if (length == 0) {
+                return 0;
+            }
+
+            if (!pending.hasRemaining() && !fill()) {
+                return -1;
+            }
+
+            int charsRead = Math.min(length, pending.remaining());
+            pending.get(destination, offset, charsRead);
+            return charsRead;
+
+        }
+
+        /**
+         * Decodes the next chunk of bytes into the pending buffer.
+         * @return false if there is nothing left to decode.
+         * @throws IOException if the decoder fails.
+         */
+        private boolean fill() throws IOException {
+
+            pending.clear();
+            while (pending.position() == 0 && !flushed) {
+                CoderResult result = decoder.decode(bytes, pending, true);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                if (result.isUnderflow()) {
+                    decoder.flush(pending);
+                    flushed = true;
+                }
+            }
+            pending.flip();
+
+            return pending.hasRemaining();
+
+        }
+
+        @Override
+        public void close() {
+            //Nothing to release, the mapping is freed when the buffer is garbage collected
+        }
+
+    }
+
+}
@@ -0,0 +1,175 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An Aho-Corasick automaton that finds every one of a set of patterns in a text in a single pass.
+ * The patterns are put in a trie whose missing transitions are filled in from the failure links, so the automaton
+ * is a plain DFA: each character of the text is one table lookup however many patterns there are, and the patterns
+ * ending at a state, including those that end in a suffix of it, are listed on the state.
+ * Characters are compared exactly, so patterns and texts are case folded before they get here.
+ */
+final class MultiPatternMatcher {
+
+    //Alphabet symbol for characters that aren't in any pattern
+    private static final int OTHER_SYMBOL = 0;
+
+    //Symbol of each ASCII character, the common case, and of every other character in the patterns
+    private final int[] asciiSymbols = new int[128];
+    private final HashMap<Character, Integer> otherSymbols = new HashMap<>();
+    private final int symbolCount;
+
+    //Next state for each state and symbol, at index state * symbolCount + symbol
+    private final int[] transitions;
+
+    //Patterns found on reaching each state, null for states that don't complete any
+    private final int[][] matches;
+
+    /**
+     * Builds the automaton for a set of patterns.
+     * @param patterns is the patterns, which must not be empty. A pattern's index is what is reported when it's found.
+     */
+    MultiPatternMatcher(final String[] patterns) {
+
+        int nextSymbol = OTHER_SYMBOL + 1;
+        for (String pattern : patterns) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char character = pattern.charAt(i);
+                if (character < asciiSymbols.length) {
+                    if (asciiSymbols[character] == OTHER_SYMBOL) {
+                        asciiSymbols[character] = nextSymbol++;
+                    }
+                } else if (!otherSymbols.containsKey(character)) {
+                    otherSymbols.put(character, nextSymbol++);
+                }
+            }
+        }
+        symbolCount = nextSymbol;
+
+        //Builds the trie, with -1 for transitions that aren't in it
+        ArrayList<int[]> trie = new ArrayList<>();
+        ArrayList<ArrayList<Integer>> completed = new ArrayList<>();
+        trie.add(newState());
+        completed.add(null);
+        for (int index = 0; index < patterns.length; index++) {
+            int state = 0;
+            for (int i = 0; i < patterns[index].length(); i++) {
+                int symbol = symbolOf(patterns[index].charAt(i));
+                if (trie.get(state)[symbol] < 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newState());
+                    completed.add(null);
+                }
+                state = trie.get(state)[symbol];
+            }
+            if (completed.get(state) == null) {
+                completed.set(state, new ArrayList<>());
+            }
+            completed.get(state).add(index);
+        }
+
+        //Fills in the failure transitions breadth first, so a state's failure state is finished before it is
+        int stateCount = trie.size();
+        transitions = new int[stateCount * symbolCount];
+        matches = new int[stateCount][];
+        int[] failures = new int[stateCount];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int failure = failures[state];
+            matches[state] = mergeMatches(completed.get(state), state == 0 ? null : matches[failure]);
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = trie.get(state)[symbol];
+                if (next >= 0) {
+                    failures[next] = state == 0 ? 0 : transitions[failure * symbolCount + symbol];
+                    transitions[state * symbolCount + symbol] = next;
+                    queue.add(next);
+                } else {
+                    transitions[state * symbolCount + symbol] = state == 0 ? 0
+                                                                          : transitions[failure * symbolCount + symbol];
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Getter for the state the automaton starts in.
+     * @return the start state.
+     */
+    int startState() {
+        return 0;
+    }
+
+    /**
+     * Moves the automaton on by one character of the text.
+     * @param state is the current state.
+     * @param character is the next character of the text.
+     * @return the next state.
+     */
+    int next(final int state, final char character) {
+        return transitions[state * symbolCount + symbolOf(character)];
+    }
+
+    /**
+     * Getter for the patterns that end at the current position of the text.
+     * @param state is the state reached after the current character.
+     * @return the indexes of the patterns found, or null if there are none.
+     */
+    int[] matchesAt(final int state) {
+        return matches[state];
+    }
+
+    /**
+     * Maps a character to its alphabet symbol.
+     * @param character is the character.
+     * @return the symbol, OTHER_SYMBOL if no pattern contains the character.
+     */
+    private int symbolOf(final char character) {
+
+        if (character < asciiSymbols.length) {
+            return asciiSymbols[character];
+        }
+        Integer symbol = otherSymbols.get(character);
+        return symbol == null ? OTHER_SYMBOL : symbol;
+
+    }
+
+    /**
+     * Creates a trie state without any transitions.
+     * @return the transitions of the new state.
+     */
+    private int[] newState() {
+
+        int[] state = new int[symbolCount];
+        Arrays.fill(state, -1);
+        return state;
+
+    }
+
+    /**
+     * Combines the patterns completed at a state with those found at its failure state, which are its suffixes.
+     * @param completed is the patterns that end exactly at the state, or null.
+     * @param suffixMatches is the patterns found at the failure state, or null.
+     * @return the patterns found at the state, or null if there are none.
+     */
+    private static int[] mergeMatches(final ArrayList<Integer> completed, final int[] suffixMatches) {
+
+        if (completed == null) {
+            return suffixMatches;
+        }
+        int suffixCount = suffixMatches == null ? 0 : suffixMatches.length;
+        int[] merged = new int[completed.size() + suffixCount];
+        for (int i = 0; i < completed.size(); i++) {
+            merged[i] = completed.get(i);
+        }
+        if (suffixMatches != null) {
+            System.arraycopy(suffixMatches, 0, merged, completed.size(), suffixCount);
+        }
+        return merged;
+
+    }
+
+}
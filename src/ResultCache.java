@@ -0,0 +1,243 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Objects;
+
+/**
+ * A bounded cache of search results for TVSeries that have it turned on with setResultCache.
+ * Results are kept per series, search and arguments, along with the change count of the series when they were
+ * found. Any change to the series' episodes or fields bumps its change count, including setting the name, summary,
+ * airdate or runtime of one of its episodes, so a result found before the change is never handed out again and is
+ * dropped the next time it is looked up.
+ * The cache holds at most maxEntries results with at most maxWeight episodes between them, each result weighing its
+ * length plus one. The least recently used results are evicted first once either bound is reached. One cache can be
+ * shared by any number of series, e.g. every series in a catalog, and by any number of threads.
+ */
+public class ResultCache {
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    //Results in least to most recently used order, guarded by the lock on the cache
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    //Total weight of the results in the cache
+    private long weight;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    /**
+     * Constructor for an empty cache.
+     * @param maxEntries is the most results the cache holds.
+     * @param maxWeight is the most episodes the cached results hold between them, counting one extra per result.
+     * @throws IllegalArgumentException if either bound is less than 1.
+     */
+    public ResultCache(final int maxEntries, final long maxWeight) throws IllegalArgumentException {
+
+        if (maxEntries < 1 || maxWeight < 1) {
+            throw new IllegalArgumentException("Cache bounds must be at least 1");
+        }
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+
+    }
+
+    /**
+     * Getter for the number of lookups that found a result.
+     * @return the hit count.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Getter for the number of lookups that didn't find a result, including ones that found an out of date result.
+     * @return the miss count.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Getter for the number of results evicted to stay within the bounds.
+     * @return the eviction count.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Getter for the number of results dropped because their series changed after they were found.
+     * @return the invalidation count.
+     */
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Getter for the number of results in the cache.
+     * @return how many results are cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Getter for the total weight of the results in the cache.
+     * @return the number of episodes in the cached results plus one per result.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * Drops every result. The counters are left alone.
+     */
+    public synchronized void clear() {
+
+        entries.clear();
+        weight = 0;
+
+    }
+
+    /**
+     * Looks up the result of a search.
+     * @param series is the series that was searched.
+     * @param operation is the search.
+     * @param argument is the first argument of the search.
+     * @param secondArgument is the second argument of the search, or null if it only has one.
+     * @param changeCount is the current change count of the series.
+     * @return the cached result, which must not be modified, or null if there isn't an up to date one.
+     */
+    synchronized TVSeries.TVEpisode[] get(final TVSeries series, final SeriesMetrics.Operation operation,
+                                          final Object argument, final Object secondArgument, final long changeCount) {
+
+        Key key = new Key(series, operation, argument, secondArgument);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        } else if (entry.changeCount != changeCount) {
+            entries.remove(key);
+            weight -= entry.weight();
+            invalidationCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.result;
+
+    }
+
+    /**
+     * Caches the result of a search, evicting the least recently used results if the cache is over its bounds.
+     * A result too heavy to ever fit is not cached.
+     * @param series is the series that was searched.
+     * @param operation is the search.
+     * @param argument is the first argument of the search.
+     * @param secondArgument is the second argument of the search, or null if it only has one.
+     * @param changeCount is the change count of the series when the search started.
+     * @param result is the result, which must not be modified afterwards.
+     */
+    synchronized void put(final TVSeries series, final SeriesMetrics.Operation operation, final Object argument,
+                          final Object secondArgument, final long changeCount, final TVSeries.TVEpisode[] result) {
+
+        Entry entry = new Entry(changeCount, result);
+        if (entry.weight() > maxWeight) {
+            return;
+        }
+        Entry replaced = entries.put(new Key(series, operation, argument, secondArgument), entry);
+        if (replaced != null) {
+            weight -= replaced.weight();
+        }
+        weight += entry.weight();
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries || weight > maxWeight) {
+            Entry evicted = eldest.next();
+            eldest.remove();
+            weight -= evicted.weight();
+            evictionCount++;
+        }
+
+    }
+
+    /**
+     * A search of a series with its arguments. Series are compared by identity.
+     */
+    private static final class Key {
+
+        final TVSeries series;
+        final SeriesMetrics.Operation operation;
+        final Object argument;
+        final Object secondArgument;
+
+        /**
+         * Constructor for a new Key.
+         * @param series is the series that was searched.
+         * @param operation is the search.
+         * @param argument is the first argument of the search.
+         * @param secondArgument is the second argument of the search, or null.
+         */
+        Key(final TVSeries series, final SeriesMetrics.Operation operation, final Object argument,
+            final Object secondArgument) {
+
+            this.series = series;
+            this.operation = operation;
+            this.argument = argument;
+            this.secondArgument = secondArgument;
+
+        }
+
+        @Override
+        public boolean equals(final Object otherObject) {
+
+            if (!(otherObject instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) otherObject;
+            return series == other.series && operation == other.operation && Objects.equals(argument, other.argument)
+                   && Objects.equals(secondArgument, other.secondArgument);
+
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(series), operation, argument, secondArgument);
+        }
+
+    }
+
+    /**
+     * A cached result and the change count of its series when it was found.
+     */
+    private static final class Entry {
+
+        final long changeCount;
+        final TVSeries.TVEpisode[] result;
+
+        /**
+         * Constructor for a new Entry.
+         * @param changeCount is the change count of the series when the search started.
+         * @param result is the result.
+         */
+        Entry(final long changeCount, final TVSeries.TVEpisode[] result) {
+
+            this.changeCount = changeCount;
+            this.result = result;
+
+        }
+
+        /**
+         * Getter for how much the entry counts towards the weight bound.
+         * @return the number of episodes in the result plus one.
+         */
+        long weight() {
+            return result.length + 1L;
+        }
+
+    }
+
+}
@@ -0,0 +1,115 @@
+import java.util.TreeMap;
+
+/**
+ * Running runtime statistics for a group of episodes, e.g. a whole series or one of its seasons.
+ * The statistics are updated as episodes are added and removed, so reading them never requires a scan.
+ * Runtimes are kept in a multiset so the minimum and maximum stay correct when an episode is removed.
+ * TVSeries updates a copy of its statistics when episodes change, so statistics it has handed out never change.
+ */
+public class RuntimeStatistics {
+
+    //Number of episodes included in the statistics
+    private int episodeCount;
+
+    //Sum of the runtimes of every included episode, in minutes
+    private long totalRuntime;
+
+    //Multiset of runtimes: how many included episodes have each runtime
+    private final TreeMap<Integer, Integer> runtimeCounts = new TreeMap<>();
+
+    /**
+     * Constructor for statistics without any episodes.
+     */
+    public RuntimeStatistics() {
+    }
+
+    /**
+     * Constructor for a copy of other statistics.
+     * @param other is the statistics being copied.
+     */
+    RuntimeStatistics(final RuntimeStatistics other) {
+        this.episodeCount = other.episodeCount;
+        this.totalRuntime = other.totalRuntime;
+        this.runtimeCounts.putAll(other.runtimeCounts);
+    }
+
+    /**
+     * Getter for the number of episodes.
+     * @return how many episodes are included in the statistics.
+     */
+    public int getEpisodeCount() {
+        return episodeCount;
+    }
+
+    /**
+     * Getter for the total runtime.
+     * @return the sum of the runtimes of all included episodes in minutes.
+     */
+    public long getTotalRuntime() {
+        return totalRuntime;
+    }
+
+    /**
+     * Calculates the average runtime the same way TVSeries.averageRuntimeOfEpisodes does.
+     * @return the average runtime in whole minutes, or 0 if there are no episodes.
+     */
+    public int getAverageRuntime() {
+
+        if (episodeCount == 0) {
+            return 0;
+        }
+        return (int) (totalRuntime / episodeCount);
+
+    }
+
+    /**
+     * Getter for the longest runtime.
+     * @return the maximum runtime in minutes, or 0 if there are no episodes.
+     */
+    public int getMaxRuntime() {
+        return runtimeCounts.isEmpty() ? 0 : runtimeCounts.lastKey();
+    }
+
+    /**
+     * Getter for the shortest runtime.
+     * @return the minimum runtime in minutes, or 0 if there are no episodes.
+     */
+    public int getMinRuntime() {
+        return runtimeCounts.isEmpty() ? 0 : runtimeCounts.firstKey();
+    }
+
+    /**
+     * Includes a runtime in the statistics.
+     * @param runtimeInMinutes is the runtime of the episode being added.
+     */
+    void add(final int runtimeInMinutes) {
+
+        episodeCount++;
+        totalRuntime += runtimeInMinutes;
+        runtimeCounts.merge(runtimeInMinutes, 1, Integer::sum);
+
+    }
+
+    /**
+     * Takes a runtime that was previously added out of the statistics.
+     * @param runtimeInMinutes is the runtime of the episode being removed.
+     * @throws IllegalArgumentException if no episode with that runtime was added.
+     */
+    void remove(final int runtimeInMinutes) throws IllegalArgumentException {
+
+        Integer count = runtimeCounts.get(runtimeInMinutes);
+        if (count == null) {
+            throw new IllegalArgumentException("No episode with runtime " + runtimeInMinutes + " was added");
+        }
+
+        if (count == 1) {
+            runtimeCounts.remove(runtimeInMinutes);
+        } else {
+            runtimeCounts.put(runtimeInMinutes, count - 1);
+        }
+        episodeCount--;
+        totalRuntime -= runtimeInMinutes;
+
+    }
+
+}
@@ -0,0 +1,324 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A collection of many TVSeries that can be searched as one.
+ * Searches are split over a ForkJoinPool along season boundaries: every season of every series is a separate
+ * TVEpisode[], so each task searches a run of whole seasons on its own and the results of two halves are put
+ * together by concatenating them, without any locks or shared result lists. Results are in the order the series
+ * were added, and within a series in season and episode order.
+ * The catalog and its series must not be changed while a search is running.
+ */
+public class SeriesCatalog {
+
+    //Seasons with fewer episodes than this in total are searched by a single task without splitting further
+    private static final int EPISODES_PER_TASK = 2048;
+
+    //Pool the searches run in
+    private final ForkJoinPool pool;
+
+    //Series in the order they were added
+    private final ArrayList<TVSeries> seriesList = new ArrayList<>();
+
+    /**
+     * Constructor for a new, empty catalog that searches in the common ForkJoinPool.
+     */
+    public SeriesCatalog() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for a new, empty catalog.
+     * @param pool is the pool the searches run in, its parallelism decides how many cores are used.
+     * @throws NullPointerException if pool is null.
+     */
+    public SeriesCatalog(final ForkJoinPool pool) throws NullPointerException {
+
+        if (pool == null) {
+            throw new NullPointerException("Pool cannot be null");
+        }
+        this.pool = pool;
+
+    }
+
+    /**
+     * Adds a series to the catalog.
+     * @param series is the series being added.
+     * @throws NullPointerException if series is null.
+     */
+    public void addSeries(final TVSeries series) throws NullPointerException {
+
+        if (series == null) {
+            throw new NullPointerException("Tried to add null series");
+        }
+        seriesList.add(series);
+
+    }
+
+    /**
+     * Getter for the series in the catalog.
+     * @return the series in the order they were added.
+     */
+    public TVSeries[] getSeries() {
+        return seriesList.toArray(new TVSeries[seriesList.size()]);
+    }
+
+    /**
+     * Getter for the number of series.
+     * @return how many series are in the catalog.
+     */
+    public int size() {
+        return seriesList.size();
+    }
+
+    /**
+     * Searches every series for episodes containing the name.
+     * @param name is the search name criteria
+     * @return all episodes with the name in it, or null if name is null the same as TVSeries.searchEpisodesByName.
+     */
+    public TVSeries.TVEpisode[] searchEpisodesByName(final String name) {
+        return name == null ? null : search(new EpisodeQuery().nameContains(name));
+    }
+
+    /**
+     * Searches every series for episodes whose summary contains the given content.
+     * @param contents is the contents you are searching for within the episodes
+     * @return all episodes that contain the given content
+     */
+    public TVSeries.TVEpisode[] searchEpisodesByContents(final String contents) {
+        return search(new EpisodeQuery().contentsContain(contents));
+    }
+
+    /**
+     * Searches every series for episodes whose summary mentions a character.
+     * @param character the name of the character you are looking for.
+     * @return all the episodes that contain the given character.
+     */
+    public TVSeries.TVEpisode[] searchEpisodesByCharacter(final String character) {
+        return search(new EpisodeQuery().mentionsCharacter(character));
+    }
+
+    /**
+     * Searches every series for episodes under or equaling a certain runtime.
+     * @param maxRuntimeMinutes is the max runtime as set by the caller of the function.
+     * @return all episodes under or equaling the runtime.
+     */
+    public TVSeries.TVEpisode[] searchEpisodesByMaxRuntime(final int maxRuntimeMinutes) {
+        return search(new EpisodeQuery().maxRuntime(maxRuntimeMinutes));
+    }
+
+    /**
+     * Searches every series for episodes that aired in a given year.
+     * @param year is the year being searched for episodes.
+     * @return all the episodes from that year.
+     */
+    public TVSeries.TVEpisode[] getEpisodesInYear(final int year) {
+        return search(new EpisodeQuery().inYear(year));
+    }
+
+    /**
+     * Searches every series for episodes on a given date.
+     * @param date is the date of the episode in the format: YYYY-MM-DD
+     * @return the episodes on that date, empty if the date is not well formed.
+     */
+    public TVSeries.TVEpisode[] getEpisodesOnDate(final String date) {
+        return search(new EpisodeQuery().onDate(date));
+    }
+
+    /**
+     * Searches every series for episodes that aired between two dates.
+     * @param fromDate is the first date included in the format: YYYY-MM-DD
+     * @param toDate is the last date included in the format: YYYY-MM-DD
+     * @return the episodes in the range, empty if either date is not well formed.
+     */
+    public TVSeries.TVEpisode[] getEpisodesBetween(final String fromDate, final String toDate) {
+        return search(new EpisodeQuery().airedBetween(fromDate, toDate));
+    }
+
+    /**
+     * Runs a query over every series in parallel.
+     * The filters are checked by the tasks, then the sort order, offset and limit are applied to all the matches.
+     * @param query is the query being run.
+     * @return the matching episodes.
+     */
+    public TVSeries.TVEpisode[] search(final EpisodeQuery query) {
+
+        TVSeries.TVEpisode[][] seasons = allSeasons();
+        long[] episodeOffsets = new long[seasons.length + 1];
+        for (int season = 0; season < seasons.length; season++) {
+            episodeOffsets[season + 1] = episodeOffsets[season] + seasons[season].length;
+        }
+
+        TVSeries.TVEpisode[] matches = pool.invoke(new SearchTask(query, seasons, episodeOffsets, 0, seasons.length));
+        return query.page(matches, matches.length);
+
+    }
+
+    /**
+     * Calculates the total number of episodes in every series.
+     * Read from the runtime statistics each series keeps, so no episodes are scanned.
+     * @return the total number of episodes.
+     */
+    public int totalNumberOfEpisodes() {
+
+        int total = 0;
+        for (TVSeries series : seriesList) {
+            total += series.getRuntimeStatistics().getEpisodeCount();
+        }
+        return total;
+
+    }
+
+    /**
+     * Calculates the average runtime of every episode in every series.
+     * @return the average runtime in whole minutes, or 0 if there are no episodes.
+     */
+    public int averageRuntimeOfEpisodes() {
+
+        long totalRuntime = 0;
+        long episodeCount = 0;
+        for (TVSeries series : seriesList) {
+            totalRuntime += series.getRuntimeStatistics().getTotalRuntime();
+            episodeCount += series.getRuntimeStatistics().getEpisodeCount();
+        }
+        return episodeCount == 0 ? 0 : (int) (totalRuntime / episodeCount);
+
+    }
+
+    /**
+     * Finds the longest runtime of any episode in any series.
+     * @return length in minutes of max runtime of episodes, or 0 if there are none.
+     */
+    public int maxRuntimeOfEpisodes() {
+
+        int maxRuntime = 0;
+        for (TVSeries series : seriesList) {
+            maxRuntime = Math.max(maxRuntime, series.getRuntimeStatistics().getMaxRuntime());
+        }
+        return maxRuntime;
+
+    }
+
+    /**
+     * Finds the shortest runtime of any episode in any series.
+     * @return length in minutes of min runtime of episodes, or 0 if there are none.
+     */
+    public int minRuntimeOfEpisodes() {
+
+        int minRuntime = Integer.MAX_VALUE;
+        for (TVSeries series : seriesList) {
+            if (series.getRuntimeStatistics().getEpisodeCount() > 0) {
+                minRuntime = Math.min(minRuntime, series.getRuntimeStatistics().getMinRuntime());
+            }
+        }
+        return minRuntime == Integer.MAX_VALUE ? 0 : minRuntime;
+
+    }
+
+    /**
+     * Collects the season arrays of every series, which are the units the searches are split into.
+     * @return every season of every series in catalog order.
+     */
+    private TVSeries.TVEpisode[][] allSeasons() {
+
+        ArrayList<TVSeries.TVEpisode[]> seasons = new ArrayList<>();
+        for (TVSeries series : seriesList) {
+            TVSeries.TVEpisode[][] seriesEpisodes = series.getEpisodes();
+            if (seriesEpisodes != null) {
+                seasons.addAll(Arrays.asList(seriesEpisodes));
+            }
+        }
+        return seasons.toArray(new TVSeries.TVEpisode[seasons.size()][]);
+
+    }
+
+    /**
+     * Searches a run of seasons, splitting it in two while it has too many episodes for one task.
+     */
+    private static class SearchTask extends RecursiveTask<TVSeries.TVEpisode[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        //Query whose filters are checked
+        private final EpisodeQuery query;
+
+        //Every season being searched by the whole search
+        private final TVSeries.TVEpisode[][] seasons;
+
+        //Number of episodes before each season, with the total at the end
+        private final long[] episodeOffsets;
+
+        //Seasons searched by this task, from is included and to is not
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructor for a new SearchTask.
+         * @param query is the query whose filters are checked.
+         * @param seasons is every season being searched.
+         * @param episodeOffsets is the number of episodes before each season, with the total at the end.
+         * @param from is the first season searched by this task.
+         * @param to is the season after the last one searched by this task.
+         */
+        SearchTask(final EpisodeQuery query, final TVSeries.TVEpisode[][] seasons, final long[] episodeOffsets,
+                   final int from, final int to) {
+
+            this.query = query;
+            this.seasons = seasons;
+            this.episodeOffsets = episodeOffsets;
+            this.from = from;
+            this.to = to;
+
+        }
+
+        @Override
+        protected TVSeries.TVEpisode[] compute() {
+
+            if (to - from <= 1 || episodeOffsets[to] - episodeOffsets[from] <= EPISODES_PER_TASK) {
+                TVSeries.TVEpisode[][] seasonMatches = new TVSeries.TVEpisode[to - from][];
+                for (int season = from; season < to; season++) {
+                    seasonMatches[season - from] = query.filter(seasons[season]);
+                }
+                return concatenate(seasonMatches);
+            }
+
+            //Splits where half of the episodes are on each side so uneven season lengths don't unbalance the tasks
+            long middleEpisode = (episodeOffsets[from] + episodeOffsets[to]) / 2;
+            int middle = Arrays.binarySearch(episodeOffsets, from + 1, to, middleEpisode);
+            middle = middle >= 0 ? middle : Math.min(Math.max(-middle - 1, from + 1), to - 1);
+
+            SearchTask left = new SearchTask(query, seasons, episodeOffsets, from, middle);
+            SearchTask right = new SearchTask(query, seasons, episodeOffsets, middle, to);
+            left.fork();
+            TVSeries.TVEpisode[] rightMatches = right.compute();
+            return concatenate(new TVSeries.TVEpisode[][] { left.join(), rightMatches });
+
+        }
+
+        /**
+         * Puts several arrays of matches together in order.
+         * @param parts is the arrays being joined.
+         * @return one array with the contents of every part.
+         */
+        private static TVSeries.TVEpisode[] concatenate(final TVSeries.TVEpisode[][] parts) {
+
+            int length = 0;
+            for (TVSeries.TVEpisode[] part : parts) {
+                length += part.length;
+            }
+
+            TVSeries.TVEpisode[] joined = new TVSeries.TVEpisode[length];
+            int position = 0;
+            for (TVSeries.TVEpisode[] part : parts) {
+                System.arraycopy(part, 0, joined, position, part.length);
+                position += part.length;
+            }
+            return joined;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events for the phases of loading a TVSeries and for each search, so an ordinary recording
+ * (e.g. java -XX:StartFlightRecording=filename=boot.jfr) shows where loading and searching time goes.
+ * Loading through MappedData.getFileContentsAsString, TVSeries.fromJson and the JsonObject constructor emits one
+ * event per phase: reading the file, building the Gson tree, decoding the episodes, stripping the HTML out of
+ * their summaries and organizing them into seasons. The streaming and lazy loaders emit the phases they have.
+ * Events are all enabled by default and cost close to nothing while no recording is running.
+ */
+public final class SeriesEvents {
+
+    /**
+     * Prevents instances, this class only holds the event types.
+     */
+    private SeriesEvents() {
+    }
+
+    /**
+     * A show file read into memory.
+     */
+    @Name("tvdata.FileRead")
+    @Label("File Read")
+    @Category({ "TvData", "Load" })
+    @Description("A show file read into memory")
+    public static class FileReadEvent extends Event {
+
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+    }
+
+    /**
+     * A show document parsed into a Gson tree.
+     */
+    @Name("tvdata.JsonTree")
+    @Label("JSON Tree")
+    @Category({ "TvData", "Load" })
+    @Description("A show document parsed into a Gson tree")
+    public static class JsonTreeEvent extends Event {
+
+        @Label("Characters")
+        long characters;
+
+    }
+
+    /**
+     * The episodes of a show turned into TVEpisodes, by the JsonObject constructor, fromReader or fromPathLazy.
+     */
+    @Name("tvdata.EpisodeDecode")
+    @Label("Episode Decode")
+    @Category({ "TvData", "Load" })
+    @Description("The episodes of a show turned into TVEpisodes")
+    public static class EpisodeDecodeEvent extends Event {
+
+        @Label("Series Name")
+        String seriesName;
+
+        @Label("Loader")
+        String loader;
+
+        @Label("Episode Count")
+        int episodeCount;
+
+    }
+
+    /**
+     * The HTML tags stripped out of the summaries of a show's episodes by the JsonObject constructor.
+     */
+    @Name("tvdata.SummaryStrip")
+    @Label("Summary Strip")
+    @Category({ "TvData", "Load" })
+    @Description("The HTML tags stripped out of the summaries of a show's episodes")
+    public static class SummaryStripEvent extends Event {
+
+        @Label("Series Name")
+        String seriesName;
+
+        @Label("Episode Count")
+        int episodeCount;
+
+    }
+
+    /**
+     * A list of episodes organized into seasons, along with rebuilding the indexes, by setEpisodes.
+     */
+    @Name("tvdata.OrganizeEpisodes")
+    @Label("Organize Episodes")
+    @Category({ "TvData", "Load" })
+    @Description("A list of episodes organized into seasons by setEpisodes")
+    public static class OrganizeEpisodesEvent extends Event {
+
+        @Label("Series Name")
+        String seriesName;
+
+        @Label("Episode Count")
+        int episodeCount;
+
+    }
+
+    /**
+     * One call to a search or date filter, with what was searched for and how much was found.
+     */
+    @Name("tvdata.Search")
+    @Label("Search")
+    @Category({ "TvData", "Search" })
+    @Description("A search, filter by date or lookup in the airdate or summary index")
+    public static class SearchEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Series Name")
+        String seriesName;
+
+        @Label("Query")
+        String query;
+
+        @Label("Episodes Searched")
+        int episodeCount;
+
+        @Label("Result Count")
+        int resultCount;
+
+    }
+
+    /**
+     * Starts timing a search.
+     * @return the event to pass to commitSearch once the search is done.
+     */
+    static SearchEvent beginSearch() {
+
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        return event;
+
+    }
+
+    /**
+     * Finishes a search of the episodes of one series and commits it if a recording wants it.
+     * @param event is the event beginSearch returned.
+     * @param operation is the kind of search.
+     * @param series is the series that was searched.
+     * @param query is what was searched for, a String, a year or a runtime.
+     * @param queryEnd is the end of the range for searches between two dates, otherwise null.
+     * @param result is the episodes found, which may be null.
+     */
+    static void commitSearch(final SearchEvent event, final SeriesMetrics.Operation operation, final TVSeries series,
+                             final Object query, final Object queryEnd, final Object[] result) {
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.seriesName = series.getSeriesName();
+            event.query = queryEnd == null ? String.valueOf(query) : query + ".." + queryEnd;
+            event.episodeCount = series.getRuntimeStatistics().getEpisodeCount();
+            event.resultCount = result == null ? 0 : result.length;
+            event.commit();
+        }
+
+    }
+
+    /**
+     * Finishes a search of an array of episodes and commits it if a recording wants it.
+     * The series name is taken from the first episode, since the array usually comes from a single series.
+     * @param event is the event beginSearch returned.
+     * @param operation is the kind of search.
+     * @param episodes is the episodes that were searched, which may be null.
+     * @param query is what was searched for, a String, a year or a runtime.
+     * @param queryEnd is the end of the range for searches between two dates, otherwise null.
+     * @param result is the episodes found, which may be null.
+     */
+    static void commitSearch(final SearchEvent event, final SeriesMetrics.Operation operation,
+                             final TVSeries.TVEpisode[] episodes, final Object query, final Object queryEnd,
+                             final Object[] result) {
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            if (episodes != null) {
+                for (TVSeries.TVEpisode episode : episodes) {
+                    if (episode != null) {
+                        event.seriesName = episode.getSeries().getSeriesName();
+                        break;
+                    }
+                }
+                event.episodeCount = episodes.length;
+            }
+            event.query = queryEnd == null ? String.valueOf(query) : query + ".." + queryEnd;
+            event.resultCount = result == null ? 0 : result.length;
+            event.commit();
+        }
+
+    }
+
+}
@@ -0,0 +1,690 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the changes made to a TVSeries, so they survive a restart without rewriting the whole
+ * series after each one.
+ * Once open, every change made through the series' setters, setEpisodes, addOrReplaceEpisodes, applyUpdate and
+ * applyEpisodeDelta is encoded by the thread making it and handed to a background writer, so changes never wait
+ * for the disk. The writer appends everything that was handed to it since its last write at once and forces it to
+ * disk according to the SyncPolicy, so a burst of changes costs one write and at most one fsync.
+ * When the journal grows past its compaction threshold the series is written to a snapshot and the journal is
+ * emptied. Starting up loads the snapshot, or the show document if there is no snapshot yet, and replays the
+ * journal on top of it:
+ * <pre>
+ *     SeriesJournal journal = new SeriesJournal(journalFile, snapshotFile, SyncPolicy.PERIODIC, 1 &lt;&lt; 20);
+ *     TVSeries series = journal.loadSeries(jsonFile);
+ *     journal.open(series);
+ * </pre>
+ * Changes made by calling the setters of an episode that is already in the series are not journaled.
+ */
+public class SeriesJournal implements Closeable {
+
+    /**
+     * When the writer forces what it wrote to disk. Whatever the policy, sync and close always force.
+     */
+    public enum SyncPolicy {
+        //Forces after every write, so changes are durable as soon as the writer catches up with them
+        EVERY_COMMIT,
+        //Forces at most once a second, so at most about a second of changes is lost if the machine crashes
+        PERIODIC,
+        //Leaves it to the operating system, so changes are only lost if the machine crashes
+        NEVER
+    }
+
+    //First bytes of every journal, "TVSJ" in ASCII
+    private static final int JOURNAL_MAGIC = 0x5456534A;
+
+    //Version of the journal format, bumped whenever the layout changes so old journals are rejected
+    private static final int JOURNAL_VERSION = 1;
+
+    //Bytes taken by the magic number and the version at the start of the journal
+    private static final int HEADER_LENGTH = 8;
+
+    //Bytes taken by the length and checksum in front of each record
+    private static final int RECORD_HEADER_LENGTH = 8;
+
+    //How often the PERIODIC policy forces the journal to disk
+    private static final long PERIODIC_SYNC_NANOS = 1_000_000_000L;
+
+    //Record types: episodes added, replaced or removed, all episodes set at once, and the series fields
+    private static final byte EPISODES_RECORD = 1;
+    private static final byte RESET_RECORD = 2;
+    private static final byte SERIES_FIELDS_RECORD = 3;
+
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final SyncPolicy syncPolicy;
+    private final long compactionThreshold;
+
+    //Series being journaled, set by open
+    private volatile TVSeries series;
+
+    //Journal file, only written while holding fileLock
+    private FileChannel channel;
+
+    //Taken by the writer around each write and by compaction, always before the lock on the series if both are held
+    private final Object fileLock = new Object();
+
+    //Highest record sequence number covered by the last compaction, guarded by fileLock
+    private long compactedSequence;
+
+    //Guards the fields below, which hand records from the threads changing the series to the writer
+    private final Object appendLock = new Object();
+
+    //Encoded records waiting for the writer, in the order they were appended
+    private ArrayList<byte[]> pendingRecords = new ArrayList<>();
+
+    //Sequence numbers of the last record appended, written to the file and forced to disk
+    private long appendedSequence;
+    private long writtenSequence;
+    private long syncedSequence;
+
+    //When the writer last forced the journal, for the PERIODIC policy
+    private long lastSyncNanos;
+
+    //Whether sync is waiting for the writer to force the journal
+    private boolean syncRequested;
+
+    private boolean closed;
+
+    //First error the writer ran into, after which nothing more is written
+    private IOException failure;
+
+    private Thread writer;
+
+    /**
+     * Constructor for a journal that is not open yet.
+     * @param journalFile is the path of the journal, which is created if it doesn't exist.
+     * @param snapshotFile is the path of the snapshot the journal is compacted into. It should not be the same
+     *                     file as a snapshot used by TVSeries.fromPathWithSnapshot.
+     * @param syncPolicy is when the writer forces the journal to disk.
+     * @param compactionThreshold is the size in bytes past which the journal is compacted, 0 to only compact when
+     *                            compact is called.
+     * @throws NullPointerException if one of the paths or the sync policy is null.
+     * @throws IllegalArgumentException if the compaction threshold is negative.
+     */
+    public SeriesJournal(final Path journalFile, final Path snapshotFile, final SyncPolicy syncPolicy,
+                         final long compactionThreshold) throws NullPointerException, IllegalArgumentException {
+
+        if (journalFile == null || snapshotFile == null || syncPolicy == null) {
+            throw new NullPointerException("Journal file, snapshot file and sync policy are required");
+        } else if (compactionThreshold < 0) {
+            throw new IllegalArgumentException("Compaction threshold must not be negative");
+        }
+        this.journalFile = journalFile;
+        this.snapshotFile = snapshotFile;
+        this.syncPolicy = syncPolicy;
+        this.compactionThreshold = compactionThreshold;
+
+    }
+
+    /**
+     * Loads the series the journal was last compacted into, or the show document if it was never compacted.
+     * The series is what open should replay the journal on top of.
+     * @param jsonFile is the path of the show document.
+     * @return the series as of the last compaction.
+     * @throws IOException if the snapshot or the document cannot be read.
+     * @throws NullPointerException if the document does not contain an embedded list of episodes.
+     */
+    public TVSeries loadSeries(final Path jsonFile) throws IOException, NullPointerException {
+
+        if (Files.isRegularFile(snapshotFile)) {
+            try (InputStream input = Files.newInputStream(snapshotFile)) {
+                return TVSeries.readSnapshot(input);
+            }
+        }
+        return TVSeries.fromPath(jsonFile);
+
+    }
+
+    /**
+     * Replays the journal into a series and starts logging the changes made to it.
+     * A record that was only partly written when the process stopped is cut off the end of the journal.
+     * @param series is the series the journal was written from, as returned by loadSeries.
+     * @return how many records were replayed.
+     * @throws IOException if the journal cannot be read or created, or was written by another version.
+     * @throws IllegalStateException if the journal is already open or the series already has a journal.
+     */
+    public int open(final TVSeries series) throws IOException, IllegalStateException {
+
+        synchronized (series) {
+            if (this.series != null) {
+                throw new IllegalStateException("Journal is already open");
+            } else if (series.getJournal() != null) {
+                throw new IllegalStateException("Series already has a journal");
+            }
+
+            FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE);
+            int replayedCount;
+            try {
+                replayedCount = replay(channel, series);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+
+            this.channel = channel;
+            this.series = series;
+            lastSyncNanos = System.nanoTime();
+            series.setJournal(this);
+            writer = new Thread(this::writeRecords, "SeriesJournal writer " + journalFile.getFileName());
+            writer.setDaemon(true);
+            writer.start();
+            return replayedCount;
+        }
+
+    }
+
+    /**
+     * Reads every complete record in a journal and applies it to a series, then positions the journal for appending.
+     * Writes the header if the journal is new.
+     * @param channel is the journal.
+     * @param series is the series the records are applied to.
+     * @return how many records were applied.
+     * @throws IOException if reading fails, the file is not a journal, or one of its records is corrupt.
+     */
+    private static int replay(final FileChannel channel, final TVSeries series) throws IOException {
+
+        long size = channel.size();
+        if (size < HEADER_LENGTH) {
+            //A journal whose header never made it to disk has no records either
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.putInt(JOURNAL_MAGIC).putInt(JOURNAL_VERSION).flip();
+            channel.truncate(0);
+            channel.write(header, 0);
+            channel.force(true);
+            channel.position(HEADER_LENGTH);
+            return 0;
+        } else if (size > Integer.MAX_VALUE) {
+            throw new IOException("Journal is too large to replay");
+        }
+
+        ByteBuffer contents = ByteBuffer.allocate((int) size);
+        while (contents.hasRemaining() && channel.read(contents, contents.position()) >= 0) {
+            //Keeps reading until the whole file is in memory
+        }
+        contents.flip();
+        if (contents.getInt() != JOURNAL_MAGIC) {
+            throw new IOException("File is not a TVSeries journal");
+        }
+        int version = contents.getInt();
+        if (version != JOURNAL_VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+
+        int replayedCount = 0;
+        CRC32 checksum = new CRC32();
+        while (contents.remaining() >= RECORD_HEADER_LENGTH) {
+            int recordStart = contents.position();
+            int length = contents.getInt();
+            int expectedChecksum = contents.getInt();
+            if (length < 1 || length > contents.remaining()) {
+                contents.position(recordStart);
+                break;
+            }
+            checksum.reset();
+            checksum.update(contents.array(), contents.position(), length);
+            if ((int) checksum.getValue() != expectedChecksum) {
+                contents.position(recordStart);
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.wrap(contents.array(), contents.position(), length).slice();
+            try {
+                applyRecord(record, series);
+            } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                     | NegativeArraySizeException | NullPointerException e) {
+                throw new IOException("Journal record " + replayedCount + " is corrupt", e);
+            }
+            contents.position(contents.position() + length);
+            replayedCount++;
+        }
+
+        //Whatever follows the last complete record was cut short by a crash and is dropped
+        if (contents.position() < size) {
+            channel.truncate(contents.position());
+            channel.force(true);
+        }
+        channel.position(contents.position());
+        return replayedCount;
+
+    }
+
+    /**
+     * Applies one journal record to a series.
+     * @param record is the record, without its length and checksum.
+     * @param series is the series the record is applied to.
+     * @throws BufferUnderflowException if the record ends early.
+     * @throws IllegalArgumentException if the record has an unknown type or an episode in it isn't valid.
+     */
+    private static void applyRecord(final ByteBuffer record, final TVSeries series)
+            throws BufferUnderflowException, IllegalArgumentException {
+
+        byte type = record.get();
+        if (type == EPISODES_RECORD) {
+            ArrayList<TVSeries.TVEpisode> changedEpisodes = new ArrayList<>();
+            int changedCount = record.getInt();
+            for (int i = 0; i < changedCount; i++) {
+                changedEpisodes.add(series.readSnapshotEpisode(record));
+            }
+            int[] removedSlots = new int[record.getInt() * 2];
+            for (int i = 0; i < removedSlots.length; i++) {
+                removedSlots[i] = record.getInt();
+            }
+            series.replayChanges(changedEpisodes, removedSlots);
+        } else if (type == RESET_RECORD) {
+            int count = record.getInt();
+            TVSeries.TVEpisode[] episodes = count < 0 ? null : new TVSeries.TVEpisode[count];
+            for (int i = 0; i < count; i++) {
+                episodes[i] = series.readSnapshotEpisode(record);
+            }
+            series.setEpisodes(episodes);
+        } else if (type == SERIES_FIELDS_RECORD) {
+            synchronized (series) {
+                series.readSeriesFields(record);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown journal record type " + type);
+        }
+
+    }
+
+    /**
+     * Logs episodes that were added, replaced or removed by one change to the series.
+     * Called by the series while holding its lock, after the change was published.
+     * @param newEpisodes is the episodes that were added or replaced.
+     * @param removedEpisodes is the episodes that were removed, with the season and number they were removed from.
+     */
+    void logEpisodes(final Collection<TVSeries.TVEpisode> newEpisodes,
+                     final Collection<TVSeries.TVEpisode> removedEpisodes) {
+
+        RecordWriter record = new RecordWriter(EPISODES_RECORD);
+        try {
+            record.output.writeInt(newEpisodes.size());
+            for (TVSeries.TVEpisode episode : newEpisodes) {
+                TVSeries.writeSnapshotEpisode(record.output, episode);
+            }
+            record.output.writeInt(removedEpisodes.size());
+            for (TVSeries.TVEpisode episode : removedEpisodes) {
+                record.output.writeInt(episode.getSeason());
+                record.output.writeInt(episode.getNumber());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(record.toBytes());
+
+    }
+
+    /**
+     * Logs every episode of the series being set at once by setEpisodes.
+     * Called by the series while holding its lock, after the change was published.
+     * @param episodes is the episodes that were set, or null.
+     */
+    void logReset(final TVSeries.TVEpisode[] episodes) {
+
+        RecordWriter record = new RecordWriter(RESET_RECORD);
+        try {
+            record.output.writeInt(episodes == null ? -1 : episodes.length);
+            if (episodes != null) {
+                for (TVSeries.TVEpisode episode : episodes) {
+                    TVSeries.writeSnapshotEpisode(record.output, episode);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(record.toBytes());
+
+    }
+
+    /**
+     * Logs the series fields after one of them changed.
+     * Called by the series while holding its lock.
+     * @param series is the series whose fields changed.
+     */
+    void logSeriesFields(final TVSeries series) {
+
+        RecordWriter record = new RecordWriter(SERIES_FIELDS_RECORD);
+        try {
+            series.writeSeriesFields(record.output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        append(record.toBytes());
+
+    }
+
+    /**
+     * Hands an encoded record to the writer. Records are dropped once the journal is closed or has failed.
+     * @param record is the record, with its length and checksum.
+     */
+    private void append(final byte[] record) {
+
+        synchronized (appendLock) {
+            if (!closed && failure == null) {
+                pendingRecords.add(record);
+                appendedSequence++;
+                appendLock.notifyAll();
+            }
+        }
+
+    }
+
+    /**
+     * Waits until every change logged so far has been written and forced to disk.
+     * Must not be called while holding the lock on the series, since the writer may need it to compact.
+     * @throws IOException if the writer failed to write or force the journal.
+     */
+    public void sync() throws IOException {
+
+        synchronized (appendLock) {
+            long target = appendedSequence;
+            syncRequested = true;
+            appendLock.notifyAll();
+            try {
+                while (syncedSequence < target && failure == null && !closed) {
+                    appendLock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the journal to sync");
+            }
+            if (failure != null) {
+                throw new IOException("Journal could not be written", failure);
+            }
+        }
+
+    }
+
+    /**
+     * Writes the series to the snapshot and empties the journal.
+     * The snapshot is written to a temporary file, forced to disk and moved into place before the journal is
+     * truncated, so a crash part way through leaves either the old snapshot and the whole journal, or the new
+     * snapshot and records it already contains, which replay to the same series. Changes to the series only wait
+     * while it is captured, not while the snapshot is written; they are written to the journal after it is emptied.
+     * @throws IOException if the snapshot cannot be written or the journal cannot be truncated.
+     * @throws IllegalStateException if the journal is not open.
+     */
+    public void compact() throws IOException, IllegalStateException {
+
+        TVSeries series = this.series;
+        if (series == null) {
+            throw new IllegalStateException("Journal is not open");
+        }
+
+        //Holding fileLock keeps every record from reaching the journal until it has been emptied
+        synchronized (fileLock) {
+            //The writer still compacts while the journal is closing, but not once it is closed
+            if (!channel.isOpen()) {
+                return;
+            }
+
+            //Holding the lock on the series means every change logged so far is in the capture, and changes made
+            //after it are logged with later sequence numbers
+            TVSeries.SnapshotCapture capture;
+            long compactedTo;
+            synchronized (series) {
+                capture = series.captureSnapshot();
+                synchronized (appendLock) {
+                    compactedTo = appendedSequence;
+                    pendingRecords.clear();
+                }
+            }
+
+            Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (FileChannel snapshot = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                OutputStream output = Channels.newOutputStream(snapshot);
+                capture.writeTo(output);
+                snapshot.force(true);
+            }
+            try {
+                Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            channel.truncate(HEADER_LENGTH);
+            channel.position(HEADER_LENGTH);
+            channel.force(true);
+            //Batches the writer took before the capture are in the snapshot, so they are skipped
+            compactedSequence = compactedTo;
+
+            synchronized (appendLock) {
+                writtenSequence = Math.max(writtenSequence, compactedTo);
+                syncedSequence = Math.max(syncedSequence, compactedTo);
+                appendLock.notifyAll();
+            }
+        }
+
+    }
+
+    /**
+     * Stops logging changes to the series, writes and forces everything logged so far and closes the journal.
+     * @throws IOException if the writer failed, or the journal cannot be forced or closed.
+     */
+    @Override
+    public void close() throws IOException {
+
+        TVSeries series = this.series;
+        if (series == null) {
+            return;
+        }
+        synchronized (series) {
+            if (series.getJournal() == this) {
+                series.setJournal(null);
+            }
+        }
+        synchronized (appendLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appendLock.notifyAll();
+        }
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the journal writer");
+        }
+        synchronized (fileLock) {
+            try {
+                if (failure == null) {
+                    channel.force(true);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+
+        synchronized (appendLock) {
+            syncedSequence = writtenSequence;
+            appendLock.notifyAll();
+            if (failure != null) {
+                throw new IOException("Journal could not be written", failure);
+            }
+        }
+
+    }
+
+    /**
+     * Runs on the writer thread: takes every record appended since the last batch, writes them all at once and
+     * forces them to disk according to the sync policy, then compacts the journal if it has grown too large.
+     * Stops once the journal is closed and everything appended has been written, or on the first error.
+     */
+    private void writeRecords() {
+
+        try {
+            while (true) {
+                ArrayList<byte[]> batch;
+                long batchEnd;
+                boolean force;
+                synchronized (appendLock) {
+                    while (pendingRecords.isEmpty() && !syncRequested && !closed && !isPeriodicSyncDue()) {
+                        appendLock.wait(periodicSyncWaitMillis());
+                    }
+                    if (pendingRecords.isEmpty() && closed) {
+                        return;
+                    }
+                    batch = pendingRecords;
+                    pendingRecords = new ArrayList<>();
+                    batchEnd = appendedSequence;
+                    force = syncRequested || syncPolicy == SyncPolicy.EVERY_COMMIT
+                            || syncPolicy == SyncPolicy.PERIODIC
+                               && System.nanoTime() - lastSyncNanos >= PERIODIC_SYNC_NANOS;
+                    syncRequested = false;
+                }
+
+                writeBatch(batch, batchEnd, force);
+
+                synchronized (appendLock) {
+                    writtenSequence = Math.max(writtenSequence, batchEnd);
+                    if (force) {
+                        syncedSequence = Math.max(syncedSequence, batchEnd);
+                        lastSyncNanos = System.nanoTime();
+                    }
+                    appendLock.notifyAll();
+                }
+
+                if (compactionThreshold > 0 && channel.size() > compactionThreshold) {
+                    compact();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Journal writer was interrupted"));
+        }
+
+    }
+
+    /**
+     * Writes a batch of records to the end of the journal with one write, unless a compaction already covered it.
+     * @param batch is the records, in the order they were appended.
+     * @param batchEnd is the sequence number of the last record in the batch.
+     * @param force is true to force the journal to disk afterwards.
+     * @throws IOException if writing or forcing fails.
+     */
+    private void writeBatch(final ArrayList<byte[]> batch, final long batchEnd, final boolean force)
+            throws IOException {
+
+        synchronized (fileLock) {
+            if (batchEnd > compactedSequence && !batch.isEmpty()) {
+                int length = 0;
+                for (byte[] record : batch) {
+                    length += record.length;
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                for (byte[] record : batch) {
+                    buffer.put(record);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            if (force) {
+                channel.force(false);
+            }
+        }
+
+    }
+
+    /**
+     * Checks whether the PERIODIC policy wants the writer to force what it has written. Must hold appendLock.
+     * @return true if written records have gone unforced for a second.
+     */
+    private boolean isPeriodicSyncDue() {
+        return syncPolicy == SyncPolicy.PERIODIC && syncedSequence < writtenSequence
+               && System.nanoTime() - lastSyncNanos >= PERIODIC_SYNC_NANOS;
+    }
+
+    /**
+     * Works out how long the writer can wait for records before it has to force the journal. Must hold appendLock.
+     * @return the wait in milliseconds, or 0 to wait until records are appended.
+     */
+    private long periodicSyncWaitMillis() {
+
+        if (syncPolicy != SyncPolicy.PERIODIC || syncedSequence >= writtenSequence) {
+            return 0;
+        }
+        long remainingNanos = PERIODIC_SYNC_NANOS - (System.nanoTime() - lastSyncNanos);
+        return Math.max(1, remainingNanos / 1_000_000);
+
+    }
+
+    /**
+     * Records the error that stopped the writer and wakes up everything waiting on it.
+     * @param e is the error.
+     */
+    private void fail(final IOException e) {
+
+        synchronized (appendLock) {
+            failure = e;
+            pendingRecords.clear();
+            appendLock.notifyAll();
+        }
+
+    }
+
+    /**
+     * Encodes one record, leaving room in front of it for its length and checksum.
+     */
+    private static final class RecordWriter {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+
+        /**
+         * Constructor for a record of the given type.
+         * @param type is the record type, the first byte after the checksum.
+         */
+        RecordWriter(final byte type) {
+
+            bytes.write(new byte[RECORD_HEADER_LENGTH], 0, RECORD_HEADER_LENGTH);
+            bytes.write(type);
+
+        }
+
+        /**
+         * Fills in the length and checksum of the record.
+         * @return the whole record, ready to be written to the journal.
+         */
+        byte[] toBytes() {
+
+            byte[] record = bytes.toByteArray();
+            int length = record.length - RECORD_HEADER_LENGTH;
+            CRC32 checksum = new CRC32();
+            checksum.update(record, RECORD_HEADER_LENGTH, length);
+            ByteBuffer.wrap(record).putInt(length).putInt((int) checksum.getValue());
+            return record;
+
+        }
+
+    }
+
+}
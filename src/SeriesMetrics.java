@@ -0,0 +1,210 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times the loading, search, filter, aggregate and mutation methods of TVSeries.
+ * Metrics are off until they are turned on with setEnabled or by starting the JVM with -Dtvdata.metrics=true.
+ * While they are off each instrumented method only reads one volatile boolean, so leaving the instrumentation in
+ * costs next to nothing. Once turned on, every call records its latency and result size in histograms, and the
+ * metrics are registered with the platform MBean server under "TvData:type=SeriesMetrics".
+ * A call that throws is not recorded.
+ */
+public class SeriesMetrics implements SeriesMetricsMXBean {
+
+    /**
+     * The measured operations and what their result size counts.
+     */
+    public enum Operation {
+        //Result size is the number of episodes loaded or given
+        LOAD_FROM_JSON_OBJECT,
+        LOAD_FROM_READER,
+        SET_EPISODES,
+        ADD_OR_REPLACE_EPISODES,
+        //Result size is the number of episodes added, replaced or removed, 0 when the update was skipped
+        APPLY_UPDATE,
+        //Result size is the number of episodes found
+        SEARCH_BY_NAME,
+        SEARCH_BY_CONTENTS,
+        SEARCH_BY_CHARACTER,
+        SEARCH_BY_MAX_RUNTIME,
+        EPISODES_IN_YEAR,
+        EPISODES_ON_DATE,
+        EPISODES_BETWEEN,
+        //Result size is the number of episodes found by all the queries of the batch together
+        BATCH_SEARCH,
+        //Result size is the number of episodes put into groups
+        GROUP_BY,
+        //Result size is the number of episodes aggregated. Only the instance totalNumberOfEpisodes is measured since
+        //the static one also sizes arrays inside other methods
+        TOTAL_EPISODES,
+        AVERAGE_RUNTIME,
+        MAX_RUNTIME,
+        MIN_RUNTIME
+    }
+
+    //Name the metrics are registered under
+    public static final String OBJECT_NAME = "TvData:type=SeriesMetrics";
+
+    //Start time handed out while metrics are off, so the matching record call knows to do nothing
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static final SeriesMetrics INSTANCE = new SeriesMetrics();
+
+    //Read by every instrumented call, so it is the only state touched while metrics are off
+    private static volatile boolean enabled;
+
+    //Latencies in nanoseconds and result sizes of each operation, indexed by ordinal
+    private final Histogram[] latencies = new Histogram[Operation.values().length];
+    private final Histogram[] resultSizes = new Histogram[Operation.values().length];
+
+    //Whether the metrics have been registered with the platform MBean server
+    private boolean registered;
+
+    static {
+        if (Boolean.getBoolean("tvdata.metrics")) {
+            INSTANCE.setEnabled(true);
+        }
+    }
+
+    /**
+     * Constructor for the one SeriesMetrics.
+     */
+    private SeriesMetrics() {
+
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new Histogram();
+            resultSizes[i] = new Histogram();
+        }
+
+    }
+
+    /**
+     * Getter for the metrics of this JVM.
+     * @return the one SeriesMetrics.
+     */
+    public static SeriesMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Called at the start of an instrumented method.
+     * @return the time to pass to record, or NOT_TIMED while metrics are off.
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Called at the end of an instrumented method.
+     * @param operation is the operation that was called.
+     * @param startTime is the value start returned at the beginning of the call.
+     * @param resultSize is the size of the result, see Operation.
+     */
+    static void record(final Operation operation, final long startTime, final int resultSize) {
+
+        if (startTime != NOT_TIMED) {
+            INSTANCE.latencies[operation.ordinal()].record(System.nanoTime() - startTime);
+            INSTANCE.resultSizes[operation.ordinal()].record(resultSize);
+        }
+
+    }
+
+    /**
+     * Called at the end of an instrumented method that returns episodes.
+     * @param operation is the operation that was called.
+     * @param startTime is the value start returned at the beginning of the call.
+     * @param result is the episodes returned, which may be null.
+     */
+    static void record(final Operation operation, final long startTime, final Object[] result) {
+
+        if (startTime != NOT_TIMED) {
+            record(operation, startTime, result == null ? 0 : result.length);
+        }
+
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops measuring calls. The first time metrics are turned on they are also registered with the
+     * platform MBean server.
+     * @param enabled is true to start recording metrics.
+     */
+    @Override
+    public synchronized void setEnabled(final boolean enabled) {
+
+        if (enabled && !registered) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+            } catch (InstanceAlreadyExistsException e) {
+                //Another class loader of this class got there first, which is harmless
+            } catch (JMException e) {
+                throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+            }
+            registered = true;
+        }
+        SeriesMetrics.enabled = enabled;
+
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+
+        Map<String, Long> callCounts = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            callCounts.put(operation.name(), latencies[operation.ordinal()].getCount());
+        }
+        return callCounts;
+
+    }
+
+    @Override
+    public long getCallCount(final String operation) throws IllegalArgumentException {
+        return latencies[Operation.valueOf(operation).ordinal()].getCount();
+    }
+
+    @Override
+    public double getMeanLatencyMicros(final String operation) throws IllegalArgumentException {
+        return latencies[Operation.valueOf(operation).ordinal()].getMean() / 1000;
+    }
+
+    @Override
+    public double getLatencyPercentileMicros(final String operation, final double percentile)
+            throws IllegalArgumentException {
+        return latencies[Operation.valueOf(operation).ordinal()].getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public double getMaxLatencyMicros(final String operation) throws IllegalArgumentException {
+        return latencies[Operation.valueOf(operation).ordinal()].getMax() / 1000.0;
+    }
+
+    @Override
+    public double getMeanResultSize(final String operation) throws IllegalArgumentException {
+        return resultSizes[Operation.valueOf(operation).ordinal()].getMean();
+    }
+
+    @Override
+    public long getResultSizePercentile(final String operation, final double percentile)
+            throws IllegalArgumentException {
+        return resultSizes[Operation.valueOf(operation).ordinal()].getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public void reset() {
+
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i].reset();
+            resultSizes[i].reset();
+        }
+
+    }
+
+}
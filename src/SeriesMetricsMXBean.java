@@ -0,0 +1,83 @@
+import java.util.Map;
+
+/**
+ * Management interface of SeriesMetrics, registered with the platform MBean server as "TvData:type=SeriesMetrics"
+ * so it can be read from JConsole, VisualVM or any other JMX client.
+ * Operations are named after the constants of SeriesMetrics.Operation, e.g. "SEARCH_BY_CONTENTS".
+ */
+public interface SeriesMetricsMXBean {
+
+    /**
+     * Checks whether calls are being measured.
+     * @return true if metrics are being recorded.
+     */
+    boolean isEnabled();
+
+    /**
+     * Starts or stops measuring calls. Stopping keeps what has been recorded so far.
+     * @param enabled is true to start recording metrics.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Getter for the number of calls to every operation.
+     * @return the number of calls recorded for each operation, including operations that haven't been called.
+     */
+    Map<String, Long> getCallCounts();
+
+    /**
+     * Getter for the number of calls to one operation.
+     * @param operation is the name of the operation.
+     * @return the number of calls recorded.
+     * @throws IllegalArgumentException if there is no such operation.
+     */
+    long getCallCount(String operation) throws IllegalArgumentException;
+
+    /**
+     * Getter for the mean latency of an operation.
+     * @param operation is the name of the operation.
+     * @return the mean time a call took in microseconds.
+     * @throws IllegalArgumentException if there is no such operation.
+     */
+    double getMeanLatencyMicros(String operation) throws IllegalArgumentException;
+
+    /**
+     * Getter for a latency percentile of an operation, e.g. 99 for the time 99% of calls finished within.
+     * @param operation is the name of the operation.
+     * @param percentile is the percentile, from 0 to 100.
+     * @return the latency at that percentile in microseconds, accurate to within 1/16.
+     * @throws IllegalArgumentException if there is no such operation or percentile is out of range.
+     */
+    double getLatencyPercentileMicros(String operation, double percentile) throws IllegalArgumentException;
+
+    /**
+     * Getter for the slowest call of an operation.
+     * @param operation is the name of the operation.
+     * @return the longest time a call took in microseconds.
+     * @throws IllegalArgumentException if there is no such operation.
+     */
+    double getMaxLatencyMicros(String operation) throws IllegalArgumentException;
+
+    /**
+     * Getter for the mean result size of an operation, see SeriesMetrics.Operation for what each one counts.
+     * @param operation is the name of the operation.
+     * @return the mean size of a result.
+     * @throws IllegalArgumentException if there is no such operation.
+     */
+    double getMeanResultSize(String operation) throws IllegalArgumentException;
+
+    /**
+     * Getter for a result size percentile of an operation.
+     * @param operation is the name of the operation.
+     * @param percentile is the percentile, from 0 to 100.
+     * @return the result size at that percentile, accurate to within 1/16.
+     * @throws IllegalArgumentException if there is no such operation or percentile is out of range.
+     */
+    long getResultSizePercentile(String operation, double percentile) throws IllegalArgumentException;
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    void reset();
+
+}
@@ -0,0 +1,435 @@
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small HTTP server answering searches of a SeriesCatalog with JSON, so other programs can query a catalog that
+ * was loaded once instead of each wrapping TVSeries themselves.
+ * Every endpoint is a GET. Searches cover the whole catalog, or only the series with the given name when there is
+ * a series parameter:
+ * <pre>
+ *     /episode?series=Homeland&amp;season=1&amp;number=2      one episode
+ *     /search/name?q=...                                  searchEpisodesByName
+ *     /search/contents?q=...                              searchEpisodesByContents
+ *     /search/character?q=...                             searchEpisodesByCharacter
+ *     /search/maxRuntime?minutes=...                      searchEpisodesByMaxRuntime
+ *     /episodes/year?year=...                             getEpisodesInYear
+ *     /episodes/date?date=YYYY-MM-DD                      getEpisodesOnDate
+ *     /episodes/between?from=YYYY-MM-DD&amp;to=YYYY-MM-DD   getEpisodesBetween
+ *     /runtime                                            episode count and average, max and min runtime
+ * </pre>
+ * Searches answer {"count": n, "episodes": [...]}, with the episodes written to the response one at a time as they
+ * are encoded, so a large result is never held as one String. Bad parameters get a 400 and unknown paths, series
+ * and episodes a 404, both with {"error": message}.
+ * Requests are handled by a fixed pool of threads. Run the main method to serve the show files in a directory.
+ */
+public class SeriesServer implements Closeable {
+
+    //Threads handling requests when main isn't told how many to use
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final SeriesCatalog catalog;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor for a server that isn't started yet.
+     * Streamed responses end with a small chunk of their own, which Nagle's algorithm holds back until the client's
+     * delayed ACK, about 40 ms later. Programs embedding the server should run with -Dsun.net.httpserver.nodelay=true
+     * to avoid this, as main does. The JDK reads it once for every HTTP server in the JVM, before the first starts.
+     * @param catalog is the catalog being served. It must not be changed while the server is running.
+     * @param address is the address to listen on, with port 0 for any free port.
+     * @param threads is how many requests can be handled at once.
+     * @throws IOException if the address cannot be bound.
+     * @throws NullPointerException if the catalog or address is null.
+     * @throws IllegalArgumentException if threads is less than 1.
+     */
+    public SeriesServer(final SeriesCatalog catalog, final InetSocketAddress address, final int threads)
+            throws IOException, NullPointerException, IllegalArgumentException {
+
+        if (catalog == null || address == null) {
+            throw new NullPointerException("Catalog and address are required");
+        } else if (threads < 1) {
+            throw new IllegalArgumentException("Server needs at least one thread");
+        }
+        this.catalog = catalog;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "SeriesServer " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(address, 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+
+    }
+
+    /**
+     * Loads every show file in a directory and serves them until the process is stopped.
+     * @param args are the directory, default "data", the port, default 8080, and the number of threads.
+     * @throws IOException if the directory cannot be read or the port cannot be bound.
+     * @throws InterruptedException if interrupted while loading.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        //Turns off Nagle's algorithm, see the constructor. Only main sets it since it applies to the whole JVM
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
+        Path directory = FileSystems.getDefault().getPath(args.length > 0 ? args[0] : "data");
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THREADS;
+
+        SeriesCatalog catalog = new SeriesCatalog();
+        CatalogLoader.Report report = new CatalogLoader().load(directory, catalog);
+        for (CatalogLoader.Failure failure : report.getFailures()) {
+            System.err.println("Skipped " + failure.getFile() + ": " + failure.getCause());
+        }
+
+        SeriesServer server = new SeriesServer(catalog, new InetSocketAddress(port), threads);
+        server.start();
+        System.out.printf("Serving %d series, %d episodes on port %d%n", catalog.size(),
+                catalog.totalNumberOfEpisodes(), server.getPort());
+
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Getter for the port the server listens on, which is useful when it was created with port 0.
+     * @return the port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits a moment for the ones being handled and shuts down the threads.
+     */
+    @Override
+    public void close() {
+
+        server.stop(1);
+        executor.shutdown();
+
+    }
+
+    /**
+     * Handles one request, answering errors in the same JSON form as results.
+     * @param exchange is the request and its response.
+     * @throws IOException if the response cannot be written.
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                sendError(exchange, 405, "Only GET is supported");
+                return;
+            }
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            TVSeries series = null;
+            if (parameters.containsKey("series")) {
+                series = findSeries(parameters.get("series"));
+                if (series == null) {
+                    sendError(exchange, 404, "No series named " + parameters.get("series"));
+                    return;
+                }
+            }
+
+            switch (exchange.getRequestURI().getPath()) {
+                case "/episode":
+                    sendEpisode(exchange, series, parameters);
+                    break;
+                case "/search/name":
+                    String name = required(parameters, "q");
+                    sendEpisodes(exchange, series == null ? catalog.searchEpisodesByName(name)
+                                                          : series.searchEpisodesByName(name));
+                    break;
+                case "/search/contents":
+                    String contents = required(parameters, "q");
+                    sendEpisodes(exchange, series == null ? catalog.searchEpisodesByContents(contents)
+                                                          : series.searchEpisodesByContents(contents));
+                    break;
+                case "/search/character":
+                    String character = required(parameters, "q");
+                    sendEpisodes(exchange, series == null ? catalog.searchEpisodesByCharacter(character)
+                                                          : series.searchEpisodesByCharacter(character));
+                    break;
+                case "/search/maxRuntime":
+                    int minutes = requiredInt(parameters, "minutes");
+                    sendEpisodes(exchange, series == null ? catalog.searchEpisodesByMaxRuntime(minutes)
+                                                          : series.searchEpisodesByMaxRuntime(minutes));
+                    break;
+                case "/episodes/year":
+                    int year = requiredInt(parameters, "year");
+                    sendEpisodes(exchange, series == null ? catalog.getEpisodesInYear(year)
+                                                          : series.getEpisodesInYear(year));
+                    break;
+                case "/episodes/date":
+                    String date = required(parameters, "date");
+                    sendEpisodes(exchange, series == null ? catalog.getEpisodesOnDate(date)
+                                                          : series.getEpisodesOnDate(date));
+                    break;
+                case "/episodes/between":
+                    String from = required(parameters, "from");
+                    String to = required(parameters, "to");
+                    sendEpisodes(exchange, series == null ? catalog.getEpisodesBetween(from, to)
+                                                          : series.getEpisodesBetween(from, to));
+                    break;
+                case "/runtime":
+                    sendRuntime(exchange, series);
+                    break;
+                default:
+                    sendError(exchange, 404, "Unknown path " + exchange.getRequestURI().getPath());
+                    break;
+            }
+        } catch (IllegalArgumentException e) {
+            //Also catches NumberFormatException from parameters that aren't numbers
+            sendError(exchange, 400, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+
+    }
+
+    /**
+     * Answers a request for one episode.
+     * @param exchange is the request and its response.
+     * @param series is the series named in the request.
+     * @param parameters is the query parameters.
+     * @throws IOException if the response cannot be written.
+     * @throws IllegalArgumentException if the season or number is missing or not a number.
+     */
+    private static void sendEpisode(final HttpExchange exchange, final TVSeries series,
+                                    final Map<String, String> parameters) throws IOException, IllegalArgumentException {
+
+        if (series == null) {
+            throw new IllegalArgumentException("Missing parameter series");
+        }
+        int season = requiredInt(parameters, "season");
+        int number = requiredInt(parameters, "number");
+        TVSeries.TVEpisode episode;
+        try {
+            episode = series.getEpisode(season, number);
+        } catch (IllegalArgumentException e) {
+            episode = null;
+        }
+        if (episode == null) {
+            sendError(exchange, 404, "No episode " + season + "x" + number);
+            return;
+        }
+
+        try (JsonWriter writer = startResponse(exchange, 200)) {
+            writeEpisode(writer, episode);
+        }
+
+    }
+
+    /**
+     * Answers a search with the episodes found, encoding them as they are written.
+     * @param exchange is the request and its response.
+     * @param episodes is the episodes found, which may be null.
+     * @throws IOException if the response cannot be written.
+     */
+    private static void sendEpisodes(final HttpExchange exchange, final TVSeries.TVEpisode[] episodes)
+            throws IOException {
+
+        try (JsonWriter writer = startResponse(exchange, 200)) {
+            writer.beginObject();
+            writer.name("count").value(episodes == null ? 0 : episodes.length);
+            writer.name("episodes").beginArray();
+            if (episodes != null) {
+                for (TVSeries.TVEpisode episode : episodes) {
+                    writeEpisode(writer, episode);
+                }
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+
+    }
+
+    /**
+     * Answers a request for the runtime aggregates of the catalog or one series.
+     * @param exchange is the request and its response.
+     * @param series is the series named in the request, or null for the whole catalog.
+     * @throws IOException if the response cannot be written.
+     */
+    private void sendRuntime(final HttpExchange exchange, final TVSeries series) throws IOException {
+
+        try (JsonWriter writer = startResponse(exchange, 200)) {
+            writer.beginObject();
+            if (series == null) {
+                writer.name("episodeCount").value(catalog.totalNumberOfEpisodes());
+                writer.name("averageRuntime").value(catalog.averageRuntimeOfEpisodes());
+                writer.name("maxRuntime").value(catalog.maxRuntimeOfEpisodes());
+                writer.name("minRuntime").value(catalog.minRuntimeOfEpisodes());
+            } else {
+                //Reads one set of statistics so the numbers all come from the same version of the episodes
+                RuntimeStatistics statistics = series.getRuntimeStatistics();
+                writer.name("episodeCount").value(statistics.getEpisodeCount());
+                writer.name("averageRuntime").value(statistics.getAverageRuntime());
+                writer.name("maxRuntime").value(statistics.getMaxRuntime());
+                writer.name("minRuntime").value(statistics.getMinRuntime());
+            }
+            writer.endObject();
+        }
+
+    }
+
+    /**
+     * Answers a request with an error.
+     * @param exchange is the request and its response.
+     * @param status is the HTTP status code.
+     * @param message is what went wrong.
+     * @throws IOException if the response cannot be written.
+     */
+    private static void sendError(final HttpExchange exchange, final int status, final String message)
+            throws IOException {
+
+        try (JsonWriter writer = startResponse(exchange, status)) {
+            writer.beginObject();
+            writer.name("error").value(message);
+            writer.endObject();
+        }
+
+    }
+
+    /**
+     * Sends the headers of a JSON response whose body is streamed, since its length isn't known up front.
+     * @param exchange is the request and its response.
+     * @param status is the HTTP status code.
+     * @return a writer for the body, which must be closed to finish the response.
+     * @throws IOException if the headers cannot be sent.
+     */
+    private static JsonWriter startResponse(final HttpExchange exchange, final int status) throws IOException {
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        return new JsonWriter(new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(),
+                                                                        StandardCharsets.UTF_8)));
+
+    }
+
+    /**
+     * Writes one episode as a JSON object.
+     * @param writer is the response being written.
+     * @param episode is the episode.
+     * @throws IOException if writing fails.
+     */
+    private static void writeEpisode(final JsonWriter writer, final TVSeries.TVEpisode episode) throws IOException {
+
+        writer.beginObject();
+        writer.name("series").value(episode.getSeries().getSeriesName());
+        writer.name("id").value(episode.getId());
+        writer.name("season").value(episode.getSeason());
+        writer.name("number").value(episode.getNumber());
+        writer.name("name").value(episode.getEpisodeName());
+        writer.name("airdate").value(episode.getAirdate());
+        writer.name("runtime").value(episode.getRuntimeInMinutes());
+        writer.name("summary").value(episode.getSummary());
+        writer.endObject();
+
+    }
+
+    /**
+     * Finds the first series in the catalog with a name.
+     * @param name is the series name, compared ignoring case.
+     * @return the series, or null if there isn't one with that name.
+     */
+    private TVSeries findSeries(final String name) {
+
+        for (TVSeries series : catalog.getSeries()) {
+            if (name.equalsIgnoreCase(series.getSeriesName())) {
+                return series;
+            }
+        }
+        return null;
+
+    }
+
+    /**
+     * Splits a raw query string into its decoded parameters. A parameter given more than once keeps its last value.
+     * @param rawQuery is the query string, or null if there isn't one.
+     * @return the parameters by name.
+     * @throws IllegalArgumentException if the query is not properly encoded.
+     */
+    static Map<String, String> parseQuery(final String rawQuery) throws IllegalArgumentException {
+
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals);
+            String value = equals < 0 ? "" : parameter.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                           URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+
+    }
+
+    /**
+     * Gets a parameter that must be present.
+     * @param parameters is the query parameters.
+     * @param name is the parameter name.
+     * @return the value.
+     * @throws IllegalArgumentException if the parameter is missing.
+     */
+    private static String required(final Map<String, String> parameters, final String name)
+            throws IllegalArgumentException {
+
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+
+    }
+
+    /**
+     * Gets a whole number parameter that must be present.
+     * @param parameters is the query parameters.
+     * @param name is the parameter name.
+     * @return the value.
+     * @throws IllegalArgumentException if the parameter is missing or not a whole number.
+     */
+    private static int requiredInt(final Map<String, String> parameters, final String name)
+            throws IllegalArgumentException {
+
+        String value = required(parameters, name);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter " + name + " is not a whole number: " + value);
+        }
+
+    }
+
+}
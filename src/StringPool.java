@@ -0,0 +1,210 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical copies of strings that repeat across a catalog, so equal strings read from different documents share
+ * one instance on the heap.
+ * With thousands of series loaded the languages, networks, genres and episode airdates are the same few strings
+ * over and over, e.g. "English", "HBO", "Drama" and every airdate a Sunday night. The loaders pass these fields
+ * through the shared pool as they are read, so each distinct value is only held once however many series have it.
+ * Pools only grow, so each one holds at most maxSize strings and returns strings past that unchanged.
+ * Values can also be given small ids, e.g. to keep the genres of many series as a short[] each or to group by
+ * network as an int. Ids are dense, start at 0 and never change for the life of the pool.
+ * Canonicalizing in the loaders can be turned off with -Dtvdata.stringPool=false or setEnabled.
+ */
+public final class StringPool {
+
+    //Id of null, which is never given out for a value
+    public static final int NO_ID = -1;
+
+    //Most strings the shared pool holds: every airdate of a century plus the languages, networks and genres
+    private static final int SHARED_MAX_SIZE = 1 << 16;
+
+    //Most values that can be given ids, so every id fits in a short
+    private static final int MAX_IDS = Short.MAX_VALUE + 1;
+
+    private static final StringPool SHARED = new StringPool(SHARED_MAX_SIZE);
+
+    //Read by every canonical call, so the loaders don't touch the pool while it is off
+    private static volatile boolean enabled = !"false".equals(System.getProperty("tvdata.stringPool"));
+
+    private final int maxSize;
+
+    //Canonical instance of each string, keyed by itself
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    //Id of each value given one, guarded by the lock on the pool
+    private final HashMap<String, Integer> ids = new HashMap<>();
+
+    //Value of each id, replaced by a longer copy when it is full so readers never need the lock
+    private volatile String[] values = new String[16];
+    private int idCount;
+
+    /**
+     * Constructor for an empty pool.
+     * @param maxSize is the most strings the pool canonicalizes.
+     * @throws IllegalArgumentException if maxSize is less than 1.
+     */
+    public StringPool(final int maxSize) throws IllegalArgumentException {
+
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.maxSize = maxSize;
+
+    }
+
+    /**
+     * Getter for the pool the loaders share.
+     * @return the shared pool.
+     */
+    public static StringPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Getter for whether the loaders canonicalize strings.
+     * @return true if loaded strings go through the shared pool.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops canonicalizing loaded strings. Strings already in the shared pool stay there.
+     * @param enabled is true to pass loaded strings through the shared pool.
+     */
+    public static void setEnabled(final boolean enabled) {
+        StringPool.enabled = enabled;
+    }
+
+    /**
+     * Called by the loaders for every low cardinality field they read.
+     * @param value is the string that was read, which may be null.
+     * @return the canonical copy from the shared pool, or value itself if the pool is off or full.
+     */
+    static String canonical(final String value) {
+        return enabled ? SHARED.canonicalize(value) : value;
+    }
+
+    /**
+     * Finds the canonical copy of a string, making it the canonical copy if there isn't one yet.
+     * @param value is the string, which may be null.
+     * @return the canonical copy, which equals value, or value itself if the pool is full or value is null.
+     */
+    public String canonicalize(final String value) {
+
+        if (value == null) {
+            return null;
+        }
+        String canonical = strings.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        //The size check can let a few more strings in while several threads add at once, which doesn't matter
+        if (strings.size() >= maxSize) {
+            return value;
+        }
+        canonical = strings.putIfAbsent(value, value);
+        return canonical == null ? value : canonical;
+
+    }
+
+    /**
+     * Getter for the number of canonical strings.
+     * @return how many strings the pool holds.
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Gets the id of a value, giving it the next id if it doesn't have one.
+     * @param value is the value.
+     * @return the id of the value, or NO_ID if value is null.
+     * @throws IllegalStateException if the value needs an id and every id that fits in a short is taken.
+     */
+    public synchronized int idOf(final String value) throws IllegalStateException {
+
+        if (value == null) {
+            return NO_ID;
+        }
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (idCount == MAX_IDS) {
+            throw new IllegalStateException("Every id of the pool is taken");
+        }
+
+        String[] current = values;
+        if (idCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[idCount] = canonicalize(value);
+        //Publishes the value before any reader can be handed its id
+        values = current;
+        ids.put(current[idCount], idCount);
+        return idCount++;
+
+    }
+
+    /**
+     * Gets the value of an id.
+     * @param id is an id returned by idOf, or NO_ID.
+     * @return the value, or null for NO_ID.
+     * @throws IllegalArgumentException if the pool hasn't given out the id.
+     */
+    public String valueOf(final int id) throws IllegalArgumentException {
+
+        if (id == NO_ID) {
+            return null;
+        }
+        String[] current = values;
+        if (id < 0 || id >= current.length || current[id] == null) {
+            throw new IllegalArgumentException("Unknown id " + id);
+        }
+        return current[id];
+
+    }
+
+    /**
+     * Encodes several values, e.g. the genres of a series, as their ids.
+     * @param values is the values, which may contain nulls.
+     * @return the id of each value in the same order, or null if values is null.
+     * @throws IllegalStateException if a value needs an id and every id is taken.
+     */
+    public short[] encode(final String[] values) throws IllegalStateException {
+
+        if (values == null) {
+            return null;
+        }
+        short[] encoded = new short[values.length];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = (short) idOf(values[i]);
+        }
+        return encoded;
+
+    }
+
+    /**
+     * Decodes values encoded by encode.
+     * @param encoded is the ids, or null.
+     * @return the values in the same order, or null if encoded is null.
+     * @throws IllegalArgumentException if one of the ids wasn't given out by this pool.
+     */
+    public String[] decode(final short[] encoded) throws IllegalArgumentException {
+
+        if (encoded == null) {
+            return null;
+        }
+        String[] decoded = new String[encoded.length];
+        for (int i = 0; i < encoded.length; i++) {
+            decoded[i] = valueOf(encoded[i]);
+        }
+        return decoded;
+
+    }
+
+}
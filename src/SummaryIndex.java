@@ -0,0 +1,289 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * An inverted index from case-folded summary trigrams to the episodes whose summaries contain them.
+ * Every substring of at least three characters is made of trigrams that all appear in a matching summary,
+ * so intersecting the posting lists of a query's trigrams gives a small set of candidate episodes.
+ * Candidates are then checked against the real summary so results are exactly the same as a full scan.
+ * Episodes added after the index was built are kept in a small pending list that is scanned, so single
+ * episode updates don't have to rebuild the posting lists.
+ * An index never changes once it is built. Adding episodes creates a new index that shares the posting lists, so
+ * threads can keep searching an older index while episodes are being added.
+ */
+class SummaryIndex {
+
+    //Queries shorter than this cannot be answered from trigrams and have to fall back to a scan
+    static final int MIN_QUERY_LENGTH = 3;
+
+    //Episodes by ordinal, the ordinals stored in the posting lists are indices into this array
+    private final TVSeries.TVEpisode[] episodes;
+
+    //Posting list of ordinals for every trigram found in the summaries, in ascending order
+    private final HashMap<Long, int[]> postings;
+
+    //Episodes added since the posting lists were built, newest first. A linked list so that adding to it
+    //shares the rest of the list with the older index instead of copying it.
+    private final PendingEpisode pendingEpisodes;
+
+    //Number of pending episodes
+    private final int pendingCount;
+
+    /**
+     * Builds an index over the summaries of the given episodes.
+     * Null episodes and episodes without summaries are skipped.
+     * @param episodes is the episodes being indexed. The array is not copied so it must not be changed afterwards.
+     */
+    SummaryIndex(final TVSeries.TVEpisode[] episodes) {
+
+        this.episodes = episodes;
+        this.pendingEpisodes = null;
+        this.pendingCount = 0;
+
+        //Posting lists grow while building and are trimmed to their exact size at the end
+        HashMap<Long, GrowingPostingList> growingPostings = new HashMap<>();
+        for (int ordinal = 0; ordinal < episodes.length; ordinal++) {
+            if (episodes[ordinal] == null || episodes[ordinal].getSummary() == null) {
+                continue;
+            }
+
+            for (long trigram : distinctTrigrams(episodes[ordinal].getSummary().toUpperCase())) {
+                growingPostings.computeIfAbsent(trigram, key -> new GrowingPostingList()).add(ordinal);
+            }
+        }
+
+        postings = new HashMap<>(growingPostings.size() * 2);
+        for (Long trigram : growingPostings.keySet()) {
+            postings.put(trigram, growingPostings.get(trigram).toArray());
+        }
+
+    }
+
+    /**
+     * Constructor for an index that shares the posting lists of another one.
+     * @param episodes is the episodes the posting lists refer to.
+     * @param postings is the posting lists.
+     * @param pendingEpisodes is the episodes added since the posting lists were built, newest first.
+     * @param pendingCount is the number of pending episodes.
+     */
+    private SummaryIndex(final TVSeries.TVEpisode[] episodes, final HashMap<Long, int[]> postings,
+                         final PendingEpisode pendingEpisodes, final int pendingCount) {
+        this.episodes = episodes;
+        this.postings = postings;
+        this.pendingEpisodes = pendingEpisodes;
+        this.pendingCount = pendingCount;
+    }
+
+    /**
+     * Creates an index with some episodes added to the pending list, without rebuilding the posting lists.
+     * @param addedEpisodes is the episodes added to the series.
+     * @return the new index. This index is left unchanged.
+     */
+    SummaryIndex withAdded(final Collection<TVSeries.TVEpisode> addedEpisodes) {
+
+        PendingEpisode pending = pendingEpisodes;
+        for (TVSeries.TVEpisode episode : addedEpisodes) {
+            pending = new PendingEpisode(episode, pending);
+        }
+        return new SummaryIndex(episodes, postings, pending, pendingCount + addedEpisodes.size());
+
+    }
+
+    /**
+     * Whether enough episodes are pending that rebuilding the index would make searches cheaper.
+     * Rebuilding once the pending list reaches a fraction of the index keeps the rebuild cost amortized.
+     * @return true if the index should be rebuilt.
+     */
+    boolean needsRebuild() {
+        return pendingCount > Math.max(64, episodes.length / 4);
+    }
+
+    /**
+     * Finds all indexed episodes whose summary contains the given text, ignoring case.
+     * @param text is the text being searched for. Must be at least MIN_QUERY_LENGTH characters long.
+     * @param isCurrent tells whether an episode is still part of the series, so replaced episodes are skipped.
+     * @return the matching episodes in season and episode order.
+     */
+    TVSeries.TVEpisode[] search(final String text, final Predicate<TVSeries.TVEpisode> isCurrent) {
+
+        TVSeries.TVEpisode[] indexedMatches = searchPostings(text, isCurrent);
+        if (pendingEpisodes == null) {
+            return indexedMatches;
+        }
+
+        //Pending episodes are scanned and merged in, skipping any that were also indexed
+        Utf8Arena.Query query = Utf8Arena.prepareQuery(text);
+        ArrayList<TVSeries.TVEpisode> matches = new ArrayList<>(Arrays.asList(indexedMatches));
+        Set<TVSeries.TVEpisode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.addAll(matches);
+        for (PendingEpisode pending = pendingEpisodes; pending != null; pending = pending.next) {
+            TVSeries.TVEpisode episode = pending.episode;
+            if (isCurrent.test(episode) && seen.add(episode) && episode.summaryContains(query)) {
+                matches.add(episode);
+            }
+        }
+        matches.sort((first, second) -> first.getSeason() != second.getSeason()
+                ? Integer.compare(first.getSeason(), second.getSeason())
+                : Integer.compare(first.getNumber(), second.getNumber()));
+
+        return matches.toArray(new TVSeries.TVEpisode[matches.size()]);
+
+    }
+
+    /**
+     * Finds the episodes in the posting lists whose summary contains the given text, ignoring case.
+     * @param text is the text being searched for.
+     * @param isCurrent tells whether an episode is still part of the series.
+     * @return the matching episodes in the order they were indexed.
+     */
+    private TVSeries.TVEpisode[] searchPostings(final String text, final Predicate<TVSeries.TVEpisode> isCurrent) {
+
+        Utf8Arena.Query query = Utf8Arena.prepareQuery(text);
+        long[] queryTrigrams = distinctTrigrams(query.getUpperText());
+
+        //Gather the posting lists, any trigram that never appears means there can't be a match
+        int[][] lists = new int[queryTrigrams.length][];
+        for (int i = 0; i < queryTrigrams.length; i++) {
+            lists[i] = postings.get(queryTrigrams[i]);
+            if (lists[i] == null) {
+                return new TVSeries.TVEpisode[0];
+            }
+        }
+
+        //Intersecting from the shortest list keeps the intermediate results small
+        Arrays.sort(lists, (first, second) -> Integer.compare(first.length, second.length));
+        int[] candidates = lists[0].clone();
+        int candidateCount = candidates.length;
+        for (int i = 1; i < lists.length && candidateCount > 0; i++) {
+            candidateCount = intersect(candidates, candidateCount, lists[i]);
+        }
+
+        //Verify candidates, since sharing every trigram does not mean the trigrams are in the right order
+        TVSeries.TVEpisode[] matches = new TVSeries.TVEpisode[candidateCount];
+        int matchCount = 0;
+        for (int i = 0; i < candidateCount; i++) {
+            TVSeries.TVEpisode candidate = episodes[candidates[i]];
+            if (isCurrent.test(candidate) && candidate.summaryContains(query)) {
+                matches[matchCount++] = candidate;
+            }
+        }
+
+        return Arrays.copyOf(matches, matchCount);
+
+    }
+
+    /**
+     * Intersects a sorted list of ordinals with another sorted list.
+     * @param candidates is the current list of ordinals, results are written back into the start of it.
+     * @param candidateCount is how many ordinals in candidates are in use.
+     * @param other is the posting list being intersected with.
+     * @return the number of ordinals left in candidates.
+     */
+    private int intersect(final int[] candidates, final int candidateCount, final int[] other) {
+
+        int kept = 0;
+        int otherPosition = 0;
+        for (int i = 0; i < candidateCount && otherPosition < other.length; i++) {
+            while (otherPosition < other.length && other[otherPosition] < candidates[i]) {
+                otherPosition++;
+            }
+            if (otherPosition < other.length && other[otherPosition] == candidates[i]) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+
+        return kept;
+
+    }
+
+    /**
+     * Collects the distinct trigrams of a string, each packed into a long.
+     * @param text is the already case-folded text.
+     * @return the distinct trigrams in ascending order.
+     */
+    private static long[] distinctTrigrams(final String text) {
+
+        if (text.length() < MIN_QUERY_LENGTH) {
+            return new long[0];
+        }
+
+        long[] trigrams = new long[text.length() - MIN_QUERY_LENGTH + 1];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+
+        //Removes duplicates in place now that equal trigrams are next to each other
+        int distinctCount = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinctCount++] = trigrams[i];
+            }
+        }
+
+        return Arrays.copyOf(trigrams, distinctCount);
+
+    }
+
+    /**
+     * A posting list that is still being built.
+     */
+    private static class GrowingPostingList {
+
+        //Ordinals added so far, the array has spare room at the end
+        private int[] ordinals = new int[4];
+
+        //Number of ordinals in use
+        private int size;
+
+        /**
+         * Appends an ordinal, growing the array when it is full.
+         * @param ordinal is the ordinal being appended. Must be greater than the previous one.
+         */
+        void add(final int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        /**
+         * Trims the list to its exact size.
+         * @return the ordinals in ascending order.
+         */
+        int[] toArray() {
+            return Arrays.copyOf(ordinals, size);
+        }
+
+    }
+
+    /**
+     * One element of the list of pending episodes.
+     */
+    private static class PendingEpisode {
+
+        //Episode added since the posting lists were built
+        final TVSeries.TVEpisode episode;
+
+        //Episode added before this one, or null
+        final PendingEpisode next;
+
+        /**
+         * Constructor for a new PendingEpisode.
+         * @param episode is the episode added.
+         * @param next is the rest of the list.
+         */
+        PendingEpisode(final TVSeries.TVEpisode episode, final PendingEpisode next) {
+            this.episode = episode;
+            this.next = next;
+        }
+
+    }
+
+}
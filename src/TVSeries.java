@@ -1,16 +1,51 @@
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * This class stores information about a TV show.
  * It allows a user to get information about a TV show using a variety of defined functions.
+ * The episodes can be searched, filtered and read by any number of threads while others add or replace them.
+ * Readers work on the version of the episodes that was current when they started, without taking any lock, and
+ * writers are synchronized and publish a new version once they are done.
  */
 public class TVSeries {
 
+    //First bytes of every snapshot, "TVSS" in ASCII
+    private static final int SNAPSHOT_MAGIC = 0x54565353;
+
+    //Version of the snapshot format, bumped whenever the layout changes so old snapshots are rejected
+    private static final int SNAPSHOT_VERSION = 2;
+
+    //Top level members of a show document read by the lazy loader, the series fields followed by "_embedded"
+    private static final String[] LAZY_MEMBERS = {
+            "name", "language", "summary", "premiered", "genres", "rating", "network", "updated", "_embedded"};
+
     //Name of TV series, e.g. Game of Thrones
     private String seriesName;
 
@@ -32,10 +67,26 @@ public class TVSeries {
     //Summary of series, e.g. "Mohamed the programmer encounters wild debugging in this new hit HBO series"
     private String seriesSummary;
 
-    /* All episodes in series organized by season and episode.
-    Note the array may be jagged meaning different seasons may have different lengths.
-    Note that Season/episodes start at 0 instead of 1 */
-    private TVEpisode[][] episodes;
+    //When TVmaze last changed the show in seconds since the epoch, e.g. 1533619895, or 0 if it is unknown.
+    //Volatile since refreshFrom checks it before taking the lock on the series.
+    private volatile long updated;
+
+    //All episodes in series along with their indexes and statistics. Replaced as a whole whenever the episodes
+    //change, so a reader that reads it once sees a consistent set of episodes however long it takes.
+    private volatile EpisodeVersion version = EpisodeVersion.EMPTY;
+
+    //Current episodes by id, only used by writers while they hold the lock on the series.
+    //Built the first time an update needs it, kept up to date as episodes change and dropped by setEpisodes.
+    private HashMap<Integer, TVEpisode> episodesById;
+
+    //Journal that every change to the series is logged to, or null if changes aren't journaled
+    private volatile SeriesJournal journal;
+
+    //Cache search results are kept in, or null if they aren't cached
+    private volatile ResultCache resultCache;
+
+    //Bumped after every change to the episodes or fields, so cached results found before the change are dropped
+    private final AtomicLong changeCount = new AtomicLong();
 
     /**
      * Constructor for new TVSeries.
@@ -52,18 +103,25 @@ public class TVSeries {
      */
     public TVSeries(JsonObject tvSeriesJSON) throws NullPointerException {
 
+        long startTime = SeriesMetrics.start();
+
         //Initializing fields from information found in JSONObject
         this.setSeriesName(tvSeriesJSON.get("name").getAsString());
-        this.setLanguage(tvSeriesJSON.get("language").getAsString());
+        this.setLanguage(StringPool.canonical(tvSeriesJSON.get("language").getAsString()));
         this.setSeriesSummary(tvSeriesJSON.get("summary").getAsString());
         this.setAverageRating(tvSeriesJSON.get("rating").getAsJsonObject().get("average").getAsDouble());
-        this.setNetworkName(tvSeriesJSON.get("network").getAsJsonObject().get("name").getAsString());
+        this.setNetworkName(StringPool.canonical(tvSeriesJSON.get("network").getAsJsonObject().get("name")
+                                                             .getAsString()));
         this.setPremiereDate(tvSeriesJSON.get("premiered").getAsString());
+        JsonElement updated = tvSeriesJSON.get("updated");
+        if (updated != null && !updated.isJsonNull()) {
+            this.setUpdated(updated.getAsLong());
+        }
 
         //Since the genres are stored in a JsonArray, loop through it to convert to a java array
         String[] genres = new String[tvSeriesJSON.get("genres").getAsJsonArray().size()];
         for (int i = 0; i < genres.length; i++) {
-            genres[i] = tvSeriesJSON.get("genres").getAsJsonArray().get(i).getAsString();
+            genres[i] = StringPool.canonical(tvSeriesJSON.get("genres").getAsJsonArray().get(i).getAsString());
         }
         this.setGenres(genres);
 
@@ -71,10 +129,20 @@ public class TVSeries {
         JsonArray episodeElements = tvSeriesJSON.get("_embedded").getAsJsonObject()
                                                 .get("episodes").getAsJsonArray();
         TVEpisode[] episodes = new TVEpisode[episodeElements.size()];
+        SeriesEvents.EpisodeDecodeEvent decodeEvent = new SeriesEvents.EpisodeDecodeEvent();
+        decodeEvent.begin();
+        for (int i = 0; i < episodes.length; i++) {
+            episodes[i] = readEpisode(episodeElements.get(i).getAsJsonObject());
+        }
+        decodeEvent.seriesName = getSeriesName();
+        decodeEvent.loader = "JsonObject";
+        decodeEvent.episodeCount = episodes.length;
+        decodeEvent.commit();
+
+        //Summaries are set in a loop of their own so the time spent stripping their HTML shows up on its own
+        SeriesEvents.SummaryStripEvent stripEvent = new SeriesEvents.SummaryStripEvent();
+        stripEvent.begin();
         for (int i = 0; i < episodes.length; i++) {
-            episodes[i] = new Gson().fromJson(episodeElements.get(i), TVEpisode.class);
-            episodes[i].setRuntimeInMinutes(episodeElements.get(i).getAsJsonObject().get("runtime").getAsInt());
-
             //Avoids error by placing in try catch block since sometimes the JSON is null
             JsonElement episodeSummary = episodeElements.get(i).getAsJsonObject().get("summary");
             try {
@@ -83,8 +151,712 @@ public class TVSeries {
                 System.out.println(e);
             }
         }
+        stripEvent.seriesName = getSeriesName();
+        stripEvent.episodeCount = episodes.length;
+        stripEvent.commit();
+
         this.setEpisodes(episodes);
 
+        SeriesMetrics.record(SeriesMetrics.Operation.LOAD_FROM_JSON_OBJECT, startTime, episodes.length);
+
+    }
+
+    /**
+     * Reads a single element of the embedded episodes array for the JsonObject constructor, leaving out the summary,
+     * which the constructor sets afterwards. Missing and null numbers are 0 and missing and null strings are null.
+     * @param element is the episode object.
+     * @return the episode, which belongs to this series but hasn't been added to it.
+     * @throws UnsupportedOperationException if the runtime is null.
+     * @throws NullPointerException if the runtime is missing.
+     */
+    private TVEpisode readEpisode(final JsonObject element) throws UnsupportedOperationException,
+                                                                   NullPointerException {
+
+        TVEpisode episode = new TVEpisode();
+        episode.id = intOrZero(element.get("id"));
+        episode.name = stringOrNull(element.get("name"));
+        episode.season = intOrZero(element.get("season"));
+        episode.number = intOrZero(element.get("number"));
+        episode.airdate = StringPool.canonical(stringOrNull(element.get("airdate")));
+        episode.packedAirdate = DateIndex.packDate(episode.airdate);
+        episode.runtimeInMinutes = element.get("runtime").getAsInt();
+        return episode;
+
+    }
+
+    /**
+     * Reads a number of an episode object, treating a missing or null value as 0 the same way Gson does.
+     * @param value is the value, or null if it is missing.
+     * @return the number.
+     */
+    private static int intOrZero(final JsonElement value) {
+        return value == null || value.isJsonNull() ? 0 : value.getAsInt();
+    }
+
+    /**
+     * Reads a string of an episode object.
+     * @param value is the value, or null if it is missing.
+     * @return the string, or null if it is missing or null.
+     */
+    private static String stringOrNull(final JsonElement value) {
+        return value == null || value.isJsonNull() ? null : value.getAsString();
+    }
+
+    /**
+     * Parses a TVmaze show document into a Gson tree and deserializes it with the JsonObject constructor.
+     * This is the same as new TVSeries(new JsonParser().parse(json).getAsJsonObject()), except that building the
+     * tree is timed as its own phase in flight recordings.
+     * @param json is the show document.
+     * @return the deserialized TVSeries.
+     * @throws JsonParseException if json is not valid JSON.
+     * @throws NullPointerException if the document doesn't follow the structure the constructor expects.
+     */
+    public static TVSeries fromJson(final String json) throws JsonParseException, NullPointerException {
+
+        SeriesEvents.JsonTreeEvent treeEvent = new SeriesEvents.JsonTreeEvent();
+        treeEvent.begin();
+        JsonObject tree = new JsonParser().parse(json).getAsJsonObject();
+        treeEvent.characters = json.length();
+        treeEvent.commit();
+
+        return new TVSeries(tree);
+
+    }
+
+    /**
+     * Deserializes a TVmaze show document into a TVSeries in a single streaming pass.
+     * Unlike the JsonObject constructor, no intermediate JSON tree is built and episodes are filled in directly,
+     * so only the resulting TVSeries is kept on the heap.
+     * @param jsonReader is a reader positioned at the start of the show document. It is not closed by this method.
+     * @return a TVSeries equivalent to the one built by the JsonObject constructor.
+     * @throws IOException if the reader fails or the document is not valid JSON.
+     * @throws NullPointerException if the document does not contain an embedded list of episodes.
+     */
+    public static TVSeries fromReader(final Reader jsonReader) throws IOException, NullPointerException {
+
+        long startTime = SeriesMetrics.start();
+        JsonReader reader = new JsonReader(jsonReader);
+        TVSeries series = new TVSeries((String) null);
+        TVEpisode[] episodes = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String fieldName = reader.nextName();
+            if (fieldName.equals("_embedded")) {
+                SeriesEvents.EpisodeDecodeEvent decodeEvent = new SeriesEvents.EpisodeDecodeEvent();
+                decodeEvent.begin();
+                episodes = readEmbeddedEpisodes(reader, series);
+                decodeEvent.seriesName = series.getSeriesName();
+                decodeEvent.loader = "fromReader";
+                decodeEvent.episodeCount = episodes == null ? 0 : episodes.length;
+                decodeEvent.commit();
+            } else if (!readSeriesField(reader, fieldName, series)) {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (episodes == null) {
+            throw new NullPointerException("Series JSON does not contain any embedded episodes");
+        }
+        series.setEpisodes(episodes);
+
+        SeriesMetrics.record(SeriesMetrics.Operation.LOAD_FROM_READER, startTime, episodes.length);
+        return series;
+
+    }
+
+    /**
+     * Deserializes a TVmaze show document stored in a UTF-8 encoded file.
+     * @param jsonFile is the path of the show document.
+     * @return a TVSeries equivalent to the one built by the JsonObject constructor.
+     * @throws IOException if the file cannot be read or is not valid JSON.
+     * @throws NullPointerException if the document does not contain an embedded list of episodes.
+     */
+    public static TVSeries fromPath(final Path jsonFile) throws IOException, NullPointerException {
+
+        try (Reader reader = Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8)) {
+            return fromReader(reader);
+        }
+
+    }
+
+    /**
+     * Loads a TVmaze show document stored in a UTF-8 encoded file without decoding its episodes.
+     * The file is memory-mapped and scanned once for where each element of the embedded episodes array starts
+     * and ends and for its season and number. The rest of an episode is decoded from its slice of the file the
+     * first time any other field of it is read, e.g. through getEpisode or a search, so loading a show doesn't
+     * pay for decoding the names, airdates and summaries of episodes that are never looked at.
+     * The mapping is kept alive until every episode of the series has been decoded. The file must not be modified,
+     * truncated or replaced in place until then: the episodes read whatever the mapping holds when they are decoded,
+     * so changing it gives them the wrong data, and truncating it makes the JVM crash with SIGBUS. Replacing the
+     * file by moving a new one over it is safe, since the mapping keeps the old file.
+     * @param jsonFile is the path of the show document.
+     * @return a TVSeries equivalent to the one built by fromPath once its episodes are decoded.
+     * @throws IOException if the file cannot be read or is not valid JSON.
+     * @throws NullPointerException if the document does not contain an embedded list of episodes.
+     */
+    public static TVSeries fromPathLazy(final Path jsonFile) throws IOException, NullPointerException {
+        return fromBytesLazy(MappedData.mapFile(jsonFile));
+    }
+
+    /**
+     * Loads a UTF-8 encoded TVmaze show document without decoding its episodes, see fromPathLazy.
+     * @param json is the document, starting at its position. Episodes keep slices of it until they are decoded.
+     * @return a TVSeries whose episodes are decoded on first use.
+     * @throws IOException if the document is not valid JSON.
+     * @throws NullPointerException if the document does not contain an embedded list of episodes.
+     */
+    static TVSeries fromBytesLazy(final ByteBuffer json) throws IOException, NullPointerException {
+
+        TVSeries series = new TVSeries((String) null);
+        int root = JsonSlices.skipWhitespace(json, json.position());
+        int[] memberStarts = JsonSlices.findMembers(json, root, LAZY_MEMBERS);
+
+        //The series fields are small so they are decoded straight away, only the episodes are left for later
+        for (int i = 0; i < LAZY_MEMBERS.length - 1; i++) {
+            if (memberStarts[i] >= 0) {
+                ByteBuffer value = JsonSlices.slice(json, memberStarts[i], JsonSlices.valueEnd(json, memberStarts[i]));
+                readSeriesField(sliceReader(value), LAZY_MEMBERS[i], series);
+            }
+        }
+
+        int embeddedStart = memberStarts[LAZY_MEMBERS.length - 1];
+        int episodesStart = embeddedStart < 0 || json.get(embeddedStart) != '{'
+                            ? -1 : JsonSlices.findMembers(json, embeddedStart, "episodes")[0];
+        if (episodesStart < 0 || json.get(episodesStart) != '[') {
+            throw new NullPointerException("Series JSON does not contain any embedded episodes");
+        }
+
+        SeriesEvents.EpisodeDecodeEvent decodeEvent = new SeriesEvents.EpisodeDecodeEvent();
+        decodeEvent.begin();
+        int[] elementBounds = JsonSlices.arrayElements(json, episodesStart);
+        TVEpisode[] episodes = new TVEpisode[elementBounds.length / 2];
+        for (int i = 0; i < episodes.length; i++) {
+            int elementStart = elementBounds[2 * i];
+            int[] keyStarts = JsonSlices.findMembers(json, elementStart, "season", "number", "id");
+
+            TVEpisode episode = series.new TVEpisode();
+            episode.season = JsonSlices.readInt(json, keyStarts[0]);
+            episode.number = JsonSlices.readInt(json, keyStarts[1]);
+            episode.id = JsonSlices.readInt(json, keyStarts[2]);
+            episode.undecodedJson = JsonSlices.slice(json, elementStart, elementBounds[2 * i + 1]);
+            episodes[i] = episode;
+        }
+        decodeEvent.seriesName = series.getSeriesName();
+        decodeEvent.loader = "fromPathLazy";
+        decodeEvent.episodeCount = episodes.length;
+        decodeEvent.commit();
+        series.setEpisodes(episodes);
+
+        return series;
+
+    }
+
+    /**
+     * Reads one of the series fields of a show document into a series.
+     * @param reader is positioned at the value of the field.
+     * @param fieldName is the name of the field.
+     * @param series is the series the value is stored in.
+     * @return false if the field is not one of the series fields, in which case nothing was read.
+     * @throws IOException if the reader fails.
+     */
+    private static boolean readSeriesField(final JsonReader reader, final String fieldName, final TVSeries series)
+            throws IOException {
+
+        switch (fieldName) {
+            case "name":
+                series.setSeriesName(nextStringOrNull(reader));
+                return true;
+            case "language":
+                series.setLanguage(StringPool.canonical(nextStringOrNull(reader)));
+                return true;
+            case "summary":
+                series.setSeriesSummary(nextStringOrNull(reader));
+                return true;
+            case "premiered":
+                String premiereDate = nextStringOrNull(reader);
+                if (premiereDate != null) {
+                    series.setPremiereDate(premiereDate);
+                }
+                return true;
+            case "genres":
+                series.setGenres(readGenres(reader));
+                return true;
+            case "rating":
+                series.setAverageRating(readNestedDouble(reader, "average"));
+                return true;
+            case "network":
+                series.setNetworkName(StringPool.canonical(readNestedString(reader, "name")));
+                return true;
+            case "updated":
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                } else {
+                    series.setUpdated(reader.nextLong());
+                }
+                return true;
+            default:
+                return false;
+        }
+
+    }
+
+    /**
+     * Creates a JsonReader over a single UTF-8 encoded JSON value.
+     * @param json is the value, from its position to its limit.
+     * @return a lenient reader, so values other than objects and arrays are accepted at the top level.
+     */
+    private static JsonReader sliceReader(final ByteBuffer json) {
+
+        String value = StandardCharsets.UTF_8.decode(json.duplicate()).toString();
+        JsonReader reader = new JsonReader(new StringReader(value));
+        reader.setLenient(true);
+        return reader;
+
+    }
+
+    /**
+     * Writes the fields of this series and its episodes in a compact binary form that readSnapshot reads back.
+     * Only what TVSeries and TVEpisode keep is written, not the rest of the TVmaze document. The layout is:
+     * the magic number, the format version and the length of the rest of the snapshot as ints, then the series
+     * fields, the genres, the number of episodes and each episode's season, number, runtime, name, airdate and
+     * summary. Strings are an int length in bytes, -1 for null, followed by their UTF-8 bytes.
+     * Missing episode numbers are left out, they come back as gaps when the snapshot is read.
+     * @param output is where the snapshot is written. It is flushed but not closed.
+     * @throws IOException if writing fails.
+     */
+    public void writeSnapshot(final OutputStream output) throws IOException {
+        captureSnapshot().writeTo(output);
+    }
+
+    /**
+     * Captures the series as it is now so writeSnapshot's output can be written later, e.g. by SeriesJournal
+     * without holding the lock on the series while the snapshot goes to disk.
+     * The series fields are encoded straight away and the episodes are the published version, which is never
+     * changed, so changes made after this returns are not in the capture.
+     * @return the captured series.
+     */
+    SnapshotCapture captureSnapshot() {
+
+        ByteArrayOutputStream seriesFields = new ByteArrayOutputStream();
+        try {
+            writeSeriesFields(new DataOutputStream(seriesFields));
+        } catch (IOException e) {
+            //A ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+        return new SnapshotCapture(seriesFields.toByteArray(), version);
+
+    }
+
+    /**
+     * Reads a series written by writeSnapshot.
+     * The whole snapshot is read into memory with one read and the fields are assigned directly, so none of the
+     * parsing, pattern matching or HTML stripping of the JSON loaders is repeated.
+     * @param input is positioned at the start of a snapshot. It is read up to the end of the snapshot and not closed.
+     * @return the series the snapshot was written from.
+     * @throws IOException if reading fails, the input is not a snapshot, or it was written by another version.
+     */
+    public static TVSeries readSnapshot(final InputStream input) throws IOException {
+
+        DataInputStream header = new DataInputStream(input);
+        if (header.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Input is not a TVSeries snapshot");
+        }
+        int version = header.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int payloadLength = header.readInt();
+        if (payloadLength < 0) {
+            throw new IOException("Snapshot is corrupt");
+        }
+        byte[] payloadBytes = new byte[payloadLength];
+        header.readFully(payloadBytes);
+        ByteBuffer payload = ByteBuffer.wrap(payloadBytes);
+
+        try {
+            TVSeries series = new TVSeries((String) null);
+            series.readSeriesFields(payload);
+            TVEpisode[] episodes = new TVEpisode[payload.getInt()];
+            for (int i = 0; i < episodes.length; i++) {
+                episodes[i] = series.readSnapshotEpisode(payload);
+            }
+            series.setEpisodes(episodes);
+
+            return series;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+                 | NegativeArraySizeException e) {
+            throw new IOException("Snapshot is corrupt", e);
+        }
+
+    }
+
+    /**
+     * Loads a TVmaze show document, using a snapshot of it instead when the snapshot is newer than the document.
+     * If the snapshot is missing, older than the document or can't be read, the document is parsed with fromPath
+     * and a new snapshot is written from it, so the next load of the same document reads the snapshot.
+     * The snapshot is written to a temporary file first and moved into place, so a load that is stopped part way
+     * through never leaves a partly written snapshot behind.
+     * @param jsonFile is the path of the show document.
+     * @param snapshotFile is the path of the snapshot of the document.
+     * @return the series.
+     * @throws IOException if the document cannot be read or is not valid JSON, or the snapshot cannot be written.
+     * @throws NullPointerException if the document does not contain an embedded list of episodes.
+     */
+    public static TVSeries fromPathWithSnapshot(final Path jsonFile, final Path snapshotFile)
+            throws IOException, NullPointerException {
+
+        if (Files.isRegularFile(snapshotFile)
+                && Files.getLastModifiedTime(snapshotFile).compareTo(Files.getLastModifiedTime(jsonFile)) > 0) {
+            try (InputStream input = Files.newInputStream(snapshotFile)) {
+                return readSnapshot(input);
+            } catch (IOException e) {
+                //Snapshots from another version or that are corrupt are replaced below
+            }
+        }
+
+        TVSeries series = fromPath(jsonFile);
+
+        Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+            series.writeSnapshot(output);
+        }
+        try {
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return series;
+
+    }
+
+    /**
+     * Writes a string to a snapshot as its length in bytes followed by its UTF-8 bytes.
+     * @param output is the snapshot being written.
+     * @param value is the string, or null.
+     * @throws IOException if writing fails.
+     */
+    private static void writeSnapshotString(final DataOutputStream output, final String value) throws IOException {
+
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(encoded.length);
+        output.write(encoded);
+
+    }
+
+    /**
+     * Reads a string written by writeSnapshotString.
+     * @param input is the snapshot being read.
+     * @return the string, or null.
+     * @throws BufferUnderflowException if the snapshot ends in the middle of the string.
+     */
+    private static String readSnapshotString(final ByteBuffer input) throws BufferUnderflowException {
+
+        int length = input.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > input.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        String value = new String(input.array(), input.arrayOffset() + input.position(), length,
+                StandardCharsets.UTF_8);
+        input.position(input.position() + length);
+        return value;
+
+    }
+
+    /**
+     * Writes the series fields, everything but the episodes, in the snapshot format.
+     * Shared by writeSnapshot and SeriesJournal, which logs the series fields whenever one of them changes.
+     * @param output is the snapshot or journal record being written.
+     * @throws IOException if writing fails.
+     */
+    void writeSeriesFields(final DataOutputStream output) throws IOException {
+
+        writeSnapshotString(output, seriesName);
+        writeSnapshotString(output, language);
+        writeSnapshotString(output, seriesSummary);
+        writeSnapshotString(output, premiereDate);
+        writeSnapshotString(output, networkName);
+        output.writeDouble(averageRating);
+        output.writeLong(updated);
+        output.writeInt(genres == null ? -1 : genres.length);
+        if (genres != null) {
+            for (String genre : genres) {
+                writeSnapshotString(output, genre);
+            }
+        }
+
+    }
+
+    /**
+     * Reads the series fields written by writeSeriesFields into this series, assigning them directly.
+     * @param input is the snapshot or journal record being read, backed by an array.
+     * @throws BufferUnderflowException if the input ends in the middle of the fields.
+     */
+    void readSeriesFields(final ByteBuffer input) throws BufferUnderflowException {
+
+        seriesName = readSnapshotString(input);
+        language = StringPool.canonical(readSnapshotString(input));
+        seriesSummary = readSnapshotString(input);
+        premiereDate = readSnapshotString(input);
+        networkName = StringPool.canonical(readSnapshotString(input));
+        averageRating = input.getDouble();
+        updated = input.getLong();
+        int genreCount = input.getInt();
+        if (genreCount < 0) {
+            genres = null;
+        } else {
+            genres = new String[genreCount];
+            for (int i = 0; i < genreCount; i++) {
+                genres[i] = StringPool.canonical(readSnapshotString(input));
+            }
+        }
+
+    }
+
+    /**
+     * Writes one episode in the snapshot format.
+     * @param output is the snapshot or journal record being written.
+     * @param episode is the episode being written.
+     * @throws IOException if writing fails.
+     */
+    static void writeSnapshotEpisode(final DataOutputStream output, final TVEpisode episode) throws IOException {
+
+        output.writeInt(episode.getSeason());
+        output.writeInt(episode.getNumber());
+        output.writeInt(episode.getId());
+        output.writeInt(episode.getRuntimeInMinutes());
+        writeSnapshotString(output, episode.getEpisodeName());
+        writeSnapshotString(output, episode.getAirdate());
+        writeSnapshotString(output, episode.getSummary());
+
+    }
+
+    /**
+     * Reads one episode written by writeSnapshotEpisode as a new episode of this series.
+     * @param input is the snapshot or journal record being read, backed by an array.
+     * @return the episode, which hasn't been added to the series.
+     * @throws BufferUnderflowException if the input ends in the middle of the episode.
+     */
+    TVEpisode readSnapshotEpisode(final ByteBuffer input) throws BufferUnderflowException {
+
+        int season = input.getInt();
+        int number = input.getInt();
+        int id = input.getInt();
+        int runtimeInMinutes = input.getInt();
+        String name = readSnapshotString(input);
+        String airdate = StringPool.canonical(readSnapshotString(input));
+        String summary = readSnapshotString(input);
+        TVEpisode episode = createEpisode(name, season, number, airdate, summary, runtimeInMinutes);
+        episode.id = id;
+        return episode;
+
+    }
+
+    /**
+     * Reads the genres array of a show document.
+     * @param reader is positioned at the genres array.
+     * @return the genres in the order they appear, or null if the value is null.
+     * @throws IOException if the reader fails.
+     */
+    private static String[] readGenres(final JsonReader reader) throws IOException {
+
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        LinkedList<String> genres = new LinkedList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            genres.add(StringPool.canonical(nextStringOrNull(reader)));
+        }
+        reader.endArray();
+
+        return genres.toArray(new String[genres.size()]);
+
+    }
+
+    /**
+     * Reads the "_embedded" object of a show document and returns the episodes found inside of it.
+     * @param reader is positioned at the "_embedded" object.
+     * @param series is the series the episodes belong to.
+     * @return all the episodes in the order they appear, or null if there is no episodes array.
+     * @throws IOException if the reader fails.
+     */
+    private static TVEpisode[] readEmbeddedEpisodes(final JsonReader reader, final TVSeries series)
+            throws IOException {
+
+        TVEpisode[] episodes = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("episodes") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                ArrayList<TVEpisode> episodeList = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    episodeList.add(readEpisode(reader, series));
+                }
+                reader.endArray();
+                episodes = episodeList.toArray(new TVEpisode[episodeList.size()]);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return episodes;
+
+    }
+
+    /**
+     * Reads a single element of the embedded episodes array.
+     * Fields are assigned the same way the JsonObject constructor assigns them, including leaving the summary
+     * null when the JSON summary is null.
+     * @param reader is positioned at the episode object.
+     * @param series is the series the episode belongs to.
+     * @return the deserialized episode.
+     * @throws IOException if the reader fails.
+     */
+    private static TVEpisode readEpisode(final JsonReader reader, final TVSeries series) throws IOException {
+
+        TVEpisode episode = series.new TVEpisode();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    episode.id = nextIntOrZero(reader);
+                    break;
+                case "name":
+                    episode.name = nextStringOrNull(reader);
+                    break;
+                case "season":
+                    episode.season = nextIntOrZero(reader);
+                    break;
+                case "number":
+                    episode.number = nextIntOrZero(reader);
+                    break;
+                case "airdate":
+                    episode.airdate = StringPool.canonical(nextStringOrNull(reader));
+                    episode.packedAirdate = DateIndex.packDate(episode.airdate);
+                    break;
+                case "runtime":
+                    episode.setRuntimeInMinutes(nextIntOrZero(reader));
+                    break;
+                case "summary":
+                    episode.setSummary(nextStringOrNull(reader));
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return episode;
+
+    }
+
+    /**
+     * Reads a string field out of a nested object, e.g. the name of the network.
+     * @param reader is positioned at the nested object.
+     * @param fieldName is the name of the field inside of the nested object.
+     * @return the value of the field, or null if the object or the field is missing.
+     * @throws IOException if the reader fails.
+     */
+    private static String readNestedString(final JsonReader reader, final String fieldName) throws IOException {
+
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        String value = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(fieldName)) {
+                value = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return value;
+
+    }
+
+    /**
+     * Reads a number field out of a nested object, e.g. the average rating.
+     * @param reader is positioned at the nested object.
+     * @param fieldName is the name of the field inside of the nested object.
+     * @return the value of the field, or 0 if the object or the field is missing.
+     * @throws IOException if the reader fails.
+     */
+    private static double readNestedDouble(final JsonReader reader, final String fieldName) throws IOException {
+
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+
+        double value = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(fieldName) && reader.peek() != JsonToken.NULL) {
+                value = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return value;
+
+    }
+
+    /**
+     * Reads the next value as a string, treating JSON null as a Java null.
+     * @param reader is positioned at a string or null value.
+     * @return the string value, or null.
+     * @throws IOException if the reader fails.
+     */
+    private static String nextStringOrNull(final JsonReader reader) throws IOException {
+
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+
+    }
+
+    /**
+     * Reads the next value as an int, treating JSON null as 0 the same way Gson does for primitive fields.
+     * @param reader is positioned at a number or null value.
+     * @return the int value, or 0.
+     * @throws IOException if the reader fails.
+     */
+    private static int nextIntOrZero(final JsonReader reader) throws IOException {
+
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+        return reader.nextInt();
+
     }
 
     /**
@@ -143,6 +915,14 @@ public class TVSeries {
         return seriesSummary;
     }
 
+    /**
+     * Getter for when TVmaze last changed the show.
+     * @return the updated timestamp in seconds since the epoch, or 0 if it is unknown.
+     */
+    public long getUpdated() {
+        return updated;
+    }
+
     /**
      * Getter for single episode in episodes array.
      * @param seasonNum is the season number for the episode being searched.
@@ -152,12 +932,11 @@ public class TVSeries {
      */
     public TVEpisode getEpisode(int seasonNum, int episodeNum) throws IllegalArgumentException {
 
-        try {
-            return episodes[seasonNum - 1][episodeNum - 1];
-        } catch (Exception e) {
-            //Exception occurs usually when the array is out of bounds.
+        EpisodeVersion current = version;
+        if (!current.hasSlot(seasonNum, episodeNum)) {
             throw new IllegalArgumentException("Season/Episode number does not exist");
         }
+        return current.episodes[seasonNum - 1][episodeNum - 1];
 
     }
 
@@ -166,7 +945,7 @@ public class TVSeries {
      * @return All episodes in the series in 2D array. First dimension represents seasons, second is episode number.
      */
     public TVEpisode[][] getEpisodes() {
-        return episodes;
+        return version.getView();
     }
 
     /**
@@ -175,6 +954,7 @@ public class TVSeries {
      */
     public void setSeriesName(final String seriesName) {
         this.seriesName = seriesName;
+        seriesFieldsChanged();
     }
 
     /**
@@ -183,6 +963,7 @@ public class TVSeries {
      */
     public void setLanguage(final String language) {
         this.language = language;
+        seriesFieldsChanged();
     }
 
     /**
@@ -191,6 +972,7 @@ public class TVSeries {
      */
     public void setGenres(final String[] genres) {
         this.genres = genres;
+        seriesFieldsChanged();
     }
 
     /**
@@ -202,6 +984,7 @@ public class TVSeries {
         if (premiereDate.matches("\\d\\d\\d\\d-[0-1]\\d-[0-3]\\d")) {
             this.premiereDate = premiereDate;
         }
+        seriesFieldsChanged();
     }
 
     /**
@@ -210,6 +993,7 @@ public class TVSeries {
      */
     public void setAverageRating(final double averageRating) {
         this.averageRating = averageRating;
+        seriesFieldsChanged();
     }
 
     /**
@@ -218,6 +1002,7 @@ public class TVSeries {
      */
     public void setNetworkName(final String networkName) {
         this.networkName = networkName;
+        seriesFieldsChanged();
     }
 
     /**
@@ -231,18 +1016,211 @@ public class TVSeries {
         } else {
             this.seriesSummary = null;
         }
+        seriesFieldsChanged();
     }
 
     /**
-     * Setter for episodes instance variable.
-     * This functions converts the array of episodes into a 2D array for better readability and sets it to
-     * episodes instance variable.
-     * @param episodes is all the episodes in a show in the form of a 1D array.
-     * @throws NullPointerException if one of the episodes in the array is null
+     * Setter for when TVmaze last changed the show.
+     * @param updated is the updated timestamp in seconds since the epoch, or 0 if it is unknown.
      */
-    public void setEpisodes(final TVEpisode[] episodes) throws NullPointerException {
+    public void setUpdated(final long updated) {
+        this.updated = updated;
+        seriesFieldsChanged();
+    }
 
-        if (episodes != null) {
+    /**
+     * Getter for the journal changes to this series are logged to.
+     * @return the journal, or null if changes aren't journaled.
+     */
+    SeriesJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Setter for the journal changes to this series are logged to, called by SeriesJournal once it has replayed
+     * its records into the series. Must be called while holding the lock on the series.
+     * @param journal is the journal, or null to stop journaling changes.
+     */
+    void setJournal(final SeriesJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Getter for the cache search results of this series are kept in.
+     * @return the cache, or null if results aren't cached.
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Turns caching of search results on or off.
+     * While a cache is set, the instance searches and filters of this series look up their results in it before
+     * searching and cache what they find. Results are dropped as soon as the episodes or fields of the series change.
+     * Each call gets its own copy of a cached result, so changing the array returned can't change what later calls
+     * get. Setting the name, summary, airdate or runtime of an episode already in the series drops its results
+     * too, but the summary index is not updated for a summary set that way.
+     * @param resultCache is the cache, which can be shared with other series, or null to stop caching results.
+     */
+    public void setResultCache(final ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Runs a search through the result cache if there is one.
+     * @param operation is the search.
+     * @param argument is the first argument of the search.
+     * @param secondArgument is the second argument of the search, or null if it only has one.
+     * @param search runs the search on the current episodes.
+     * @return a copy of the cached result, or the result of the search if it isn't cached. Null results aren't cached.
+     */
+    private TVEpisode[] cachedSearch(final SeriesMetrics.Operation operation, final Object argument,
+                                     final Object secondArgument, final Supplier<TVEpisode[]> search) {
+
+        ResultCache cache = resultCache;
+        if (cache == null) {
+            return search.get();
+        }
+        //Read before searching so a change made during the search leaves the result out of date rather than current
+        long changes = changeCount.get();
+        TVEpisode[] found = cache.get(this, operation, argument, secondArgument, changes);
+        if (found == null) {
+            found = search.get();
+            if (found == null) {
+                return null;
+            }
+            cache.put(this, operation, argument, secondArgument, changes, found);
+        }
+        return found.clone();
+
+    }
+
+    /**
+     * Called by an episode after its name, summary, airdate or runtime was set. If it is one of the current episodes,
+     * the cached results of the series and the runtime statistics and airdate index of the current episodes are
+     * dropped, since they may have been worked out from the old value. Other episodes, e.g. ones still being built
+     * by a loader, are ignored.
+     * @param episode is the episode that was changed.
+     */
+    private void episodeChanged(final TVEpisode episode) {
+
+        EpisodeVersion current = version;
+        if (current.find(episode.season, episode.number) == episode) {
+            current.dropDerived();
+            changeCount.incrementAndGet();
+        }
+
+    }
+
+    /**
+     * Logs the series fields after one of them changed, if changes to this series are journaled, and drops the
+     * cached results of the series.
+     */
+    private void seriesFieldsChanged() {
+
+        changeCount.incrementAndGet();
+        SeriesJournal journal = this.journal;
+        if (journal != null) {
+            //Holding the lock keeps the other fields from changing while they are logged
+            synchronized (this) {
+                journal.logSeriesFields(this);
+            }
+        }
+
+    }
+
+    /**
+     * Setter for episodes instance variable.
+     * This functions converts the array of episodes into a 2D array for better readability and sets it to
+     * episodes instance variable.
+     * @param episodes is all the episodes in a show in the form of a 1D array.
+     * @throws NullPointerException if one of the episodes in the array is null
+     */
+    public synchronized void setEpisodes(final TVEpisode[] episodes) throws NullPointerException {
+
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.OrganizeEpisodesEvent event = new SeriesEvents.OrganizeEpisodesEvent();
+        event.begin();
+        TVEpisode[][] organizedEpisodes = organizeEpisodes(episodes);
+        int[] seasonLengths = new int[organizedEpisodes == null ? 0 : organizedEpisodes.length];
+        for (int season = 0; season < seasonLengths.length; season++) {
+            seasonLengths[season] = organizedEpisodes[season].length;
+        }
+
+        //Every episode changed so the statistics and indexes are recalculated from scratch
+        EpisodeVersion current = version;
+        EpisodeVersion next = new EpisodeVersion(organizedEpisodes, seasonLengths, null, null, 0, null);
+        if (current.summaryIndex != null) {
+            next = next.withSummaryIndex(new SummaryIndex(next.toArray()));
+        }
+        if (current.summaryArena != null) {
+            next = moveSummariesToNewArena(next);
+        }
+        version = next;
+        episodesById = null;
+        changeCount.incrementAndGet();
+        SeriesJournal journal = this.journal;
+        if (journal != null) {
+            journal.logReset(episodes);
+        }
+
+        event.seriesName = seriesName;
+        event.episodeCount = episodes == null ? 0 : episodes.length;
+        event.commit();
+        SeriesMetrics.record(SeriesMetrics.Operation.SET_EPISODES, startTime, episodes);
+
+    }
+
+    /**
+     * Turns off heap summaries on or off.
+     * While it is on, the summaries of the episodes in this series are stored as UTF-8 in a direct buffer owned by
+     * the series instead of as Strings on the heap. getSummary creates a String each time it is called, and the
+     * content and character searches match against the bytes without creating any Strings.
+     * @param enabled is true to move all summaries off heap, false to move them back to Strings.
+     */
+    public synchronized void setOffHeapSummaries(final boolean enabled) {
+
+        EpisodeVersion current = version;
+        if (enabled && current.summaryArena == null) {
+            version = moveSummariesToNewArena(current);
+        } else if (!enabled && current.summaryArena != null) {
+            current.forEach(episode -> episode.moveSummaryTo(null));
+            version = current.withSummaryArena(null, 0);
+        }
+
+    }
+
+    /**
+     * Getter for whether summaries are stored off heap.
+     * @return true if the summaries of this series are kept in a direct buffer.
+     */
+    public boolean hasOffHeapSummaries() {
+        return version.summaryArena != null;
+    }
+
+    /**
+     * Copies the summaries of all episodes of a version into a new arena, leaving behind those of replaced episodes.
+     * The episodes keep their summaries readable while they are moved, so this is safe on a published version.
+     * @param episodeVersion is the version whose episodes are moved.
+     * @return a version with the same episodes that uses the new arena.
+     */
+    private static EpisodeVersion moveSummariesToNewArena(final EpisodeVersion episodeVersion) {
+
+        Utf8Arena arena = new Utf8Arena(true, 4096);
+        episodeVersion.forEach(episode -> episode.moveSummaryTo(arena));
+        return episodeVersion.withSummaryArena(arena, 0);
+
+    }
+
+    /**
+     * Converts an array of episodes into a 2D array organized by season and episode number.
+     * @param episodes is all the episodes in a show in the form of a 1D array.
+     * @return the organized episodes, or null if episodes is null.
+     * @throws NullPointerException if one of the episodes in the array is null
+     */
+    private static TVEpisode[][] organizeEpisodes(final TVEpisode[] episodes) throws NullPointerException {
+
+        if (episodes != null) {
 
             //calculates how many seasons there are by going through the episodes and checking their season number
             int numSeasons = 0;
@@ -275,14 +1253,145 @@ public class TVSeries {
                 organizedEpisodeArray[episode.getSeason() - 1 ][episode.getNumber() - 1] = episode;
             }
 
-            this.episodes = organizedEpisodeArray;
+            return organizedEpisodeArray;
 
         } else {
-            this.episodes = null;
+            return null;
         }
 
     }
 
+    /**
+     * Turns the summary index of this series on or off.
+     * While it is on, the instance searchEpisodesByContents and searchEpisodesByCharacter methods look up
+     * candidate episodes in the index instead of scanning every summary. The index is kept up to date by
+     * setEpisodes and addOrReplaceEpisode, but not by calling setSummary on an episode already in the series.
+     * @param enabled is true to build the index from the current episodes, false to drop it.
+     */
+    public synchronized void setSummaryIndexEnabled(final boolean enabled) {
+
+        EpisodeVersion current = version;
+        if (!enabled) {
+            version = current.withSummaryIndex(null);
+        } else if (current.summaryIndex == null) {
+            version = current.withSummaryIndex(new SummaryIndex(current.toArray()));
+        }
+
+    }
+
+    /**
+     * Getter for whether the summary index is on.
+     * @return true if searches on this series use the summary index.
+     */
+    public boolean isSummaryIndexEnabled() {
+        return version.summaryIndex != null;
+    }
+
+    /**
+     * Searches the episodes of this series for contents by looking through their summary.
+     * Uses the summary index when it is on, otherwise it is the same as the static version on getEpisodes().
+     * @param contents is the contents you are searching for within the episodes
+     * @return all episodes that contain the given content
+     */
+    public TVEpisode[] searchEpisodesByContents(final String contents) {
+        return cachedSearch(SeriesMetrics.Operation.SEARCH_BY_CONTENTS, contents, null,
+                            () -> findEpisodesByContents(contents));
+    }
+
+    /**
+     * Searches the current episodes for contents, with the summary index if it is on.
+     * @param contents is the contents you are searching for within the episodes
+     * @return all episodes that contain the given content
+     */
+    private TVEpisode[] findEpisodesByContents(final String contents) {
+
+        //Queries too short to have a trigram can't use the index
+        EpisodeVersion current = version;
+        if (current.summaryIndex != null && contents != null && contents.length() >= SummaryIndex.MIN_QUERY_LENGTH) {
+            long startTime = SeriesMetrics.start();
+            SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+            TVEpisode[] found = searchSummaryIndex(current, contents);
+            SeriesMetrics.record(SeriesMetrics.Operation.SEARCH_BY_CONTENTS, startTime, found);
+            SeriesEvents.commitSearch(event, SeriesMetrics.Operation.SEARCH_BY_CONTENTS, this, contents, null, found);
+            return found;
+        }
+        return searchEpisodesByContents(current.getView(), contents);
+
+    }
+
+    /**
+     * Looks up the current episodes whose summary contains some text in the summary index, without going through
+     * the result cache or recording the search, e.g. for EpisodeQuery, which narrows its candidates down with it.
+     * @param contents is the text, at least SummaryIndex.MIN_QUERY_LENGTH characters long.
+     * @return the matching episodes in season and episode order, or null if the summary index is off.
+     */
+    TVEpisode[] searchSummaryIndex(final String contents) {
+        return searchSummaryIndex(version, contents);
+    }
+
+    /**
+     * Looks up the episodes of a version whose summary contains some text in its summary index.
+     * @param current is the version being searched.
+     * @param contents is the text, at least SummaryIndex.MIN_QUERY_LENGTH characters long.
+     * @return the matching episodes, or null if the version has no summary index.
+     */
+    private static TVEpisode[] searchSummaryIndex(final EpisodeVersion current, final String contents) {
+        return current.summaryIndex == null ? null : current.summaryIndex.search(contents, current::isCurrent);
+    }
+
+    /**
+     * Filter function for the characters of this series, based on the summaries of the episodes.
+     * Uses the summary index when it is on, otherwise it is the same as the static version on getEpisodes().
+     * @param character the name of the character you are looking for.
+     * @return all the episodes that contain the given character.
+     */
+    public TVEpisode[] searchEpisodesByCharacter(final String character) {
+        return cachedSearch(SeriesMetrics.Operation.SEARCH_BY_CHARACTER, character, null,
+                            () -> findEpisodesByCharacter(character));
+    }
+
+    /**
+     * Searches the current episodes for a character, with the summary index if it is on.
+     * @param character the name of the character you are looking for.
+     * @return all the episodes that contain the given character.
+     */
+    private TVEpisode[] findEpisodesByCharacter(final String character) {
+
+        EpisodeVersion current = version;
+        if (current.summaryIndex != null && character != null
+                && character.length() >= SummaryIndex.MIN_QUERY_LENGTH) {
+            long startTime = SeriesMetrics.start();
+            SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+            TVEpisode[] found = current.summaryIndex.search(character, current::isCurrent);
+            SeriesMetrics.record(SeriesMetrics.Operation.SEARCH_BY_CHARACTER, startTime, found);
+            SeriesEvents.commitSearch(event, SeriesMetrics.Operation.SEARCH_BY_CHARACTER, this, character, null, found);
+            return found;
+        }
+        return searchEpisodesByCharacter(current.getView(), character);
+
+    }
+
+    /**
+     * Searches the episodes of this series by name, the same as the static version on getEpisodes().
+     * @param name is the name being searched for in the episodes.
+     * @return all episodes with the name in it, or null if name is null.
+     */
+    public TVEpisode[] searchEpisodesByName(final String name) {
+        return cachedSearch(SeriesMetrics.Operation.SEARCH_BY_NAME, name, null,
+                            () -> searchEpisodesByName(version.getView(), name));
+    }
+
+    /**
+     * Filter function for the episodes of this series that are no longer than a given runtime, the same as the
+     * static version on getEpisodes().
+     * @param maxRuntimeMinutes is the longest runtime allowed in minutes.
+     * @return all episodes with a runtime of at most maxRuntimeMinutes.
+     */
+    public TVEpisode[] searchEpisodesByMaxRuntime(final int maxRuntimeMinutes) {
+        return cachedSearch(SeriesMetrics.Operation.SEARCH_BY_MAX_RUNTIME, maxRuntimeMinutes, null,
+                            () -> searchEpisodesByMaxRuntime(version.getView(), maxRuntimeMinutes));
+    }
+
     /**
      * Creates a new TVEpisode for an instance of TVSeries.
      * Note that this function does not affect the list of episodes in the series. However, addOrReplaceEpisode does.
@@ -292,29 +1401,598 @@ public class TVSeries {
         return new TVEpisode();
     }
 
+    /**
+     * Creates a new TVEpisode for this series with all of its fields already known.
+     * Fields are assigned as is, without the checks and HTML stripping done by the setters, so this is only meant
+     * for values that came out of another TVEpisode.
+     * @param name is the name of the episode.
+     * @param season is the season that the episode belongs to.
+     * @param number is the number of the episode within its season.
+     * @param airdate is the date the episode first aired.
+     * @param summary is the already stripped summary of the episode.
+     * @param runtimeInMinutes is the runtime of the episode in minutes.
+     * @return the new TVEpisode.
+     */
+    TVEpisode createEpisode(final String name, final int season, final int number, final String airdate,
+                            final String summary, final int runtimeInMinutes) {
+
+        TVEpisode episode = new TVEpisode();
+        episode.name = name;
+        episode.season = season;
+        episode.number = number;
+        episode.airdate = airdate;
+        episode.packedAirdate = DateIndex.packDate(airdate);
+        episode.summary = summary;
+        episode.runtimeInMinutes = runtimeInMinutes;
+        return episode;
+
+    }
+
     /**
      * This function will add a new episode to the TVSeries episodes array.
-     * If the episode already exists it will be replaced by the newEpisode
+     * If the episode already exists it will be replaced by the newEpisode.
+     * The episode is written straight into its season, which only has to be copied when it runs out of room or
+     * when an episode readers may be looking at is replaced.
      * @param newEpisode contains a custom made episode
+     * @throws NullPointerException if newEpisode is null.
+     * @throws IllegalArgumentException if the season or episode number of newEpisode is less than 1.
+     */
+    public void addOrReplaceEpisode(final TVEpisode newEpisode) throws NullPointerException, IllegalArgumentException {
+        addOrReplaceEpisodes(Collections.singletonList(newEpisode));
+    }
+
+    /**
+     * Adds or replaces a batch of episodes at once.
+     * The episodes array is grown once for the whole batch and the indexes are updated once at the end, so this
+     * is cheaper than calling addOrReplaceEpisode for each episode. If the batch contains several episodes with
+     * the same season and number, the last one wins.
+     * Threads reading the series meanwhile keep seeing the episodes from before the batch until it is done, and
+     * then see all of it at once. Episodes are never changed in an array readers can see: they are appended past
+     * the end of their season, which readers don't look at, or written into a copy of the season.
+     * @param newEpisodes contains the episodes being added or replaced.
+     * @throws NullPointerException if one of the episodes is null.
+     * @throws IllegalArgumentException if the season or episode number of one of the episodes is less than 1.
+     */
+    public synchronized void addOrReplaceEpisodes(final Collection<TVEpisode> newEpisodes)
+            throws NullPointerException, IllegalArgumentException {
+
+        long startTime = SeriesMetrics.start();
+        checkEpisodes(newEpisodes);
+        applyChanges(newEpisodes, Collections.emptyList());
+        SeriesMetrics.record(SeriesMetrics.Operation.ADD_OR_REPLACE_EPISODES, startTime, newEpisodes.size());
+
+    }
+
+    /**
+     * Applies a newer copy of this show's TVmaze document, changing only the episodes that are different.
+     * Episodes are matched up by id: episodes that are new are added, episodes whose fields changed are replaced and
+     * episodes missing from the newer document are removed. Episodes that didn't change are left alone, along with
+     * their place in the summary index and the off heap arena. Episodes without an id are matched up by season and
+     * number instead. Two episodes that haven't been decoded yet are compared by their JSON, so only the episodes
+     * whose JSON changed are decoded. The series fields, such as the name and rating, are copied over as well.
+     * Nothing is done if latest was updated no later than this series, unless this series doesn't know when it was
+     * last updated.
+     * @param latest is the series loaded from the newer document, e.g. with fromPathLazy. Its new and changed
+     *               episodes are copied into this series, so nothing is left pointing at latest or its document.
+     * @return true if the update was applied, false if it was skipped because latest is not newer.
+     * @throws NullPointerException if latest is null.
+     * @throws IllegalArgumentException if the season or episode number of one of the changed episodes is less than 1.
      */
-    public void addOrReplaceEpisode(final TVEpisode newEpisode) {
+    public synchronized boolean applyUpdate(final TVSeries latest)
+            throws NullPointerException, IllegalArgumentException {
 
-        //All new episodes stored in this list.
-        LinkedList<TVEpisode> newEpisodeList = new LinkedList<>();
+        long startTime = SeriesMetrics.start();
+        if (updated != 0 && latest.getUpdated() <= updated) {
+            SeriesMetrics.record(SeriesMetrics.Operation.APPLY_UPDATE, startTime, 0);
+            return false;
+        }
 
-        //Copy current episodes to a list.
-        if (this.episodes != null && this.episodes.length != 0) {
-            for (TVEpisode[] season : episodes) {
-                Collections.addAll(newEpisodeList, season);
+        //Every current episode that isn't matched by an episode of latest is removed
+        EpisodeVersion current = version;
+        HashMap<Integer, TVEpisode> episodesById = getEpisodesById();
+        Set<TVEpisode> unmatchedEpisodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.forEach(unmatchedEpisodes::add);
+
+        ArrayList<TVEpisode> changedEpisodes = new ArrayList<>();
+        ArrayList<TVEpisode> removedEpisodes = new ArrayList<>();
+        latest.version.forEach(episode -> {
+            TVEpisode existing = episode.getId() != 0 ? episodesById.get(episode.getId())
+                                                      : current.find(episode.getSeason(), episode.getNumber());
+            if (existing == null || !unmatchedEpisodes.remove(existing)) {
+                changedEpisodes.add(adoptEpisode(episode));
+            } else if (!existing.hasSameContents(episode)) {
+                changedEpisodes.add(adoptEpisode(episode));
+                //An episode that was renumbered has to be taken out of its old slot as well
+                if (existing.getSeason() != episode.getSeason() || existing.getNumber() != episode.getNumber()) {
+                    removedEpisodes.add(existing);
+                }
             }
+        });
+        removedEpisodes.addAll(unmatchedEpisodes);
+        checkEpisodes(changedEpisodes);
+
+        seriesName = latest.seriesName;
+        language = latest.language;
+        genres = latest.genres;
+        premiereDate = latest.premiereDate;
+        averageRating = latest.averageRating;
+        networkName = latest.networkName;
+        seriesSummary = latest.seriesSummary;
+        if (!changedEpisodes.isEmpty() || !removedEpisodes.isEmpty()) {
+            applyChanges(changedEpisodes, removedEpisodes);
         }
+        updated = latest.getUpdated();
+        seriesFieldsChanged();
 
-        //Add the new episode to the list.
-        newEpisodeList.add(newEpisode);
+        SeriesMetrics.record(SeriesMetrics.Operation.APPLY_UPDATE, startTime,
+                             changedEpisodes.size() + removedEpisodes.size());
+        return true;
 
-        //Uses the setEpisodes function to reinitialize episodes array
-        //Converts linked list to an array
-        this.setEpisodes(newEpisodeList.toArray(new TVEpisode[newEpisodeList.size()]));
+    }
+
+    /**
+     * Copies an episode of another series into this one, decoding it if it was loaded lazily.
+     * The copy belongs to this series and holds no slice of the other series' document, so the document can be
+     * unmapped or replaced once the copy is made.
+     * @param episode is the episode of the other series.
+     * @return the copy, with the same id and fields.
+     */
+    private TVEpisode adoptEpisode(final TVEpisode episode) {
+
+        TVEpisode adopted = createEpisode(episode.getEpisodeName(), episode.getSeason(), episode.getNumber(),
+                                          episode.getAirdate(), episode.getSummary(), episode.getRuntimeInMinutes());
+        adopted.setId(episode.getId());
+        return adopted;
+
+    }
+
+    /**
+     * Applies changes to single episodes, e.g. from a feed of episode updates, without needing the whole document.
+     * A changed episode replaces the episode with the same id wherever that episode is, or is added if there isn't
+     * one. Episodes without an id replace the episode with the same season and number. The work done is in
+     * proportion to the number of changes, not to the number of episodes in the series.
+     * Nothing is done if updated is no later than the time this series was last updated, unless this series doesn't
+     * know when it was last updated.
+     * @param updated is when TVmaze last changed the show after these changes, in seconds since the epoch.
+     * @param changedEpisodes is the episodes that were added or changed.
+     * @param removedEpisodeIds is the ids of the episodes that were removed. Ids that aren't in the series are ignored.
+     * @return true if the changes were applied, false if they were skipped because updated is not newer.
+     * @throws NullPointerException if one of the episodes or ids is null.
+     * @throws IllegalArgumentException if the season or episode number of one of the episodes is less than 1.
+     */
+    public synchronized boolean applyEpisodeDelta(final long updated, final Collection<TVEpisode> changedEpisodes,
+                                                  final Collection<Integer> removedEpisodeIds)
+            throws NullPointerException, IllegalArgumentException {
+
+        long startTime = SeriesMetrics.start();
+        checkEpisodes(changedEpisodes);
+        if (this.updated != 0 && updated <= this.updated) {
+            SeriesMetrics.record(SeriesMetrics.Operation.APPLY_UPDATE, startTime, 0);
+            return false;
+        }
+
+        HashMap<Integer, TVEpisode> episodesById = getEpisodesById();
+        ArrayList<TVEpisode> removedEpisodes = new ArrayList<>();
+        for (int removedId : removedEpisodeIds) {
+            TVEpisode removed = episodesById.get(removedId);
+            if (removed != null) {
+                removedEpisodes.add(removed);
+            }
+        }
+        for (TVEpisode episode : changedEpisodes) {
+            TVEpisode existing = episode.getId() == 0 ? null : episodesById.get(episode.getId());
+            if (existing != null && existing != episode
+                    && (existing.getSeason() != episode.getSeason() || existing.getNumber() != episode.getNumber())) {
+                removedEpisodes.add(existing);
+            }
+        }
+
+        applyChanges(changedEpisodes, removedEpisodes);
+        this.updated = updated;
+        seriesFieldsChanged();
+
+        SeriesMetrics.record(SeriesMetrics.Operation.APPLY_UPDATE, startTime,
+                             changedEpisodes.size() + removedEpisodes.size());
+        return true;
+
+    }
+
+    /**
+     * Brings the series up to date with its TVmaze document, e.g. as part of a nightly refresh of a catalog.
+     * The updated timestamp is read out of the document first without parsing the rest of it, so a series whose
+     * document hasn't changed costs no more than finding that one field. Otherwise the document is loaded lazily
+     * and applied with applyUpdate, which only decodes the episodes whose JSON changed and copies them into this
+     * series, so the document isn't used again once this returns.
+     * @param jsonFile is the path of the show document.
+     * @return true if the series was updated, false if the document is not newer than the series.
+     * @throws IOException if the document cannot be read or is not valid JSON.
+     * @throws NullPointerException if the document does not contain an embedded list of episodes.
+     */
+    public boolean refreshFrom(final Path jsonFile) throws IOException, NullPointerException {
+
+        long current = updated;
+        if (current != 0 && readUpdated(jsonFile) <= current) {
+            return false;
+        }
+        return applyUpdate(fromPathLazy(jsonFile));
+
+    }
+
+    /**
+     * Reads when TVmaze last changed a show out of its document, without parsing anything but the top level.
+     * @param jsonFile is the path of the show document.
+     * @return the updated timestamp in seconds since the epoch, or 0 if the document doesn't have one.
+     * @throws IOException if the document cannot be read or is not valid JSON.
+     */
+    public static long readUpdated(final Path jsonFile) throws IOException {
+
+        ByteBuffer json = MappedData.mapFile(jsonFile);
+        int root = JsonSlices.skipWhitespace(json, json.position());
+        return JsonSlices.readLong(json, JsonSlices.findMembers(json, root, "updated")[0]);
+
+    }
+
+    /**
+     * Applies a journal record of changed episodes, the same way the change was applied when it was logged.
+     * @param newEpisodes is the episodes that were added or replaced.
+     * @param removedSlots is the season and number of each episode that was removed, one after the other.
+     *                     Slots that are already empty are ignored.
+     * @throws NullPointerException if one of the episodes is null.
+     * @throws IllegalArgumentException if the season or episode number of one of the episodes is less than 1.
+     */
+    synchronized void replayChanges(final Collection<TVEpisode> newEpisodes, final int[] removedSlots)
+            throws NullPointerException, IllegalArgumentException {
+
+        checkEpisodes(newEpisodes);
+        EpisodeVersion current = version;
+        ArrayList<TVEpisode> removedEpisodes = new ArrayList<>();
+        for (int i = 0; i + 1 < removedSlots.length; i += 2) {
+            TVEpisode removed = current.find(removedSlots[i], removedSlots[i + 1]);
+            if (removed != null) {
+                removedEpisodes.add(removed);
+            }
+        }
+        applyChanges(newEpisodes, removedEpisodes);
+
+    }
+
+    /**
+     * Checks a batch of episodes before any of them are added.
+     * @param newEpisodes is the episodes being added or replaced.
+     * @throws NullPointerException if one of the episodes is null.
+     * @throws IllegalArgumentException if the season or episode number of one of the episodes is less than 1.
+     */
+    private static void checkEpisodes(final Collection<TVEpisode> newEpisodes)
+            throws NullPointerException, IllegalArgumentException {
+
+        for (TVEpisode episode : newEpisodes) {
+            if (episode == null) {
+                throw new NullPointerException("Tried to set null episode");
+            } else if (episode.getSeason() < 1 || episode.getNumber() < 1) {
+                throw new IllegalArgumentException("Season/Episode number does not exist");
+            }
+        }
+
+    }
+
+    /**
+     * Getter for the current episodes by id, which is built from the current version if it doesn't exist yet.
+     * Must be called while holding the lock on the series.
+     * @return the map from id to episode, leaving out episodes without an id.
+     */
+    private HashMap<Integer, TVEpisode> getEpisodesById() {
+
+        if (episodesById == null) {
+            HashMap<Integer, TVEpisode> byId = new HashMap<>();
+            version.forEach(episode -> {
+                if (episode.getId() != 0) {
+                    byId.put(episode.getId(), episode);
+                }
+            });
+            episodesById = byId;
+        }
+        return episodesById;
+
+    }
+
+    /**
+     * Publishes a new version of the episodes with some episodes removed and others added or replaced.
+     * Removals are done first, so an episode can be removed from one slot and another one added in its place.
+     * Missing episodes and seasons left at the end by removals are trimmed off, so the episodes look the same as if
+     * setEpisodes had been called with everything that is left. Must be called while holding the lock on the series.
+     * @param newEpisodes is the episodes being added or replaced, already checked with checkEpisodes.
+     * @param removedEpisodes is the episodes being removed. Episodes that are not in the series are ignored.
+     */
+    private void applyChanges(final Collection<TVEpisode> newEpisodes, final Collection<TVEpisode> removedEpisodes) {
+
+        EpisodeVersion current = version;
+        int seasonCount = current.seasonLengths.length;
+        for (TVEpisode episode : newEpisodes) {
+            seasonCount = Math.max(seasonCount, episode.getSeason());
+        }
+
+        //Finds how long each season has to be and the first slot the changes write to in each of them
+        int[] requiredSeasonLengths = new int[seasonCount];
+        int[] firstWrittenSlots = new int[seasonCount];
+        Arrays.fill(firstWrittenSlots, Integer.MAX_VALUE);
+        for (TVEpisode episode : newEpisodes) {
+            int season = episode.getSeason() - 1;
+            requiredSeasonLengths[season] = Math.max(requiredSeasonLengths[season], episode.getNumber());
+            firstWrittenSlots[season] = Math.min(firstWrittenSlots[season], episode.getNumber() - 1);
+        }
+        ArrayList<TVEpisode> presentRemovedEpisodes = new ArrayList<>();
+        for (TVEpisode episode : removedEpisodes) {
+            if (current.isCurrent(episode)) {
+                presentRemovedEpisodes.add(episode);
+                firstWrittenSlots[episode.getSeason() - 1] = Math.min(firstWrittenSlots[episode.getSeason() - 1],
+                                                                      episode.getNumber() - 1);
+            }
+        }
+        TVEpisode[][] episodes = copyForWriting(current, requiredSeasonLengths, firstWrittenSlots);
+        int[] seasonLengths = Arrays.copyOf(current.seasonLengths, seasonCount);
+
+        //Statistics are updated on copies, since readers of the current version may be holding the old ones
+        ArrayList<RuntimeStatistics> statistics = null;
+        if (current.statistics != null) {
+            statistics = new ArrayList<>();
+            for (RuntimeStatistics oldStatistics : current.statistics) {
+                statistics.add(new RuntimeStatistics(oldStatistics));
+            }
+        }
+
+        long summaryArenaGarbage = current.summaryArenaGarbage;
+        for (TVEpisode episode : presentRemovedEpisodes) {
+            episodes[episode.getSeason() - 1][episode.getNumber() - 1] = null;
+            if (statistics != null && !removeRuntimeStatistics(statistics, episode)) {
+                statistics = null;
+            }
+            if (current.summaryArena != null) {
+                summaryArenaGarbage += episode.summaryLengthIn(current.summaryArena);
+            }
+            if (episodesById != null) {
+                episodesById.remove(episode.getId(), episode);
+            }
+        }
+
+        for (TVEpisode episode : newEpisodes) {
+            int season = episode.getSeason() - 1;
+            int number = episode.getNumber() - 1;
+
+            TVEpisode replacedEpisode = episodes[season][number];
+            episodes[season][number] = episode;
+            seasonLengths[season] = Math.max(seasonLengths[season], number + 1);
+
+            //An episode replacing itself may have had its runtime changed, so its old runtime is unknown
+            if (replacedEpisode == episode) {
+                statistics = null;
+            } else if (statistics != null) {
+                if (replacedEpisode != null && !removeRuntimeStatistics(statistics, replacedEpisode)) {
+                    statistics = null;
+                } else {
+                    addRuntimeStatistics(statistics, episode);
+                }
+            }
+            if (current.summaryArena != null) {
+                if (replacedEpisode != null && replacedEpisode != episode) {
+                    summaryArenaGarbage += replacedEpisode.summaryLengthIn(current.summaryArena);
+                }
+                episode.moveSummaryTo(current.summaryArena);
+            }
+            if (episodesById != null) {
+                if (replacedEpisode != null) {
+                    episodesById.remove(replacedEpisode.getId(), replacedEpisode);
+                }
+                if (episode.getId() != 0) {
+                    episodesById.put(episode.getId(), episode);
+                }
+            }
+        }
+
+        if (!presentRemovedEpisodes.isEmpty()) {
+            //Seasons that lost episodes were copied by copyForWriting, so they can be shortened in place
+            for (int season = 0; season < seasonCount; season++) {
+                while (seasonLengths[season] > 0 && episodes[season][seasonLengths[season] - 1] == null) {
+                    seasonLengths[season]--;
+                }
+            }
+            int usedSeasonCount = seasonCount;
+            while (usedSeasonCount > 0 && seasonLengths[usedSeasonCount - 1] == 0) {
+                usedSeasonCount--;
+            }
+            //Copies the outer array when dropping seasons, so seasons added later don't reuse slots older
+            //versions can still see
+            if (usedSeasonCount < seasonCount) {
+                seasonCount = usedSeasonCount;
+                episodes = Arrays.copyOf(episodes, seasonCount);
+                seasonLengths = Arrays.copyOf(seasonLengths, seasonCount);
+                while (statistics != null && statistics.size() > seasonCount + 1) {
+                    statistics.remove(statistics.size() - 1);
+                }
+            }
+        }
+
+        EpisodeVersion next = new EpisodeVersion(episodes, seasonLengths,
+                current.summaryIndex == null ? null : current.summaryIndex.withAdded(newEpisodes),
+                current.summaryArena, summaryArenaGarbage,
+                statistics == null ? null : statistics.toArray(new RuntimeStatistics[statistics.size()]));
+        if (next.summaryIndex != null && next.summaryIndex.needsRebuild()) {
+            next = next.withSummaryIndex(new SummaryIndex(next.toArray()));
+        }
+        //Once most of the arena belongs to replaced episodes it is compacted into a new one
+        if (next.summaryArena != null && next.summaryArenaGarbage > next.summaryArena.size() / 2) {
+            next = moveSummariesToNewArena(next);
+        }
+        version = next;
+        changeCount.incrementAndGet();
+
+        SeriesJournal journal = this.journal;
+        if (journal != null) {
+            journal.logEpisodes(newEpisodes, presentRemovedEpisodes);
+        }
+
+    }
+
+    /**
+     * Gets an episodes array that a batch of episodes can be written into without changing anything the readers of
+     * the current version can see. Seasons the batch replaces episodes in are copied, seasons it only appends to
+     * are shared as long as they have room, and the outer array is copied if any season readers can see changes.
+     * Arrays at least double when they grow so adding episodes one at a time is amortized constant time.
+     * @param current is the version the batch is applied to.
+     * @param requiredSeasonLengths is how many episode slots each season needs, index 0 is season 1.
+     * @param firstWrittenSlots is the lowest slot the batch writes to in each season, or Integer.MAX_VALUE.
+     * @return the episodes array to write the batch into, with room for requiredSeasonLengths.
+     */
+    private static TVEpisode[][] copyForWriting(final EpisodeVersion current, final int[] requiredSeasonLengths,
+                                                final int[] firstWrittenSlots) {
+
+        int visibleSeasons = current.seasonLengths.length;
+        TVEpisode[][] episodes = current.episodes == null ? new TVEpisode[0][] : current.episodes;
+        boolean copied = false;
+        if (requiredSeasonLengths.length > episodes.length) {
+            int newSeasonCapacity = Math.max(requiredSeasonLengths.length, episodes.length * 2);
+            episodes = Arrays.copyOf(episodes, newSeasonCapacity);
+            copied = true;
+        }
+
+        for (int season = 0; season < requiredSeasonLengths.length; season++) {
+            TVEpisode[] seasonEpisodes;
+            if (season >= visibleSeasons) {
+                //Seasons skipped over by the new episodes exist but are empty, the same as in setEpisodes
+                seasonEpisodes = new TVEpisode[requiredSeasonLengths[season]];
+            } else if (requiredSeasonLengths[season] > episodes[season].length) {
+                int newCapacity = Math.max(requiredSeasonLengths[season], episodes[season].length * 2);
+                seasonEpisodes = Arrays.copyOf(episodes[season], newCapacity);
+            } else if (firstWrittenSlots[season] < current.seasonLengths[season]) {
+                seasonEpisodes = episodes[season].clone();
+            } else {
+                continue;
+            }
+
+            if (season < visibleSeasons && !copied) {
+                episodes = episodes.clone();
+                copied = true;
+            }
+            episodes[season] = seasonEpisodes;
+        }
+
+        return episodes;
+
+    }
+
+    /**
+     * Includes an episode's runtime in the series and season statistics.
+     * @param statistics is the statistics of the series at index 0 followed by those of each season.
+     * @param episode is the episode being added to the series.
+     */
+    private static void addRuntimeStatistics(final ArrayList<RuntimeStatistics> statistics, final TVEpisode episode) {
+
+        statistics.get(0).add(episode.getRuntimeInMinutes());
+        while (statistics.size() <= episode.getSeason()) {
+            statistics.add(new RuntimeStatistics());
+        }
+        statistics.get(episode.getSeason()).add(episode.getRuntimeInMinutes());
+
+    }
+
+    /**
+     * Takes an episode's runtime out of the series and season statistics.
+     * @param statistics is the statistics of the series at index 0 followed by those of each season.
+     * @param episode is the episode being removed from the series.
+     * @return false if the statistics didn't contain the episode's runtime because it was changed after the
+     *         episode was added, in which case they have to be rebuilt.
+     */
+    private static boolean removeRuntimeStatistics(final ArrayList<RuntimeStatistics> statistics,
+                                                   final TVEpisode episode) {
+
+        try {
+            statistics.get(0).remove(episode.getRuntimeInMinutes());
+            statistics.get(episode.getSeason()).remove(episode.getRuntimeInMinutes());
+            return true;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return false;
+        }
+
+    }
+
+    /**
+     * Getter for the runtime statistics of every episode in the series.
+     * The statistics are kept up to date by setEpisodes and addOrReplaceEpisode, and worked out again after
+     * setRuntimeInMinutes is called on an episode already in the series.
+     * @return the runtime statistics of the current episodes, which don't change when episodes are added later.
+     */
+    public RuntimeStatistics getRuntimeStatistics() {
+        return version.getStatistics()[0];
+    }
+
+    /**
+     * Getter for the runtime statistics of a single season.
+     * @param seasonNum is the season number, starting at 1.
+     * @return the runtime statistics of the current episodes of the season.
+     * @throws IllegalArgumentException if the season does not exist.
+     */
+    public RuntimeStatistics getSeasonRuntimeStatistics(final int seasonNum) throws IllegalArgumentException {
+
+        RuntimeStatistics[] statistics = version.getStatistics();
+        if (seasonNum < 1 || seasonNum >= statistics.length) {
+            throw new IllegalArgumentException("Season number does not exist");
+        }
+        return statistics[seasonNum];
+
+    }
+
+    /**
+     * Counts the episodes in this series without scanning them.
+     * Unlike the static version, missing episode numbers inside a season are not counted.
+     * @return the total number of episodes in the series.
+     */
+    public int totalNumberOfEpisodes() {
+
+        long startTime = SeriesMetrics.start();
+        int episodeCount = getRuntimeStatistics().getEpisodeCount();
+        SeriesMetrics.record(SeriesMetrics.Operation.TOTAL_EPISODES, startTime, episodeCount);
+        return episodeCount;
+
+    }
+
+    /**
+     * Calculates the average runtime of the episodes in this series from its running statistics.
+     * @return the average runtime of all the episodes
+     */
+    public int averageRuntimeOfEpisodes() {
+
+        long startTime = SeriesMetrics.start();
+        RuntimeStatistics statistics = getRuntimeStatistics();
+        int averageRuntime = statistics.getAverageRuntime();
+        SeriesMetrics.record(SeriesMetrics.Operation.AVERAGE_RUNTIME, startTime, statistics.getEpisodeCount());
+        return averageRuntime;
+
+    }
+
+    /**
+     * Looks up the longest runtime in this series from its running statistics.
+     * @return length in minutes of max runtime of episodes.
+     */
+    public int maxRuntimeOfEpisodes() {
+
+        long startTime = SeriesMetrics.start();
+        RuntimeStatistics statistics = getRuntimeStatistics();
+        int maxRuntime = statistics.getMaxRuntime();
+        SeriesMetrics.record(SeriesMetrics.Operation.MAX_RUNTIME, startTime, statistics.getEpisodeCount());
+        return maxRuntime;
+
+    }
+
+    /**
+     * Looks up the shortest runtime in this series from its running statistics.
+     * @return length in minutes of min runtime of episodes.
+     */
+    public int minRuntimeOfEpisodes() {
+
+        long startTime = SeriesMetrics.start();
+        RuntimeStatistics statistics = getRuntimeStatistics();
+        int minRuntime = statistics.getMinRuntime();
+        SeriesMetrics.record(SeriesMetrics.Operation.MIN_RUNTIME, startTime, statistics.getEpisodeCount());
+        return minRuntime;
 
     }
 
@@ -329,25 +2007,42 @@ public class TVSeries {
 
     /**
      * Filter method to search for all episodes from 1d array that premiered in a given year.
+     * @param episodes is all the episodes being searched, null slots are skipped.
      * @param year is the year being searched for episodes.
      * @return all the episodes from that series in the form of an array.
      */
     public static TVEpisode[] getEpisodesInYear(final TVEpisode[] episodes, final int year) {
 
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+
         //Stores all episodes in the given year
         LinkedList<TVEpisode> episodesInYear = new LinkedList<>();
 
         if (episodes != null) {
             for (TVEpisode episode : episodes) {
-                //Since the first 4 letters are the year, it compares this to the parameter
-                if (episode.getAirdate().substring(0, 4).equals(Integer.toString(year))) {
+                //Skips the empty slots left by missing episode numbers
+                if (episode == null) {
+                    continue;
+                }
+                //The packed airdate is YYYYMMDD so the year can be compared without creating any Strings
+                int airdate = episode.getPackedAirdate();
+                if (airdate != DateIndex.NO_DATE) {
+                    if (airdate / 10000 == year) {
+                        episodesInYear.add(episode);
+                    }
+                } else if (episode.getAirdate().substring(0, 4).equals(Integer.toString(year))) {
+                    //Airdates not in the form YYYY-MM-DD are compared on their first 4 letters
                     episodesInYear.add(episode);
                 }
             }
         }
 
         //Converting linked list to array and returning
-        return episodesInYear.toArray(new TVEpisode[episodesInYear.size()]);
+        TVEpisode[] found = episodesInYear.toArray(new TVEpisode[episodesInYear.size()]);
+        SeriesMetrics.record(SeriesMetrics.Operation.EPISODES_IN_YEAR, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.EPISODES_IN_YEAR, episodes, year, null, found);
+        return found;
 
     }
 
@@ -363,16 +2058,22 @@ public class TVSeries {
 
     /**
      * Searches through all the episodes in a 1d array and returns episodes containing the name.
-     * @param episodes is all the episodes being searched
+     * @param episodes is all the episodes being searched, null slots are skipped
      * @param name is the search name criteria
      * @return all episodes with the name in it
      */
     public static TVEpisode[] searchEpisodesByName(final TVEpisode[] episodes, final String name) {
 
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
         if (episodes != null && name != null) {
             LinkedList<TVEpisode> allEpisodesWithName = new LinkedList<>();
 
             for (TVEpisode episode: episodes) {
+                //Skips the empty slots left by missing episode numbers
+                if (episode == null) {
+                    continue;
+                }
                 //Adds if the name is part of the episode name
                 if (episode.getEpisodeName().toUpperCase().contains(name.toUpperCase())) {
                     allEpisodesWithName.add(episode);
@@ -380,8 +2081,13 @@ public class TVSeries {
             }
 
             //Converting linked list to array and returning
-            return allEpisodesWithName.toArray(new TVEpisode[allEpisodesWithName.size()]);
+            TVEpisode[] found = allEpisodesWithName.toArray(new TVEpisode[allEpisodesWithName.size()]);
+            SeriesMetrics.record(SeriesMetrics.Operation.SEARCH_BY_NAME, startTime, found);
+            SeriesEvents.commitSearch(event, SeriesMetrics.Operation.SEARCH_BY_NAME, episodes, name, null, found);
+            return found;
         } else {
+            SeriesMetrics.record(SeriesMetrics.Operation.SEARCH_BY_NAME, startTime, 0);
+            SeriesEvents.commitSearch(event, SeriesMetrics.Operation.SEARCH_BY_NAME, episodes, name, null, null);
             return null;
         }
 
@@ -399,16 +2105,22 @@ public class TVSeries {
 
     /**
      * Function to search for all episodes under or equaling a certain runtime.
-     * @param episodes is all the episodes being searched for
+     * @param episodes is all the episodes being searched for, null slots are skipped
      * @param maxRuntimeMinutes is the max runtime as set by the caller of the function.
      * @return all episodes under or equaling a specified runtime.
      */
     public static TVEpisode[] searchEpisodesByMaxRuntime(final TVEpisode[] episodes, final int maxRuntimeMinutes) {
 
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
         LinkedList<TVEpisode> allEpisodesUnderMaxRuntime = new LinkedList<>();
 
         if (episodes != null) {
             for (TVEpisode episode : episodes) {
+                //Skips the empty slots left by missing episode numbers
+                if (episode == null) {
+                    continue;
+                }
                 if (episode.getRuntimeInMinutes() <= maxRuntimeMinutes) {
                     allEpisodesUnderMaxRuntime.add(episode);
                 }
@@ -416,75 +2128,258 @@ public class TVSeries {
         }
 
         //Converting linked list to array
-        return allEpisodesUnderMaxRuntime.toArray(new TVEpisode[allEpisodesUnderMaxRuntime.size()]);
+        TVEpisode[] found = allEpisodesUnderMaxRuntime.toArray(new TVEpisode[allEpisodesUnderMaxRuntime.size()]);
+        SeriesMetrics.record(SeriesMetrics.Operation.SEARCH_BY_MAX_RUNTIME, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.SEARCH_BY_MAX_RUNTIME, episodes,
+                                  maxRuntimeMinutes, null, found);
+        return found;
+
+    }
+
+    /**
+     * Searches episodes for contents by looking through their summary
+     * @param episodes is all the episodes being searched thru in 2d array form
+     * @param contents is the contents you are searching for within the episodes
+     * @return all episodes that contain the given content
+     */
+    public static TVEpisode[] searchEpisodesByContents(final TVEpisode[][] episodes, final String contents) {
+        return searchEpisodesByContents(convert2DEpisodesTo1D(episodes), contents);
+    }
+
+    /**
+     * Searches episodes for contents by looking through their summary
+     * @param episodes is all the episodes being searched thru in 1d array form, null slots are skipped
+     * @param contents is the contents you are searching for within the episodes
+     * @return all episodes that contain the given content
+     */
+    public static TVEpisode[] searchEpisodesByContents(final TVEpisode[] episodes, final String contents) {
+
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+        LinkedList<TVEpisode> episodesWithContent = new LinkedList<>();
+
+        if (episodes != null && contents != null) {
+            //Case folds the contents once instead of once per episode
+            Utf8Arena.Query query = Utf8Arena.prepareQuery(contents);
+            for (TVEpisode episode: episodes) {
+                //Skips the empty slots left by missing episode numbers
+                if (episode == null) {
+                    continue;
+                }
+                if (episode.summaryContains(query)) {
+                    episodesWithContent.add(episode);
+                }
+            }
+        }
+
+        //Converts linked list to array and returns
+        TVEpisode[] found = episodesWithContent.toArray(new TVEpisode[episodesWithContent.size()]);
+        SeriesMetrics.record(SeriesMetrics.Operation.SEARCH_BY_CONTENTS, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.SEARCH_BY_CONTENTS, episodes, contents, null, found);
+        return found;
+
+    }
+
+    /**
+     * Filter function to search for an episode on a given date.
+     * @param unsortedEpisodes is all the episodes being searched
+     * @param date is the date of the episode in the format: YYYY-MM-DD
+     * @return an array of episodes on that date in that instance of TVSeries.
+     */
+    public static TVEpisode[] getEpisodesOnDate(TVEpisode[][] unsortedEpisodes, final String date) {
+        return getEpisodesOnDate(convert2DEpisodesTo1D(unsortedEpisodes), date);
+    }
+
+    /**
+     * Filter function to search for an episode on a given date.
+     * @param unsortedEpisodes is all the episodes being searched, null slots are skipped
+     * @param date is the date of the episode in the format: YYYY-MM-DD
+     * @return an array of episodes on that date in that instance of TVSeries.
+     */
+    public static TVEpisode[] getEpisodesOnDate(TVEpisode[] unsortedEpisodes, final String date) {
+
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+        LinkedList<TVEpisode> allEpisodesOnDate = new LinkedList<>();
+        int packedDate = DateIndex.packDate(date);
+
+        if (unsortedEpisodes != null) {
+            for (TVEpisode episode : unsortedEpisodes) {
+                //Skips the empty slots left by missing episode numbers
+                if (episode == null) {
+                    continue;
+                }
+                if (packedDate != DateIndex.NO_DATE) {
+                    //Well formed dates are compared as packed ints instead of Strings
+                    if (episode.getPackedAirdate() == packedDate) {
+                        allEpisodesOnDate.add(episode);
+                    }
+                } else if (episode.getAirdate() != null && episode.getAirdate().equals(date)) {
+                    allEpisodesOnDate.add(episode);
+                }
+            }
+        }
+
+        //Converts linked list to array
+        TVEpisode[] found = allEpisodesOnDate.toArray(new TVEpisode[allEpisodesOnDate.size()]);
+        SeriesMetrics.record(SeriesMetrics.Operation.EPISODES_ON_DATE, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.EPISODES_ON_DATE, unsortedEpisodes, date, null, found);
+        return found;
+
+    }
+
+    /**
+     * Filter function to search for all episodes that aired between two dates.
+     * @param unsortedEpisodes is all the episodes being searched
+     * @param fromDate is the first date included in the format: YYYY-MM-DD
+     * @param toDate is the last date included in the format: YYYY-MM-DD
+     * @return an array of episodes that aired in the range, or an empty array if either date is not well formed.
+     */
+    public static TVEpisode[] getEpisodesBetween(final TVEpisode[][] unsortedEpisodes, final String fromDate,
+                                                 final String toDate) {
+        return getEpisodesBetween(convert2DEpisodesTo1D(unsortedEpisodes), fromDate, toDate);
+    }
+
+    /**
+     * Filter function to search for all episodes that aired between two dates.
+     * @param unsortedEpisodes is all the episodes being searched, null slots are skipped
+     * @param fromDate is the first date included in the format: YYYY-MM-DD
+     * @param toDate is the last date included in the format: YYYY-MM-DD
+     * @return an array of episodes that aired in the range, or an empty array if either date is not well formed.
+     */
+    public static TVEpisode[] getEpisodesBetween(final TVEpisode[] unsortedEpisodes, final String fromDate,
+                                                 final String toDate) {
+
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+        LinkedList<TVEpisode> allEpisodesBetween = new LinkedList<>();
+        int packedFromDate = DateIndex.packDate(fromDate);
+        int packedToDate = DateIndex.packDate(toDate);
+
+        if (unsortedEpisodes != null && packedFromDate != DateIndex.NO_DATE && packedToDate != DateIndex.NO_DATE) {
+            for (TVEpisode episode : unsortedEpisodes) {
+                //Skips the empty slots left by missing episode numbers
+                if (episode == null) {
+                    continue;
+                }
+                int airdate = episode.getPackedAirdate();
+                if (airdate != DateIndex.NO_DATE && airdate >= packedFromDate && airdate <= packedToDate) {
+                    allEpisodesBetween.add(episode);
+                }
+            }
+        }
+
+        //Converts linked list to array
+        TVEpisode[] found = allEpisodesBetween.toArray(new TVEpisode[allEpisodesBetween.size()]);
+        SeriesMetrics.record(SeriesMetrics.Operation.EPISODES_BETWEEN, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.EPISODES_BETWEEN, unsortedEpisodes,
+                                  fromDate, toDate, found);
+        return found;
+
+    }
+
+    /**
+     * Filter method to search for all episodes of this series that premiered in a given year.
+     * Uses the airdate index of the series, so only episodes with airdates in the form YYYY-MM-DD are found.
+     * @param year is the year being searched for episodes.
+     * @return all the episodes from that year in airdate order.
+     */
+    public TVEpisode[] getEpisodesInYear(final int year) {
+        return cachedSearch(SeriesMetrics.Operation.EPISODES_IN_YEAR, year, null, () -> findEpisodesInYear(year));
+    }
+
+    /**
+     * Looks up the episodes of this series that premiered in a given year in the airdate index.
+     * @param year is the year being searched for episodes.
+     * @return all the episodes from that year in airdate order.
+     */
+    private TVEpisode[] findEpisodesInYear(final int year) {
+
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+        TVEpisode[] found = getDateIndex().inYear(year);
+        SeriesMetrics.record(SeriesMetrics.Operation.EPISODES_IN_YEAR, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.EPISODES_IN_YEAR, this, year, null, found);
+        return found;
 
     }
 
     /**
-     * Searches episodes for contents by looking through their summary
-     * @param episodes is all the episodes being searched thru in 2d array form
-     * @param contents is the contents you are searching for within the episodes
-     * @return all episodes that contain the given content
+     * Filter function to search for the episodes of this series on a given date.
+     * Uses the airdate index of the series.
+     * @param date is the date of the episode in the format: YYYY-MM-DD
+     * @return an array of episodes on that date, empty if the date is not well formed.
      */
-    public static TVEpisode[] searchEpisodesByContents(final TVEpisode[][] episodes, final String contents) {
-        return searchEpisodesByContents(convert2DEpisodesTo1D(episodes), contents);
+    public TVEpisode[] getEpisodesOnDate(final String date) {
+        return cachedSearch(SeriesMetrics.Operation.EPISODES_ON_DATE, date, null, () -> findEpisodesOnDate(date));
     }
 
     /**
-     * Searches episodes for contents by looking through their summary
-     * @param episodes is all the episodes being searched thru in 1d array form
-     * @param contents is the contents you are searching for within the episodes
-     * @return all episodes that contain the given content
+     * Looks up the episodes of this series on a given date in the airdate index.
+     * @param date is the date of the episode in the format: YYYY-MM-DD
+     * @return an array of episodes on that date, empty if the date is not well formed.
      */
-    public static TVEpisode[] searchEpisodesByContents(final TVEpisode[] episodes, final String contents) {
-
-        LinkedList<TVEpisode> episodesWithContent = new LinkedList<>();
-
-        if (episodes != null && contents != null) {
-            for (TVEpisode episode: episodes) {
-                if (episode.getSummary() != null
-                        && episode.getSummary().toUpperCase().contains(contents.toUpperCase())) {
-                    episodesWithContent.add(episode);
-                }
-            }
-        }
+    private TVEpisode[] findEpisodesOnDate(final String date) {
 
-        //Converts linked list to array and returns
-        return episodesWithContent.toArray(new TVEpisode[episodesWithContent.size()]);
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+        int packedDate = DateIndex.packDate(date);
+        TVEpisode[] found = packedDate == DateIndex.NO_DATE ? new TVEpisode[0]
+                                                            : getDateIndex().between(packedDate, packedDate);
+        SeriesMetrics.record(SeriesMetrics.Operation.EPISODES_ON_DATE, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.EPISODES_ON_DATE, this, date, null, found);
+        return found;
 
     }
 
     /**
-     * Filter function to search for an episode on a given date.
-     * @param unsortedEpisodes is all the episodes being searched
-     * @param date is the date of the episode in the format: YYYY-MM-DD
-     * @return an array of episodes on that date in that instance of TVSeries.
+     * Filter function to search for the episodes of this series that aired between two dates.
+     * Uses the airdate index of the series.
+     * @param fromDate is the first date included in the format: YYYY-MM-DD
+     * @param toDate is the last date included in the format: YYYY-MM-DD
+     * @return the episodes in the range in airdate order, empty if either date is not well formed.
      */
-    public static TVEpisode[] getEpisodesOnDate(TVEpisode[][] unsortedEpisodes, final String date) {
-        return getEpisodesOnDate(convert2DEpisodesTo1D(unsortedEpisodes), date);
+    public TVEpisode[] getEpisodesBetween(final String fromDate, final String toDate) {
+        return cachedSearch(SeriesMetrics.Operation.EPISODES_BETWEEN, fromDate, toDate,
+                            () -> findEpisodesBetween(fromDate, toDate));
     }
 
     /**
-     * Filter function to search for an episode on a given date.
-     * @param unsortedEpisodes is all the episodes being searched
-     * @param date is the date of the episode in the format: YYYY-MM-DD
-     * @return an array of episodes on that date in that instance of TVSeries.
+     * Looks up the episodes of this series that aired between two dates in the airdate index.
+     * @param fromDate is the first date included in the format: YYYY-MM-DD
+     * @param toDate is the last date included in the format: YYYY-MM-DD
+     * @return the episodes in the range in airdate order, empty if either date is not well formed.
      */
-    public static TVEpisode[] getEpisodesOnDate(TVEpisode[] unsortedEpisodes, final String date) {
-
-        LinkedList<TVEpisode> allEpisodesOnDate = new LinkedList<>();
+    private TVEpisode[] findEpisodesBetween(final String fromDate, final String toDate) {
+
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
+        int packedFromDate = DateIndex.packDate(fromDate);
+        int packedToDate = DateIndex.packDate(toDate);
+        TVEpisode[] found = packedFromDate == DateIndex.NO_DATE || packedToDate == DateIndex.NO_DATE
+                            ? new TVEpisode[0] : getDateIndex().between(packedFromDate, packedToDate);
+        SeriesMetrics.record(SeriesMetrics.Operation.EPISODES_BETWEEN, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.EPISODES_BETWEEN, this, fromDate, toDate, found);
+        return found;
 
-        if (unsortedEpisodes != null) {
-            for (TVEpisode episode : unsortedEpisodes) {
-                if (episode.getAirdate() != null && episode.getAirdate().equals(date)) {
-                    allEpisodesOnDate.add(episode);
-                }
-            }
-        }
+    }
 
-        //Converts linked list to array
-        return allEpisodesOnDate.toArray(new TVEpisode[allEpisodesOnDate.size()]);
+    /**
+     * Looks up the episodes of this series that aired between two packed dates in the airdate index.
+     * @param packedFromDate is the first date included in the form YYYYMMDD.
+     * @param packedToDate is the last date included in the form YYYYMMDD.
+     * @return the episodes in the range in airdate order.
+     */
+    TVEpisode[] getEpisodesBetweenPackedDates(final int packedFromDate, final int packedToDate) {
+        return getDateIndex().between(packedFromDate, packedToDate);
+    }
 
+    /**
+     * Getter for the airdate index, which is built from the current episodes if it doesn't exist yet.
+     * @return the airdate index of this series.
+     */
+    private DateIndex getDateIndex() {
+        return version.getDateIndex();
     }
 
     /**
@@ -501,26 +2396,39 @@ public class TVSeries {
     /**
      * Filter function for list of characters.
      * Method is not completely accurate and is based on the summaries of the episode.
-     * @param unsortedEpisodes 1d array of all unsorted episodes.
+     * @param unsortedEpisodes 1d array of all unsorted episodes, null slots are skipped.
      * @param character the name of the character you are looking for.
      * @return all the episodes that contain the given character.
      */
     public static TVEpisode[] searchEpisodesByCharacter(final TVEpisode[] unsortedEpisodes, final String character) {
 
+        long startTime = SeriesMetrics.start();
+        SeriesEvents.SearchEvent event = SeriesEvents.beginSearch();
         if (character == null || character.length() == 0 || unsortedEpisodes == null) {
+            SeriesMetrics.record(SeriesMetrics.Operation.SEARCH_BY_CHARACTER, startTime, 0);
+            SeriesEvents.commitSearch(event, SeriesMetrics.Operation.SEARCH_BY_CHARACTER, unsortedEpisodes,
+                                      character, null, null);
             return new TVEpisode[0];
         }
 
         LinkedList<TVEpisode> episodesWithCharacter = new LinkedList<>();
+        Utf8Arena.Query query = Utf8Arena.prepareQuery(character);
 
         for (TVEpisode episode : unsortedEpisodes) {
-            if (episode.getSummary() != null
-                    && episode.getSummary().toUpperCase().contains(character.toUpperCase())) {
+            //Skips the empty slots left by missing episode numbers
+            if (episode == null) {
+                continue;
+            }
+            if (episode.summaryContains(query)) {
                 episodesWithCharacter.add(episode);
             }
         }
 
-        return episodesWithCharacter.toArray(new TVEpisode[episodesWithCharacter.size()]);
+        TVEpisode[] found = episodesWithCharacter.toArray(new TVEpisode[episodesWithCharacter.size()]);
+        SeriesMetrics.record(SeriesMetrics.Operation.SEARCH_BY_CHARACTER, startTime, found);
+        SeriesEvents.commitSearch(event, SeriesMetrics.Operation.SEARCH_BY_CHARACTER, unsortedEpisodes,
+                                  character, null, found);
+        return found;
 
     }
 
@@ -556,23 +2464,33 @@ public class TVSeries {
 
     /**
      * Calculates the average runtime of episodes in a given 1d array
-     * @param episodes all the episodes that are being calculated
-     * @return the average runtime of all the episodes
+     * @param episodes all the episodes that are being calculated, null slots are skipped
+     * @return the average runtime of the episodes that are present, or 0 if there are none
      */
     public static int averageRuntimeOfEpisodes(final TVEpisode[] episodes) {
 
+        long startTime = SeriesMetrics.start();
         if (episodes == null || episodes.length == 0) {
+            SeriesMetrics.record(SeriesMetrics.Operation.AVERAGE_RUNTIME, startTime, 0);
             return 0;
         }
 
         int totalLengthOfSeries = 0;
+        int episodeCount = 0;
         for (TVEpisode episode : episodes) {
+            //Skips the empty slots left by missing episode numbers
+            if (episode == null) {
+                continue;
+            }
             //Adds the runtime of every episode combined
             totalLengthOfSeries += episode.getRuntimeInMinutes();
+            episodeCount++;
         }
 
+        SeriesMetrics.record(SeriesMetrics.Operation.AVERAGE_RUNTIME, startTime, episodeCount);
+
         //Returns the average by taking total runtime and dividing by number of episodes
-        return totalLengthOfSeries / episodes.length;
+        return episodeCount == 0 ? 0 : totalLengthOfSeries / episodeCount;
 
     }
 
@@ -587,22 +2505,25 @@ public class TVSeries {
 
     /**
      * Searches for episode with the max runtime.
-     * @param episodes is a 1d array of episodes being searched through.
+     * @param episodes is a 1d array of episodes being searched through, null slots are skipped.
      * @return length in minutes of max runtime of episodes.
      */
     public static int maxRuntimeOfEpisodes(final TVEpisode[] episodes) {
 
+        long startTime = SeriesMetrics.start();
         if (episodes == null || episodes.length == 0) {
+            SeriesMetrics.record(SeriesMetrics.Operation.MAX_RUNTIME, startTime, 0);
             return 0;
         }
 
         int currentMaxRuntime = 0;
         for (TVEpisode episode: episodes) {
-            if (episode.getRuntimeInMinutes() > currentMaxRuntime) {
+            if (episode != null && episode.getRuntimeInMinutes() > currentMaxRuntime) {
                 currentMaxRuntime = episode.getRuntimeInMinutes();
             }
         }
 
+        SeriesMetrics.record(SeriesMetrics.Operation.MAX_RUNTIME, startTime, episodes.length);
         return currentMaxRuntime;
 
     }
@@ -618,31 +2539,36 @@ public class TVSeries {
 
     /**
      * Searches for episode with the min runtime.
-     * @param episodes is a 1d array of episodes being searched through.
-     * @return length in minutes of min runtime of episodes.
+     * @param episodes is a 1d array of episodes being searched through, null slots are skipped.
+     * @return length in minutes of min runtime of episodes, or 0 if there are none.
      */
     public static int minRuntimeOfEpisodes(final TVEpisode[] episodes) {
 
+        long startTime = SeriesMetrics.start();
         if (episodes == null || episodes.length == 0) {
+            SeriesMetrics.record(SeriesMetrics.Operation.MIN_RUNTIME, startTime, 0);
             return 0;
         }
 
         //Starts at max possible runtime and works down from there
-        int currentMinRuntime = maxRuntimeOfEpisodes(episodes);
+        int currentMinRuntime = Integer.MAX_VALUE;
         for (TVEpisode episode : episodes) {
-            if (episode.getRuntimeInMinutes() < currentMinRuntime) {
+            if (episode != null && episode.getRuntimeInMinutes() < currentMinRuntime) {
                 currentMinRuntime = episode.getRuntimeInMinutes();
             }
         }
 
-        return currentMinRuntime;
+        SeriesMetrics.record(SeriesMetrics.Operation.MIN_RUNTIME, startTime, episodes.length);
+        //Only empty slots means there were no episodes
+        return currentMinRuntime == Integer.MAX_VALUE ? 0 : currentMinRuntime;
 
     }
 
     /**
      * Takes 2d array of episodes and converts it into 1d array of episodes
      * @param episodes is a 2d array of episodes
-     * @return a 1d array of episodes containing all the episodes given in the parameter
+     * @return a 1d array of episodes containing all the episodes given in the parameter, including the null slots
+     *         left by missing episode numbers
      */
     public static TVEpisode[] convert2DEpisodesTo1D(final TVEpisode[][] episodes) {
 
@@ -664,11 +2590,303 @@ public class TVSeries {
 
     }
 
+    /**
+     * One version of the episodes of a series along with the indexes and statistics derived from them.
+     * A published version is never changed, apart from caches that are filled in the first time they are needed, so
+     * any number of threads can read it while a writer puts together the next one.
+     */
+    private static final class EpisodeVersion {
+
+        //Version of a series that has no episodes yet
+        static final EpisodeVersion EMPTY = new EpisodeVersion(null, new int[0], null, null, 0, null);
+
+        /* All episodes in series organized by season and episode, or null if episodes were never set.
+        Note the array may be jagged meaning different seasons may have different lengths.
+        Note that Season/episodes start at 0 instead of 1.
+        Both dimensions may have spare room at the end so episodes can be added without copying everything,
+        seasonLengths says how much of the array is in use. Later versions may write into the spare room. */
+        final TVEpisode[][] episodes;
+
+        //Number of episode slots in use in each season, index 0 is season 1
+        final int[] seasonLengths;
+
+        //Optional trigram index over the episode summaries, null unless enabled with setSummaryIndexEnabled
+        final SummaryIndex summaryIndex;
+
+        //Direct buffer holding the summaries of the episodes when off heap summaries are on, otherwise null
+        final Utf8Arena summaryArena;
+
+        //Bytes in summaryArena that belong to episodes that were replaced
+        final long summaryArenaGarbage;
+
+        //Runtime statistics of the series at index 0 followed by those of each season, null until they are first
+        //read so loading lazy episodes doesn't decode them for runtimes. Threads that race to calculate them
+        //calculate the same thing, so whichever one is kept doesn't matter.
+        private volatile RuntimeStatistics[] statistics;
+
+        //Copy of the episodes without spare room as returned by getEpisodes, null until it is first needed
+        private volatile TVEpisode[][] view;
+
+        //Episodes sorted by airdate, built the first time a date query needs it
+        private volatile DateIndex dateIndex;
+
+        /**
+         * Constructor for a new EpisodeVersion.
+         * @param episodes is the episodes organized by season and episode, or null.
+         * @param seasonLengths is the number of episode slots in use in each season.
+         * @param summaryIndex is the summary index, or null.
+         * @param summaryArena is the arena holding the summaries, or null.
+         * @param summaryArenaGarbage is the number of bytes in the arena that belong to replaced episodes.
+         * @param statistics is the runtime statistics of the series followed by those of each season, or null.
+         */
+        EpisodeVersion(final TVEpisode[][] episodes, final int[] seasonLengths, final SummaryIndex summaryIndex,
+                       final Utf8Arena summaryArena, final long summaryArenaGarbage,
+                       final RuntimeStatistics[] statistics) {
+
+            this.episodes = episodes;
+            this.seasonLengths = seasonLengths;
+            this.summaryIndex = summaryIndex;
+            this.summaryArena = summaryArena;
+            this.summaryArenaGarbage = summaryArenaGarbage;
+            this.statistics = statistics;
+
+        }
+
+        /**
+         * Creates a version with the same episodes and a different summary index.
+         * @param newSummaryIndex is the summary index of the new version, or null.
+         * @return the new version.
+         */
+        EpisodeVersion withSummaryIndex(final SummaryIndex newSummaryIndex) {
+
+            EpisodeVersion copy = new EpisodeVersion(episodes, seasonLengths, newSummaryIndex, summaryArena,
+                                                     summaryArenaGarbage, statistics);
+            copy.view = view;
+            copy.dateIndex = dateIndex;
+            return copy;
+
+        }
+
+        /**
+         * Creates a version with the same episodes and a different summary arena.
+         * @param newSummaryArena is the arena holding the summaries in the new version, or null.
+         * @param newSummaryArenaGarbage is the number of bytes in the new arena that belong to replaced episodes.
+         * @return the new version.
+         */
+        EpisodeVersion withSummaryArena(final Utf8Arena newSummaryArena, final long newSummaryArenaGarbage) {
+
+            EpisodeVersion copy = new EpisodeVersion(episodes, seasonLengths, summaryIndex, newSummaryArena,
+                                                     newSummaryArenaGarbage, statistics);
+            copy.view = view;
+            copy.dateIndex = dateIndex;
+            return copy;
+
+        }
+
+        /**
+         * Looks up an episode without throwing if it doesn't exist.
+         * @param seasonNum is the season number, starting at 1.
+         * @param episodeNum is the episode number, starting at 1.
+         * @return the episode, or null if there is no episode with that season and number.
+         */
+        TVEpisode find(final int seasonNum, final int episodeNum) {
+            return hasSlot(seasonNum, episodeNum) ? episodes[seasonNum - 1][episodeNum - 1] : null;
+        }
+
+        /**
+         * Checks whether a season and episode number is within the seasons of this version.
+         * Slots in the spare room at the end of the arrays don't exist yet.
+         * @param seasonNum is the season number, starting at 1.
+         * @param episodeNum is the episode number, starting at 1.
+         * @return true if there is a slot for the episode, even if it is a missing episode number.
+         */
+        boolean hasSlot(final int seasonNum, final int episodeNum) {
+            return seasonNum >= 1 && seasonNum <= seasonLengths.length
+                   && episodeNum >= 1 && episodeNum <= seasonLengths[seasonNum - 1];
+        }
+
+        /**
+         * Checks whether an episode is part of this version, so indexes can skip episodes that were replaced.
+         * @param episode is the episode being checked.
+         * @return true if the episode is the one stored at its season and number.
+         */
+        boolean isCurrent(final TVEpisode episode) {
+            return find(episode.getSeason(), episode.getNumber()) == episode;
+        }
+
+        /**
+         * Runs an action on every episode, skipping missing episode numbers.
+         * @param action is what is done to each episode.
+         */
+        void forEach(final Consumer<TVEpisode> action) {
+
+            for (int season = 0; season < seasonLengths.length; season++) {
+                for (int number = 0; number < seasonLengths[season]; number++) {
+                    if (episodes[season][number] != null) {
+                        action.accept(episodes[season][number]);
+                    }
+                }
+            }
+
+        }
+
+        /**
+         * Getter for the episodes without spare room, which is built the first time it is needed.
+         * @return the episodes organized by season and episode, or null if episodes were never set.
+         */
+        TVEpisode[][] getView() {
+
+            if (episodes == null) {
+                return null;
+            }
+
+            TVEpisode[][] trimmed = view;
+            if (trimmed == null) {
+                trimmed = new TVEpisode[seasonLengths.length][];
+                for (int season = 0; season < seasonLengths.length; season++) {
+                    trimmed[season] = seasonLengths[season] == episodes[season].length
+                            ? episodes[season] : Arrays.copyOf(episodes[season], seasonLengths[season]);
+                }
+                view = trimmed;
+            }
+            return trimmed;
+
+        }
+
+        /**
+         * Getter for all the episodes as one array.
+         * @return the episodes in season and episode order, including missing episode numbers as nulls.
+         */
+        TVEpisode[] toArray() {
+            return episodes == null ? new TVEpisode[0] : convert2DEpisodesTo1D(getView());
+        }
+
+        /**
+         * Getter for the airdate index, which is built the first time it is needed.
+         * @return the airdate index of this version.
+         */
+        DateIndex getDateIndex() {
+
+            DateIndex index = dateIndex;
+            if (index == null) {
+                index = new DateIndex(toArray());
+                dateIndex = index;
+            }
+            return index;
+
+        }
+
+        /**
+         * Drops the runtime statistics and airdate index after an episode of this version was changed in place, so
+         * they are worked out again from the episodes the next time they are needed.
+         */
+        void dropDerived() {
+            statistics = null;
+            dateIndex = null;
+        }
+
+        /**
+         * Getter for the runtime statistics, which are calculated from every episode the first time they are needed.
+         * @return the statistics of the series at index 0 followed by those of each season.
+         */
+        RuntimeStatistics[] getStatistics() {
+
+            RuntimeStatistics[] calculated = statistics;
+            if (calculated == null) {
+                ArrayList<RuntimeStatistics> all = new ArrayList<>();
+                all.add(new RuntimeStatistics());
+                forEach(episode -> addRuntimeStatistics(all, episode));
+                calculated = all.toArray(new RuntimeStatistics[all.size()]);
+                statistics = calculated;
+            }
+            return calculated;
+
+        }
+
+    }
+
+    /**
+     * A series captured by captureSnapshot, written in the writeSnapshot format whenever writeTo is called.
+     */
+    static final class SnapshotCapture {
+
+        //Series fields as written by writeSeriesFields
+        private final byte[] seriesFields;
+
+        //Episodes as they were when the series was captured
+        private final EpisodeVersion episodes;
+
+        /**
+         * Constructor for a new SnapshotCapture.
+         * @param seriesFields is the encoded series fields.
+         * @param episodes is the published version of the episodes.
+         */
+        private SnapshotCapture(final byte[] seriesFields, final EpisodeVersion episodes) {
+            this.seriesFields = seriesFields;
+            this.episodes = episodes;
+        }
+
+        /**
+         * Writes the captured series as a snapshot.
+         * @param output is where the snapshot is written. It is flushed but not closed.
+         * @throws IOException if writing fails.
+         */
+        void writeTo(final OutputStream output) throws IOException {
+
+            ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+            DataOutputStream payload = new DataOutputStream(payloadBytes);
+
+            payload.write(seriesFields);
+            ArrayList<TVEpisode> presentEpisodes = new ArrayList<>();
+            episodes.forEach(presentEpisodes::add);
+            payload.writeInt(presentEpisodes.size());
+            for (TVEpisode episode : presentEpisodes) {
+                writeSnapshotEpisode(payload, episode);
+            }
+
+            DataOutputStream header = new DataOutputStream(output);
+            header.writeInt(SNAPSHOT_MAGIC);
+            header.writeInt(SNAPSHOT_VERSION);
+            header.writeInt(payloadBytes.size());
+            payloadBytes.writeTo(output);
+            output.flush();
+
+        }
+
+    }
+
+    /**
+     * Where an episode's summary is stored when it is kept off heap.
+     * Both parts are replaced together so a reader never sees a handle into the wrong arena.
+     */
+    private static final class OffHeapSummary {
+
+        //Arena holding the summary as UTF-8
+        final Utf8Arena arena;
+
+        //Handle of the summary in the arena
+        final long handle;
+
+        /**
+         * Constructor for a new OffHeapSummary.
+         * @param arena is the arena holding the summary.
+         * @param handle is the handle of the summary in the arena.
+         */
+        OffHeapSummary(final Utf8Arena arena, final long handle) {
+            this.arena = arena;
+            this.handle = handle;
+        }
+
+    }
+
     /**
      * This class represents the data stored in a TVEpisode within an instance of TVSeries.
      */
     public class TVEpisode {
 
+        //TVmaze id of the episode, e.g. 4952, or 0 if it is unknown.
+        private int id;
+
         //Name of the episode.
         private String name;
 
@@ -681,18 +2899,93 @@ public class TVSeries {
         //The date on which the episode first aired.
         private String airdate;
 
-        //A short summary of what happens in the episode.
-        private String summary;
+        //The airdate packed into an int of the form YYYYMMDD, or DateIndex.NO_DATE if it is not well formed.
+        private int packedAirdate;
+
+        //A short summary of what happens in the episode, null while it is stored off heap.
+        //Volatile like offHeapSummary, so a summary being moved between the two is always found in one of them.
+        private volatile String summary;
 
         //Runtime in minutes of the episode
         private int runtimeInMinutes;
 
+        //Where the summary is stored when the series keeps summaries off heap, otherwise null.
+        //Transient so Gson leaves it out when an episode is written as JSON.
+        private transient volatile OffHeapSummary offHeapSummary;
+
+        //This episode's slice of the show document while it hasn't been decoded yet, otherwise null.
+        //Until it is decoded only season and number are filled in. Volatile so that once one thread has decoded
+        //the episode, every other thread sees all of its fields.
+        private transient volatile ByteBuffer undecodedJson;
+
+        /**
+         * Fills in the fields of an episode loaded by fromPathLazy from its slice of the show document.
+         * Season and number are left alone since they were read at load time and may have been set since.
+         * @throws UncheckedIOException if the slice is not a valid episode.
+         */
+        private void decode() throws UncheckedIOException {
+
+            if (undecodedJson == null) {
+                return;
+            }
+
+            //Several threads may be reading the episode, only the first one decodes it
+            synchronized (this) {
+                ByteBuffer json = undecodedJson;
+                if (json == null) {
+                    return;
+                }
+
+                TVEpisode decoded;
+                try {
+                    decoded = readEpisode(sliceReader(json), TVSeries.this);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not decode episode " + season + "x" + number, e);
+                }
+                name = decoded.name;
+                airdate = decoded.airdate;
+                packedAirdate = decoded.packedAirdate;
+                summary = decoded.summary;
+                runtimeInMinutes = decoded.runtimeInMinutes;
+                undecodedJson = null;
+            }
+
+        }
+
+        /**
+         * Getter for whether the episode has been decoded.
+         * @return false if the episode was loaded lazily and none of its fields other than season and number
+         *         have been used yet.
+         */
+        boolean isDecoded() {
+            return undecodedJson == null;
+        }
+
+        /**
+         * Getter for the id instance variable.
+         * @return the TVmaze id of the episode, or 0 if it is unknown.
+         */
+        public int getId() {
+            return id;
+        }
+
         /**
          * Getter for name instance variable.
          * @return the name of the episode.
          */
         public String getEpisodeName() {
+
+            decode();
             return name;
+
+        }
+
+        /**
+         * Getter for the series this episode was created for.
+         * @return the TVSeries that created this episode.
+         */
+        TVSeries getSeries() {
+            return TVSeries.this;
         }
 
         /**
@@ -716,15 +3009,98 @@ public class TVSeries {
          * @return the date in which this episode aired in the form YYYY-MM-DD
          */
         public String getAirdate() {
+
+            decode();
             return airdate;
+
+        }
+
+        /**
+         * Getter for the packed form of the airdate.
+         * @return the airdate as an int of the form YYYYMMDD, or DateIndex.NO_DATE if there is no valid airdate.
+         */
+        int getPackedAirdate() {
+
+            decode();
+            return packedAirdate;
+
         }
 
         /**
          * Getter for the summary instance variable.
+         * If the summary is stored off heap a new String is decoded on every call.
          * @return a short summary of what happens in the episode.
          */
         public String getSummary() {
-            return summary;
+
+            decode();
+            //Checks for an off heap summary again after reading the String, in case it was just moved off heap
+            OffHeapSummary offHeap = offHeapSummary;
+            String heapSummary = summary;
+            if (offHeap == null) {
+                offHeap = offHeapSummary;
+            }
+            return offHeap != null ? offHeap.arena.get(offHeap.handle) : heapSummary;
+
+        }
+
+        /**
+         * Checks whether the summary contains some text, ignoring case, without decoding an off heap summary.
+         * @param query is the text being searched for, prepared with Utf8Arena.prepareQuery.
+         * @return true if there is a summary and it contains the text.
+         */
+        boolean summaryContains(final Utf8Arena.Query query) {
+
+            decode();
+            OffHeapSummary offHeap = offHeapSummary;
+            String heapSummary = summary;
+            if (offHeap == null) {
+                offHeap = offHeapSummary;
+            }
+            if (offHeap != null) {
+                return offHeap.arena.containsIgnoreCase(offHeap.handle, query);
+            }
+            return heapSummary != null && heapSummary.toUpperCase().contains(query.getUpperText());
+
+        }
+
+        /**
+         * Moves the summary into an arena, or back onto the heap.
+         * The new copy is in place before the old one is dropped, so threads reading the summary meanwhile always
+         * find it in one of them.
+         * @param arena is the arena the summary is stored in, or null to keep it as a String.
+         * @return the number of bytes the summary takes up in the arena.
+         */
+        int moveSummaryTo(final Utf8Arena arena) {
+
+            OffHeapSummary offHeap = offHeapSummary;
+            if (offHeap == null ? arena == null : offHeap.arena == arena) {
+                return offHeap == null ? 0 : Utf8Arena.length(offHeap.handle);
+            }
+
+            String currentSummary = getSummary();
+            if (arena == null) {
+                summary = currentSummary;
+                offHeapSummary = null;
+                return 0;
+            }
+            long handle = arena.add(currentSummary);
+            offHeapSummary = new OffHeapSummary(arena, handle);
+            summary = null;
+            return Utf8Arena.length(handle);
+
+        }
+
+        /**
+         * Getter for the number of bytes the summary takes up in an arena.
+         * @param arena is the arena being checked.
+         * @return the length of the summary in bytes, or 0 if it isn't stored in that arena.
+         */
+        int summaryLengthIn(final Utf8Arena arena) {
+
+            OffHeapSummary offHeap = offHeapSummary;
+            return offHeap != null && offHeap.arena == arena ? Utf8Arena.length(offHeap.handle) : 0;
+
         }
 
         /**
@@ -732,7 +3108,20 @@ public class TVSeries {
          * @return total runtime of the episode in minutes
          */
         public int getRuntimeInMinutes() {
+
+            decode();
             return runtimeInMinutes;
+
+        }
+
+        /**
+         * Setter for the id instance variable.
+         * @param id is the TVmaze id of the episode, or 0 if it is unknown.
+         */
+        public void setId(final int id) {
+            if (id >= 0) {
+                this.id = id;
+            }
         }
 
         /**
@@ -740,7 +3129,12 @@ public class TVSeries {
          * @param name the name of the episode.
          */
         public void setName(final String name) {
+
+            //Decodes first so the rest of the episode doesn't overwrite the new value later
+            decode();
             this.name = name;
+            changed();
+
         }
 
         /**
@@ -768,9 +3162,12 @@ public class TVSeries {
          * @param airdate is the date the episode first aired. Must be in the form YYYY-MM-DD.
          */
         public void setAirdate(final String airdate) {
+            decode();
             //Makes sure that the airdate is in the form "YYYY-MM-DD"
             if (airdate.matches("\\d\\d\\d\\d-[0-1]\\d-[0-3]\\d")) {
                 this.airdate = airdate;
+                this.packedAirdate = DateIndex.packDate(airdate);
+                changed();
             }
         }
 
@@ -779,12 +3176,16 @@ public class TVSeries {
          * @param summary is a short summary of the episodes contents.
          */
         public void setSummary(final String summary) {
+            decode();
             if (summary != null) {
                 //Deletes HTML characters in the summary
                 this.summary = summary.replaceAll("(<[a-z]>)|(</[a-z]>)", "");
             } else {
                 this.summary = null;
             }
+            //A new summary is always kept on the heap, the series moves it off heap when it is added
+            this.offHeapSummary = null;
+            changed();
         }
 
         /**
@@ -792,7 +3193,43 @@ public class TVSeries {
          * @param runtimeInMinutes is the runtime of the episode in minutes.
          */
         public void setRuntimeInMinutes(final int runtimeInMinutes) {
+
+            decode();
             this.runtimeInMinutes = runtimeInMinutes;
+            changed();
+
+        }
+
+        /**
+         * Tells the series this episode was created for that one of its fields was set.
+         */
+        private void changed() {
+            episodeChanged(this);
+        }
+
+        /**
+         * Checks whether another episode has the same contents as this one, e.g. to find out whether an episode
+         * changed between two versions of a show document. Unlike equals, missing fields are compared as well.
+         * @param other is the episode being compared.
+         * If neither episode has been decoded their JSON is compared first, so episodes whose JSON is the same
+         * don't have to be decoded at all.
+         * @return true if every field other than the id is the same.
+         */
+        boolean hasSameContents(final TVEpisode other) {
+
+            if (season != other.getSeason() || number != other.getNumber()) {
+                return false;
+            }
+            ByteBuffer json = undecodedJson;
+            ByteBuffer otherJson = other.undecodedJson;
+            if (json != null && otherJson != null && json.equals(otherJson)) {
+                return true;
+            }
+            return getRuntimeInMinutes() == other.getRuntimeInMinutes()
+                   && Objects.equals(getEpisodeName(), other.getEpisodeName())
+                   && Objects.equals(getAirdate(), other.getAirdate())
+                   && Objects.equals(getSummary(), other.getSummary());
+
         }
 
         /**
@@ -813,12 +3250,12 @@ public class TVSeries {
             /* Ensures that all fields of the episode are equal to each other.
             Could throw exception if some fields are null in which case it is false. */
             try {
-                return this.name.equals(otherEpisode.getEpisodeName())
+                return this.getEpisodeName().equals(otherEpisode.getEpisodeName())
                     && this.season == otherEpisode.getSeason()
                     && this.number == otherEpisode.getNumber()
-                    && this.airdate.equals(otherEpisode.getAirdate())
-                    && this.summary.equals(otherEpisode.getSummary())
-                    && this.runtimeInMinutes == otherEpisode.getRuntimeInMinutes();
+                    && this.getAirdate().equals(otherEpisode.getAirdate())
+                    && this.getSummary().equals(otherEpisode.getSummary())
+                    && this.getRuntimeInMinutes() == otherEpisode.getRuntimeInMinutes();
             } catch (Exception e) {
                 return false;
             }
@@ -0,0 +1,230 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An append-only arena of UTF-8 encoded strings stored back to back in a single ByteBuffer.
+ * Each string is referred to by a handle that packs its offset, its length and whether it is all ASCII into a long,
+ * so a column of strings is just a long[] and the strings themselves don't need any objects of their own.
+ * Appending is for one thread at a time, but stored strings can be read by any number of threads meanwhile, as long
+ * as their handles were handed over safely: appending never changes bytes that are already in use.
+ */
+class Utf8Arena {
+
+    //Handle used for null strings
+    static final long NULL_HANDLE = -1;
+
+    //Bit set in the handle of a string that has characters outside of ASCII
+    private static final long NON_ASCII_FLAG = 1L << 31;
+
+    //Bits of a handle that hold the length of the string
+    private static final long LENGTH_MASK = NON_ASCII_FLAG - 1;
+
+    //Whether the buffer is allocated outside of the Java heap
+    private final boolean direct;
+
+    //Encoded strings. Its position and limit are never changed, so readers can share it without duplicating it
+    private volatile ByteBuffer bytes;
+
+    //Number of bytes in use at the start of the buffer
+    private int size;
+
+    /**
+     * Constructor for a new, empty arena.
+     * @param direct is true to keep the bytes in a direct buffer outside of the Java heap.
+     * @param initialCapacity is the number of bytes to allocate up front.
+     */
+    Utf8Arena(final boolean direct, final int initialCapacity) {
+        this.direct = direct;
+        this.bytes = allocate(Math.max(initialCapacity, 16));
+    }
+
+    /**
+     * Appends a string to the arena.
+     * @param text is the string being stored.
+     * @return the handle of the stored string, or NULL_HANDLE if text is null.
+     */
+    long add(final String text) {
+
+        if (text == null) {
+            return NULL_HANDLE;
+        }
+
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer target = bytes;
+        if (target.capacity() - size < encoded.length) {
+            //Doubles the buffer so appending stays amortized constant time
+            ByteBuffer grown = allocate(Math.max(target.capacity() * 2, size + encoded.length));
+            ByteBuffer used = target.duplicate();
+            used.position(0);
+            used.limit(size);
+            grown.duplicate().put(used);
+            target = grown;
+        }
+
+        //Writes through a duplicate so the position of the shared buffer never moves
+        ByteBuffer append = target.duplicate();
+        append.position(size);
+        append.put(encoded);
+        int offset = size;
+        size += encoded.length;
+        bytes = target;
+        //UTF-8 encodes every character outside of ASCII in more than one byte
+        long flags = encoded.length == text.length() ? 0 : NON_ASCII_FLAG;
+        return ((long) offset << 32) | flags | encoded.length;
+
+    }
+
+    /**
+     * Decodes a string out of the arena.
+     * @param handle is the handle returned by add.
+     * @return the string, or null for NULL_HANDLE.
+     */
+    String get(final long handle) {
+
+        if (handle == NULL_HANDLE) {
+            return null;
+        }
+
+        //A duplicate has its own position so readers don't disturb each other
+        ByteBuffer encoded = bytes.duplicate();
+        encoded.limit(offset(handle) + length(handle));
+        encoded.position(offset(handle));
+        return StandardCharsets.UTF_8.decode(encoded).toString();
+
+    }
+
+    /**
+     * Checks whether a stored string contains some text, ignoring case.
+     * ASCII text is matched directly against the encoded bytes of strings that are all ASCII themselves. Any other
+     * string is matched after decoding it, since some characters outside of ASCII upper case to ASCII letters,
+     * e.g. the German sharp s to "SS", which a byte by byte match would miss.
+     * @param handle is the handle of the string being searched.
+     * @param query is the text being searched for, prepared with prepareQuery.
+     * @return true if the string contains the text, false if it doesn't or the string is null.
+     */
+    boolean containsIgnoreCase(final long handle, final Query query) {
+
+        if (handle == NULL_HANDLE) {
+            return false;
+        }
+        if (query.upperAsciiBytes == null || (handle & NON_ASCII_FLAG) != 0) {
+            return get(handle).toUpperCase().contains(query.upperText);
+        }
+
+        ByteBuffer bytes = this.bytes;
+        byte[] pattern = query.upperAsciiBytes;
+        int start = offset(handle);
+        int lastStart = start + length(handle) - pattern.length;
+        for (int position = start; position <= lastStart; position++) {
+            int matched = 0;
+            while (matched < pattern.length && upperAscii(bytes.get(position + matched)) == pattern[matched]) {
+                matched++;
+            }
+            if (matched == pattern.length) {
+                return true;
+            }
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Getter for the number of bytes in use.
+     * @return the total size of the encoded strings.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Getter for whether the arena is stored outside of the Java heap.
+     * @return true if the arena uses a direct buffer.
+     */
+    boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Prepares text for containsIgnoreCase so the work of case folding it is only done once per search.
+     * @param text is the text being searched for.
+     * @return the prepared query.
+     */
+    static Query prepareQuery(final String text) {
+        return new Query(text);
+    }
+
+    /**
+     * Allocates a buffer of the kind this arena uses.
+     * @param capacity is the size of the buffer in bytes.
+     * @return the new buffer.
+     */
+    private ByteBuffer allocate(final int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Upper cases a single ASCII letter, leaving every other byte alone.
+     * @param value is the byte being folded.
+     * @return the folded byte.
+     */
+    private static byte upperAscii(final byte value) {
+        return value >= 'a' && value <= 'z' ? (byte) (value - ('a' - 'A')) : value;
+    }
+
+    /**
+     * Gets the offset out of a handle.
+     * @param handle is a handle returned by add.
+     * @return the position of the first byte of the string.
+     */
+    private static int offset(final long handle) {
+        return (int) (handle >>> 32);
+    }
+
+    /**
+     * Gets the length out of a handle.
+     * @param handle is a handle returned by add.
+     * @return the number of bytes in the string, 0 for NULL_HANDLE.
+     */
+    static int length(final long handle) {
+        return handle == NULL_HANDLE ? 0 : (int) (handle & LENGTH_MASK);
+    }
+
+    /**
+     * Text that has been case folded for searching an arena.
+     */
+    static class Query {
+
+        //The text upper cased the same way the TVSeries search methods do it
+        private final String upperText;
+
+        //The upper cased text as bytes if it is all ASCII, otherwise null
+        private final byte[] upperAsciiBytes;
+
+        /**
+         * Getter for the case folded text.
+         * @return the text upper cased the same way the TVSeries search methods do it.
+         */
+        String getUpperText() {
+            return upperText;
+        }
+
+        /**
+         * Constructor for a new Query.
+         * @param text is the text being searched for.
+         */
+        private Query(final String text) {
+
+            this.upperText = text.toUpperCase();
+
+            boolean ascii = true;
+            for (int i = 0; i < text.length() && ascii; i++) {
+                ascii = text.charAt(i) < 0x80;
+            }
+            this.upperAsciiBytes = ascii ? upperText.getBytes(StandardCharsets.US_ASCII) : null;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Measures how BatchSearch throughput grows with the number of queries in a batch, next to running the same
+ * character searches one at a time.
+ * The queries are capitalized words taken from the summaries, mostly character and place names, searched for over
+ * many copies of the Game of Thrones and Homeland episodes. Run the main method from the project root, optionally
+ * passing how many copies of the episodes to search.
+ */
+public class BatchSearchBenchmark {
+
+    //Number of timed runs of each batch size, the fastest run is reported
+    private static final int RUNS = 5;
+
+    //Batch sizes measured
+    private static final int[] BATCH_SIZES = { 1, 10, 100, 250 };
+
+    //Results are folded into here so the JIT can't remove the searches being measured
+    private static volatile long sink;
+
+    public static void main(String[] args) throws IOException {
+
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        List<TVSeries.TVEpisode> episodeList = new ArrayList<>();
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < copies; i++) {
+            for (String show : new String[] { "GameOfThrones", "Homeland" }) {
+                TVSeries series = TVSeries.fromPath(FileSystems.getDefault().getPath("data", show));
+                for (TVSeries.TVEpisode episode : TVSeries.convert2DEpisodesTo1D(series.getEpisodes())) {
+                    episodeList.add(episode);
+                    for (String word : String.valueOf(episode.getSummary()).split("[^A-Za-z]+")) {
+                        if (word.length() > 3 && Character.isUpperCase(word.charAt(0))) {
+                            names.add(word);
+                        }
+                    }
+                }
+            }
+        }
+        TVSeries.TVEpisode[] episodes = episodeList.toArray(new TVSeries.TVEpisode[0]);
+        String[] queries = names.toArray(new String[0]);
+        System.out.printf("%d episodes, %d distinct queries available%n", episodes.length, queries.length);
+
+        System.out.printf("%8s %18s %18s %8s%n", "queries", "one at a time q/s", "batched q/s", "speedup");
+        for (int batchSize : BATCH_SIZES) {
+            int size = Math.min(batchSize, queries.length);
+            BatchSearch batch = new BatchSearch();
+            for (int i = 0; i < size; i++) {
+                batch.addCharacterQuery(queries[i]);
+            }
+
+            //Warm up so the JIT has compiled both ways of searching before they are measured
+            searchOneAtATime(episodes, queries, size);
+            sink += batch.run(episodes).length;
+            long fastestSingle = Long.MAX_VALUE;
+            long fastestBatch = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                searchOneAtATime(episodes, queries, size);
+                fastestSingle = Math.min(fastestSingle, System.nanoTime() - start);
+                start = System.nanoTime();
+                sink += batch.run(episodes).length;
+                fastestBatch = Math.min(fastestBatch, System.nanoTime() - start);
+            }
+
+            System.out.printf("%8d %18.0f %18.0f %8.2f%n", size, size / (fastestSingle / 1e9),
+                              size / (fastestBatch / 1e9), (double) fastestSingle / fastestBatch);
+        }
+
+    }
+
+    /**
+     * Runs character searches one after the other.
+     * @param episodes is the episodes being searched.
+     * @param queries is the names being searched for.
+     * @param count is how many of the names to search for.
+     */
+    private static void searchOneAtATime(final TVSeries.TVEpisode[] episodes, final String[] queries, final int count) {
+
+        for (int i = 0; i < count; i++) {
+            sink += TVSeries.searchEpisodesByCharacter(episodes, queries[i]).length;
+        }
+
+    }
+
+}
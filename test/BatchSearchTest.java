@@ -0,0 +1,102 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchSearchTest {
+
+    //Overlapping texts, texts that are prefixes and suffixes of each other, repeats and texts found nowhere
+    private static final String[] TEXTS = {
+            "Jon", "Jon Snow", "on", "SNOW", "snow", "Carrie", "carrie", "Saul", "Brody", "Daenerys", "ser", "the",
+            "e", "Khaleesi's", "Winterfell", "é", "zzzz", ".", "Tyrion Lannister", "Lannister"};
+
+    /**
+     * Loads every episode of Game of Thrones and Homeland into one array.
+     * @return the episodes.
+     * @throws IOException if a show file cannot be read.
+     */
+    private static TVSeries.TVEpisode[] loadEpisodes() throws IOException {
+
+        List<TVSeries.TVEpisode> episodes = new ArrayList<>();
+        for (String show : new String[] { "GameOfThrones", "Homeland" }) {
+            TVSeries series = TVSeries.fromPath(FileSystems.getDefault().getPath("data", show));
+            episodes.addAll(Arrays.asList(TVSeries.convert2DEpisodesTo1D(series.getEpisodes())));
+        }
+        return episodes.toArray(new TVSeries.TVEpisode[0]);
+
+    }
+
+    @Test
+    public void sameResultsAsSingleSearchesTest() throws IOException {
+
+        TVSeries.TVEpisode[] episodes = loadEpisodes();
+        BatchSearch batch = new BatchSearch();
+        int[] contentsQueries = new int[TEXTS.length];
+        int[] characterQueries = new int[TEXTS.length];
+        for (int i = 0; i < TEXTS.length; i++) {
+            contentsQueries[i] = batch.addContentsQuery(TEXTS[i]);
+            characterQueries[i] = batch.addCharacterQuery(TEXTS[i]);
+        }
+        assertEquals(TEXTS.length * 2, batch.size());
+
+        TVSeries.TVEpisode[][] results = batch.run(episodes);
+        assertEquals(TEXTS.length * 2, results.length);
+        for (int i = 0; i < TEXTS.length; i++) {
+            assertArrayEquals(TEXTS[i], TVSeries.searchEpisodesByContents(episodes, TEXTS[i]),
+                              results[contentsQueries[i]]);
+            assertArrayEquals(TEXTS[i], TVSeries.searchEpisodesByCharacter(episodes, TEXTS[i]),
+                              results[characterQueries[i]]);
+        }
+        assertTrue(results[contentsQueries[1]].length > 0);
+        assertTrue(results[contentsQueries[5]].length > 0);
+
+    }
+
+    @Test
+    public void emptyAndNullQueriesTest() throws IOException {
+
+        TVSeries.TVEpisode[] episodes = loadEpisodes();
+        BatchSearch batch = new BatchSearch();
+        int everything = batch.addContentsQuery("");
+        int nullContents = batch.addContentsQuery(null);
+        int emptyCharacter = batch.addCharacterQuery("");
+        int nullCharacter = batch.addCharacterQuery(null);
+
+        TVSeries.TVEpisode[][] results = batch.run(episodes);
+        assertArrayEquals(TVSeries.searchEpisodesByContents(episodes, ""), results[everything]);
+        assertEquals(0, results[nullContents].length);
+        assertEquals(0, results[emptyCharacter].length);
+        assertEquals(0, results[nullCharacter].length);
+
+        assertEquals(0, new BatchSearch().run(episodes).length);
+        assertEquals(0, batch.run((TVSeries.TVEpisode[]) null)[everything].length);
+
+    }
+
+    @Test
+    public void runOnSeriesTest() throws IOException {
+
+        TVSeries series = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        series.setOffHeapSummaries(true);
+        BatchSearch batch = new BatchSearch();
+        for (String text : TEXTS) {
+            batch.addCharacterQuery(text);
+        }
+
+        TVSeries.TVEpisode[][] results = batch.run(series);
+        for (int i = 0; i < TEXTS.length; i++) {
+            assertArrayEquals(TEXTS[i], TVSeries.searchEpisodesByCharacter(series.getEpisodes(), TEXTS[i]), results[i]);
+        }
+
+        //Adding a query rebuilds the automaton for the next run
+        int added = batch.addContentsQuery("Hodor");
+        assertArrayEquals(TVSeries.searchEpisodesByContents(series.getEpisodes(), "Hodor"), batch.run(series)[added]);
+
+    }
+
+}
@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how SeriesCatalog searches speed up as the pool they run in gets more threads.
+ * The catalog holds separately loaded copies of the Game of Thrones and Homeland files. Each pool size runs the same
+ * mix of name, contents and runtime searches and the speedup is reported against a pool with one thread.
+ * Run the main method from the project root, optionally passing how many series the catalog should hold.
+ */
+public class CatalogBenchmark {
+
+    //Number of timed runs of the search mix for each pool size, the fastest run is reported
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+
+        int seriesCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Path gameOfThrones = FileSystems.getDefault().getPath("data", "GameOfThrones");
+        Path homeland = FileSystems.getDefault().getPath("data", "Homeland");
+
+        TVSeries[] allSeries = new TVSeries[seriesCount];
+        long episodes = 0;
+        for (int i = 0; i < seriesCount; i++) {
+            allSeries[i] = TVSeries.fromPath(i % 2 == 0 ? gameOfThrones : homeland);
+            episodes += allSeries[i].totalNumberOfEpisodes();
+        }
+        System.out.printf("%d series, %d episodes, %d cores%n", seriesCount, episodes,
+                Runtime.getRuntime().availableProcessors());
+
+        long singleThreaded = 0;
+        System.out.printf("%8s %14s %8s%n", "threads", "ms/search mix", "speedup");
+        for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            SeriesCatalog catalog = new SeriesCatalog(pool);
+            for (TVSeries series : allSeries) {
+                catalog.addSeries(series);
+            }
+
+            //Warm up so the JIT has compiled the search before it is measured
+            searchMix(catalog);
+            long fastest = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                searchMix(catalog);
+                fastest = Math.min(fastest, System.nanoTime() - start);
+            }
+            pool.shutdown();
+
+            if (threads == 1) {
+                singleThreaded = fastest;
+            }
+            System.out.printf("%8d %14.1f %8.2f%n", threads, fastest / 1e6, (double) singleThreaded / fastest);
+        }
+
+    }
+
+    /**
+     * Runs the searches being measured.
+     * @param catalog is the catalog being searched.
+     * @return the total number of matches, so the searches can't be optimized away.
+     */
+    private static int searchMix(final SeriesCatalog catalog) {
+
+        return catalog.searchEpisodesByName("the").length
+               + catalog.searchEpisodesByContents("Carrie").length
+               + catalog.searchEpisodesByCharacter("Jon Snow").length
+               + catalog.searchEpisodesByMaxRuntime(55).length
+               + catalog.search(new EpisodeQuery().inYear(2014).contentsContain("Saul")).length;
+
+    }
+
+}
@@ -0,0 +1,99 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class CatalogLoaderTest {
+
+    /**
+     * Creates a directory with several copies of the show files and two files that can't be loaded.
+     * @return the directory.
+     * @throws IOException if the files cannot be written.
+     */
+    private static Path createShowDirectory() throws IOException {
+
+        Path directory = Files.createTempDirectory("CatalogLoaderTest");
+        for (int i = 0; i < 5; i++) {
+            Files.copy(FileSystems.getDefault().getPath("data", "GameOfThrones"), directory.resolve("got-" + i));
+            Files.copy(FileSystems.getDefault().getPath("data", "Homeland"), directory.resolve("homeland-" + i));
+        }
+        Files.write(directory.resolve("no-episodes"), "{\"name\": \"No episodes\"}".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("truncated"), "{\"name\": \"Trunc".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectory(directory.resolve("not-a-file"));
+        return directory;
+
+    }
+
+    /**
+     * Deletes a directory created by createShowDirectory.
+     * @param directory is the directory being deleted.
+     * @throws IOException if a file cannot be deleted.
+     */
+    private static void deleteShowDirectory(final Path directory) throws IOException {
+
+        for (Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+
+    }
+
+    @Test
+    public void loadReportsFailuresWithoutStoppingTest() throws IOException, InterruptedException {
+
+        Path directory = createShowDirectory();
+        try {
+            SeriesCatalog catalog = new SeriesCatalog();
+            CatalogLoader.Report report = new CatalogLoader(3, 2).load(directory, catalog);
+
+            assertEquals(10, report.getLoadedCount());
+            assertEquals(10, catalog.size());
+            assertEquals(5 * (68 + 84), catalog.totalNumberOfEpisodes());
+
+            HashSet<String> failedFiles = new HashSet<>();
+            for (CatalogLoader.Failure failure : report.getFailures()) {
+                failedFiles.add(failure.getFile().getFileName().toString());
+                if (failure.getFile().endsWith("no-episodes")) {
+                    assertTrue(failure.getCause() instanceof NullPointerException);
+                }
+            }
+            assertEquals(new HashSet<>(Arrays.asList("no-episodes", "truncated")), failedFiles);
+        } finally {
+            deleteShowDirectory(directory);
+        }
+
+    }
+
+    @Test
+    public void loadWithOneParserTest() throws IOException, InterruptedException {
+
+        Path directory = createShowDirectory();
+        try {
+            SeriesCatalog catalog = new SeriesCatalog();
+            CatalogLoader.Report report = new CatalogLoader(1, 1).load(directory, catalog);
+
+            assertEquals(10, report.getLoadedCount());
+            assertEquals(2, report.getFailures().size());
+            assertEquals(5, catalog.getEpisodesOnDate("2011-04-17").length);
+            assertEquals(5, catalog.getEpisodesOnDate("2011-10-02").length);
+        } finally {
+            deleteShowDirectory(directory);
+        }
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidThreadCountTest() {
+
+        new CatalogLoader(0, 1);
+
+    }
+
+}
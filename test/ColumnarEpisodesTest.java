@@ -0,0 +1,102 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+
+import static org.junit.Assert.*;
+
+public class ColumnarEpisodesTest {
+
+    private static final TVSeries GAME_OF_THRONES = loadSeries("GameOfThrones");
+    private static final TVSeries HOMELAND = loadSeries("Homeland");
+    private static final ColumnarEpisodes GAME_OF_THRONES_COLUMNS = ColumnarEpisodes.fromSeries(GAME_OF_THRONES);
+    private static final ColumnarEpisodes HOMELAND_COLUMNS = ColumnarEpisodes.fromSeries(HOMELAND, true);
+
+    private static TVSeries loadSeries(final String filename) {
+
+        try {
+            return TVSeries.fromPath(FileSystems.getDefault().getPath("data", filename));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    @Test
+    public void getEpisodeByOrdinalTest() throws AssertionError {
+
+        assertEquals(68, GAME_OF_THRONES_COLUMNS.size());
+        assertEquals(GAME_OF_THRONES.getEpisode(1, 1), GAME_OF_THRONES_COLUMNS.getEpisode(0));
+        assertEquals(HOMELAND.getEpisode(7, 12), HOMELAND_COLUMNS.getEpisode(83));
+        assertEquals(GAME_OF_THRONES.getEpisode(1, 1).getId(), GAME_OF_THRONES_COLUMNS.getEpisode(0).getId());
+        assertEquals(HOMELAND.getEpisode(7, 12).getId(), HOMELAND_COLUMNS.getEpisode(83).getId());
+        assertNotEquals(0, HOMELAND_COLUMNS.getEpisode(83).getId());
+
+    }
+
+    @Test
+    public void getEpisodeBySeasonAndNumberTest() throws AssertionError {
+
+        assertEquals(HOMELAND.getEpisode(5, 2), HOMELAND_COLUMNS.getEpisode(5, 2));
+        assertEquals("Blackwater", GAME_OF_THRONES_COLUMNS.getEpisode(2, 9).getEpisodeName());
+        assertNull(GAME_OF_THRONES_COLUMNS.getEpisode(8, 1).getSummary());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getMissingEpisodeTest() throws AssertionError {
+
+        GAME_OF_THRONES_COLUMNS.getEpisode(7, 8);
+
+    }
+
+    @Test
+    public void searchMatchesTVSeriesTest() throws AssertionError {
+
+        for (String query : new String[] { "Jorah", "jon snow is dead", "Carrie", "D\u00fcring", "zzz" }) {
+            assertArrayEquals(TVSeries.searchEpisodesByContents(HOMELAND.getEpisodes(), query),
+                    HOMELAND_COLUMNS.getEpisodes(HOMELAND_COLUMNS.searchEpisodesByContents(query)));
+            assertArrayEquals(TVSeries.searchEpisodesByCharacter(GAME_OF_THRONES.getEpisodes(), query),
+                    GAME_OF_THRONES_COLUMNS.getEpisodes(GAME_OF_THRONES_COLUMNS.searchEpisodesByCharacter(query)));
+        }
+        assertArrayEquals(TVSeries.searchEpisodesByName(GAME_OF_THRONES.getEpisodes(), "winter is coming"),
+                GAME_OF_THRONES_COLUMNS.getEpisodes(GAME_OF_THRONES_COLUMNS.searchEpisodesByName("winter is coming")));
+
+    }
+
+    @Test
+    public void dateSearchMatchesTVSeriesTest() throws AssertionError {
+
+        assertArrayEquals(TVSeries.getEpisodesInYear(HOMELAND.getEpisodes(), 2014),
+                HOMELAND_COLUMNS.getEpisodes(HOMELAND_COLUMNS.getEpisodesInYear(2014)));
+        assertArrayEquals(TVSeries.getEpisodesOnDate(HOMELAND.getEpisodes(), "2011-12-18"),
+                HOMELAND_COLUMNS.getEpisodes(HOMELAND_COLUMNS.getEpisodesOnDate("2011-12-18")));
+        assertArrayEquals(HOMELAND.getEpisodesBetween("2012-01-01", "2013-06-30"),
+                HOMELAND_COLUMNS.getEpisodes(HOMELAND_COLUMNS.getEpisodesBetween("2012-01-01", "2013-06-30")));
+        assertEquals(0, HOMELAND_COLUMNS.getEpisodesOnDate("nonformatted").length);
+
+    }
+
+    @Test
+    public void runtimeSearchAndAggregatesTest() throws AssertionError {
+
+        assertEquals(TVSeries.searchEpisodesByMaxRuntime(GAME_OF_THRONES.getEpisodes(), 55).length,
+                GAME_OF_THRONES_COLUMNS.searchEpisodesByMaxRuntime(55).length);
+        assertEquals(GAME_OF_THRONES.averageRuntimeOfEpisodes(), GAME_OF_THRONES_COLUMNS.averageRuntimeOfEpisodes());
+        assertEquals(69, GAME_OF_THRONES_COLUMNS.maxRuntimeOfEpisodes());
+        assertEquals(GAME_OF_THRONES.minRuntimeOfEpisodes(), GAME_OF_THRONES_COLUMNS.minRuntimeOfEpisodes());
+
+    }
+
+    @Test
+    public void emptySeriesTest() throws AssertionError {
+
+        ColumnarEpisodes emptyColumns = ColumnarEpisodes.fromSeries(new TVSeries("An empty series"));
+        assertEquals(0, emptyColumns.size());
+        assertEquals(0, emptyColumns.averageRuntimeOfEpisodes());
+        assertEquals(0, emptyColumns.minRuntimeOfEpisodes());
+        assertEquals(0, emptyColumns.searchEpisodesByContents("anything").length);
+
+    }
+
+}
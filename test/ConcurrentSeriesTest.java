@@ -0,0 +1,207 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentSeriesTest {
+
+    private static final int READERS = 8;
+    private static final int GENERATIONS = 300;
+    private static final int FIRST_EPISODES = 40;
+
+    /**
+     * Creates every episode of one generation: the episodes of the previous generation replaced, plus one more.
+     * Each generation has FIRST_EPISODES + generation episodes, all with the generation as their runtime and in
+     * their name and summary, so a reader can tell whether everything it got came from the same version.
+     */
+    private static List<TVSeries.TVEpisode> createGeneration(final TVSeries series, final int generation) {
+
+        List<TVSeries.TVEpisode> episodes = new ArrayList<>();
+        for (int i = 0; i < FIRST_EPISODES + generation; i++) {
+            TVSeries.TVEpisode episode = series.createNewEpisode();
+            episode.setSeason(i % 3 + 1);
+            episode.setNumber(i / 3 + 1);
+            episode.setName("Generation " + generation);
+            episode.setAirdate("2020-01-01");
+            episode.setSummary("<p>Episode of generation " + generation + ".</p>");
+            episode.setRuntimeInMinutes(generation);
+            episodes.add(episode);
+        }
+        return episodes;
+
+    }
+
+    private static int generationOf(final TVSeries.TVEpisode[] episodes) {
+
+        int generation = episodes[0].getRuntimeInMinutes();
+        for (TVSeries.TVEpisode episode : episodes) {
+            assertEquals(generation, episode.getRuntimeInMinutes());
+            assertEquals("Generation " + generation, episode.getEpisodeName());
+        }
+        assertEquals(FIRST_EPISODES + generation, episodes.length);
+        return generation;
+
+    }
+
+    private static void checkReads(final TVSeries series) {
+
+        RuntimeStatistics statistics = series.getRuntimeStatistics();
+        assertEquals(statistics.getMinRuntime(), statistics.getMaxRuntime());
+        assertEquals(FIRST_EPISODES + statistics.getMinRuntime(), statistics.getEpisodeCount());
+
+        TVSeries.TVEpisode[][] episodes = series.getEpisodes();
+        TVSeries.TVEpisode[] all = TVSeries.convert2DEpisodesTo1D(episodes);
+        assertEquals(all.length, TVSeries.totalNumberOfEpisodes(episodes));
+        generationOf(all);
+
+        TVSeries.TVEpisode[] found = series.searchEpisodesByContents("episode of generation");
+        int generation = generationOf(found);
+        for (TVSeries.TVEpisode episode : found) {
+            assertEquals("Episode of generation " + generation + ".", episode.getSummary());
+        }
+
+        generationOf(series.getEpisodesInYear(2020));
+        assertNotNull(series.getEpisode(1, 1));
+        assertTrue(series.getEpisode(3, FIRST_EPISODES / 3).getRuntimeInMinutes() >= 0);
+
+    }
+
+    @Test
+    public void readersSeeWholeVersionsTest() throws InterruptedException {
+
+        TVSeries series = new TVSeries("Stress");
+        series.setSummaryIndexEnabled(true);
+        series.setOffHeapSummaries(true);
+        series.addOrReplaceEpisodes(createGeneration(series, 0));
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(READERS);
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            Thread reader = new Thread(() -> {
+                started.countDown();
+                try {
+                    while (writing.get() && failure.get() == null) {
+                        checkReads(series);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        started.await();
+        try {
+            for (int generation = 1; generation <= GENERATIONS && failure.get() == null; generation++) {
+                series.addOrReplaceEpisodes(createGeneration(series, generation));
+            }
+        } finally {
+            writing.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError("Reader failed", failure.get());
+        }
+        checkReads(series);
+        assertEquals(GENERATIONS, series.getRuntimeStatistics().getMaxRuntime());
+        assertEquals(FIRST_EPISODES + GENERATIONS, series.searchEpisodesByContents("generation " + GENERATIONS).length);
+
+    }
+
+    @Test
+    public void readersDuringSetEpisodesTest() throws InterruptedException {
+
+        TVSeries series = new TVSeries("Stress");
+        series.setEpisodes(createGeneration(series, 0).toArray(new TVSeries.TVEpisode[0]));
+
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (writing.get() && failure.get() == null) {
+                        checkReads(series);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        try {
+            for (int generation = 1; generation <= GENERATIONS && failure.get() == null; generation++) {
+                series.setEpisodes(createGeneration(series, generation).toArray(new TVSeries.TVEpisode[0]));
+                series.setSummaryIndexEnabled(generation % 2 == 0);
+                series.setOffHeapSummaries(generation % 3 == 0);
+            }
+        } finally {
+            writing.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError("Reader failed", failure.get());
+        }
+
+    }
+
+    @Test
+    public void lazyEpisodesDecodeOnceTest() throws IOException, InterruptedException {
+
+        TVSeries eager = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        TVSeries lazy = TVSeries.fromPathLazy(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        TVSeries.TVEpisode[] eagerEpisodes = TVSeries.convert2DEpisodesTo1D(eager.getEpisodes());
+        TVSeries.TVEpisode[] lazyEpisodes = TVSeries.convert2DEpisodesTo1D(lazy.getEpisodes());
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int ordinal = 0; ordinal < lazyEpisodes.length; ordinal++) {
+                        assertEquals(eagerEpisodes[ordinal].getEpisodeName(), lazyEpisodes[ordinal].getEpisodeName());
+                        assertEquals(eagerEpisodes[ordinal].getSummary(), lazyEpisodes[ordinal].getSummary());
+                        assertEquals(eagerEpisodes[ordinal].getRuntimeInMinutes(),
+                                     lazyEpisodes[ordinal].getRuntimeInMinutes());
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        start.countDown();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError("Reader failed", failure.get());
+        }
+        assertEquals(eager.getRuntimeStatistics().getTotalRuntime(), lazy.getRuntimeStatistics().getTotalRuntime());
+
+    }
+
+}
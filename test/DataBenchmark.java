@@ -0,0 +1,182 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares reading show files through Data.getFileContentsAsString and the JSON tree with reading them through
+ * MappedData and the streaming and lazy loaders, and with reading a binary snapshot.
+ * Run the main method from the project root, optionally passing how many copies of the Game of Thrones episodes
+ * the generated file should contain.
+ */
+public class DataBenchmark {
+
+    //Name of the generated file inside of the data directory
+    private static final String LARGE_FILE_NAME = "DataBenchmark-large.json";
+
+    //Name of the snapshot of the generated file inside of the data directory
+    private static final String SNAPSHOT_FILE_NAME = "DataBenchmark-large.snapshot";
+
+    //Number of timed runs of each method after warming up
+    private static final int MEASURED_RUNS = 10;
+
+    public static void main(String[] args) throws IOException {
+
+        int copies = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Path largeFile = writeLargeShowFile(copies);
+        Path snapshotFile = FileSystems.getDefault().getPath("data", SNAPSHOT_FILE_NAME);
+
+        try {
+            try (OutputStream output = Files.newOutputStream(snapshotFile)) {
+                loadWithMappedData().writeSnapshot(output);
+            }
+
+            System.out.printf("File size: %.1f MB%n", Files.size(largeFile) / (1024.0 * 1024.0));
+            System.out.printf("Snapshot size: %.1f MB%n", Files.size(snapshotFile) / (1024.0 * 1024.0));
+
+            //Warm up every path so the JIT has compiled them before measuring
+            for (int i = 0; i < 3; i++) {
+                loadWithData();
+                loadWithMappedData();
+                loadLazily();
+                loadSnapshot();
+            }
+
+            report("Data + JsonParser + TVSeries(JsonObject)", DataBenchmark::loadWithData);
+            report("MappedData + TVSeries.fromReader", DataBenchmark::loadWithMappedData);
+            report("MappedData + TVSeries.fromPathLazy", DataBenchmark::loadLazily);
+            report("TVSeries.readSnapshot", DataBenchmark::loadSnapshot);
+        } finally {
+            Files.deleteIfExists(largeFile);
+            Files.deleteIfExists(snapshotFile);
+        }
+
+    }
+
+    /**
+     * The current way of loading a show: read the whole file into a String and parse it into a tree first.
+     * @return the loaded series.
+     */
+    private static TVSeries loadWithData() {
+        return new TVSeries(new JsonParser().parse(Data.getFileContentsAsString(LARGE_FILE_NAME)).getAsJsonObject());
+    }
+
+    /**
+     * Loads a show by streaming it out of the mapped file.
+     * @return the loaded series.
+     */
+    private static TVSeries loadWithMappedData() {
+
+        try {
+            return MappedData.getSeries(LARGE_FILE_NAME);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    /**
+     * Loads a show without decoding its episodes, only their positions in the mapped file are found.
+     * @return the loaded series.
+     */
+    private static TVSeries loadLazily() {
+
+        try {
+            return MappedData.getSeriesLazy(LARGE_FILE_NAME);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    /**
+     * Loads a show from a binary snapshot written from the same file.
+     * @return the loaded series.
+     */
+    private static TVSeries loadSnapshot() {
+
+        try (InputStream input = Files.newInputStream(FileSystems.getDefault().getPath("data", SNAPSHOT_FILE_NAME))) {
+            return TVSeries.readSnapshot(input);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    /**
+     * Runs a loader several times and prints its average time and bytes allocated per run.
+     * @param name is the label printed next to the numbers.
+     * @param loader is the loading method being measured.
+     */
+    private static void report(final String name, final Loader loader) {
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long episodes = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            episodes += TVSeries.totalNumberOfEpisodes(loader.load().getEpisodes());
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-45s %8.1f ms/run %10.1f MB allocated/run (%d episodes)%n", name,
+                elapsed / 1e6 / MEASURED_RUNS, allocated / (1024.0 * 1024.0) / MEASURED_RUNS,
+                episodes / MEASURED_RUNS);
+
+    }
+
+    /**
+     * Writes a show file to the data directory that repeats the Game of Thrones episodes as extra seasons.
+     * @param copies is how many times the episodes are repeated.
+     * @return the location of the written file.
+     * @throws IOException if the file cannot be written.
+     */
+    private static Path writeLargeShowFile(final int copies) throws IOException {
+
+        Path source = FileSystems.getDefault().getPath("data", "GameOfThrones");
+        JsonObject show = new JsonParser().parse(
+                new String(Files.readAllBytes(source), StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonArray originalEpisodes = show.getAsJsonObject("_embedded").getAsJsonArray("episodes");
+
+        int seasonsPerCopy = 0;
+        for (JsonElement episode : originalEpisodes) {
+            seasonsPerCopy = Math.max(seasonsPerCopy, episode.getAsJsonObject().get("season").getAsInt());
+        }
+
+        //Each copy is shifted into its own block of seasons so no episode replaces another
+        JsonArray episodes = new JsonArray();
+        for (int copy = 0; copy < copies; copy++) {
+            for (JsonElement original : originalEpisodes) {
+                JsonObject episode = original.getAsJsonObject().deepCopy();
+                episode.addProperty("season", episode.get("season").getAsInt() + copy * seasonsPerCopy);
+                episodes.add(episode);
+            }
+        }
+        show.getAsJsonObject("_embedded").add("episodes", episodes);
+
+        Path largeFile = FileSystems.getDefault().getPath("data", LARGE_FILE_NAME);
+        Files.write(largeFile, show.toString().getBytes(StandardCharsets.UTF_8));
+        return largeFile;
+
+    }
+
+    /**
+     * A method that loads the benchmark file into a TVSeries.
+     */
+    private interface Loader {
+        TVSeries load();
+    }
+
+}
@@ -0,0 +1,104 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.time.LocalDate;
+
+import static org.junit.Assert.*;
+
+public class EpisodeAggregationTest {
+
+    /**
+     * Loads a show from the data directory.
+     * @param name is the name of the show file.
+     * @return the series.
+     * @throws IOException if the show file cannot be read.
+     */
+    private static TVSeries load(final String name) throws IOException {
+        return TVSeries.fromPath(FileSystems.getDefault().getPath("data", name));
+    }
+
+    @Test
+    public void seasonsMatchStatisticsTest() throws IOException {
+
+        TVSeries homeland = load("Homeland");
+        EpisodeAggregation.Group[] seasons = new EpisodeAggregation(EpisodeAggregation.GroupBy.SEASON).run(homeland);
+        assertEquals(homeland.getEpisodes().length, seasons.length);
+        for (EpisodeAggregation.Group season : seasons) {
+            RuntimeStatistics statistics = homeland.getSeasonRuntimeStatistics(season.getKey());
+            assertEquals(statistics.getEpisodeCount(), season.getEpisodeCount());
+            assertEquals(statistics.getTotalRuntime(), season.getTotalRuntime());
+            assertEquals(statistics.getAverageRuntime(), season.getAverageRuntime());
+            assertEquals(statistics.getMinRuntime(), season.getMinRuntime());
+            assertEquals(statistics.getMaxRuntime(), season.getMaxRuntime());
+            assertNull(season.getNetwork());
+        }
+        assertEquals("2011-10-02", seasons[0].getFirstAirdate());
+        assertEquals(homeland.getEpisode(1, homeland.getEpisodes()[0].length).getAirdate(),
+                     seasons[0].getLastAirdate());
+
+    }
+
+    @Test
+    public void yearsMatchFiltersTest() throws IOException {
+
+        TVSeries homeland = load("Homeland");
+        EpisodeAggregation.Group[] years = new EpisodeAggregation(EpisodeAggregation.GroupBy.AIR_YEAR).run(homeland);
+        int episodeCount = 0;
+        for (int i = 0; i < years.length; i++) {
+            if (i > 0) {
+                assertTrue(years[i].getKey() > years[i - 1].getKey());
+            }
+            TVSeries.TVEpisode[] inYear = homeland.getEpisodesInYear(years[i].getKey());
+            assertEquals(inYear.length, years[i].getEpisodeCount());
+            assertEquals(inYear[0].getAirdate(), years[i].getFirstAirdate());
+            assertEquals(inYear[inYear.length - 1].getAirdate(), years[i].getLastAirdate());
+            episodeCount += years[i].getEpisodeCount();
+        }
+        assertEquals(homeland.totalNumberOfEpisodes(), episodeCount);
+
+        EpisodeAggregation.Group[] months = new EpisodeAggregation(EpisodeAggregation.GroupBy.AIR_MONTH).run(homeland);
+        assertEquals(201110, months[0].getKey());
+        assertEquals(homeland.getEpisodesBetween("2011-10-01", "2011-10-31").length, months[0].getEpisodeCount());
+
+    }
+
+    @Test
+    public void weekdaysAndNetworksTest() throws IOException {
+
+        for (String date : new String[] {"1970-01-01", "2000-02-29", "2011-10-02", "2019-12-31", "1899-03-01"}) {
+            assertEquals(LocalDate.parse(date).getDayOfWeek().getValue(),
+                         EpisodeAggregation.weekdayOf(DateIndex.packDate(date)));
+        }
+
+        SeriesCatalog catalog = new SeriesCatalog();
+        catalog.addSeries(load("GameOfThrones"));
+        catalog.addSeries(load("Homeland"));
+        EpisodeAggregation.Group[] networks = new EpisodeAggregation(EpisodeAggregation.GroupBy.NETWORK).run(catalog);
+        assertEquals(2, networks.length);
+        assertEquals("HBO", networks[0].getNetwork());
+        assertEquals("Showtime", networks[1].getNetwork());
+        assertEquals(68, networks[0].getEpisodeCount());
+        assertEquals(84, networks[1].getEpisodeCount());
+        assertEquals(catalog.maxRuntimeOfEpisodes(), Math.max(networks[0].getMaxRuntime(),
+                                                              networks[1].getMaxRuntime()));
+
+        //Both shows air on Sundays
+        EpisodeAggregation.Group[] weekdays = new EpisodeAggregation(EpisodeAggregation.GroupBy.WEEKDAY).run(catalog);
+        assertEquals(7, weekdays[weekdays.length - 1].getKey());
+        int episodeCount = 0;
+        for (EpisodeAggregation.Group weekday : weekdays) {
+            episodeCount += weekday.getEpisodeCount();
+        }
+        assertEquals(catalog.totalNumberOfEpisodes(), episodeCount);
+
+        try {
+            new EpisodeAggregation(null);
+            fail();
+        } catch (NullPointerException e) {
+            //Expected
+        }
+
+    }
+
+}
@@ -0,0 +1,112 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+
+import static org.junit.Assert.*;
+
+public class EpisodeQueryTest {
+
+    private static final TVSeries GAME_OF_THRONES = loadSeries("GameOfThrones");
+    private static final TVSeries HOMELAND = loadSeries("Homeland");
+
+    private static TVSeries loadSeries(final String filename) {
+
+        try {
+            return TVSeries.fromPath(FileSystems.getDefault().getPath("data", filename));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    @Test
+    public void matchesChainedSearchesTest() throws AssertionError {
+
+        TVSeries.TVEpisode[] chained = TVSeries.getEpisodesInYear(TVSeries.searchEpisodesByMaxRuntime(
+                TVSeries.searchEpisodesByName(HOMELAND.getEpisodes(), "the"), 60), 2012);
+        TVSeries.TVEpisode[] queried = new EpisodeQuery().nameContains("the").maxRuntime(60).inYear(2012)
+                .run(HOMELAND);
+
+        assertTrue(chained.length > 0);
+        assertArrayEquals(chained, queried);
+
+    }
+
+    @Test
+    public void summaryFiltersTest() throws AssertionError {
+
+        assertArrayEquals(TVSeries.searchEpisodesByContents(GAME_OF_THRONES.getEpisodes(), "Daenerys"),
+                new EpisodeQuery().contentsContain("daenerys").run(GAME_OF_THRONES.getEpisodes()));
+        assertArrayEquals(TVSeries.searchEpisodesByCharacter(
+                TVSeries.searchEpisodesByContents(GAME_OF_THRONES.getEpisodes(), "Jon"), "Arya"),
+                new EpisodeQuery().mentionsCharacter("Arya").contentsContain("Jon").run(GAME_OF_THRONES));
+        assertEquals(0, new EpisodeQuery().mentionsCharacter("").run(GAME_OF_THRONES).length);
+        assertEquals(0, new EpisodeQuery().contentsContain(null).run(GAME_OF_THRONES).length);
+
+    }
+
+    @Test
+    public void dateFiltersTest() throws AssertionError {
+
+        assertArrayEquals(new TVSeries.TVEpisode[] { GAME_OF_THRONES.getEpisode(1, 1) },
+                new EpisodeQuery().onDate("2011-04-17").run(GAME_OF_THRONES));
+        assertEquals(10, new EpisodeQuery().airedBetween("2016-01-01", "2017-07-23").inYear(2016)
+                .run(GAME_OF_THRONES).length);
+        assertEquals(0, new EpisodeQuery().onDate("17-04-2011").run(GAME_OF_THRONES).length);
+
+    }
+
+    @Test
+    public void runOnSeriesMatchesRunOnArrayTest() throws AssertionError {
+
+        EpisodeQuery query = new EpisodeQuery().inYear(2015).minRuntime(50).contentsContain("Carrie");
+        assertArrayEquals(query.run(TVSeries.convert2DEpisodesTo1D(HOMELAND.getEpisodes())), query.run(HOMELAND));
+
+    }
+
+    @Test
+    public void sortOffsetAndLimitTest() throws AssertionError {
+
+        TVSeries.TVEpisode[] byRuntime = new EpisodeQuery().sortBy(EpisodeQuery.BY_RUNTIME).run(GAME_OF_THRONES);
+        for (int i = 1; i < byRuntime.length; i++) {
+            assertTrue(byRuntime[i - 1].getRuntimeInMinutes() <= byRuntime[i].getRuntimeInMinutes());
+        }
+
+        TVSeries.TVEpisode[] secondPage = new EpisodeQuery().inYear(2012).offset(3).limit(2).run(GAME_OF_THRONES);
+        assertArrayEquals(new TVSeries.TVEpisode[] {
+                GAME_OF_THRONES.getEpisode(2, 4), GAME_OF_THRONES.getEpisode(2, 5) }, secondPage);
+
+        TVSeries.TVEpisode[] latest = new EpisodeQuery().sortBy(EpisodeQuery.BY_AIRDATE.reversed()).limit(1)
+                .run(GAME_OF_THRONES);
+        assertArrayEquals(new TVSeries.TVEpisode[] { GAME_OF_THRONES.getEpisode(8, 1) }, latest);
+        assertEquals(0, new EpisodeQuery().offset(100).run(GAME_OF_THRONES).length);
+
+    }
+
+    @Test
+    public void usesSummaryIndexTest() throws IOException {
+
+        TVSeries indexedHomeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+        indexedHomeland.setSummaryIndexEnabled(true);
+
+        EpisodeQuery query = new EpisodeQuery().contentsContain("Saul").maxRuntime(60);
+        assertArrayEquals(query.run(HOMELAND), query.run(indexedHomeland));
+
+        //The index lookup doesn't go through the result cache
+        ResultCache cache = new ResultCache(100, 10_000);
+        indexedHomeland.setResultCache(cache);
+        assertArrayEquals(query.run(HOMELAND), query.run(indexedHomeland));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMissCount());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLimitTest() {
+
+        new EpisodeQuery().limit(-1);
+
+    }
+
+}
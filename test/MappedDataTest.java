@@ -0,0 +1,66 @@
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class MappedDataTest {
+
+    @Test
+    public void getFileContentsAsStringDecodesUtf8Test() throws IOException {
+
+        String expectedContents = new String(Files.readAllBytes(
+                FileSystems.getDefault().getPath("data", "Homeland")), StandardCharsets.UTF_8);
+        assertEquals(expectedContents, MappedData.getFileContentsAsString("Homeland"));
+
+    }
+
+    @Test
+    public void getFileContentsAsReaderTest() throws IOException {
+
+        StringBuilder contents = new StringBuilder();
+        char[] buffer = new char[1000];
+        try (Reader reader = MappedData.getFileContentsAsReader("GameOfThrones")) {
+            int charsRead;
+            while ((charsRead = reader.read(buffer, 0, buffer.length)) != -1) {
+                contents.append(buffer, 0, charsRead);
+            }
+        }
+
+        assertEquals(MappedData.getFileContentsAsString("GameOfThrones"), contents.toString());
+
+    }
+
+    @Test
+    public void getSeriesTest() throws IOException {
+
+        TVSeries homeland = MappedData.getSeries("Homeland");
+
+        //Non ASCII characters are kept intact because the file is decoded as UTF-8
+        assertEquals("Carrie and D\u00fcring visit a refugee camp. Saul and Allison are at odds.",
+                homeland.getEpisode(5, 2).getSummary());
+        assertEquals(84, TVSeries.totalNumberOfEpisodes(homeland.getEpisodes()));
+
+    }
+
+    @Test
+    public void getSeriesMatchesTreeParseTest() throws IOException {
+
+        TVSeries treeParsed = new TVSeries(new JsonParser().parse(
+                MappedData.getFileContentsAsString("GameOfThrones")).getAsJsonObject());
+        TVSeries mapped = MappedData.getSeries("GameOfThrones");
+
+        //Season 8 is left out because episodes with null summaries are never equal to each other
+        for (int season = 0; season < 7; season++) {
+            assertArrayEquals(treeParsed.getEpisodes()[season], mapped.getEpisodes()[season]);
+        }
+        assertEquals(treeParsed.getSeriesSummary(), mapped.getSeriesSummary());
+
+    }
+
+}
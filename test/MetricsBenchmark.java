@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.util.function.IntSupplier;
+
+/**
+ * Measures what the SeriesMetrics instrumentation costs each TVSeries call.
+ * The cheapest instrumented call, averageRuntimeOfEpisodes, is compared with reading the same value straight from
+ * the runtime statistics, which is the work it does without the instrumentation. This is the worst case since any
+ * other call does more work for the same two hooks. The JIT can hoist the uninstrumented read out of the loop while
+ * the volatile read of the hooks stops it from doing so, so the difference is an upper bound of a few nanoseconds.
+ * Searches are timed with metrics off and on to show that cost next to calls that do real work.
+ */
+public class MetricsBenchmark {
+
+    //Calls per timed run
+    private static final int CALLS = 2_000_000;
+
+    //Number of timed runs of each call, the fastest run is reported
+    private static final int RUNS = 7;
+
+    //Results are folded into here so the JIT can't remove the calls being measured
+    private static volatile long sink;
+
+    public static void main(String[] args) throws IOException {
+
+        TVSeries series = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        TVSeries.TVEpisode[] episodes = TVSeries.convert2DEpisodesTo1D(series.getEpisodes());
+        SeriesMetrics metrics = SeriesMetrics.get();
+
+        IntSupplier uninstrumented = () -> series.getRuntimeStatistics().getAverageRuntime();
+        IntSupplier average = series::averageRuntimeOfEpisodes;
+        IntSupplier inYear = () -> series.getEpisodesInYear(2015).length;
+        IntSupplier byContents = () -> TVSeries.searchEpisodesByContents(episodes, "Jon").length;
+
+        //Runs every call through the timing loop first so none of them gets a call site the others don't
+        for (IntSupplier call : new IntSupplier[] { uninstrumented, average, inYear, byContents }) {
+            nanosPerCall(call, 1000);
+        }
+
+        System.out.printf("%-34s %14s %14s%n", "call", "metrics off ns", "metrics on ns");
+        System.out.printf("%-34s %14.1f %14s%n", "runtime statistics (no hooks)",
+                          nanosPerCall(uninstrumented, CALLS), "-");
+        compare(metrics, "averageRuntimeOfEpisodes", average, CALLS);
+        compare(metrics, "getEpisodesInYear", inYear, CALLS / 10);
+        compare(metrics, "static searchEpisodesByContents", byContents, CALLS / 1000);
+
+    }
+
+    /**
+     * Prints the time of a call with metrics off and on.
+     * @param metrics is the metrics being turned off and on.
+     * @param name is the name of the call.
+     * @param call is the call being timed.
+     * @param calls is the number of calls per timed run.
+     */
+    private static void compare(final SeriesMetrics metrics, final String name, final IntSupplier call,
+                                final int calls) {
+
+        metrics.setEnabled(false);
+        double off = nanosPerCall(call, calls);
+        metrics.setEnabled(true);
+        double on = nanosPerCall(call, calls);
+        metrics.setEnabled(false);
+        metrics.reset();
+        System.out.printf("%-34s %14.1f %14.1f%n", name, off, on);
+
+    }
+
+    /**
+     * Times a call several times and returns the fastest run.
+     * @param call is the call being timed.
+     * @param calls is the number of calls per timed run.
+     * @return the time of one call in nanoseconds.
+     */
+    private static double nanosPerCall(final IntSupplier call, final int calls) {
+
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long total = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < calls; i++) {
+                total += call.getAsInt();
+            }
+            fastest = Math.min(fastest, System.nanoTime() - start);
+            sink += total;
+        }
+        return (double) fastest / calls;
+
+    }
+
+}
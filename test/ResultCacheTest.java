@@ -0,0 +1,170 @@
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    /**
+     * Loads Homeland with a result cache.
+     * @param cache is the cache the results of the series are kept in.
+     * @return the series.
+     * @throws IOException if the show file cannot be read.
+     */
+    private static TVSeries loadHomeland(final ResultCache cache) throws IOException {
+
+        TVSeries homeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+        homeland.setResultCache(cache);
+        return homeland;
+
+    }
+
+    @Test
+    public void hitsReturnCopiesTest() throws IOException {
+
+        ResultCache cache = new ResultCache(100, 10_000);
+        TVSeries homeland = loadHomeland(cache);
+        TVSeries.TVEpisode[] uncached = TVSeries.getEpisodesInYear(homeland.getEpisodes(), 2012);
+
+        TVSeries.TVEpisode[] first = homeland.getEpisodesInYear(2012);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        first[0] = null;
+        TVSeries.TVEpisode[] second = homeland.getEpisodesInYear(2012);
+        assertEquals(1, cache.getHitCount());
+        assertNotSame(first, second);
+        assertArrayEquals(uncached, second);
+
+        assertArrayEquals(TVSeries.searchEpisodesByName(homeland.getEpisodes(), "the"),
+                          homeland.searchEpisodesByName("the"));
+        assertArrayEquals(homeland.searchEpisodesByName("the"), homeland.searchEpisodesByName("the"));
+        assertNull(homeland.searchEpisodesByName(null));
+        assertEquals(homeland.getEpisodesBetween("2012-01-01", "2012-12-31").length,
+                     homeland.getEpisodesBetween("2012-01-01", "2012-12-31").length);
+        assertTrue(homeland.searchEpisodesByContents("Carrie").length > 0);
+        assertEquals(4, cache.getHitCount());
+        assertEquals(4, cache.size());
+
+    }
+
+    @Test
+    public void changesInvalidateTest() throws IOException {
+
+        ResultCache cache = new ResultCache(100, 10_000);
+        TVSeries homeland = loadHomeland(cache);
+        int before = homeland.getEpisodesInYear(2030).length;
+        assertEquals(0, before);
+
+        TVSeries.TVEpisode episode = homeland.createNewEpisode();
+        episode.setSeason(8);
+        episode.setNumber(1);
+        episode.setName("Future");
+        episode.setAirdate("2030-01-01");
+        episode.setRuntimeInMinutes(60);
+        homeland.addOrReplaceEpisode(episode);
+        assertEquals(1, homeland.getEpisodesInYear(2030).length);
+        assertEquals(1, cache.getInvalidationCount());
+        assertEquals(0, cache.getHitCount());
+
+        homeland.getEpisodesInYear(2030);
+        assertEquals(1, cache.getHitCount());
+        homeland.setNetworkName("Showtime");
+        homeland.getEpisodesInYear(2030);
+        assertEquals(2, cache.getInvalidationCount());
+
+        homeland.setEpisodes(new TVSeries.TVEpisode[0]);
+        assertEquals(0, homeland.getEpisodesInYear(2030).length);
+        assertEquals(3, cache.getInvalidationCount());
+
+    }
+
+    @Test
+    public void episodeSettersInvalidateTest() throws IOException {
+
+        ResultCache cache = new ResultCache(100, 10_000);
+        TVSeries homeland = loadHomeland(cache);
+        assertEquals(0, homeland.searchEpisodesByName("Renamed").length);
+        assertEquals(0, homeland.getEpisodesInYear(2030).length);
+        int runtime = homeland.getRuntimeStatistics().getMaxRuntime();
+
+        TVSeries.TVEpisode pilot = homeland.getEpisode(1, 1);
+        pilot.setName("Renamed");
+        assertArrayEquals(new TVSeries.TVEpisode[] {pilot}, homeland.searchEpisodesByName("Renamed"));
+        pilot.setAirdate("2030-01-01");
+        assertArrayEquals(new TVSeries.TVEpisode[] {pilot}, homeland.getEpisodesInYear(2030));
+        pilot.setRuntimeInMinutes(runtime + 60);
+        assertEquals(runtime + 60, homeland.getRuntimeStatistics().getMaxRuntime());
+        assertEquals(runtime + 60, homeland.getSeasonRuntimeStatistics(1).getMaxRuntime());
+        assertEquals(1, homeland.getEpisodesInYear(2030).length);
+        assertEquals(3, cache.getInvalidationCount());
+
+        //Episodes that aren't in the series don't drop anything
+        TVSeries.TVEpisode unadded = homeland.createNewEpisode();
+        unadded.setSeason(1);
+        unadded.setNumber(1);
+        unadded.setName("Unadded");
+        assertEquals(1, homeland.getEpisodesInYear(2030).length);
+        assertEquals(1, cache.getHitCount());
+
+    }
+
+    @Test
+    public void jsonObjectEpisodeSettersInvalidateTest() {
+
+        ResultCache cache = new ResultCache(100, 10_000);
+        TVSeries homeland = new TVSeries(new JsonParser().parse(Data.getFileContentsAsString("Homeland"))
+                                                         .getAsJsonObject());
+        homeland.setResultCache(cache);
+        TVSeries.TVEpisode pilot = homeland.getEpisode(1, 1);
+        assertSame(homeland, pilot.getSeries());
+        assertArrayEquals(new TVSeries.TVEpisode[] {pilot}, homeland.searchEpisodesByName("Pilot"));
+
+        pilot.setName("Renamed");
+        assertEquals(0, homeland.searchEpisodesByName("Pilot").length);
+        assertArrayEquals(new TVSeries.TVEpisode[] {pilot}, homeland.searchEpisodesByName("Renamed"));
+        assertEquals(1, cache.getInvalidationCount());
+
+    }
+
+    @Test
+    public void boundsTest() throws IOException {
+
+        ResultCache cache = new ResultCache(2, 10_000);
+        TVSeries homeland = loadHomeland(cache);
+        homeland.getEpisodesInYear(2011);
+        homeland.getEpisodesInYear(2012);
+        homeland.getEpisodesInYear(2011);
+        homeland.getEpisodesInYear(2013);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        //2012 was the least recently used so it was the one evicted
+        homeland.getEpisodesInYear(2011);
+        assertEquals(2, cache.getHitCount());
+        homeland.getEpisodesInYear(2012);
+        assertEquals(2, cache.getHitCount());
+
+        ResultCache lightCache = new ResultCache(100, 30);
+        homeland.setResultCache(lightCache);
+        int everyEpisode = homeland.getEpisodesBetween("2000-01-01", "2030-01-01").length;
+        assertTrue(everyEpisode > 30);
+        assertEquals(0, lightCache.size());
+        homeland.getEpisodesOnDate("2011-10-02");
+        homeland.getEpisodesInYear(2011);
+        homeland.getEpisodesInYear(2012);
+        homeland.getEpisodesInYear(2013);
+        assertTrue(lightCache.getWeight() <= 30);
+        assertTrue(lightCache.getEvictionCount() > 0);
+
+        try {
+            new ResultCache(0, 10);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //Expected
+        }
+
+    }
+
+}
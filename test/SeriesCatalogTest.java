@@ -0,0 +1,102 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class SeriesCatalogTest {
+
+    private static final TVSeries GAME_OF_THRONES = loadSeries("GameOfThrones");
+    private static final TVSeries HOMELAND = loadSeries("Homeland");
+
+    private static TVSeries loadSeries(final String filename) {
+
+        try {
+            return TVSeries.fromPath(FileSystems.getDefault().getPath("data", filename));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    /**
+     * Creates a catalog that repeats both series so the search is split over several tasks.
+     * @param pool is the pool the catalog searches in.
+     * @return the catalog.
+     */
+    private static SeriesCatalog createCatalog(final ForkJoinPool pool) {
+
+        SeriesCatalog catalog = new SeriesCatalog(pool);
+        for (int i = 0; i < 20; i++) {
+            catalog.addSeries(GAME_OF_THRONES);
+            catalog.addSeries(HOMELAND);
+        }
+        return catalog;
+
+    }
+
+    /**
+     * Runs the same search over every series in a catalog one at a time.
+     * @param catalog is the catalog being searched.
+     * @param query is the query run on each series.
+     * @return the matches of every series in catalog order.
+     */
+    private static TVSeries.TVEpisode[] searchSequentially(final SeriesCatalog catalog, final EpisodeQuery query) {
+
+        ArrayList<TVSeries.TVEpisode> matches = new ArrayList<>();
+        for (TVSeries series : catalog.getSeries()) {
+            matches.addAll(Arrays.asList(query.run(series.getEpisodes())));
+        }
+        return matches.toArray(new TVSeries.TVEpisode[matches.size()]);
+
+    }
+
+    @Test
+    public void searchMatchesSequentialSearchTest() throws AssertionError {
+
+        SeriesCatalog catalog = createCatalog(new ForkJoinPool(4));
+
+        assertArrayEquals(searchSequentially(catalog, new EpisodeQuery().nameContains("the")),
+                catalog.searchEpisodesByName("the"));
+        assertArrayEquals(searchSequentially(catalog, new EpisodeQuery().contentsContain("Carrie")),
+                catalog.searchEpisodesByContents("Carrie"));
+        assertArrayEquals(searchSequentially(catalog, new EpisodeQuery().maxRuntime(55)),
+                catalog.searchEpisodesByMaxRuntime(55));
+        assertEquals(20 * (10 + 12), catalog.getEpisodesInYear(2012).length);
+        assertEquals(20, catalog.getEpisodesOnDate("2011-04-17").length);
+        assertNull(catalog.searchEpisodesByName(null));
+
+    }
+
+    @Test
+    public void searchWithQueryPageTest() throws AssertionError {
+
+        SeriesCatalog catalog = createCatalog(ForkJoinPool.commonPool());
+        TVSeries.TVEpisode[] latest = catalog.search(new EpisodeQuery().mentionsCharacter("Carrie")
+                .sortBy(EpisodeQuery.BY_AIRDATE.reversed()).limit(3));
+
+        assertEquals(3, latest.length);
+        assertEquals(HOMELAND.getEpisode(7, 12), latest[0]);
+
+    }
+
+    @Test
+    public void aggregatesTest() throws AssertionError {
+
+        SeriesCatalog catalog = createCatalog(ForkJoinPool.commonPool());
+
+        assertEquals(40, catalog.size());
+        assertEquals(20 * (68 + 84), catalog.totalNumberOfEpisodes());
+        assertEquals(Math.max(GAME_OF_THRONES.maxRuntimeOfEpisodes(), HOMELAND.maxRuntimeOfEpisodes()),
+                catalog.maxRuntimeOfEpisodes());
+        assertEquals(Math.min(GAME_OF_THRONES.minRuntimeOfEpisodes(), HOMELAND.minRuntimeOfEpisodes()),
+                catalog.minRuntimeOfEpisodes());
+        assertEquals(0, new SeriesCatalog().averageRuntimeOfEpisodes());
+
+    }
+
+}
@@ -0,0 +1,109 @@
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeriesEventsTest {
+
+    /**
+     * Runs some work while a flight recording is running and returns the TvData events it recorded.
+     * @param work is the work being recorded.
+     * @return the recorded events in the order they were read from the recording.
+     * @throws IOException if the recording cannot be written or read.
+     */
+    private static List<RecordedEvent> record(final Runnable work) throws IOException {
+
+        Path file = Files.createTempFile("SeriesEventsTest", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : new String[] { "tvdata.FileRead", "tvdata.JsonTree", "tvdata.EpisodeDecode",
+                                              "tvdata.SummaryStrip", "tvdata.OrganizeEpisodes", "tvdata.Search" }) {
+                recording.enable(name).withoutThreshold();
+            }
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().startsWith("tvdata.")) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+    }
+
+    /**
+     * Finds the first recorded event of a type.
+     * @param events is the recorded events.
+     * @param name is the name of the event type.
+     * @return the event, or null if there is none.
+     */
+    private static RecordedEvent find(final List<RecordedEvent> events, final String name) {
+
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                return event;
+            }
+        }
+        return null;
+
+    }
+
+    @Test
+    public void loadPhasesTest() throws IOException {
+
+        List<RecordedEvent> events = record(() -> TVSeries.fromJson(MappedData.getFileContentsAsString("Homeland")));
+
+        assertEquals("Homeland", find(events, "tvdata.FileRead").getString("path"));
+        assertTrue(find(events, "tvdata.FileRead").getLong("bytes") > 0);
+        assertTrue(find(events, "tvdata.JsonTree").getLong("characters") > 0);
+
+        RecordedEvent decode = find(events, "tvdata.EpisodeDecode");
+        assertEquals("Homeland", decode.getString("seriesName"));
+        assertEquals("JsonObject", decode.getString("loader"));
+        assertEquals(84, decode.getInt("episodeCount"));
+        assertEquals(84, find(events, "tvdata.SummaryStrip").getInt("episodeCount"));
+        assertEquals(84, find(events, "tvdata.OrganizeEpisodes").getInt("episodeCount"));
+
+    }
+
+    @Test
+    public void searchTest() throws IOException {
+
+        TVSeries homeland = MappedData.getSeries("Homeland");
+        int[] resultCounts = new int[2];
+        List<RecordedEvent> events = record(() -> {
+            resultCounts[0] = TVSeries.searchEpisodesByContents(homeland.getEpisodes(), "Carrie").length;
+            resultCounts[1] = homeland.getEpisodesBetween("2012-01-01", "2012-12-31").length;
+        });
+
+        assertEquals(2, events.size());
+        RecordedEvent contents = events.get(0).getString("operation").equals("SEARCH_BY_CONTENTS")
+                                 ? events.get(0) : events.get(1);
+        RecordedEvent between = contents == events.get(0) ? events.get(1) : events.get(0);
+
+        assertEquals("Homeland", contents.getString("seriesName"));
+        assertEquals("Carrie", contents.getString("query"));
+        assertEquals(84, contents.getInt("episodeCount"));
+        assertEquals(resultCounts[0], contents.getInt("resultCount"));
+
+        assertEquals("EPISODES_BETWEEN", between.getString("operation"));
+        assertEquals("2012-01-01..2012-12-31", between.getString("query"));
+        assertEquals(resultCounts[1], between.getInt("resultCount"));
+
+    }
+
+}
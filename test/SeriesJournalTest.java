@@ -0,0 +1,279 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SeriesJournalTest {
+
+    private static final Path HOMELAND = FileSystems.getDefault().getPath("data", "Homeland");
+
+    /**
+     * Deletes a directory of journals and snapshots.
+     * @param directory is the directory being deleted.
+     * @throws IOException if a file cannot be deleted.
+     */
+    private static void deleteDirectory(final Path directory) throws IOException {
+
+        for (Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+
+    }
+
+    /**
+     * Makes one of each kind of journaled change to Homeland.
+     * @param series is Homeland, with a journal open.
+     */
+    private static void changeHomeland(final TVSeries series) {
+
+        TVSeries.TVEpisode added = series.createNewEpisode();
+        added.setId(5000);
+        added.setSeason(8);
+        added.setNumber(1);
+        added.setName("Added");
+        added.setAirdate("2020-02-09");
+        added.setSummary("<p>An added episode.</p>");
+        added.setRuntimeInMinutes(55);
+        series.addOrReplaceEpisodes(Collections.singletonList(added));
+
+        //Removes the pilot by id
+        assertTrue(series.applyEpisodeDelta(1533619896, Collections.emptyList(), Collections.singletonList(189)));
+        series.setSeriesName("Homeland Journaled");
+        series.setAverageRating(9.1);
+
+    }
+
+    /**
+     * Checks a series has every change made by changeHomeland.
+     * @param series is the series being checked.
+     */
+    private static void checkChangedHomeland(final TVSeries series) {
+
+        assertEquals("Homeland Journaled", series.getSeriesName());
+        assertEquals(9.1, series.getAverageRating(), 0);
+        assertEquals(1533619896, series.getUpdated());
+        assertNull(series.getEpisode(1, 1));
+        assertEquals("Added", series.getEpisode(8, 1).getEpisodeName());
+        assertEquals("An added episode.", series.getEpisode(8, 1).getSummary());
+        assertEquals(5000, series.getEpisode(8, 1).getId());
+        assertEquals(84, series.totalNumberOfEpisodes());
+        assertEquals(1, series.getEpisodesInYear(2020).length);
+
+    }
+
+    @Test
+    public void replayAfterReopenTest() throws IOException {
+
+        Path directory = Files.createTempDirectory("SeriesJournalTest");
+        Path journalFile = directory.resolve("homeland.journal");
+        Path snapshotFile = directory.resolve("homeland.snapshot");
+        try {
+            SeriesJournal journal = new SeriesJournal(journalFile, snapshotFile, SeriesJournal.SyncPolicy.NEVER, 0);
+            TVSeries series = journal.loadSeries(HOMELAND);
+            assertEquals(0, journal.open(series));
+            changeHomeland(series);
+            journal.close();
+
+            //Changes after the journal is closed aren't logged
+            series.setSeriesName("Not journaled");
+
+            SeriesJournal reopened = new SeriesJournal(journalFile, snapshotFile, SeriesJournal.SyncPolicy.NEVER, 0);
+            TVSeries replayed = reopened.loadSeries(HOMELAND);
+            assertEquals(5, reopened.open(replayed));
+            checkChangedHomeland(replayed);
+            assertEquals(series.getRuntimeStatistics().getTotalRuntime(),
+                         replayed.getRuntimeStatistics().getTotalRuntime());
+
+            //Setting every episode at once is replayed as well, here the first season without its pilot
+            TVSeries.TVEpisode[] firstSeason = replayed.getEpisodes()[0];
+            replayed.setEpisodes(Arrays.copyOfRange(firstSeason, 1, firstSeason.length));
+            reopened.close();
+            SeriesJournal reset = new SeriesJournal(journalFile, snapshotFile, SeriesJournal.SyncPolicy.NEVER, 0);
+            TVSeries resetSeries = reset.loadSeries(HOMELAND);
+            assertEquals(6, reset.open(resetSeries));
+            assertEquals(1, resetSeries.getEpisodes().length);
+            assertEquals(replayed.totalNumberOfEpisodes(), resetSeries.totalNumberOfEpisodes());
+            reset.close();
+            assertFalse(Files.exists(snapshotFile));
+        } finally {
+            deleteDirectory(directory);
+        }
+
+    }
+
+    @Test
+    public void syncPoliciesTest() throws IOException {
+
+        Path directory = Files.createTempDirectory("SeriesJournalTest");
+        try {
+            for (SeriesJournal.SyncPolicy policy : SeriesJournal.SyncPolicy.values()) {
+                Path journalFile = directory.resolve(policy + ".journal");
+                SeriesJournal journal = new SeriesJournal(journalFile, directory.resolve(policy + ".snapshot"),
+                                                          policy, 0);
+                TVSeries series = journal.loadSeries(HOMELAND);
+                journal.open(series);
+                long emptySize = Files.size(journalFile);
+
+                series.setSeriesName(policy.name());
+                journal.sync();
+                assertTrue(Files.size(journalFile) > emptySize);
+                journal.close();
+
+                SeriesJournal reopened = new SeriesJournal(journalFile, directory.resolve(policy + ".snapshot"),
+                                                           policy, 0);
+                TVSeries replayed = reopened.loadSeries(HOMELAND);
+                assertEquals(1, reopened.open(replayed));
+                assertEquals(policy.name(), replayed.getSeriesName());
+                reopened.close();
+            }
+        } finally {
+            deleteDirectory(directory);
+        }
+
+    }
+
+    @Test
+    public void tornTailIsDroppedTest() throws IOException {
+
+        Path directory = Files.createTempDirectory("SeriesJournalTest");
+        Path journalFile = directory.resolve("homeland.journal");
+        Path snapshotFile = directory.resolve("homeland.snapshot");
+        try {
+            SeriesJournal journal = new SeriesJournal(journalFile, snapshotFile,
+                                                      SeriesJournal.SyncPolicy.EVERY_COMMIT, 0);
+            TVSeries series = journal.loadSeries(HOMELAND);
+            journal.open(series);
+            changeHomeland(series);
+            journal.close();
+            long completeSize = Files.size(journalFile);
+
+            //A record that was cut short part way through being written
+            byte[] journalBytes = Files.readAllBytes(journalFile);
+            Files.write(journalFile, Arrays.copyOfRange(journalBytes, 8, 30), StandardOpenOption.APPEND);
+
+            SeriesJournal reopened = new SeriesJournal(journalFile, snapshotFile,
+                                                       SeriesJournal.SyncPolicy.EVERY_COMMIT, 0);
+            TVSeries replayed = reopened.loadSeries(HOMELAND);
+            assertEquals(5, reopened.open(replayed));
+            checkChangedHomeland(replayed);
+            assertEquals(completeSize, Files.size(journalFile));
+
+            //Records appended after the torn tail was dropped replay as well
+            replayed.setSeriesName("After the tear");
+            reopened.close();
+            SeriesJournal again = new SeriesJournal(journalFile, snapshotFile,
+                                                    SeriesJournal.SyncPolicy.EVERY_COMMIT, 0);
+            TVSeries replayedAgain = again.loadSeries(HOMELAND);
+            assertEquals(6, again.open(replayedAgain));
+            assertEquals("After the tear", replayedAgain.getSeriesName());
+            again.close();
+        } finally {
+            deleteDirectory(directory);
+        }
+
+    }
+
+    @Test
+    public void compactionTest() throws IOException {
+
+        Path directory = Files.createTempDirectory("SeriesJournalTest");
+        Path journalFile = directory.resolve("homeland.journal");
+        Path snapshotFile = directory.resolve("homeland.snapshot");
+        try {
+            SeriesJournal journal = new SeriesJournal(journalFile, snapshotFile, SeriesJournal.SyncPolicy.PERIODIC, 0);
+            TVSeries series = journal.loadSeries(HOMELAND);
+            journal.open(series);
+            changeHomeland(series);
+            journal.compact();
+            assertEquals(8, Files.size(journalFile));
+            assertTrue(Files.exists(snapshotFile));
+
+            series.setNetworkName("After compaction");
+            journal.close();
+
+            SeriesJournal reopened = new SeriesJournal(journalFile, snapshotFile, SeriesJournal.SyncPolicy.PERIODIC,
+                                                       1);
+            TVSeries replayed = reopened.loadSeries(HOMELAND);
+            assertEquals(1, reopened.open(replayed));
+            checkChangedHomeland(replayed);
+            assertEquals("After compaction", replayed.getNetworkName());
+
+            //A journal past its threshold is compacted by the writer
+            replayed.setNetworkName("Compacted by the writer");
+            reopened.close();
+            assertEquals(8, Files.size(journalFile));
+            TVSeries fromSnapshot = reopened.loadSeries(HOMELAND);
+            checkChangedHomeland(fromSnapshot);
+            assertEquals("Compacted by the writer", fromSnapshot.getNetworkName());
+        } finally {
+            deleteDirectory(directory);
+        }
+
+    }
+
+    @Test
+    public void changesDuringCompactionTest() throws IOException, InterruptedException {
+
+        Path directory = Files.createTempDirectory("SeriesJournalTest");
+        Path journalFile = directory.resolve("homeland.journal");
+        Path snapshotFile = directory.resolve("homeland.snapshot");
+        try {
+            //The writer compacts after every batch while this thread compacts as well
+            SeriesJournal journal = new SeriesJournal(journalFile, snapshotFile, SeriesJournal.SyncPolicy.NEVER, 1);
+            TVSeries series = journal.loadSeries(HOMELAND);
+            journal.open(series);
+            Thread changer = new Thread(() -> {
+                for (int i = 1; i <= 500; i++) {
+                    series.setNetworkName("Network " + i);
+                    series.setAverageRating(i);
+                }
+            });
+            changer.start();
+            while (changer.isAlive()) {
+                journal.compact();
+            }
+            changer.join();
+            journal.close();
+
+            SeriesJournal reopened = new SeriesJournal(journalFile, snapshotFile, SeriesJournal.SyncPolicy.NEVER, 0);
+            TVSeries replayed = reopened.loadSeries(HOMELAND);
+            reopened.open(replayed);
+            reopened.close();
+            assertEquals("Network 500", replayed.getNetworkName());
+            assertEquals(500, replayed.getAverageRating(), 0);
+            assertEquals(series.totalNumberOfEpisodes(), replayed.totalNumberOfEpisodes());
+        } finally {
+            deleteDirectory(directory);
+        }
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void oneJournalPerSeriesTest() throws IOException {
+
+        Path directory = Files.createTempDirectory("SeriesJournalTest");
+        SeriesJournal journal = new SeriesJournal(directory.resolve("first"), directory.resolve("first.snapshot"),
+                                                  SeriesJournal.SyncPolicy.NEVER, 0);
+        SeriesJournal other = new SeriesJournal(directory.resolve("second"), directory.resolve("second.snapshot"),
+                                                SeriesJournal.SyncPolicy.NEVER, 0);
+        TVSeries series = new TVSeries("Journaled");
+        try {
+            journal.open(series);
+            other.open(series);
+        } finally {
+            journal.close();
+            other.close();
+            deleteDirectory(directory);
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.FileSystems;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.*;
+
+public class SeriesMetricsTest {
+
+    private static final TVSeries HOMELAND = loadSeries("Homeland");
+
+    private static TVSeries loadSeries(final String filename) {
+
+        try {
+            return TVSeries.fromPath(FileSystems.getDefault().getPath("data", filename));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+    }
+
+    @Test
+    public void bucketsHoldTheirValuesTest() {
+
+        long[] values = { 0, 1, 31, 32, 33, 47, 48, 1000, 123_456_789, Long.MAX_VALUE };
+        for (long value : values) {
+            int index = Histogram.bucketIndex(value);
+            assertTrue(Histogram.highestValueInBucket(index) >= value);
+            assertTrue(index == 0 || Histogram.highestValueInBucket(index - 1) < value);
+        }
+
+    }
+
+    @Test
+    public void percentilesAreWithinOneSixteenthTest() {
+
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 10_000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5000.5, histogram.getMean(), 0);
+        assertEquals(10_000, histogram.getMax());
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(5000, histogram.getValueAtPercentile(50), 5000 / 16);
+        assertEquals(9900, histogram.getValueAtPercentile(99), 9900 / 16);
+        assertEquals(10_000, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void percentileOutOfRangeTest() {
+        new Histogram().getValueAtPercentile(101);
+    }
+
+    @Test
+    public void disabledRecordsNothingTest() {
+
+        SeriesMetrics metrics = SeriesMetrics.get();
+        metrics.setEnabled(false);
+        metrics.reset();
+
+        HOMELAND.searchEpisodesByContents("Carrie");
+        HOMELAND.getEpisodesInYear(2012);
+        assertEquals(0, metrics.getCallCount("SEARCH_BY_CONTENTS"));
+        assertEquals(0, metrics.getCallCount("EPISODES_IN_YEAR"));
+
+    }
+
+    @Test
+    public void enabledRecordsCallsTest() {
+
+        SeriesMetrics metrics = SeriesMetrics.get();
+        metrics.reset();
+        metrics.setEnabled(true);
+        try {
+            TVSeries.TVEpisode[] withCarrie = HOMELAND.searchEpisodesByContents("Carrie");
+            TVSeries.TVEpisode[] in2012 = HOMELAND.getEpisodesInYear(2012);
+            TVSeries.searchEpisodesByName(HOMELAND.getEpisodes(), "Pilot");
+            HOMELAND.averageRuntimeOfEpisodes();
+
+            assertEquals(1, metrics.getCallCount("SEARCH_BY_CONTENTS"));
+            assertEquals(withCarrie.length, metrics.getMeanResultSize("SEARCH_BY_CONTENTS"), 0);
+            assertEquals(in2012.length, metrics.getMeanResultSize("EPISODES_IN_YEAR"), 0);
+            assertEquals(1, metrics.getCallCount("SEARCH_BY_NAME"));
+            assertEquals(84, metrics.getMeanResultSize("AVERAGE_RUNTIME"), 0);
+            assertTrue(metrics.getMaxLatencyMicros("SEARCH_BY_CONTENTS") > 0);
+            assertTrue(metrics.getLatencyPercentileMicros("SEARCH_BY_CONTENTS", 50)
+                       <= metrics.getMaxLatencyMicros("SEARCH_BY_CONTENTS"));
+            assertEquals(0, metrics.getCallCount("SET_EPISODES"));
+        } finally {
+            metrics.setEnabled(false);
+            metrics.reset();
+        }
+
+    }
+
+    @Test
+    public void registeredWithPlatformServerTest() throws JMException {
+
+        SeriesMetrics metrics = SeriesMetrics.get();
+        metrics.reset();
+        metrics.setEnabled(true);
+        try {
+            HOMELAND.searchEpisodesByContents("Saul");
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(SeriesMetrics.OBJECT_NAME);
+            assertEquals(true, server.getAttribute(name, "Enabled"));
+            assertEquals(1L, server.invoke(name, "getCallCount", new Object[] { "SEARCH_BY_CONTENTS" },
+                                           new String[] { String.class.getName() }));
+            assertNotNull(server.getAttribute(name, "CallCounts"));
+        } finally {
+            metrics.setEnabled(false);
+            metrics.reset();
+        }
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownOperationTest() {
+        SeriesMetrics.get().getCallCount("NOT_AN_OPERATION");
+    }
+
+}
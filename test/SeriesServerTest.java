@@ -0,0 +1,108 @@
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+
+import static org.junit.Assert.*;
+
+public class SeriesServerTest {
+
+    /**
+     * Starts a server on a catalog of Game of Thrones and Homeland on a free port.
+     * @return the server.
+     * @throws IOException if the show files cannot be read.
+     */
+    private static SeriesServer startServer() throws IOException {
+
+        SeriesCatalog catalog = new SeriesCatalog();
+        catalog.addSeries(TVSeries.fromPath(FileSystems.getDefault().getPath("data", "GameOfThrones")));
+        catalog.addSeries(TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland")));
+        SeriesServer server = new SeriesServer(catalog, new InetSocketAddress("127.0.0.1", 0), 2);
+        server.start();
+        return server;
+
+    }
+
+    /**
+     * Sends a GET request and parses the JSON it answers with.
+     * @param server is the server.
+     * @param pathAndQuery is the path and query of the request.
+     * @param expectedStatus is the status the response must have.
+     * @return the response body.
+     * @throws IOException if the request fails.
+     */
+    private static JsonObject get(final SeriesServer server, final String pathAndQuery, final int expectedStatus)
+            throws IOException {
+
+        URL url = new URL("http://127.0.0.1:" + server.getPort() + pathAndQuery);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertEquals(expectedStatus, connection.getResponseCode());
+        try (InputStream body = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            return new JsonParser().parse(new InputStreamReader(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        }
+
+    }
+
+    @Test
+    public void searchEndpointsTest() throws IOException {
+
+        SeriesServer server = startServer();
+        try {
+            JsonObject episode = get(server, "/episode?series=homeland&season=1&number=1", 200);
+            assertEquals("Pilot", episode.get("name").getAsString());
+            assertEquals("Homeland", episode.get("series").getAsString());
+            assertEquals(189, episode.get("id").getAsInt());
+
+            JsonObject found = get(server, "/search/contents?q=Carrie", 200);
+            assertEquals(found.get("count").getAsInt(), found.get("episodes").getAsJsonArray().size());
+            assertTrue(found.get("count").getAsInt() > 0);
+            assertEquals(0, get(server, "/search/contents?q=Carrie&series=Game%20of%20Thrones", 200)
+                    .get("count").getAsInt());
+
+            TVSeries homeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+            assertEquals(homeland.getEpisodesInYear(2012).length,
+                         get(server, "/episodes/year?year=2012&series=Homeland", 200).get("count").getAsInt());
+            assertEquals(1, get(server, "/episodes/date?date=2011-04-17", 200).get("count").getAsInt());
+            assertEquals(68 + 84, get(server, "/episodes/between?from=2000-01-01&to=2030-01-01", 200)
+                    .get("count").getAsInt());
+            assertEquals(68 + 84, get(server, "/search/maxRuntime?minutes=1000", 200).get("count").getAsInt());
+            assertTrue(get(server, "/search/name?q=the", 200).get("count").getAsInt() > 0);
+            assertTrue(get(server, "/search/character?q=Jon+Snow", 200).get("count").getAsInt() > 0);
+
+            JsonObject runtime = get(server, "/runtime", 200);
+            assertEquals(68 + 84, runtime.get("episodeCount").getAsInt());
+            assertEquals(84, get(server, "/runtime?series=Homeland", 200).get("episodeCount").getAsInt());
+        } finally {
+            server.close();
+        }
+
+    }
+
+    @Test
+    public void errorsTest() throws IOException {
+
+        SeriesServer server = startServer();
+        try {
+            assertEquals("Missing parameter q", get(server, "/search/name", 400).get("error").getAsString());
+            assertEquals("Parameter year is not a whole number: soon",
+                         get(server, "/episodes/year?year=soon", 400).get("error").getAsString());
+            assertEquals("Missing parameter series", get(server, "/episode?season=1&number=1", 400)
+                    .get("error").getAsString());
+            get(server, "/episode?series=Homeland&season=99&number=1", 404);
+            get(server, "/runtime?series=Nonexistent", 404);
+            get(server, "/unknown", 404);
+        } finally {
+            server.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.FileSystems;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test client for SeriesServer, reporting throughput and latency percentiles.
+ * Each client thread sends the requests in REQUEST_MIX one after the other over a kept-alive connection until the
+ * run is over, reading every response to the end. Run the main method with the base URL of a running server, the
+ * number of client threads and the length of the run in seconds. Without a URL it starts a server of its own on the
+ * files in the data directory, so it can be run from the project root on its own.
+ */
+public class ServerLoadClient {
+
+    //Requests each client thread cycles through, a mix of lookups, searches, filters and aggregates
+    private static final String[] REQUEST_MIX = {
+            "/episode?series=Homeland&season=1&number=2",
+            "/search/name?q=the",
+            "/search/contents?q=Carrie",
+            "/search/character?q=Jon%20Snow",
+            "/search/maxRuntime?minutes=55",
+            "/episodes/year?year=2014",
+            "/episodes/date?date=2011-04-17",
+            "/episodes/between?from=2012-01-01&to=2012-12-31",
+            "/runtime",
+            "/runtime?series=Game%20of%20Thrones"};
+
+    //Length of the warm up before the measured run, so the JIT has compiled the server and the client
+    private static final long WARM_UP_MILLIS = 3000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 10;
+        SeriesServer localServer = null;
+        String baseUrl;
+        if (args.length > 0) {
+            baseUrl = args[0];
+        } else {
+            SeriesCatalog catalog = new SeriesCatalog();
+            new CatalogLoader().load(FileSystems.getDefault().getPath("data"), catalog);
+            localServer = new SeriesServer(catalog, new InetSocketAddress("127.0.0.1", 0),
+                                           Runtime.getRuntime().availableProcessors() * 2);
+            localServer.start();
+            baseUrl = "http://127.0.0.1:" + localServer.getPort();
+        }
+
+        try {
+            run(baseUrl, threads, WARM_UP_MILLIS);
+            Result result = run(baseUrl, threads, seconds * 1000);
+            System.out.printf("%d threads, %d s against %s%n", threads, seconds, baseUrl);
+            System.out.printf("%,.0f requests/s, %d errors%n", result.requests * 1000.0 / result.elapsedMillis,
+                              result.errors.get());
+            System.out.printf("latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                              result.latencies.getValueAtPercentile(50) / 1e6,
+                              result.latencies.getValueAtPercentile(99) / 1e6, result.latencies.getMax() / 1e6);
+        } finally {
+            if (localServer != null) {
+                localServer.close();
+            }
+        }
+
+    }
+
+    /**
+     * What one run measured.
+     */
+    private static final class Result {
+
+        final Histogram latencies = new Histogram();
+        final AtomicLong errors = new AtomicLong();
+        long requests;
+        long elapsedMillis;
+
+    }
+
+    /**
+     * Sends requests from several threads for a while.
+     * @param baseUrl is the URL of the server, without a trailing slash.
+     * @param threads is the number of client threads.
+     * @param millis is how long to keep sending requests.
+     * @return the latencies in nanoseconds, request count and error count of the run.
+     * @throws InterruptedException if interrupted while waiting for the client threads.
+     */
+    private static Result run(final String baseUrl, final int threads, final long millis)
+            throws InterruptedException {
+
+        Result result = new Result();
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000;
+        List<Thread> clients = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int firstRequest = i;
+            Thread client = new Thread(() -> {
+                byte[] buffer = new byte[16 * 1024];
+                for (int request = firstRequest; System.nanoTime() < deadline; request++) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        URL url = new URL(baseUrl + REQUEST_MIX[request % REQUEST_MIX.length]);
+                        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                        if (connection.getResponseCode() != 200) {
+                            result.errors.incrementAndGet();
+                        }
+                        //Reading to the end lets the connection be reused for the next request
+                        try (InputStream body = connection.getResponseCode() < 400 ? connection.getInputStream()
+                                                                                   : connection.getErrorStream()) {
+                            while (body != null && body.read(buffer) >= 0) {
+                                //Discards the response
+                            }
+                        }
+                        result.latencies.record(System.nanoTime() - requestStart);
+                    } catch (IOException e) {
+                        result.errors.incrementAndGet();
+                    }
+                }
+            });
+            client.start();
+            clients.add(client);
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+
+        result.elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        result.requests = result.latencies.getCount();
+        return result;
+
+    }
+
+}
@@ -0,0 +1,190 @@
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import static org.junit.Assert.*;
+
+public class StringPoolTest {
+
+    /**
+     * Deletes a directory of show files.
+     * @param directory is the directory, which only contains files.
+     * @throws IOException if a file cannot be deleted.
+     */
+    private static void deleteDirectory(final Path directory) throws IOException {
+
+        for (Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+
+    }
+
+    /**
+     * Loads every show in a directory into a new catalog.
+     * @param directory is the directory.
+     * @param pooled is true to canonicalize strings while loading.
+     * @return the catalog.
+     * @throws IOException if a show cannot be read.
+     * @throws InterruptedException if interrupted while loading.
+     */
+    private static SeriesCatalog load(final Path directory, final boolean pooled)
+            throws IOException, InterruptedException {
+
+        boolean wasEnabled = StringPool.isEnabled();
+        StringPool.setEnabled(pooled);
+        try {
+            SeriesCatalog catalog = new SeriesCatalog();
+            assertTrue(new CatalogLoader().load(directory, catalog).getFailures().isEmpty());
+            return catalog;
+        } finally {
+            StringPool.setEnabled(wasEnabled);
+        }
+
+    }
+
+    /**
+     * Estimates the heap the language, network, genres and airdate strings of a catalog take up, counting every
+     * distinct instance once: a 24 byte String and a byte[] with a 16 byte header, rounded up to 8 bytes.
+     * @param catalog is the catalog.
+     * @param canonical maps each string to the instance that is kept, e.g. the canonical copy in a pool.
+     * @return the estimated bytes.
+     */
+    private static long stringBytes(final SeriesCatalog catalog, final UnaryOperator<String> canonical) {
+
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (TVSeries series : catalog.getSeries()) {
+            instances.add(canonical.apply(series.getLanguage()));
+            instances.add(canonical.apply(series.getNetworkName()));
+            for (String genre : series.getGenres()) {
+                instances.add(canonical.apply(genre));
+            }
+            for (TVSeries.TVEpisode[] season : series.getEpisodes()) {
+                for (TVSeries.TVEpisode episode : season) {
+                    if (episode != null) {
+                        instances.add(canonical.apply(episode.getAirdate()));
+                    }
+                }
+            }
+        }
+        instances.remove(null);
+
+        long bytes = 0;
+        for (String instance : instances) {
+            bytes += 24 + (16 + instance.length() + 7) / 8 * 8;
+        }
+        return bytes;
+
+    }
+
+    @Test
+    public void canonicalizeTest() {
+
+        StringPool pool = new StringPool(2);
+        String drama = new String("Drama");
+        assertSame(drama, pool.canonicalize(drama));
+        assertSame(drama, pool.canonicalize(new String("Drama")));
+        assertNull(pool.canonicalize(null));
+
+        String crime = new String("Crime");
+        assertSame(crime, pool.canonicalize(crime));
+        assertEquals(2, pool.size());
+        //A full pool hands strings back unchanged
+        String comedy = new String("Comedy");
+        assertSame(comedy, pool.canonicalize(comedy));
+        assertNotSame(comedy, pool.canonicalize(new String("Comedy")));
+        assertEquals(2, pool.size());
+
+        try {
+            new StringPool(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //Expected
+        }
+
+    }
+
+    @Test
+    public void idsTest() {
+
+        StringPool pool = new StringPool(100);
+        assertEquals(0, pool.idOf("HBO"));
+        assertEquals(1, pool.idOf("Showtime"));
+        assertEquals(0, pool.idOf(new String("HBO")));
+        assertEquals(StringPool.NO_ID, pool.idOf(null));
+        assertEquals("Showtime", pool.valueOf(1));
+        assertNull(pool.valueOf(StringPool.NO_ID));
+
+        String[] genres = {"Drama", "Thriller", null, "Drama"};
+        short[] encoded = pool.encode(genres);
+        assertEquals(encoded[0], encoded[3]);
+        assertArrayEquals(genres, pool.decode(encoded));
+        assertNull(pool.encode(null));
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals("Genre " + i, pool.valueOf(pool.idOf("Genre " + i)));
+        }
+
+        try {
+            pool.valueOf(1000);
+            fail();
+        } catch (IllegalArgumentException e) {
+            //Expected
+        }
+
+    }
+
+    @Test
+    public void loadedStringsAreSharedTest() throws IOException, InterruptedException {
+
+        Path directory = Files.createTempDirectory("string-pool");
+        try {
+            new TVmazeGenerator(11).seasons(4).episodesPerSeason(10).writeDirectory(directory, 50);
+            SeriesCatalog catalog = load(directory, true);
+            TVSeries[] series = catalog.getSeries();
+            assertSame(series[0].getLanguage(), series[1].getLanguage());
+            assertSame(StringPool.shared().canonicalize("English"), series[0].getLanguage());
+            assertSame(StringPool.shared().canonicalize(series[0].getNetworkName()), series[0].getNetworkName());
+        } finally {
+            deleteDirectory(directory);
+        }
+
+    }
+
+    @Test
+    public void heapFootprintTest() throws IOException, InterruptedException {
+
+        Path directory = Files.createTempDirectory("string-pool");
+        try {
+            //Shows whose airdates overlap, as in a real catalog of shows airing in the same years.
+            //A pool of the test's own stands in for the shared one, so other tests don't see its strings.
+            new TVmazeGenerator(5).seasons(5).episodesPerSeason(12).writeDirectory(directory, 300);
+            SeriesCatalog unpooled = load(directory, false);
+            StringPool pool = new StringPool(1 << 16);
+            long unpooledBytes = stringBytes(unpooled, UnaryOperator.identity());
+            long pooledBytes = stringBytes(unpooled, pool::canonicalize);
+
+            //Genres kept as short ids instead of String references, with a 16 byte array header each way
+            long genreReferenceBytes = 0;
+            long genreIdBytes = 0;
+            for (TVSeries series : unpooled.getSeries()) {
+                genreReferenceBytes += (16 + 4 * series.getGenres().length + 7) / 8 * 8;
+                genreIdBytes += (16 + 2 * pool.encode(series.getGenres()).length + 7) / 8 * 8;
+                assertArrayEquals(series.getGenres(), pool.decode(pool.encode(series.getGenres())));
+            }
+
+            assertTrue(pooledBytes * 2 < unpooledBytes);
+            assertTrue(genreIdBytes <= genreReferenceBytes);
+        } finally {
+            deleteDirectory(directory);
+        }
+
+    }
+
+}
@@ -0,0 +1,338 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the time and memory allocated per call of the parsing, update, search and aggregate methods of TVSeries.
+ * Every operation is run against each fixture: the bundled Game of Thrones and Homeland files and synthetic series
+ * of 1k, 100k and 1M episodes. An operation is warmed up before it is measured, then called in batches until
+ * enough time has passed, and the average nanoseconds and bytes allocated by the measuring thread per call are
+ * printed. Bytes per call is what the allocation rate comes from, and is what shows up as GC pressure.
+ * Run the main method from the project root, optionally passing the names of the fixtures to run, e.g. "1k Homeland".
+ * The 1M fixture needs a heap of about 2 GB.
+ */
+public class TVSeriesBenchmark {
+
+    //Time spent warming up each operation before measuring it
+    private static final long WARMUP_NANOS = 300_000_000L;
+
+    //Time spent measuring each operation
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+
+    //Synthetic series bigger than this skip the JsonObject constructor, the JSON tree alone wouldn't fit in the heap
+    private static final int MAX_JSON_FIXTURE_SIZE = 100_000;
+
+    //Results are folded into here so the JIT can't remove the calls being measured
+    private static volatile long sink;
+
+    public static void main(String[] args) throws IOException {
+
+        LinkedHashMap<String, Fixture> fixtures = new LinkedHashMap<>();
+        List<String> selected = args.length > 0 ? Arrays.asList(args)
+                                                : Arrays.asList("GameOfThrones", "Homeland", "1k", "100k", "1M");
+        for (String name : selected) {
+            fixtures.put(name, createFixture(name));
+        }
+
+        System.out.printf("%-14s %-36s %14s %14s%n", "fixture", "operation", "ns/op", "bytes/op");
+        for (String name : fixtures.keySet()) {
+            Fixture fixture = fixtures.get(name);
+            for (Operation operation : operations(fixture)) {
+                measure(name, operation);
+            }
+            //Lets the fixture be collected before the next one is created
+            fixtures.put(name, null);
+        }
+
+    }
+
+    /**
+     * Creates a fixture from one of the bundled files or a synthetic series.
+     * @param name is the name of a file in the data directory, or the size of a synthetic series like 1k or 1M.
+     * @return the fixture.
+     * @throws IOException if the file cannot be read.
+     */
+    private static Fixture createFixture(final String name) throws IOException {
+
+        if (name.matches("\\d+[kM]")) {
+            int size = Integer.parseInt(name.substring(0, name.length() - 1))
+                       * (name.endsWith("k") ? 1000 : 1_000_000);
+            TVSeries series = createSyntheticSeries(size);
+            return new Fixture(series, size <= MAX_JSON_FIXTURE_SIZE ? toJson(series) : null);
+        }
+
+        JsonObject json = new JsonParser().parse(new String(Files.readAllBytes(
+                FileSystems.getDefault().getPath("data", name)), StandardCharsets.UTF_8)).getAsJsonObject();
+        return new Fixture(new TVSeries(json), json);
+
+    }
+
+    /**
+     * Lists the operations being measured.
+     * @param fixture is the data the operations run against.
+     * @return the operations.
+     */
+    private static List<Operation> operations(final Fixture fixture) {
+
+        TVSeries series = fixture.series;
+        TVSeries.TVEpisode[][] episodes = series.getEpisodes();
+        TVSeries.TVEpisode[] allEpisodes = TVSeries.convert2DEpisodesTo1D(episodes);
+        String middleDate = allEpisodes[allEpisodes.length / 2].getAirdate();
+        int middleYear = Integer.parseInt(middleDate.substring(0, 4));
+        String endDate = allEpisodes[Math.min(allEpisodes.length - 1, allEpisodes.length / 2 + 20)].getAirdate();
+
+        //Copies that addOrReplaceEpisode swaps in and out, so every call replaces a different object
+        TVSeries.TVEpisode[] replacements = new TVSeries.TVEpisode[allEpisodes.length];
+        for (int i = 0; i < allEpisodes.length; i++) {
+            TVSeries.TVEpisode episode = allEpisodes[i];
+            replacements[i] = series.createEpisode(episode.getEpisodeName(), episode.getSeason(), episode.getNumber(),
+                    episode.getAirdate(), episode.getSummary(), episode.getRuntimeInMinutes());
+        }
+        int[] replaceCounter = new int[1];
+
+        List<Operation> operations = new ArrayList<>();
+        if (fixture.json != null) {
+            operations.add(new Operation("TVSeries(JsonObject)", () -> new TVSeries(fixture.json).hashCode()));
+        }
+        operations.add(new Operation("setEpisodes", () -> {
+            TVSeries copy = new TVSeries("Copy");
+            copy.setEpisodes(allEpisodes);
+            return copy.hashCode();
+        }));
+        operations.add(new Operation("addOrReplaceEpisode", () -> {
+            int call = replaceCounter[0]++;
+            int index = call % allEpisodes.length;
+            series.addOrReplaceEpisode((call / allEpisodes.length) % 2 == 0 ? replacements[index] : allEpisodes[index]);
+            return index;
+        }));
+        operations.add(new Operation("convert2DEpisodesTo1D", () ->
+                TVSeries.convert2DEpisodesTo1D(series.getEpisodes()).length));
+
+        operations.add(new Operation("searchEpisodesByName", () ->
+                TVSeries.searchEpisodesByName(series.getEpisodes(), "the").length));
+        operations.add(new Operation("searchEpisodesByMaxRuntime", () ->
+                TVSeries.searchEpisodesByMaxRuntime(series.getEpisodes(), 50).length));
+        operations.add(new Operation("searchEpisodesByContents", () ->
+                TVSeries.searchEpisodesByContents(series.getEpisodes(), "kingdom").length));
+        operations.add(new Operation("searchEpisodesByContents (series)", () ->
+                series.searchEpisodesByContents("kingdom").length));
+        operations.add(new Operation("searchEpisodesByCharacter", () ->
+                TVSeries.searchEpisodesByCharacter(series.getEpisodes(), "Carrie").length));
+        operations.add(new Operation("searchEpisodesByCharacter (series)", () ->
+                series.searchEpisodesByCharacter("Carrie").length));
+        operations.add(new Operation("getEpisode", () ->
+                series.getEpisode(allEpisodes[allEpisodes.length / 2].getSeason(),
+                        allEpisodes[allEpisodes.length / 2].getNumber()).getNumber()));
+        operations.add(new Operation("getEpisodesInYear", () ->
+                TVSeries.getEpisodesInYear(series.getEpisodes(), middleYear).length));
+        operations.add(new Operation("getEpisodesInYear (series)", () ->
+                series.getEpisodesInYear(middleYear).length));
+        operations.add(new Operation("getEpisodesOnDate", () ->
+                TVSeries.getEpisodesOnDate(series.getEpisodes(), middleDate).length));
+        operations.add(new Operation("getEpisodesOnDate (series)", () ->
+                series.getEpisodesOnDate(middleDate).length));
+        operations.add(new Operation("getEpisodesBetween", () ->
+                TVSeries.getEpisodesBetween(series.getEpisodes(), middleDate, endDate).length));
+        operations.add(new Operation("getEpisodesBetween (series)", () ->
+                series.getEpisodesBetween(middleDate, endDate).length));
+
+        operations.add(new Operation("totalNumberOfEpisodes", () ->
+                TVSeries.totalNumberOfEpisodes(series.getEpisodes())));
+        operations.add(new Operation("averageRuntimeOfEpisodes", () ->
+                TVSeries.averageRuntimeOfEpisodes(series.getEpisodes())));
+        operations.add(new Operation("maxRuntimeOfEpisodes", () ->
+                TVSeries.maxRuntimeOfEpisodes(series.getEpisodes())));
+        operations.add(new Operation("minRuntimeOfEpisodes", () ->
+                TVSeries.minRuntimeOfEpisodes(series.getEpisodes())));
+        operations.add(new Operation("runtime aggregates (series)", () ->
+                series.totalNumberOfEpisodes() + series.averageRuntimeOfEpisodes()
+                + series.maxRuntimeOfEpisodes() + series.minRuntimeOfEpisodes()));
+
+        return operations;
+
+    }
+
+    /**
+     * Warms up an operation, then measures it and prints a line of results.
+     * @param fixtureName is the name of the fixture printed in the results.
+     * @param operation is the operation being measured.
+     */
+    private static void measure(final String fixtureName, final Operation operation) {
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        long batchSize = 1;
+        while (System.nanoTime() < warmupEnd) {
+            runBatch(operation, batchSize);
+            batchSize = Math.min(batchSize * 2, 1 << 20);
+        }
+
+        long calls = 0;
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            runBatch(operation, batchSize);
+            calls += batchSize;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-14s %-36s %14.1f %14.1f%n", fixtureName, operation.name,
+                (double) elapsed / calls, (double) allocated / calls);
+
+    }
+
+    /**
+     * Calls an operation several times in a row.
+     * @param operation is the operation being called.
+     * @param calls is how many times it is called.
+     */
+    private static void runBatch(final Operation operation, final long calls) {
+
+        long result = 0;
+        for (long i = 0; i < calls; i++) {
+            result += operation.body.run();
+        }
+        sink += result;
+
+    }
+
+    /**
+     * Creates a series with the given number of episodes, one a day starting in 1950.
+     * Names, runtimes and summaries are chosen with a fixed seed so every run measures the same data.
+     * @param size is the number of episodes.
+     * @return the series.
+     */
+    static TVSeries createSyntheticSeries(final int size) {
+
+        String[] words = { "the", "kingdom", "Carrie", "Saul", "Jon", "war", "secret", "north", "plan", "betrayal" };
+        Random random = new Random(42);
+        TVSeries series = new TVSeries("Synthetic " + size);
+        int episodesPerSeason = Math.max(10, (int) Math.sqrt(size));
+
+        TVSeries.TVEpisode[] episodes = new TVSeries.TVEpisode[size];
+        LocalDate airdate = LocalDate.of(1950, 1, 1);
+        for (int i = 0; i < size; i++) {
+            StringBuilder summary = new StringBuilder();
+            for (int word = 0; word < 30; word++) {
+                summary.append(words[random.nextInt(words.length)]).append(word % 10 == 9 ? ". " : " ");
+            }
+            episodes[i] = series.createEpisode(words[random.nextInt(words.length)] + " " + i,
+                    i / episodesPerSeason + 1, i % episodesPerSeason + 1, airdate.toString(),
+                    summary.toString().trim(), 20 + random.nextInt(50));
+            airdate = airdate.plusDays(1);
+        }
+        series.setEpisodes(episodes);
+
+        return series;
+
+    }
+
+    /**
+     * Builds the TVmaze style JSON the JsonObject constructor reads for a series.
+     * @param series is the series being converted.
+     * @return the JSON for the series.
+     */
+    private static JsonObject toJson(final TVSeries series) {
+
+        JsonObject json = new JsonObject();
+        json.addProperty("name", series.getSeriesName());
+        json.addProperty("language", "English");
+        json.addProperty("summary", "<p>A synthetic series.</p>");
+        json.addProperty("premiered", "1950-01-01");
+        json.add("genres", new JsonArray());
+        JsonObject rating = new JsonObject();
+        rating.addProperty("average", 7.5);
+        json.add("rating", rating);
+        JsonObject network = new JsonObject();
+        network.addProperty("name", "Synthetic Network");
+        json.add("network", network);
+
+        JsonArray episodes = new JsonArray();
+        for (TVSeries.TVEpisode episode : TVSeries.convert2DEpisodesTo1D(series.getEpisodes())) {
+            JsonObject element = new JsonObject();
+            element.addProperty("name", episode.getEpisodeName());
+            element.addProperty("season", episode.getSeason());
+            element.addProperty("number", episode.getNumber());
+            element.addProperty("airdate", episode.getAirdate());
+            element.addProperty("runtime", episode.getRuntimeInMinutes());
+            element.addProperty("summary", "<p>" + episode.getSummary() + "</p>");
+            episodes.add(element);
+        }
+        JsonObject embedded = new JsonObject();
+        embedded.add("episodes", episodes);
+        json.add("_embedded", embedded);
+
+        return json;
+
+    }
+
+    /**
+     * A series to run the operations against, and the JSON it was built from if there is one.
+     */
+    private static class Fixture {
+
+        //Series the operations run against
+        final TVSeries series;
+
+        //JSON for the JsonObject constructor, or null if the fixture is too big for it
+        final JsonObject json;
+
+        /**
+         * Constructor for a new Fixture.
+         * @param series is the series the operations run against.
+         * @param json is the JSON for the series, or null.
+         */
+        Fixture(final TVSeries series, final JsonObject json) {
+            this.series = series;
+            this.json = json;
+        }
+
+    }
+
+    /**
+     * A named call being measured.
+     */
+    private static class Operation {
+
+        //Name printed in the results
+        final String name;
+
+        //The call, which returns something derived from its result
+        final Body body;
+
+        /**
+         * Constructor for a new Operation.
+         * @param name is the name printed in the results.
+         * @param body is the call being measured.
+         */
+        Operation(final String name, final Body body) {
+            this.name = name;
+            this.body = body;
+        }
+
+    }
+
+    /**
+     * The code of an operation.
+     */
+    private interface Body {
+        long run();
+    }
+
+}
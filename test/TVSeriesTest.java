@@ -1,6 +1,22 @@
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 
@@ -514,4 +530,751 @@ public class TVSeriesTest {
 
     }
 
+    @Test
+    public void fromPathMatchesJsonConstructorTest() throws IOException {
+
+        //The JSON files are UTF-8, so the tree is built from explicitly decoded contents to compare like with like
+        Path homelandPath = FileSystems.getDefault().getPath("data", "Homeland");
+        TVSeries utf8Homeland = new TVSeries(new JsonParser().parse(
+                new String(Files.readAllBytes(homelandPath), StandardCharsets.UTF_8)).getAsJsonObject());
+        TVSeries streamedHomeland = TVSeries.fromPath(homelandPath);
+
+        assertEquals(utf8Homeland.getSeriesName(), streamedHomeland.getSeriesName());
+        assertEquals(utf8Homeland.getLanguage(), streamedHomeland.getLanguage());
+        assertArrayEquals(utf8Homeland.getGenres(), streamedHomeland.getGenres());
+        assertEquals(utf8Homeland.getPremiereDate(), streamedHomeland.getPremiereDate());
+        assertEquals(utf8Homeland.getAverageRating(), streamedHomeland.getAverageRating(), .01);
+        assertEquals(utf8Homeland.getNetworkName(), streamedHomeland.getNetworkName());
+        assertEquals(utf8Homeland.getSeriesSummary(), streamedHomeland.getSeriesSummary());
+        assertArrayEquals(utf8Homeland.getEpisodes(), streamedHomeland.getEpisodes());
+
+    }
+
+    @Test
+    public void fromPathKeepsNullSummaryTest() throws IOException {
+
+        TVSeries streamedGameOfThrones = TVSeries.fromPath(
+                FileSystems.getDefault().getPath("data", "GameOfThrones"));
+
+        assertNull(streamedGameOfThrones.getEpisode(8, 1).getSummary());
+        assertEquals("Winter is Coming", streamedGameOfThrones.getEpisode(1, 1).getEpisodeName());
+        assertEquals(68, TVSeries.totalNumberOfEpisodes(streamedGameOfThrones.getEpisodes()));
+
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void fromReaderWithoutEpisodesTest() throws IOException {
+
+        TVSeries.fromReader(new StringReader("{\"name\": \"No episodes\"}"));
+
+    }
+
+    @Test
+    public void indexedSearchMatchesScanTest() throws IOException {
+
+        TVSeries indexedHomeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+        indexedHomeland.setSummaryIndexEnabled(true);
+
+        for (String query : new String[] { "Carrie", "saul", "brody's", "CIA operative", "Jorah", "e. ", "zzz" }) {
+            assertArrayEquals(TVSeries.searchEpisodesByContents(indexedHomeland.getEpisodes(), query),
+                    indexedHomeland.searchEpisodesByContents(query));
+            assertArrayEquals(TVSeries.searchEpisodesByCharacter(indexedHomeland.getEpisodes(), query),
+                    indexedHomeland.searchEpisodesByCharacter(query));
+        }
+
+    }
+
+    @Test
+    public void indexedSearchShortQueryTest() throws IOException {
+
+        TVSeries indexedHomeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+        indexedHomeland.setSummaryIndexEnabled(true);
+
+        //Queries shorter than a trigram fall back to scanning
+        assertArrayEquals(TVSeries.searchEpisodesByContents(indexedHomeland.getEpisodes(), "u."),
+                indexedHomeland.searchEpisodesByContents("u."));
+        assertArrayEquals(new TVSeries.TVEpisode[0], indexedHomeland.searchEpisodesByCharacter(""));
+        assertArrayEquals(new TVSeries.TVEpisode[0], indexedHomeland.searchEpisodesByContents(null));
+
+    }
+
+    @Test
+    public void indexedSearchAfterAddOrReplaceTest() throws IOException {
+
+        TVSeries indexedHomeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+        indexedHomeland.setSummaryIndexEnabled(true);
+
+        TVSeries.TVEpisode replacement = indexedHomeland.createNewEpisode();
+        replacement.setName("Pilot");
+        replacement.setSummary("Quinn investigates a mysterious quokka.");
+        replacement.setAirdate("2011-10-02");
+        replacement.setSeason(1);
+        replacement.setNumber(1);
+        indexedHomeland.addOrReplaceEpisode(replacement);
+
+        assertArrayEquals(new TVSeries.TVEpisode[] { replacement }, indexedHomeland.searchEpisodesByContents("quokka"));
+        assertArrayEquals(new TVSeries.TVEpisode[0], indexedHomeland.searchEpisodesByContents("Manchurian Candidate"));
+
+    }
+
+    @Test
+    public void indexedEpisodesInYearTest() throws AssertionError {
+
+        assertArrayEquals(TVSeries.getEpisodesInYear(HOMELAND.getEpisodes(), 2014), HOMELAND.getEpisodesInYear(2014));
+        assertEquals(0, HOMELAND.getEpisodesInYear(1999).length);
+
+    }
+
+    @Test
+    public void indexedEpisodesOnDateTest() throws AssertionError {
+
+        assertArrayEquals(new TVSeries.TVEpisode[] { HOMELAND.getEpisode(1, 12) },
+                HOMELAND.getEpisodesOnDate("2011-12-18"));
+        assertArrayEquals(new TVSeries.TVEpisode[0], HOMELAND.getEpisodesOnDate("nonformatted"));
+        assertArrayEquals(new TVSeries.TVEpisode[0], HOMELAND.getEpisodesOnDate(null));
+
+    }
+
+    @Test
+    public void getEpisodesBetweenTest() throws AssertionError {
+
+        //Season 1 of Homeland aired from October to December 2011
+        TVSeries.TVEpisode[] homelandSeason1 = HOMELAND.getEpisodes()[0];
+
+        assertArrayEquals(homelandSeason1, HOMELAND.getEpisodesBetween("2011-10-01", "2011-12-31"));
+        assertArrayEquals(homelandSeason1,
+                TVSeries.getEpisodesBetween(HOMELAND.getEpisodes(), "2011-10-01", "2011-12-31"));
+
+    }
+
+    @Test
+    public void getEpisodesBetweenBadRangeTest() throws AssertionError {
+
+        assertArrayEquals(new TVSeries.TVEpisode[0], HOMELAND.getEpisodesBetween("2011-12-31", "2011-10-01"));
+        assertArrayEquals(new TVSeries.TVEpisode[0], HOMELAND.getEpisodesBetween("2011", "2011-12-31"));
+        assertArrayEquals(new TVSeries.TVEpisode[0],
+                TVSeries.getEpisodesBetween(HOMELAND.getEpisodes(), null, "2011-12-31"));
+
+    }
+
+    @Test
+    public void runtimeStatisticsMatchScanTest() throws AssertionError {
+
+        assertEquals(TVSeries.totalNumberOfEpisodes(HOMELAND.getEpisodes()), HOMELAND.totalNumberOfEpisodes());
+        assertEquals(TVSeries.averageRuntimeOfEpisodes(HOMELAND.getEpisodes()), HOMELAND.averageRuntimeOfEpisodes());
+        assertEquals(TVSeries.maxRuntimeOfEpisodes(HOMELAND.getEpisodes()), HOMELAND.maxRuntimeOfEpisodes());
+        assertEquals(TVSeries.minRuntimeOfEpisodes(HOMELAND.getEpisodes()), HOMELAND.minRuntimeOfEpisodes());
+
+    }
+
+    @Test
+    public void seasonRuntimeStatisticsTest() throws IOException {
+
+        TVSeries gameOfThrones = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        RuntimeStatistics season6 = gameOfThrones.getSeasonRuntimeStatistics(6);
+
+        assertEquals(10, season6.getEpisodeCount());
+        assertEquals(TVSeries.maxRuntimeOfEpisodes(gameOfThrones.getEpisodes()[5]), season6.getMaxRuntime());
+        assertEquals(TVSeries.minRuntimeOfEpisodes(gameOfThrones.getEpisodes()[5]), season6.getMinRuntime());
+        assertEquals(TVSeries.averageRuntimeOfEpisodes(gameOfThrones.getEpisodes()[5]), season6.getAverageRuntime());
+
+    }
+
+    @Test
+    public void runtimeStatisticsAfterReplaceTest() throws IOException {
+
+        TVSeries gameOfThrones = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        TVSeries.TVEpisode longestEpisode = gameOfThrones.getEpisode(6, 10);
+        assertEquals(69, gameOfThrones.maxRuntimeOfEpisodes());
+
+        //Replacing the only 69 minute episode has to bring the maximum back down
+        TVSeries.TVEpisode shorterEpisode = gameOfThrones.createNewEpisode();
+        shorterEpisode.setName(longestEpisode.getEpisodeName());
+        shorterEpisode.setSeason(6);
+        shorterEpisode.setNumber(10);
+        shorterEpisode.setRuntimeInMinutes(50);
+        gameOfThrones.addOrReplaceEpisode(shorterEpisode);
+
+        assertEquals(TVSeries.maxRuntimeOfEpisodes(gameOfThrones.getEpisodes()), gameOfThrones.maxRuntimeOfEpisodes());
+        assertEquals(50, gameOfThrones.minRuntimeOfEpisodes());
+        assertEquals(68, gameOfThrones.totalNumberOfEpisodes());
+        assertEquals(50, gameOfThrones.getSeasonRuntimeStatistics(6).getMinRuntime());
+
+    }
+
+    @Test
+    public void runtimeStatisticsAfterSetterTest() throws AssertionError {
+
+        TVSeries gameOfThrones = new TVSeries(
+                new JsonParser().parse(Data.getFileContentsAsString("GameOfThrones")).getAsJsonObject());
+        assertEquals(69, gameOfThrones.maxRuntimeOfEpisodes());
+
+        TVSeries.TVEpisode pilot = gameOfThrones.getEpisode(1, 1);
+        pilot.setRuntimeInMinutes(999);
+        assertEquals(999, gameOfThrones.maxRuntimeOfEpisodes());
+        assertEquals(TVSeries.maxRuntimeOfEpisodes(gameOfThrones.getEpisodes()), gameOfThrones.maxRuntimeOfEpisodes());
+        assertEquals(TVSeries.averageRuntimeOfEpisodes(gameOfThrones.getEpisodes()),
+                     gameOfThrones.averageRuntimeOfEpisodes());
+        assertEquals(TVSeries.maxRuntimeOfEpisodes(gameOfThrones.getEpisodes()[0]),
+                     gameOfThrones.getSeasonRuntimeStatistics(1).getMaxRuntime());
+
+        //Replacing the changed episode takes its new runtime back out of the statistics
+        TVSeries.TVEpisode replacement = gameOfThrones.createNewEpisode();
+        replacement.setName(pilot.getEpisodeName());
+        replacement.setSeason(1);
+        replacement.setNumber(1);
+        replacement.setRuntimeInMinutes(20);
+        gameOfThrones.addOrReplaceEpisode(replacement);
+        assertEquals(69, gameOfThrones.maxRuntimeOfEpisodes());
+        assertEquals(20, gameOfThrones.minRuntimeOfEpisodes());
+        assertEquals(TVSeries.averageRuntimeOfEpisodes(gameOfThrones.getEpisodes()),
+                     gameOfThrones.averageRuntimeOfEpisodes());
+        assertEquals(TVSeries.minRuntimeOfEpisodes(gameOfThrones.getEpisodes()[0]),
+                     gameOfThrones.getSeasonRuntimeStatistics(1).getMinRuntime());
+
+    }
+
+    @Test
+    public void staticFiltersSkipEmptySlotsTest() throws AssertionError {
+
+        TVSeries series = new TVSeries("Missing episode numbers");
+        TVSeries.TVEpisode first = series.createNewEpisode();
+        first.setName("First");
+        first.setAirdate("2011-10-02");
+        first.setSummary("<p>Carrie meets the team.</p>");
+        first.setRuntimeInMinutes(60);
+        TVSeries.TVEpisode third = series.createNewEpisode();
+        third.setName("Third");
+        third.setAirdate("2011-10-16");
+        third.setSummary("<p>Saul travels abroad.</p>");
+        third.setRuntimeInMinutes(30);
+        TVSeries.TVEpisode[] episodes = {first, null, third, null};
+
+        assertArrayEquals(new TVSeries.TVEpisode[] {first, third}, TVSeries.getEpisodesInYear(episodes, 2011));
+        assertArrayEquals(new TVSeries.TVEpisode[] {third}, TVSeries.searchEpisodesByName(episodes, "third"));
+        assertArrayEquals(new TVSeries.TVEpisode[] {third}, TVSeries.searchEpisodesByMaxRuntime(episodes, 45));
+        assertArrayEquals(new TVSeries.TVEpisode[] {third}, TVSeries.searchEpisodesByContents(episodes, "abroad"));
+        assertArrayEquals(new TVSeries.TVEpisode[] {first}, TVSeries.searchEpisodesByCharacter(episodes, "Carrie"));
+        assertArrayEquals(new TVSeries.TVEpisode[] {first}, TVSeries.getEpisodesOnDate(episodes, "2011-10-02"));
+        assertArrayEquals(new TVSeries.TVEpisode[] {first, third},
+                TVSeries.getEpisodesBetween(episodes, "2011-10-01", "2011-10-31"));
+
+        //The average is over the episodes that are present, not the length of the array
+        assertEquals(45, TVSeries.averageRuntimeOfEpisodes(episodes));
+        assertEquals(60, TVSeries.maxRuntimeOfEpisodes(episodes));
+        assertEquals(30, TVSeries.minRuntimeOfEpisodes(episodes));
+        TVSeries.TVEpisode[] onlyEmptySlots = new TVSeries.TVEpisode[3];
+        assertEquals(0, TVSeries.averageRuntimeOfEpisodes(onlyEmptySlots));
+        assertEquals(0, TVSeries.maxRuntimeOfEpisodes(onlyEmptySlots));
+        assertEquals(0, TVSeries.minRuntimeOfEpisodes(onlyEmptySlots));
+
+    }
+
+    @Test
+    public void emptySeriesRuntimeStatisticsTest() throws AssertionError {
+
+        TVSeries emptySeries = new TVSeries("Nothing aired yet");
+        assertEquals(0, emptySeries.totalNumberOfEpisodes());
+        assertEquals(0, emptySeries.averageRuntimeOfEpisodes());
+        assertEquals(0, emptySeries.maxRuntimeOfEpisodes());
+        assertEquals(0, emptySeries.minRuntimeOfEpisodes());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingSeasonRuntimeStatisticsTest() throws AssertionError {
+
+        HOMELAND.getSeasonRuntimeStatistics(40);
+
+    }
+
+    @Test
+    public void addOrReplaceEpisodesTest() throws AssertionError {
+
+        TVSeries newSeries = new TVSeries("A new series");
+        LinkedList<TVSeries.TVEpisode> batch = new LinkedList<>();
+        for (int season = 1; season <= 3; season++) {
+            for (int number = 1; number <= 5; number++) {
+                TVSeries.TVEpisode episode = newSeries.createNewEpisode();
+                episode.setSeason(season);
+                episode.setNumber(number);
+                episode.setRuntimeInMinutes(season * 10 + number);
+                batch.add(episode);
+            }
+        }
+        newSeries.addOrReplaceEpisodes(batch);
+
+        assertEquals(3, newSeries.getEpisodes().length);
+        assertEquals(5, newSeries.getEpisodes()[2].length);
+        assertSame(batch.getLast(), newSeries.getEpisode(3, 5));
+        assertEquals(15, newSeries.totalNumberOfEpisodes());
+        assertEquals(11, newSeries.minRuntimeOfEpisodes());
+        assertEquals(35, newSeries.maxRuntimeOfEpisodes());
+
+    }
+
+    @Test
+    public void addEpisodesOneAtATimeTest() throws AssertionError {
+
+        TVSeries newSeries = new TVSeries("A new series");
+        for (int number = 1; number <= 100; number++) {
+            TVSeries.TVEpisode episode = newSeries.createNewEpisode();
+            episode.setSeason(2);
+            episode.setNumber(number);
+            newSeries.addOrReplaceEpisode(episode);
+        }
+
+        //Season 1 was skipped so it exists but is empty, and season 2 has no spare room showing
+        assertEquals(0, newSeries.getEpisodes()[0].length);
+        assertEquals(100, newSeries.getEpisodes()[1].length);
+        assertEquals(100, newSeries.getEpisode(2, 100).getNumber());
+        assertEquals(100, TVSeries.totalNumberOfEpisodes(newSeries.getEpisodes()));
+
+    }
+
+    @Test
+    public void addEpisodeBeyondEndOfSeasonTest() throws AssertionError {
+
+        TVSeries newSeries = new TVSeries("A new series");
+        TVSeries.TVEpisode episode = newSeries.createNewEpisode();
+        episode.setSeason(1);
+        episode.setNumber(3);
+        newSeries.addOrReplaceEpisode(episode);
+
+        //Episodes that weren't added yet are left as gaps in the season
+        assertArrayEquals(new TVSeries.TVEpisode[] { null, null, episode }, newSeries.getEpisodes()[0]);
+
+        boolean exceptionThrown = false;
+        try {
+            newSeries.getEpisode(1, 4);
+        } catch (IllegalArgumentException e) {
+            exceptionThrown = true;
+        }
+        assertTrue("Spare room in a season is not an episode", exceptionThrown);
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addEpisodeWithoutSeasonTest() throws AssertionError {
+
+        TVSeries newSeries = new TVSeries("A new series");
+        newSeries.addOrReplaceEpisode(newSeries.createNewEpisode());
+
+    }
+
+    @Test
+    public void addOrReplaceEpisodesWithNullTest() throws AssertionError {
+
+        TVSeries newSeries = new TVSeries("A new series");
+        TVSeries.TVEpisode episode = newSeries.createNewEpisode();
+        episode.setSeason(1);
+        episode.setNumber(1);
+
+        boolean exceptionThrown = false;
+        try {
+            newSeries.addOrReplaceEpisodes(Arrays.asList(episode, null));
+        } catch (NullPointerException e) {
+            exceptionThrown = true;
+        }
+
+        assertTrue(exceptionThrown);
+        assertNull("A bad batch should not change the series", newSeries.getEpisodes());
+
+    }
+
+    @Test
+    public void offHeapSummariesTest() throws IOException {
+
+        TVSeries offHeapHomeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+        String pilotSummary = offHeapHomeland.getEpisode(1, 1).getSummary();
+        TVSeries.TVEpisode[] episodesWithSaul = TVSeries.searchEpisodesByCharacter(offHeapHomeland.getEpisodes(), "saul");
+
+        offHeapHomeland.setOffHeapSummaries(true);
+
+        assertTrue(offHeapHomeland.hasOffHeapSummaries());
+        assertEquals(pilotSummary, offHeapHomeland.getEpisode(1, 1).getSummary());
+        assertEquals("Carrie and D\u00fcring visit a refugee camp. Saul and Allison are at odds.",
+                offHeapHomeland.getEpisode(5, 2).getSummary());
+        assertArrayEquals(episodesWithSaul,
+                TVSeries.searchEpisodesByCharacter(offHeapHomeland.getEpisodes(), "saul"));
+        assertArrayEquals(new TVSeries.TVEpisode[] { offHeapHomeland.getEpisode(5, 2) },
+                TVSeries.searchEpisodesByContents(offHeapHomeland.getEpisodes(), "D\u00fcring visit"));
+
+    }
+
+    @Test
+    public void offHeapSummariesAfterReplaceTest() throws IOException {
+
+        TVSeries offHeapGameOfThrones = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        offHeapGameOfThrones.setOffHeapSummaries(true);
+        assertNull(offHeapGameOfThrones.getEpisode(8, 1).getSummary());
+
+        TVSeries.TVEpisode replacement = offHeapGameOfThrones.createNewEpisode();
+        replacement.setSeason(1);
+        replacement.setNumber(1);
+        replacement.setSummary("<p>A <b>new</b> pilot.</p>");
+        offHeapGameOfThrones.addOrReplaceEpisode(replacement);
+
+        assertEquals("A new pilot.", offHeapGameOfThrones.getEpisode(1, 1).getSummary());
+        assertArrayEquals(new TVSeries.TVEpisode[] { replacement },
+                TVSeries.searchEpisodesByContents(offHeapGameOfThrones.getEpisodes(), "NEW PILOT"));
+
+        //Setting a summary on an episode moves it back to the heap until the series takes it again
+        replacement.setSummary("Changed again.");
+        assertEquals("Changed again.", offHeapGameOfThrones.getEpisode(1, 1).getSummary());
+
+        offHeapGameOfThrones.setOffHeapSummaries(false);
+        assertFalse(offHeapGameOfThrones.hasOffHeapSummaries());
+        assertEquals("Changed again.", offHeapGameOfThrones.getEpisode(1, 1).getSummary());
+
+    }
+
+    @Test
+    public void offHeapSummariesMatchFoldedCharactersTest() {
+
+        //Each summary has a character outside of ASCII that upper cases to ASCII letters
+        String[] summaries = {"A walk down the Stra\u00dfe.", "The \ufb01nal act.", "Back to \u0131stanbul.",
+                              "Plain text only."};
+        String[] queries = {"strasse", "FINAL", "istanbul", "plain", "the"};
+        TVSeries heapSeries = new TVSeries("Heap");
+        TVSeries offHeapSeries = new TVSeries("Off heap");
+        for (TVSeries series : new TVSeries[] {heapSeries, offHeapSeries}) {
+            TVSeries.TVEpisode[] episodes = new TVSeries.TVEpisode[summaries.length];
+            for (int i = 0; i < summaries.length; i++) {
+                episodes[i] = series.createNewEpisode();
+                episodes[i].setSeason(1);
+                episodes[i].setNumber(i + 1);
+                episodes[i].setSummary(summaries[i]);
+            }
+            series.setEpisodes(episodes);
+        }
+        offHeapSeries.setOffHeapSummaries(true);
+        ColumnarEpisodes columns = ColumnarEpisodes.fromSeries(heapSeries, true);
+
+        for (String query : queries) {
+            TVSeries.TVEpisode[] heapFound = TVSeries.searchEpisodesByContents(heapSeries.getEpisodes(), query);
+            assertTrue(query, heapFound.length > 0);
+            assertEquals(query, heapFound.length,
+                         TVSeries.searchEpisodesByContents(offHeapSeries.getEpisodes(), query).length);
+            assertEquals(query, heapFound.length, columns.searchEpisodesByContents(query).length);
+        }
+
+    }
+
+    @Test
+    public void fromPathLazyMatchesFromPathTest() throws IOException {
+
+        Path homelandPath = FileSystems.getDefault().getPath("data", "Homeland");
+        TVSeries streamedHomeland = TVSeries.fromPath(homelandPath);
+        TVSeries lazyHomeland = TVSeries.fromPathLazy(homelandPath);
+
+        assertEquals(streamedHomeland.getSeriesName(), lazyHomeland.getSeriesName());
+        assertEquals(streamedHomeland.getLanguage(), lazyHomeland.getLanguage());
+        assertArrayEquals(streamedHomeland.getGenres(), lazyHomeland.getGenres());
+        assertEquals(streamedHomeland.getPremiereDate(), lazyHomeland.getPremiereDate());
+        assertEquals(streamedHomeland.getAverageRating(), lazyHomeland.getAverageRating(), .01);
+        assertEquals(streamedHomeland.getNetworkName(), lazyHomeland.getNetworkName());
+        assertEquals(streamedHomeland.getSeriesSummary(), lazyHomeland.getSeriesSummary());
+        assertArrayEquals(streamedHomeland.getEpisodes(), lazyHomeland.getEpisodes());
+
+    }
+
+    @Test
+    public void fromPathLazyDecodesOnFirstUseTest() throws IOException {
+
+        TVSeries lazyGameOfThrones = TVSeries.fromPathLazy(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        TVSeries.TVEpisode pilot = lazyGameOfThrones.getEpisode(1, 1);
+        TVSeries.TVEpisode finale = lazyGameOfThrones.getEpisode(7, 7);
+
+        //Season and number are known without decoding anything else
+        assertEquals(1, pilot.getNumber());
+        assertFalse(pilot.isDecoded());
+        assertFalse(finale.isDecoded());
+
+        assertEquals("Winter is Coming", pilot.getEpisodeName());
+        assertTrue(pilot.isDecoded());
+        assertFalse(finale.isDecoded());
+        assertNull(lazyGameOfThrones.getEpisode(8, 1).getSummary());
+
+        //A setter decodes first so the rest of the episode is still filled in afterwards
+        finale.setName("Renamed finale");
+        assertEquals("Renamed finale", finale.getEpisodeName());
+        assertEquals("2017-08-27", finale.getAirdate());
+
+    }
+
+    @Test
+    public void fromPathLazySearchAndStatisticsTest() throws IOException {
+
+        Path gameOfThronesPath = FileSystems.getDefault().getPath("data", "GameOfThrones");
+        TVSeries streamedGameOfThrones = TVSeries.fromPath(gameOfThronesPath);
+        TVSeries lazyGameOfThrones = TVSeries.fromPathLazy(gameOfThronesPath);
+
+        assertEquals(68, lazyGameOfThrones.totalNumberOfEpisodes());
+        assertEquals(streamedGameOfThrones.averageRuntimeOfEpisodes(), lazyGameOfThrones.averageRuntimeOfEpisodes());
+        assertEquals(streamedGameOfThrones.maxRuntimeOfEpisodes(), lazyGameOfThrones.maxRuntimeOfEpisodes());
+        assertArrayEquals(streamedGameOfThrones.searchEpisodesByCharacter("Jon Snow"),
+                TVSeries.fromPathLazy(gameOfThronesPath).searchEpisodesByCharacter("Jon Snow"));
+        assertEquals(streamedGameOfThrones.getEpisodesInYear(2016).length,
+                TVSeries.fromPathLazy(gameOfThronesPath).getEpisodesInYear(2016).length);
+
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void fromBytesLazyWithoutEpisodesTest() throws IOException {
+
+        TVSeries.fromBytesLazy(ByteBuffer.wrap("{\"name\": \"No episodes\"}".getBytes(StandardCharsets.UTF_8)));
+
+    }
+
+    @Test
+    public void snapshotRoundTripTest() throws IOException {
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        HOMELAND.writeSnapshot(snapshot);
+        TVSeries restoredHomeland = TVSeries.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        assertEquals(HOMELAND.getSeriesName(), restoredHomeland.getSeriesName());
+        assertEquals(HOMELAND.getLanguage(), restoredHomeland.getLanguage());
+        assertArrayEquals(HOMELAND.getGenres(), restoredHomeland.getGenres());
+        assertEquals(HOMELAND.getPremiereDate(), restoredHomeland.getPremiereDate());
+        assertEquals(HOMELAND.getAverageRating(), restoredHomeland.getAverageRating(), .01);
+        assertEquals(HOMELAND.getNetworkName(), restoredHomeland.getNetworkName());
+        assertEquals(HOMELAND.getSeriesSummary(), restoredHomeland.getSeriesSummary());
+        assertArrayEquals(HOMELAND.getEpisodes(), restoredHomeland.getEpisodes());
+        assertEquals(HOMELAND.averageRuntimeOfEpisodes(), restoredHomeland.averageRuntimeOfEpisodes());
+
+    }
+
+    @Test
+    public void snapshotKeepsNullsAndGapsTest() throws IOException {
+
+        TVSeries gameOfThrones = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "GameOfThrones"));
+        TVSeries.TVEpisode gap = gameOfThrones.createNewEpisode();
+        gap.setSeason(9);
+        gap.setNumber(3);
+        gameOfThrones.addOrReplaceEpisode(gap);
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        gameOfThrones.writeSnapshot(snapshot);
+        TVSeries restored = TVSeries.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()));
+
+        assertNull(restored.getEpisode(8, 1).getSummary());
+        assertEquals("TBA", restored.getEpisode(8, 1).getEpisodeName());
+        assertNull(restored.getEpisodes()[8][0]);
+        assertNull(restored.getEpisode(9, 3).getEpisodeName());
+        assertEquals(69, restored.totalNumberOfEpisodes());
+
+    }
+
+    @Test(expected = IOException.class)
+    public void readSnapshotRejectsOtherVersionTest() throws IOException {
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        HOMELAND.writeSnapshot(snapshot);
+        byte[] snapshotBytes = snapshot.toByteArray();
+        snapshotBytes[7]++;
+        TVSeries.readSnapshot(new ByteArrayInputStream(snapshotBytes));
+
+    }
+
+    @Test
+    public void fromPathWithSnapshotTest() throws IOException {
+
+        Path directory = Files.createTempDirectory("TVSeriesTest");
+        Path jsonFile = directory.resolve("Homeland.json");
+        Path snapshotFile = directory.resolve("Homeland.snapshot");
+        try {
+            Files.copy(FileSystems.getDefault().getPath("data", "Homeland"), jsonFile);
+
+            //The first load parses the JSON and writes the snapshot
+            TVSeries parsed = TVSeries.fromPathWithSnapshot(jsonFile, snapshotFile);
+            assertTrue(Files.exists(snapshotFile));
+            TVSeries restored = TVSeries.fromPathWithSnapshot(jsonFile, snapshotFile);
+            assertArrayEquals(parsed.getEpisodes(), restored.getEpisodes());
+
+            //A newer snapshot is used even though it doesn't match the JSON, showing the JSON isn't read
+            TVSeries renamed = TVSeries.fromPath(jsonFile);
+            renamed.setSeriesName("From the snapshot");
+            try (OutputStream output = Files.newOutputStream(snapshotFile)) {
+                renamed.writeSnapshot(output);
+            }
+            Files.setLastModifiedTime(jsonFile, FileTime.fromMillis(1000));
+            assertEquals("From the snapshot", TVSeries.fromPathWithSnapshot(jsonFile, snapshotFile).getSeriesName());
+
+            //Once the JSON is newer the snapshot is ignored and rewritten
+            Files.setLastModifiedTime(jsonFile, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+            assertEquals("Homeland", TVSeries.fromPathWithSnapshot(jsonFile, snapshotFile).getSeriesName());
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(jsonFile);
+            Files.delete(directory);
+        }
+
+    }
+
+    @Test
+    public void idsAndUpdatedAreLoadedTest() throws IOException {
+
+        Path homelandFile = FileSystems.getDefault().getPath("data", "Homeland");
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        HOMELAND.writeSnapshot(snapshot);
+        TVSeries[] loaded = { HOMELAND, TVSeries.fromPath(homelandFile), TVSeries.fromPathLazy(homelandFile),
+                              TVSeries.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray())) };
+
+        for (TVSeries series : loaded) {
+            assertEquals(1533619895, series.getUpdated());
+            assertEquals(189, series.getEpisode(1, 1).getId());
+            assertEquals(1420861, series.getEpisode(7, 12).getId());
+        }
+        assertEquals(1533619895, TVSeries.readUpdated(homelandFile));
+
+    }
+
+    @Test
+    public void applyUpdateSkipsWhenNotNewerTest() throws IOException {
+
+        Path homelandFile = FileSystems.getDefault().getPath("data", "Homeland");
+        TVSeries homeland = TVSeries.fromPath(homelandFile);
+        TVSeries latest = TVSeries.fromPath(homelandFile);
+        latest.getEpisode(1, 1).setName("Changed");
+
+        assertFalse(homeland.applyUpdate(latest));
+        assertFalse(homeland.refreshFrom(homelandFile));
+        assertEquals("Pilot", homeland.getEpisode(1, 1).getEpisodeName());
+
+    }
+
+    @Test
+    public void refreshFromChangesOnlyWhatChangedTest() throws IOException {
+
+        JsonObject document = new JsonParser().parse(Data.getFileContentsAsString("Homeland")).getAsJsonObject();
+        document.addProperty("updated", 1533619896);
+        document.addProperty("name", "Homeland Updated");
+        JsonArray episodes = document.getAsJsonObject("_embedded").getAsJsonArray("episodes");
+        episodes.get(1).getAsJsonObject().addProperty("summary", "<p>A rewritten summary.</p>");
+        JsonElement finale = episodes.remove(episodes.size() - 1);
+        JsonObject added = finale.getAsJsonObject().deepCopy();
+        added.addProperty("id", 9999999);
+        added.addProperty("season", 8);
+        added.addProperty("number", 1);
+        episodes.add(added);
+
+        Path directory = Files.createTempDirectory("TVSeriesTest");
+        Path jsonFile = directory.resolve("Homeland.json");
+        try {
+            Files.write(jsonFile, document.toString().getBytes(StandardCharsets.UTF_8));
+            TVSeries homeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+            homeland.setSummaryIndexEnabled(true);
+            TVSeries.TVEpisode pilot = homeland.getEpisode(1, 1);
+            TVSeries.TVEpisode secondEpisode = homeland.getEpisode(1, 2);
+
+            assertTrue(homeland.refreshFrom(jsonFile));
+            assertEquals(1533619896, homeland.getUpdated());
+            assertEquals("Homeland Updated", homeland.getSeriesName());
+            assertSame(pilot, homeland.getEpisode(1, 1));
+            assertNotSame(secondEpisode, homeland.getEpisode(1, 2));
+            assertEquals("A rewritten summary.", homeland.getEpisode(1, 2).getSummary());
+            assertArrayEquals(new TVSeries.TVEpisode[] { homeland.getEpisode(1, 2) },
+                    homeland.searchEpisodesByContents("rewritten summary"));
+            assertEquals(11, homeland.getEpisodes()[6].length);
+            assertEquals(9999999, homeland.getEpisode(8, 1).getId());
+            assertEquals(84, homeland.totalNumberOfEpisodes());
+            assertEquals(1, homeland.getSeasonRuntimeStatistics(8).getEpisodeCount());
+
+            //The same document again is skipped
+            assertFalse(homeland.refreshFrom(jsonFile));
+        } finally {
+            Files.deleteIfExists(jsonFile);
+            Files.delete(directory);
+        }
+
+    }
+
+    @Test
+    public void refreshFromLeavesNothingMappedTest() throws IOException {
+
+        JsonObject document = new JsonParser().parse(Data.getFileContentsAsString("Homeland")).getAsJsonObject();
+        Path directory = Files.createTempDirectory("TVSeriesTest");
+        Path currentFile = directory.resolve("Homeland.json");
+        Path latestFile = directory.resolve("HomelandLatest.json");
+        try {
+            Files.write(currentFile, document.toString().getBytes(StandardCharsets.UTF_8));
+            document.addProperty("updated", 1533619896);
+            JsonArray episodes = document.getAsJsonObject("_embedded").getAsJsonArray("episodes");
+            episodes.get(1).getAsJsonObject().addProperty("name", "Renamed");
+            JsonObject added = episodes.get(0).getAsJsonObject().deepCopy();
+            added.addProperty("id", 9999999);
+            added.addProperty("season", 8);
+            added.addProperty("number", 1);
+            added.addProperty("name", "Added");
+            episodes.add(added);
+            byte[] latestBytes = document.toString().getBytes(StandardCharsets.UTF_8);
+            Files.write(latestFile, latestBytes);
+
+            TVSeries homeland = TVSeries.fromPathLazy(currentFile);
+            TVSeries.TVEpisode pilot = homeland.getEpisode(1, 1);
+            assertTrue(homeland.refreshFrom(latestFile));
+            //Episodes whose JSON didn't change are compared without decoding them
+            assertSame(pilot, homeland.getEpisode(1, 1));
+            assertFalse(pilot.isDecoded());
+
+            //Rewriting the newer document in place doesn't reach the episodes taken from it
+            Arrays.fill(latestBytes, (byte) ' ');
+            Files.write(latestFile, latestBytes);
+            TVSeries.TVEpisode addedEpisode = homeland.getEpisode(8, 1);
+            assertSame(homeland, addedEpisode.getSeries());
+            assertSame(homeland, homeland.getEpisode(1, 2).getSeries());
+            assertEquals("Added", addedEpisode.getEpisodeName());
+            assertEquals(9999999, addedEpisode.getId());
+            assertEquals(homeland.getEpisode(1, 1).getSummary(), addedEpisode.getSummary());
+            assertEquals("Renamed", homeland.getEpisode(1, 2).getEpisodeName());
+        } finally {
+            Files.deleteIfExists(currentFile);
+            Files.deleteIfExists(latestFile);
+            Files.delete(directory);
+        }
+
+    }
+
+    @Test
+    public void applyEpisodeDeltaTest() throws IOException {
+
+        TVSeries homeland = TVSeries.fromPath(FileSystems.getDefault().getPath("data", "Homeland"));
+        ArrayList<Integer> lastSeasonIds = new ArrayList<>();
+        for (TVSeries.TVEpisode episode : homeland.getEpisodes()[6]) {
+            lastSeasonIds.add(episode.getId());
+        }
+
+        //Moving the pilot to the end of its season leaves a gap where it was
+        TVSeries.TVEpisode movedPilot = homeland.createNewEpisode();
+        movedPilot.setId(189);
+        movedPilot.setSeason(1);
+        movedPilot.setNumber(13);
+        movedPilot.setName("Pilot");
+        assertTrue(homeland.applyEpisodeDelta(1533619896, Collections.singletonList(movedPilot), lastSeasonIds));
+
+        assertNull(homeland.getEpisode(1, 1));
+        assertSame(movedPilot, homeland.getEpisode(1, 13));
+        assertEquals(6, homeland.getEpisodes().length);
+        assertEquals(72, homeland.totalNumberOfEpisodes());
+        try {
+            homeland.getSeasonRuntimeStatistics(7);
+            fail("Season 7 was removed");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Season number does not exist", e.getMessage());
+        }
+
+        //A delta that isn't newer is skipped
+        TVSeries.TVEpisode renamed = homeland.createNewEpisode();
+        renamed.setId(189);
+        renamed.setSeason(1);
+        renamed.setNumber(13);
+        renamed.setName("Renamed");
+        assertFalse(homeland.applyEpisodeDelta(1533619896, Collections.singletonList(renamed),
+                                               Collections.emptyList()));
+        assertEquals("Pilot", homeland.getEpisode(1, 13).getEpisodeName());
+
+    }
+
 }
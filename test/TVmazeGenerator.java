@@ -0,0 +1,354 @@
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Writes made up show documents in the same shape as the TVmaze files in the data directory, for benchmarks and
+ * load tests that need much larger inputs than the two bundled shows.
+ * Everything is derived from the seed, so the same seed and settings always write the same files. Each show has the
+ * fields the TVSeries(JsonObject) constructor reads plus the ids, urls, images and links TVmaze includes, and can
+ * be given missing summaries and gaps in its episode numbers.
+ * Documents are written with a streaming JsonWriter so shows with millions of episodes don't need a JSON tree.
+ * The main method writes a directory of shows: TVmazeGenerator directory seriesCount [seasons episodesPerSeason seed]
+ */
+public class TVmazeGenerator {
+
+    //Words summaries and names are made of
+    private static final String[] WORDS = {
+            "the", "a", "of", "and", "to", "in", "kingdom", "war", "secret", "plan", "betrayal", "north", "city",
+            "agent", "family", "attack", "escape", "truth", "council", "army", "dragon", "spy", "mission", "trial",
+            "wedding", "funeral", "winter", "storm", "alliance", "rebellion", "prisoner", "throne", "border" };
+
+    //Characters that show up in summaries, so character searches have something to find
+    private static final String[] CHARACTERS = {
+            "Carrie", "Saul", "Brody", "Quinn", "Jon", "Arya", "Tyrion", "Daenerys", "Cersei", "Sansa", "Walter",
+            "Jesse", "Olivia", "Peter" };
+
+    private static final String[] GENRES = { "Drama", "Thriller", "Action", "Fantasy", "Crime", "Comedy", "Mystery" };
+
+    private static final String[] NETWORKS = { "HBO", "Showtime", "AMC", "FX", "NBC", "CBS", "BBC One" };
+
+    //Seed every show is derived from
+    private final long seed;
+
+    //Shape of each show
+    private int seasons = 8;
+    private int episodesPerSeason = 10;
+
+    //Summary length in words is normally distributed with this mean and standard deviation, but at least 1
+    private int summaryWordsMean = 40;
+    private int summaryWordsDeviation = 15;
+
+    //Chance of an episode having a null summary
+    private double missingSummaryRate = 0.02;
+
+    //Chance of an episode number being skipped
+    private double gapRate = 0;
+
+    /**
+     * Constructor for a new generator with default settings.
+     * @param seed decides everything that is written.
+     */
+    public TVmazeGenerator(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of seasons in every show.
+     * @param seasons is the number of seasons.
+     * @return this generator.
+     * @throws IllegalArgumentException if seasons is less than 1.
+     */
+    public TVmazeGenerator seasons(final int seasons) throws IllegalArgumentException {
+
+        if (seasons < 1) {
+            throw new IllegalArgumentException("A show needs at least one season");
+        }
+        this.seasons = seasons;
+        return this;
+
+    }
+
+    /**
+     * Sets the number of episode numbers in every season, including any that are skipped as gaps.
+     * @param episodesPerSeason is the number of episodes.
+     * @return this generator.
+     * @throws IllegalArgumentException if episodesPerSeason is less than 1.
+     */
+    public TVmazeGenerator episodesPerSeason(final int episodesPerSeason) throws IllegalArgumentException {
+
+        if (episodesPerSeason < 1) {
+            throw new IllegalArgumentException("A season needs at least one episode");
+        }
+        this.episodesPerSeason = episodesPerSeason;
+        return this;
+
+    }
+
+    /**
+     * Sets how long summaries are.
+     * @param mean is the average number of words.
+     * @param deviation is the standard deviation of the number of words.
+     * @return this generator.
+     * @throws IllegalArgumentException if either number is negative.
+     */
+    public TVmazeGenerator summaryWords(final int mean, final int deviation) throws IllegalArgumentException {
+
+        if (mean < 0 || deviation < 0) {
+            throw new IllegalArgumentException("Summary lengths cannot be negative");
+        }
+        this.summaryWordsMean = mean;
+        this.summaryWordsDeviation = deviation;
+        return this;
+
+    }
+
+    /**
+     * Sets the chance of an episode having a null summary, like unaired TVmaze episodes.
+     * @param rate is a probability from 0 to 1.
+     * @return this generator.
+     * @throws IllegalArgumentException if rate is not between 0 and 1.
+     */
+    public TVmazeGenerator missingSummaryRate(final double rate) throws IllegalArgumentException {
+
+        checkRate(rate);
+        this.missingSummaryRate = rate;
+        return this;
+
+    }
+
+    /**
+     * Sets the chance of an episode number being left out of a season.
+     * @param rate is a probability from 0 to 1.
+     * @return this generator.
+     * @throws IllegalArgumentException if rate is not between 0 and 1.
+     */
+    public TVmazeGenerator gapRate(final double rate) throws IllegalArgumentException {
+
+        checkRate(rate);
+        this.gapRate = rate;
+        return this;
+
+    }
+
+    /**
+     * Writes one show document.
+     * The show only depends on the seed, the settings and seriesIndex, so shows can be written in any order.
+     * @param seriesIndex is which show of the data set this is, starting at 0.
+     * @param output is where the document is written. It is flushed but not closed.
+     * @throws IOException if writing fails.
+     */
+    public void writeSeries(final int seriesIndex, final Writer output) throws IOException {
+
+        Random random = new Random(seed * 1_000_003L + seriesIndex);
+        int showId = seriesIndex + 1;
+        LocalDate premiere = LocalDate.of(1990 + random.nextInt(25), 1 + random.nextInt(12), 1 + random.nextInt(28));
+        String showName = capitalize(WORDS[6 + random.nextInt(WORDS.length - 6)]) + " "
+                          + capitalize(WORDS[6 + random.nextInt(WORDS.length - 6)]) + " " + showId;
+
+        JsonWriter json = new JsonWriter(output);
+        json.setIndent("  ");
+        json.beginObject();
+        json.name("id").value(showId);
+        json.name("url").value("http://www.tvmaze.com/shows/" + showId + "/" + slug(showName));
+        json.name("name").value(showName);
+        json.name("type").value("Scripted");
+        json.name("language").value("English");
+        json.name("genres").beginArray();
+        for (int i = 0; i < 1 + random.nextInt(3); i++) {
+            json.value(GENRES[random.nextInt(GENRES.length)]);
+        }
+        json.endArray();
+        json.name("status").value("Ended");
+        json.name("runtime").value(random.nextBoolean() ? 60 : 30);
+        json.name("premiered").value(premiere.toString());
+        json.name("officialSite").value("http://www.example.com/" + slug(showName));
+        json.name("rating").beginObject().name("average").value(5 + random.nextInt(50) / 10.0).endObject();
+        json.name("network").beginObject();
+        json.name("id").value(1 + random.nextInt(NETWORKS.length));
+        json.name("name").value(NETWORKS[random.nextInt(NETWORKS.length)]);
+        json.endObject();
+        json.name("image").beginObject();
+        json.name("medium").value("http://static.tvmaze.com/uploads/images/medium_portrait/" + showId + ".jpg");
+        json.name("original").value("http://static.tvmaze.com/uploads/images/original_untouched/" + showId + ".jpg");
+        json.endObject();
+        json.name("summary").value("<p><b>" + showName + "</b> " + summary(random, summaryWordsMean) + "</p>");
+        json.name("updated").value(1_500_000_000L + random.nextInt(100_000_000));
+        json.name("_links").beginObject().name("self").beginObject()
+                .name("href").value("http://api.tvmaze.com/shows/" + showId).endObject().endObject();
+
+        json.name("_embedded").beginObject();
+        json.name("episodes").beginArray();
+        long episodeId = (long) showId * seasons * episodesPerSeason;
+        LocalDate airdate = premiere;
+        int runtime = random.nextBoolean() ? 60 : 30;
+        //Weekly episodes, or daily ones for seasons too long to fit in a year, keep airdates within four digit years
+        int daysBetweenEpisodes = episodesPerSeason <= 52 ? 7 : 1;
+        for (int season = 1; season <= seasons; season++) {
+            for (int number = 1; number <= episodesPerSeason; number++) {
+                episodeId++;
+                airdate = airdate.plusDays(daysBetweenEpisodes);
+                //Skipped numbers still use up an id and an airdate, the same as an episode TVmaze removed
+                if (number > 1 && random.nextDouble() < gapRate) {
+                    continue;
+                }
+                writeEpisode(json, random, episodeId, season, number, airdate, runtime);
+            }
+            //A break of a few months between seasons
+            airdate = airdate.plusWeeks(20);
+        }
+        json.endArray();
+        json.endObject();
+
+        json.endObject();
+        json.flush();
+
+    }
+
+    /**
+     * Writes shows to a directory, one file per show named after its index.
+     * @param directory is where the files are written, it is created if it doesn't exist.
+     * @param seriesCount is the number of shows.
+     * @return the paths of the written files in index order.
+     * @throws IOException if a file cannot be written.
+     */
+    public List<Path> writeDirectory(final Path directory, final int seriesCount) throws IOException {
+
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>(seriesCount);
+        for (int seriesIndex = 0; seriesIndex < seriesCount; seriesIndex++) {
+            Path file = directory.resolve(String.format("show-%06d.json", seriesIndex));
+            try (Writer output = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writeSeries(seriesIndex, output);
+            }
+            files.add(file);
+        }
+        return files;
+
+    }
+
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 2) {
+            System.out.println("Usage: TVmazeGenerator directory seriesCount [seasons episodesPerSeason seed]");
+            return;
+        }
+
+        TVmazeGenerator generator = new TVmazeGenerator(args.length > 4 ? Long.parseLong(args[4]) : 42);
+        if (args.length > 3) {
+            generator.seasons(Integer.parseInt(args[2])).episodesPerSeason(Integer.parseInt(args[3]));
+        }
+        List<Path> files = generator.writeDirectory(Paths.get(args[0]), Integer.parseInt(args[1]));
+        System.out.println("Wrote " + files.size() + " shows to " + args[0]);
+
+    }
+
+    /**
+     * Writes one element of the embedded episodes array.
+     * @param json is the document being written.
+     * @param random is the show's source of randomness.
+     * @param episodeId is the TVmaze id of the episode.
+     * @param season is the season of the episode.
+     * @param number is the number of the episode within its season.
+     * @param airdate is the date the episode aired.
+     * @param runtime is the usual runtime of the show.
+     * @throws IOException if writing fails.
+     */
+    private void writeEpisode(final JsonWriter json, final Random random, final long episodeId, final int season,
+                              final int number, final LocalDate airdate, final int runtime) throws IOException {
+
+        String name = capitalize(WORDS[random.nextInt(WORDS.length)]) + " "
+                      + capitalize(WORDS[6 + random.nextInt(WORDS.length - 6)]);
+
+        json.beginObject();
+        json.name("id").value(episodeId);
+        json.name("url").value("http://www.tvmaze.com/episodes/" + episodeId + "/" + slug(name));
+        json.name("name").value(name);
+        json.name("season").value(season);
+        json.name("number").value(number);
+        json.name("airdate").value(airdate.toString());
+        json.name("airtime").value("21:00");
+        json.name("airstamp").value(airdate + "T01:00:00+00:00");
+        //Finales and premieres sometimes run long
+        json.name("runtime").value(runtime + (random.nextInt(10) == 0 ? 15 * (1 + random.nextInt(4)) : 0));
+        json.name("image").beginObject();
+        json.name("medium").value("http://static.tvmaze.com/uploads/images/medium_landscape/" + episodeId + ".jpg");
+        json.name("original").value("http://static.tvmaze.com/uploads/images/original_untouched/" + episodeId + ".jpg");
+        json.endObject();
+        if (random.nextDouble() < missingSummaryRate) {
+            json.name("summary").nullValue();
+        } else {
+            int words = (int) Math.round(summaryWordsMean + random.nextGaussian() * summaryWordsDeviation);
+            json.name("summary").value("<p>" + summary(random, Math.max(1, words)) + "</p>");
+        }
+        json.name("_links").beginObject().name("self").beginObject()
+                .name("href").value("http://api.tvmaze.com/episodes/" + episodeId).endObject().endObject();
+        json.endObject();
+
+    }
+
+    /**
+     * Makes up a summary out of words and character names, with the odd HTML tag like real summaries have.
+     * @param random is the show's source of randomness.
+     * @param words is the number of words.
+     * @return the summary.
+     */
+    private static String summary(final Random random, final int words) {
+
+        StringBuilder summary = new StringBuilder();
+        boolean sentenceStart = true;
+        for (int word = 0; word < words; word++) {
+            String next = random.nextInt(6) == 0 ? CHARACTERS[random.nextInt(CHARACTERS.length)]
+                                                 : WORDS[random.nextInt(WORDS.length)];
+            if (random.nextInt(40) == 0) {
+                next = "<i>" + next + "</i>";
+            }
+            summary.append(sentenceStart ? capitalize(next) : next);
+            sentenceStart = random.nextInt(12) == 0 || word == words - 1;
+            summary.append(sentenceStart ? ". " : " ");
+        }
+        return summary.toString().trim();
+
+    }
+
+    /**
+     * Upper cases the first letter of a word.
+     * @param word is the word.
+     * @return the word starting with a capital letter.
+     */
+    private static String capitalize(final String word) {
+        return word.isEmpty() ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    /**
+     * Turns a name into the form TVmaze uses in urls.
+     * @param name is the name.
+     * @return the name in lower case with dashes between words.
+     */
+    private static String slug(final String name) {
+        return name.toLowerCase().replaceAll("[^a-z0-9]+", "-");
+    }
+
+    /**
+     * Checks that a rate is a probability.
+     * @param rate is the rate being checked.
+     * @throws IllegalArgumentException if rate is not between 0 and 1.
+     */
+    private static void checkRate(final double rate) throws IllegalArgumentException {
+
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("Rate must be between 0 and 1");
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TVmazeGeneratorTest {
+
+    /**
+     * Writes one show to a String.
+     * @param generator is the generator writing the show.
+     * @param seriesIndex is which show is written.
+     * @return the show document.
+     * @throws IOException if writing fails.
+     */
+    private static String write(final TVmazeGenerator generator, final int seriesIndex) throws IOException {
+
+        StringWriter output = new StringWriter();
+        generator.writeSeries(seriesIndex, output);
+        return output.toString();
+
+    }
+
+    @Test
+    public void sameSeedWritesSameShowTest() throws IOException {
+        assertEquals(write(new TVmazeGenerator(7), 3), write(new TVmazeGenerator(7), 3));
+    }
+
+    @Test
+    public void differentSeedOrIndexWritesDifferentShowTest() throws IOException {
+
+        String show = write(new TVmazeGenerator(7), 3);
+        assertNotEquals(show, write(new TVmazeGenerator(8), 3));
+        assertNotEquals(show, write(new TVmazeGenerator(7), 4));
+
+    }
+
+    @Test
+    public void constructorAcceptsShowTest() throws IOException {
+
+        TVmazeGenerator generator = new TVmazeGenerator(1).seasons(3).episodesPerSeason(12);
+        JsonObject json = new JsonParser().parse(write(generator, 0)).getAsJsonObject();
+        TVSeries series = new TVSeries(json);
+
+        assertEquals(json.get("name").getAsString(), series.getSeriesName());
+        assertEquals(36, series.totalNumberOfEpisodes());
+        assertEquals(3, series.getEpisodes().length);
+        assertNotNull(series.getEpisode(3, 12).getAirdate());
+        assertTrue(series.minRuntimeOfEpisodes() >= 30);
+
+    }
+
+    @Test
+    public void streamingAndTreeLoadersAgreeTest() throws IOException {
+
+        TVmazeGenerator generator = new TVmazeGenerator(2).missingSummaryRate(0.2).gapRate(0.2);
+        String show = write(generator, 5);
+        TVSeries fromTree = new TVSeries(new JsonParser().parse(show).getAsJsonObject());
+        TVSeries streamed = TVSeries.fromReader(new StringReader(show));
+
+        assertEquals(fromTree.totalNumberOfEpisodes(), streamed.totalNumberOfEpisodes());
+        assertEquals(fromTree.averageRuntimeOfEpisodes(), streamed.averageRuntimeOfEpisodes());
+        assertArrayEquals(fromTree.searchEpisodesByContents("Carrie"), streamed.searchEpisodesByContents("Carrie"));
+
+    }
+
+    @Test
+    public void gapsAndMissingSummariesTest() throws IOException {
+
+        TVmazeGenerator generator = new TVmazeGenerator(3).seasons(10).episodesPerSeason(50)
+                                                          .missingSummaryRate(0.5).gapRate(0.5);
+        TVSeries series = TVSeries.fromReader(new StringReader(write(generator, 0)));
+
+        //Episode 1 of every season is always written, about half of the rest are skipped
+        int episodeCount = series.totalNumberOfEpisodes();
+        assertTrue(episodeCount > 10 + 150 && episodeCount < 10 + 340);
+        int missingSummaries = 0;
+        for (TVSeries.TVEpisode[] season : series.getEpisodes()) {
+            assertNotNull(season[0]);
+            for (TVSeries.TVEpisode episode : season) {
+                if (episode != null && episode.getSummary() == null) {
+                    missingSummaries++;
+                }
+            }
+        }
+        assertTrue(missingSummaries > episodeCount / 4 && missingSummaries < episodeCount * 3 / 4);
+
+        //The static aggregates skip the empty slots and agree with the running statistics
+        assertEquals(series.averageRuntimeOfEpisodes(), TVSeries.averageRuntimeOfEpisodes(series.getEpisodes()));
+        assertEquals(series.maxRuntimeOfEpisodes(), TVSeries.maxRuntimeOfEpisodes(series.getEpisodes()));
+        assertEquals(series.minRuntimeOfEpisodes(), TVSeries.minRuntimeOfEpisodes(series.getEpisodes()));
+        assertEquals(0, TVSeries.averageRuntimeOfEpisodes(new TVSeries.TVEpisode[] {null}));
+        assertEquals(0, TVSeries.minRuntimeOfEpisodes(new TVSeries.TVEpisode[] {null}));
+
+    }
+
+    @Test
+    public void summaryLengthTest() throws IOException {
+
+        TVmazeGenerator generator = new TVmazeGenerator(4).missingSummaryRate(0).summaryWords(200, 0);
+        TVSeries series = TVSeries.fromReader(new StringReader(write(generator, 0)));
+        assertEquals(200, series.getEpisode(1, 1).getSummary().split(" ").length);
+
+    }
+
+    @Test
+    public void writeDirectoryTest() throws IOException, InterruptedException {
+
+        Path directory = Files.createTempDirectory("TVmazeGeneratorTest");
+        try {
+            List<Path> files = new TVmazeGenerator(5).seasons(2).episodesPerSeason(5).writeDirectory(directory, 4);
+            assertEquals(4, files.size());
+
+            SeriesCatalog catalog = new SeriesCatalog();
+            CatalogLoader.Report report = new CatalogLoader(2, 2).load(directory, catalog);
+            assertEquals(4, report.getLoadedCount());
+            assertEquals(40, catalog.totalNumberOfEpisodes());
+        } finally {
+            for (Path file : Files.newDirectoryStream(directory)) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rateOutOfRangeTest() {
+        new TVmazeGenerator(6).gapRate(1.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noSeasonsTest() {
+        new TVmazeGenerator(6).seasons(0);
+    }
+
+}
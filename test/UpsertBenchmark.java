@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+
+/**
+ * Measures how the cost of adding episodes to a TVSeries grows with the number of episodes.
+ * Each size is inserted one episode at a time with addOrReplaceEpisode and as a single batch with
+ * addOrReplaceEpisodes. If inserting is linear, the time per episode stays flat as the size doubles.
+ */
+public class UpsertBenchmark {
+
+    //Episodes per season in the generated series
+    private static final int EPISODES_PER_SEASON = 1000;
+
+    //Number of times each size is inserted, the fastest run is reported
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+
+        int largestSize = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        //Warm up so the JIT has compiled the insert paths before the smallest size is measured
+        fastestRun(largestSize, false);
+        fastestRun(largestSize, true);
+
+        System.out.printf("%10s %18s %18s%n", "episodes", "single ns/episode", "batch ns/episode");
+        for (int size = largestSize / 8; size <= largestSize; size *= 2) {
+            System.out.printf("%10d %18.1f %18.1f%n", size,
+                    (double) fastestRun(size, false) / size, (double) fastestRun(size, true) / size);
+        }
+
+    }
+
+    /**
+     * Inserts a series of the given size several times and returns the fastest time.
+     * @param size is the number of episodes inserted.
+     * @param batch is true to insert all episodes with one addOrReplaceEpisodes call.
+     * @return the fastest run in nanoseconds.
+     */
+    private static long fastestRun(final int size, final boolean batch) {
+
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            TVSeries series = new TVSeries("Benchmark series");
+            ArrayList<TVSeries.TVEpisode> episodes = createEpisodes(series, size);
+
+            long start = System.nanoTime();
+            if (batch) {
+                series.addOrReplaceEpisodes(episodes);
+            } else {
+                for (TVSeries.TVEpisode episode : episodes) {
+                    series.addOrReplaceEpisode(episode);
+                }
+            }
+            //Reading the episodes back is part of the cost since it trims the spare room
+            int total = TVSeries.totalNumberOfEpisodes(series.getEpisodes());
+            fastest = Math.min(fastest, System.nanoTime() - start);
+
+            if (total != size) {
+                throw new IllegalStateException("Expected " + size + " episodes but found " + total);
+            }
+        }
+
+        return fastest;
+
+    }
+
+    /**
+     * Creates episodes numbered in airing order.
+     * @param series is the series the episodes are created for.
+     * @param size is the number of episodes.
+     * @return the episodes.
+     */
+    private static ArrayList<TVSeries.TVEpisode> createEpisodes(final TVSeries series, final int size) {
+
+        ArrayList<TVSeries.TVEpisode> episodes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            TVSeries.TVEpisode episode = series.createNewEpisode();
+            episode.setName("Episode " + i);
+            episode.setSeason(i / EPISODES_PER_SEASON + 1);
+            episode.setNumber(i % EPISODES_PER_SEASON + 1);
+            episode.setRuntimeInMinutes(30 + i % 31);
+            episodes.add(episode);
+        }
+
+        return episodes;
+
+    }
+
+}